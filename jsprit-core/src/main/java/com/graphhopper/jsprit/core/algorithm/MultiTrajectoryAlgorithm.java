@@ -0,0 +1,366 @@
+/*
+ * Licensed to GraphHopper GmbH under one or more contributor
+ * license agreements. See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ *
+ * GraphHopper GmbH licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.graphhopper.jsprit.core.algorithm;
+
+import com.graphhopper.jsprit.core.algorithm.SearchStrategy.DiscoveredSolution;
+import com.graphhopper.jsprit.core.algorithm.listener.IterationEndsListener;
+import com.graphhopper.jsprit.core.algorithm.listener.StrategySelectedListener;
+import com.graphhopper.jsprit.core.algorithm.termination.PrematureAlgorithmTermination;
+import com.graphhopper.jsprit.core.problem.VehicleRoutingProblem;
+import com.graphhopper.jsprit.core.problem.solution.VehicleRoutingProblemSolution;
+import com.graphhopper.jsprit.core.util.RandomNumberGeneration;
+import com.graphhopper.jsprit.core.util.Solutions;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Algorithm that runs a number of independent search trajectories in parallel, one thread per trajectory.
+ * <p>
+ * <p>Each trajectory is a {@link VehicleRoutingAlgorithm} with its own state manager, constraint manager, fleet
+ * manager and random number generator. Every <code>exchangeInterval</code> iterations all trajectories meet at a
+ * barrier and hand their best solution to a shared elite pool. The best solution of the pool (ties are broken by
+ * the lower trajectory index) is then copied into every trajectory that has not found anything as good, where it
+ * replaces the worst solution in memory.
+ * <p>
+ * <p>Since the exchange happens at fixed iterations and each trajectory draws its random numbers from a generator
+ * that is seeded from the random number generator of this algorithm, results are reproducible given the seed
+ * and the number of trajectories - as long as the termination criteria of the trajectories are deterministic
+ * as well (e.g. time-based termination is not).
+ */
+public class MultiTrajectoryAlgorithm {
+
+    /**
+     * Creates the algorithm of a single trajectory.
+     * <p>
+     * <p>Every call must return an algorithm that does not share mutable objects (state manager, constraint manager,
+     * fleet manager, search strategies, acceptors ...) with algorithms created before.
+     */
+    public interface TrajectoryFactory {
+
+        VehicleRoutingAlgorithm createAlgorithm(VehicleRoutingProblem vrp, Random random);
+
+    }
+
+    public static class Builder {
+
+        private final VehicleRoutingProblem vrp;
+
+        private final TrajectoryFactory trajectoryFactory;
+
+        private int noTrajectories = Runtime.getRuntime().availableProcessors();
+
+        private int exchangeInterval = 100;
+
+        private Random random = RandomNumberGeneration.newInstance();
+
+        private ExecutorService executorService;
+
+        public static Builder newInstance(VehicleRoutingProblem vrp, TrajectoryFactory trajectoryFactory) {
+            return new Builder(vrp, trajectoryFactory);
+        }
+
+        private Builder(VehicleRoutingProblem vrp, TrajectoryFactory trajectoryFactory) {
+            this.vrp = vrp;
+            this.trajectoryFactory = trajectoryFactory;
+        }
+
+        /**
+         * Sets the number of trajectories, i.e. the number of threads the algorithm occupies.
+         *
+         * @param noTrajectories number of trajectories
+         * @return this builder
+         */
+        public Builder setNoTrajectories(int noTrajectories) {
+            if (noTrajectories < 1) throw new IllegalArgumentException("number of trajectories must be at least 1");
+            this.noTrajectories = noTrajectories;
+            return this;
+        }
+
+        /**
+         * Sets the number of iterations between two exchanges of best solutions.
+         *
+         * @param exchangeInterval number of iterations
+         * @return this builder
+         */
+        public Builder setExchangeInterval(int exchangeInterval) {
+            if (exchangeInterval < 1) throw new IllegalArgumentException("exchange interval must be at least 1");
+            this.exchangeInterval = exchangeInterval;
+            return this;
+        }
+
+        /**
+         * Sets the random number generator the seeds of the trajectories are drawn from.
+         *
+         * @param random random number generator
+         * @return this builder
+         */
+        public Builder setRandom(Random random) {
+            this.random = random;
+            return this;
+        }
+
+        /**
+         * Sets the executor service the trajectories run in. Since trajectories wait for each other at every
+         * exchange, it must be able to run as many tasks at a time as there are trajectories. It is not shut down by
+         * the algorithm. By default, the algorithm creates a pool with one thread per trajectory that is kept for
+         * subsequent searches and whose threads terminate when idle.
+         *
+         * @param executorService the executor service
+         * @return this builder
+         */
+        public Builder setExecutorService(ExecutorService executorService) {
+            this.executorService = executorService;
+            return this;
+        }
+
+        public MultiTrajectoryAlgorithm build() {
+            return new MultiTrajectoryAlgorithm(this);
+        }
+
+    }
+
+    private static class ElitePool {
+
+        private final VehicleRoutingProblemSolution[] bestSolutions;
+
+        private final VehicleRoutingProblemSolution[] receivedSolutions;
+
+        private Phaser phaser;
+
+        ElitePool(int noTrajectories) {
+            bestSolutions = new VehicleRoutingProblemSolution[noTrajectories];
+            receivedSolutions = new VehicleRoutingProblemSolution[noTrajectories];
+        }
+
+        synchronized void reset() {
+            Arrays.fill(bestSolutions, null);
+            Arrays.fill(receivedSolutions, null);
+            phaser = new Phaser(bestSolutions.length) {
+
+                @Override
+                protected boolean onAdvance(int phase, int registeredParties) {
+                    if (registeredParties == 0) return true;
+                    merge();
+                    return false;
+                }
+
+            };
+        }
+
+        /**
+         * Offers the best solution of the specified trajectory, waits for all other trajectories and returns the
+         * elite solution if it is better than the one offered (or null otherwise).
+         */
+        VehicleRoutingProblemSolution exchange(int trajectory, VehicleRoutingProblemSolution best) {
+            offer(trajectory, best);
+            phaser.arriveAndAwaitAdvance();
+            return take(trajectory);
+        }
+
+        /**
+         * Offers the final best solution of the specified trajectory and removes it from subsequent barriers.
+         */
+        void leave(int trajectory, VehicleRoutingProblemSolution best) {
+            offer(trajectory, best);
+            phaser.arriveAndDeregister();
+        }
+
+        private synchronized void offer(int trajectory, VehicleRoutingProblemSolution best) {
+            bestSolutions[trajectory] = best;
+        }
+
+        private synchronized VehicleRoutingProblemSolution take(int trajectory) {
+            VehicleRoutingProblemSolution received = receivedSolutions[trajectory];
+            receivedSolutions[trajectory] = null;
+            return received;
+        }
+
+        private synchronized void merge() {
+            VehicleRoutingProblemSolution elite = null;
+            for (VehicleRoutingProblemSolution best : bestSolutions) {
+                if (best == null) continue;
+                if (elite == null || best.getCost() < elite.getCost()) elite = best;
+            }
+            if (elite == null) return;
+            for (int t = 0; t < bestSolutions.length; t++) {
+                VehicleRoutingProblemSolution best = bestSolutions[t];
+                if (best == null || elite.getCost() < best.getCost()) {
+                    receivedSolutions[t] = VehicleRoutingProblemSolution.copyOf(elite);
+                }
+            }
+        }
+
+    }
+
+    private static class SolutionExchange implements StrategySelectedListener, IterationEndsListener {
+
+        private final int trajectory;
+
+        private final int exchangeInterval;
+
+        private final ElitePool elitePool;
+
+        private VehicleRoutingProblemSolution bestSolution;
+
+        SolutionExchange(int trajectory, int exchangeInterval, ElitePool elitePool) {
+            this.trajectory = trajectory;
+            this.exchangeInterval = exchangeInterval;
+            this.elitePool = elitePool;
+        }
+
+        void reset() {
+            bestSolution = null;
+        }
+
+        VehicleRoutingProblemSolution getBestSolution() {
+            return bestSolution;
+        }
+
+        @Override
+        public void informSelectedStrategy(DiscoveredSolution discoveredSolution, VehicleRoutingProblem vehicleRoutingProblem, Collection<VehicleRoutingProblemSolution> vehicleRoutingProblemSolutions) {
+            memorizeIfBest(discoveredSolution.getSolution());
+        }
+
+        @Override
+        public void informIterationEnds(int i, VehicleRoutingProblem problem, Collection<VehicleRoutingProblemSolution> solutions) {
+            if (i % exchangeInterval != 0) return;
+            memorizeIfBest(Solutions.bestOf(solutions));
+            VehicleRoutingProblemSolution received = elitePool.exchange(trajectory, bestSolution);
+            if (received == null) return;
+            VehicleRoutingProblemSolution worst = null;
+            for (VehicleRoutingProblemSolution solution : solutions) {
+                if (worst == null || solution.getCost() > worst.getCost()) worst = solution;
+            }
+            if (worst != null) solutions.remove(worst);
+            solutions.add(received);
+            memorizeIfBest(received);
+        }
+
+        private void memorizeIfBest(VehicleRoutingProblemSolution solution) {
+            if (solution == null) return;
+            if (bestSolution == null || solution.getCost() < bestSolution.getCost()) bestSolution = solution;
+        }
+
+    }
+
+    private final static Logger logger = LoggerFactory.getLogger(MultiTrajectoryAlgorithm.class);
+
+    private final List<VehicleRoutingAlgorithm> algorithms = new ArrayList<>();
+
+    private final List<SolutionExchange> exchanges = new ArrayList<>();
+
+    private final ElitePool elitePool;
+
+    private final ExecutorService executorService;
+
+    private volatile boolean stopped;
+
+    private MultiTrajectoryAlgorithm(Builder builder) {
+        elitePool = new ElitePool(builder.noTrajectories);
+        executorService = builder.executorService != null ? builder.executorService : VehicleRoutingAlgorithm.newSearchExecutor("trajectory", builder.noTrajectories);
+        PrematureAlgorithmTermination stop = new PrematureAlgorithmTermination() {
+
+            @Override
+            public boolean isPrematureBreak(DiscoveredSolution discoveredSolution) {
+                return stopped;
+            }
+
+        };
+        for (int t = 0; t < builder.noTrajectories; t++) {
+            Random trajectoryRandom = new Random(builder.random.nextLong());
+            VehicleRoutingAlgorithm algorithm = builder.trajectoryFactory.createAlgorithm(builder.vrp, trajectoryRandom);
+            SolutionExchange exchange = new SolutionExchange(t, builder.exchangeInterval, elitePool);
+            algorithm.addListener(exchange);
+            algorithm.addTerminationCriterion(stop);
+            algorithms.add(algorithm);
+            exchanges.add(exchange);
+        }
+    }
+
+    /**
+     * Returns the algorithms of the trajectories, e.g. to add listeners or termination criteria to them. Termination
+     * criteria should be added rather than set, since setting them removes the criterion that stops a trajectory
+     * when the search is interrupted.
+     *
+     * @return unmodifiable list of algorithms, one per trajectory
+     */
+    public List<VehicleRoutingAlgorithm> getAlgorithms() {
+        return Collections.unmodifiableList(algorithms);
+    }
+
+    /**
+     * Sets max number of iterations of each trajectory.
+     *
+     * @param maxIterations max number of iteration each trajectory runs
+     */
+    public void setMaxIterations(int maxIterations) {
+        for (VehicleRoutingAlgorithm algorithm : algorithms) {
+            algorithm.setMaxIterations(maxIterations);
+        }
+    }
+
+    /**
+     * Runs all trajectories and returns the solutions they generated, in the order of the trajectories.
+     * <p>If the calling thread is interrupted while waiting for the trajectories, they stop at the end of their
+     * current iteration, the interrupt status is restored and a RuntimeException is thrown.</p>
+     *
+     * @return Collection<VehicleRoutingProblemSolution> the solutions
+     */
+    public Collection<VehicleRoutingProblemSolution> searchSolutions() {
+        logger.info("multi-trajectory search starts: [noTrajectories={}]", algorithms.size());
+        elitePool.reset();
+        for (SolutionExchange exchange : exchanges) {
+            exchange.reset();
+        }
+        stopped = false;
+        List<Future<Collection<VehicleRoutingProblemSolution>>> futures = new ArrayList<>();
+        for (int t = 0; t < algorithms.size(); t++) {
+            final int trajectory = t;
+            futures.add(executorService.submit(new Callable<Collection<VehicleRoutingProblemSolution>>() {
+
+                @Override
+                public Collection<VehicleRoutingProblemSolution> call() throws Exception {
+                    try {
+                        return algorithms.get(trajectory).searchSolutions();
+                    } finally {
+                        elitePool.leave(trajectory, exchanges.get(trajectory).getBestSolution());
+                    }
+                }
+
+            }));
+        }
+        Collection<VehicleRoutingProblemSolution> solutions = new ArrayList<>();
+        for (Future<Collection<VehicleRoutingProblemSolution>> future : futures) {
+            try {
+                solutions.addAll(future.get());
+            } catch (InterruptedException e) {
+                stopped = true;
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("multi-trajectory search has been interrupted", e);
+            } catch (ExecutionException e) {
+                stopped = true;
+                throw new RuntimeException(e);
+            }
+        }
+        return solutions;
+    }
+
+}
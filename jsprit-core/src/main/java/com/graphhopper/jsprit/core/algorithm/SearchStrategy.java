@@ -135,16 +135,38 @@ public class SearchStrategy {
      */
     @SuppressWarnings("UnusedParameters")
     public DiscoveredSolution run(VehicleRoutingProblem vrp, Collection<VehicleRoutingProblemSolution> solutions) {
+        VehicleRoutingProblemSolution solution = selectSolution(solutions);
+        VehicleRoutingProblemSolution lastSolution = improve(VehicleRoutingProblemSolution.copyOf(solution));
+        return accept(solutions, lastSolution);
+    }
+
+    /**
+     * Selects a solution from solutions according to {@link com.graphhopper.jsprit.core.algorithm.selector.SolutionSelector}.
+     *
+     * @throws java.lang.IllegalStateException if selector cannot select any solution
+     */
+    VehicleRoutingProblemSolution selectSolution(Collection<VehicleRoutingProblemSolution> solutions) {
         VehicleRoutingProblemSolution solution = solutionSelector.selectSolution(solutions);
         if (solution == null) throw new IllegalStateException(getErrMsg());
-        VehicleRoutingProblemSolution lastSolution = VehicleRoutingProblemSolution.copyOf(solution);
+        return solution;
+    }
+
+    /**
+     * Runs the modules on solution (which is modified) and updates its costs.
+     */
+    VehicleRoutingProblemSolution improve(VehicleRoutingProblemSolution solution) {
+        VehicleRoutingProblemSolution lastSolution = solution;
         for (SearchStrategyModule module : searchStrategyModules) {
             lastSolution = module.runAndGetSolution(lastSolution);
         }
         double costs = solutionCostCalculator.getCosts(lastSolution);
         lastSolution.setCost(costs);
-        boolean solutionAccepted = solutionAcceptor.acceptSolution(solutions, lastSolution);
-        return new DiscoveredSolution(lastSolution, solutionAccepted, getId());
+        return lastSolution;
+    }
+
+    DiscoveredSolution accept(Collection<VehicleRoutingProblemSolution> solutions, VehicleRoutingProblemSolution solution) {
+        boolean solutionAccepted = solutionAcceptor.acceptSolution(solutions, solution);
+        return new DiscoveredSolution(solution, solutionAccepted, getId());
     }
 
     private String getErrMsg() {
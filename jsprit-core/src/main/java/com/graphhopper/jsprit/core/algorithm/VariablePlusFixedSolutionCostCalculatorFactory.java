@@ -47,7 +47,7 @@ public class VariablePlusFixedSolutionCostCalculatorFactory {
             public double getCosts(VehicleRoutingProblemSolution solution) {
                 double c = 0.0;
                 for (VehicleRoute r : solution.getRoutes()) {
-                    c += stateManager.getRouteState(r, InternalStates.COSTS, Double.class);
+                    c += stateManager.getDoubleRouteState(r, InternalStates.COSTS, 0.);
                     c += getFixedCosts(r.getVehicle());
                 }
                 c += solution.getUnassignedJobs().size() * c * .1;
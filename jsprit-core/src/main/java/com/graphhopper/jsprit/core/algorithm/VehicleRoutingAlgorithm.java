@@ -36,7 +36,10 @@ import org.slf4j.LoggerFactory;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
 
 
 /**
@@ -91,6 +94,37 @@ public class VehicleRoutingAlgorithm {
         }
     }
 
+    private static class SpeculativeIteration implements Callable<VehicleRoutingProblemSolution> {
+
+        private final VehicleRoutingAlgorithm worker;
+
+        private final String strategyId;
+
+        private final int iteration;
+
+        private final VehicleRoutingProblemSolution solution;
+
+        SpeculativeIteration(VehicleRoutingAlgorithm worker, String strategyId, int iteration, VehicleRoutingProblemSolution solution) {
+            this.worker = worker;
+            this.strategyId = strategyId;
+            this.iteration = iteration;
+            this.solution = solution;
+        }
+
+        @Override
+        public VehicleRoutingProblemSolution call() {
+            Collection<VehicleRoutingProblemSolution> workerSolutions = new ArrayList<>();
+            workerSolutions.add(solution);
+            worker.iterationStarts(iteration, worker.problem, workerSolutions);
+            VehicleRoutingProblemSolution discovered = worker.getSearchStrategyManager().getStrategy(strategyId).improve(solution);
+            workerSolutions.clear();
+            workerSolutions.add(discovered);
+            worker.iterationEnds(iteration, worker.problem, workerSolutions);
+            return discovered;
+        }
+
+    }
+
     private final static Logger logger = LoggerFactory.getLogger(VehicleRoutingAlgorithm.class);
 
     private final Counter counter = new Counter("iterations ");
@@ -111,6 +145,10 @@ public class VehicleRoutingAlgorithm {
 
     private final SolutionCostCalculator objectiveFunction;
 
+    private final List<VehicleRoutingAlgorithm> speculativeWorkers = new ArrayList<>();
+
+    private ExecutorService speculativeExecutor;
+
     public VehicleRoutingAlgorithm(VehicleRoutingProblem problem, SearchStrategyManager searchStrategyManager) {
         super();
         this.problem = problem;
@@ -180,6 +218,71 @@ public class VehicleRoutingAlgorithm {
         //        }
     }
 
+    /**
+     * Lets the algorithm run as many ruin-and-recreate iterations concurrently as there are workers. In each iteration
+     * the strategy (and the solution it selects) is still determined by this algorithm, but the modules of that
+     * strategy are run by the worker's strategy with the same id on a copy of the selected solution. The
+     * discovered solutions are then passed to the acceptor of this algorithm in a fixed order, thus given the same
+     * workers results are reproducible.
+     * <p>
+     * <p>Each worker must be an algorithm with its own state manager, constraint manager, fleet manager and random
+     * number generator. Of a worker, only the search strategy modules, the iteration listeners and the algorithm ends
+     * listeners (to release resources) are used. Note that search strategy (module) listeners of this algorithm are
+     * not informed about the modules run by workers.
+     *
+     * <p>The iterations are run by a pool with one thread per worker that is created here and kept for subsequent
+     * searches. Its threads terminate when idle.</p>
+     *
+     * @param workers the algorithms running the modules, one per concurrent iteration
+     * @throws java.lang.IllegalStateException if a worker does not know a strategy of this algorithm
+     */
+    public void setSpeculativeWorkers(Collection<VehicleRoutingAlgorithm> workers) {
+        setSpeculativeWorkers(workers, newSearchExecutor("speculative-iteration", Math.max(1, workers.size())));
+    }
+
+    /**
+     * Lets the algorithm run as many ruin-and-recreate iterations concurrently as there are workers (see
+     * {@link #setSpeculativeWorkers(Collection)}), with the threads of the specified executor service. It is not shut
+     * down by the algorithm.
+     *
+     * @param workers         the algorithms running the modules, one per concurrent iteration
+     * @param executorService the executor service running the iterations
+     * @throws java.lang.IllegalStateException if a worker does not know a strategy of this algorithm
+     */
+    public void setSpeculativeWorkers(Collection<VehicleRoutingAlgorithm> workers, ExecutorService executorService) {
+        for (VehicleRoutingAlgorithm worker : workers) {
+            for (SearchStrategy strategy : searchStrategyManager.getStrategies()) {
+                if (worker.getSearchStrategyManager().getStrategy(strategy.getId()) == null)
+                    throw new IllegalStateException("speculative worker does not know strategy " + strategy.getId());
+            }
+        }
+        speculativeWorkers.clear();
+        speculativeWorkers.addAll(workers);
+        speculativeExecutor = executorService;
+    }
+
+    /*
+     * creates a pool with noThreads daemon threads that terminate when idle, i.e. it can be kept by an algorithm for
+     * subsequent searches without holding threads in between or keeping the jvm alive
+     */
+    static ExecutorService newSearchExecutor(final String name, int noThreads) {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(noThreads, noThreads, 60L, TimeUnit.SECONDS,
+            new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+
+            private final AtomicInteger noThreadsCreated = new AtomicInteger();
+
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, name + "-" + noThreadsCreated.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+
+        });
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
     /**
      * Sets premature termination and overrides existing termination criteria. If existing ones should not be
      * overridden use <code>.addTerminationCriterion(...)</code>.
@@ -232,23 +335,20 @@ public class VehicleRoutingAlgorithm {
             log(solutions);
         }
         logger.info("iterations start");
-        for (int i = 0; i < maxIterations; i++) {
-            iterationStarts(i + 1, problem, solutions);
-            logger.debug("start iteration: {}", i);
-            counter.incCounter();
-            SearchStrategy strategy = searchStrategyManager.getRandomStrategy();
-            DiscoveredSolution discoveredSolution = strategy.run(problem, solutions);
-            if (logger.isTraceEnabled()) {
-                log(discoveredSolution);
-            }
-            memorizeIfBestEver(discoveredSolution);
-            selectedStrategy(discoveredSolution, problem, solutions);
-            if (terminationManager.isPrematureBreak(discoveredSolution)) {
-                logger.info("premature algorithm termination at iteration {}", (i + 1));
-                noIterationsThisAlgoIsRunning = (i + 1);
-                break;
+        if (speculativeWorkers.isEmpty()) {
+            for (int i = 0; i < maxIterations; i++) {
+                iterationStarts(i + 1, problem, solutions);
+                logger.debug("start iteration: {}", i);
+                counter.incCounter();
+                SearchStrategy strategy = searchStrategyManager.getRandomStrategy();
+                DiscoveredSolution discoveredSolution = strategy.run(problem, solutions);
+                if (endIteration(i + 1, discoveredSolution, solutions)) {
+                    noIterationsThisAlgoIsRunning = (i + 1);
+                    break;
+                }
             }
-            iterationEnds(i + 1, problem, solutions);
+        } else {
+            noIterationsThisAlgoIsRunning = searchSpeculatively(solutions);
         }
         logger.info("iterations end at {} iterations", noIterationsThisAlgoIsRunning);
         addBestEver(solutions);
@@ -257,6 +357,101 @@ public class VehicleRoutingAlgorithm {
         return solutions;
     }
 
+    /**
+     * Runs the iterations in rounds. In each round, as many strategies are drawn as there are speculative workers,
+     * each worker runs the modules of the drawn strategy on its own copy of the selected solution, and the
+     * discovered solutions are then passed to the acceptor one after another in the order the strategies were drawn.
+     * <p>As in the sequential search, iteration start listeners are informed about an iteration right before its
+     * strategy and solution are drawn. However, since all iterations of a round are started before the first of them
+     * is accepted, the iteration end listeners of a round's iterations are only informed after all its iterations have
+     * been started. If the algorithm terminates prematurely, the remaining iterations of the round have been started
+     * without being ended.</p>
+     *
+     * @return number of iterations run
+     */
+    private int searchSpeculatively(Collection<VehicleRoutingProblemSolution> solutions) {
+        ExecutorService executorService = speculativeExecutor;
+        List<Future<VehicleRoutingProblemSolution>> futures = new ArrayList<>();
+        try {
+            int i = 0;
+            while (i < maxIterations) {
+                int noSpeculations = Math.min(speculativeWorkers.size(), maxIterations - i);
+                List<SearchStrategy> strategies = new ArrayList<>(noSpeculations);
+                futures.clear();
+                for (int k = 0; k < noSpeculations; k++) {
+                    iterationStarts(i + k + 1, problem, solutions);
+                    logger.debug("start iteration: {}", i + k);
+                    SearchStrategy strategy = searchStrategyManager.getRandomStrategy();
+                    strategies.add(strategy);
+                    VehicleRoutingProblemSolution solution = VehicleRoutingProblemSolution.copyOf(strategy.selectSolution(solutions));
+                    futures.add(executorService.submit(new SpeculativeIteration(speculativeWorkers.get(k), strategy.getId(), i + k + 1, solution)));
+                }
+                for (int k = 0; k < noSpeculations; k++) {
+                    i++;
+                    counter.incCounter();
+                    DiscoveredSolution discoveredSolution = strategies.get(k).accept(solutions, getSolution(futures.get(k)));
+                    if (endIteration(i, discoveredSolution, solutions)) {
+                        return i;
+                    }
+                }
+            }
+            return i;
+        } finally {
+            awaitOrCancel(futures);
+            for (VehicleRoutingAlgorithm worker : speculativeWorkers) {
+                worker.algorithmEnds(problem, new ArrayList<VehicleRoutingProblemSolution>());
+            }
+        }
+    }
+
+    /*
+     * cancels the iterations that have not started yet and waits for the running ones, i.e. workers are idle afterwards
+     * (unless the calling thread is interrupted)
+     */
+    private void awaitOrCancel(List<Future<VehicleRoutingProblemSolution>> futures) {
+        for (Future<VehicleRoutingProblemSolution> future : futures) {
+            if (future.cancel(false)) continue;
+            try {
+                future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (ExecutionException | CancellationException e) {
+                //already reported by getSolution(...) or not of interest once the search stops
+            }
+        }
+    }
+
+    private VehicleRoutingProblemSolution getSolution(Future<VehicleRoutingProblemSolution> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Informs listeners about the discovered solution and ends the iteration.
+     *
+     * @return true if the algorithm terminates prematurely
+     */
+    private boolean endIteration(int i, DiscoveredSolution discoveredSolution, Collection<VehicleRoutingProblemSolution> solutions) {
+        if (logger.isTraceEnabled()) {
+            log(discoveredSolution);
+        }
+        memorizeIfBestEver(discoveredSolution);
+        selectedStrategy(discoveredSolution, problem, solutions);
+        if (terminationManager.isPrematureBreak(discoveredSolution)) {
+            logger.info("premature algorithm termination at iteration {}", i);
+            return true;
+        }
+        iterationEnds(i, problem, solutions);
+        return false;
+    }
+
     private void addBestEver(Collection<VehicleRoutingProblemSolution> solutions) {
         if (bestEver != null) {
             solutions.add(bestEver);
@@ -73,6 +73,10 @@ class ConcurrentInsertionNoiseMaker implements SoftActivityConstraint, Iteration
         return 0;
     }
 
+    boolean isMakingNoise() {
+        return makeNoise;
+    }
+
     public void setRandom(Random random) {
         this.random = random;
     }
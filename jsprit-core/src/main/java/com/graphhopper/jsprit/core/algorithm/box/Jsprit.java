@@ -18,6 +18,7 @@
 
 package com.graphhopper.jsprit.core.algorithm.box;
 
+import com.graphhopper.jsprit.core.algorithm.MultiTrajectoryAlgorithm;
 import com.graphhopper.jsprit.core.algorithm.PrettyAlgorithmBuilder;
 import com.graphhopper.jsprit.core.algorithm.SearchStrategy;
 import com.graphhopper.jsprit.core.algorithm.SearchStrategyModule;
@@ -30,6 +31,7 @@ import com.graphhopper.jsprit.core.algorithm.module.RuinAndRecreateModule;
 import com.graphhopper.jsprit.core.algorithm.recreate.*;
 import com.graphhopper.jsprit.core.algorithm.ruin.*;
 import com.graphhopper.jsprit.core.algorithm.ruin.distance.AvgServiceAndShipmentDistance;
+import com.graphhopper.jsprit.core.algorithm.ruin.distance.JobDistance;
 import com.graphhopper.jsprit.core.algorithm.selector.SelectBest;
 import com.graphhopper.jsprit.core.algorithm.state.StateManager;
 import com.graphhopper.jsprit.core.problem.VehicleRoutingProblem;
@@ -49,6 +51,7 @@ import com.graphhopper.jsprit.core.util.Solutions;
 import java.util.*;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
 
 
 public class Jsprit {
@@ -100,6 +103,9 @@ public class Jsprit {
         FIXED_COST_PARAM("fixed_cost_param"), VEHICLE_SWITCH("vehicle_switch"), REGRET_TIME_WINDOW_SCORER("regret.tw_scorer"),
         REGRET_DISTANCE_SCORER("regret.distance_scorer"), INITIAL_THRESHOLD("initial_threshold"), ITERATIONS("iterations"),
         THREADS("threads"),
+        TRAJECTORIES("trajectories"),
+        TRAJECTORY_EXCHANGE_INTERVAL("trajectories.exchange_interval"),
+        SPECULATIVE_ITERATIONS("speculative_iterations"),
         RANDOM_REGRET_MIN_SHARE("random_regret.min_share"),
         RANDOM_REGRET_MAX_SHARE("random_regret.max_share"),
         RANDOM_BEST_MIN_SHARE("random_best.min_share"),
@@ -121,6 +127,7 @@ public class Jsprit {
         MAX_TRANSPORT_COSTS("max_transport_costs"),
         CONSTRUCTION("construction"),
         BREAK_SCHEDULING("break_scheduling"),
+        SPATIAL_INDEX("spatial_index"),
         STRING_K_MIN("string_kmin"),
         STRING_K_MAX("string_kmax"),
         STRING_L_MIN("string_lmin"),
@@ -212,6 +219,9 @@ public class Jsprit {
             defaults.put(Parameter.REGRET_DISTANCE_SCORER.toString(), ".05");
             defaults.put(Parameter.REGRET_TIME_WINDOW_SCORER.toString(), "-.1");
             defaults.put(Parameter.THREADS.toString(), "1");
+            defaults.put(Parameter.TRAJECTORIES.toString(), "1");
+            defaults.put(Parameter.TRAJECTORY_EXCHANGE_INTERVAL.toString(), "100");
+            defaults.put(Parameter.SPECULATIVE_ITERATIONS.toString(), "1");
             int minShare = (int) Math.min(20, Math.max(3, vrp.getJobs().size() * 0.05));
             int maxShare = (int) Math.min(50, Math.max(5, vrp.getJobs().size() * 0.3));
             defaults.put(Parameter.RADIAL_MIN_SHARE.toString(), String.valueOf(minShare));
@@ -311,7 +321,133 @@ public class Jsprit {
         }
 
         public VehicleRoutingAlgorithm buildAlgorithm() {
-            return new Jsprit(this).create(vrp);
+            if (getNoSpeculativeIterations() <= 1) {
+                return new Jsprit(this).create(vrp);
+            }
+            assertNothingShared();
+            ExecutorService insertionExecutor = createSharedExecutor();
+            VehicleRoutingAlgorithm vra = buildAlgorithm(random, createSharedJobNeighborhoods(insertionExecutor), insertionExecutor);
+            shutdownWhenAllEnd(insertionExecutor, new AtomicInteger(1), vra);
+            return vra;
+        }
+
+        /**
+         * Builds an algorithm that runs <code>Parameter.TRAJECTORIES</code> independent trajectories in parallel and
+         * exchanges their best solutions every <code>Parameter.TRAJECTORY_EXCHANGE_INTERVAL</code> iterations. Each
+         * trajectory is configured like the algorithm returned by {@link #buildAlgorithm()} but gets its own state
+         * manager, constraint manager, fleet manager and random number generator (seeded from the random number
+         * generator of this builder). Objective function, activity insertion calculator and regret scorer are shared
+         * and thus need to be thread-safe.
+         * <p>If <code>Parameter.THREADS</code> is greater than 1, the concurrent insertion strategies of all trajectories
+         * share one executor with that many threads (or the executor that has been set), i.e. the number of insertion
+         * threads does not multiply with the number of trajectories.</p>
+         *
+         * @return the multi-trajectory algorithm
+         */
+        public MultiTrajectoryAlgorithm buildMultiTrajectoryAlgorithm() {
+            assertNothingShared();
+            final int noTrajectories = Integer.valueOf(properties.getProperty(Parameter.TRAJECTORIES.toString()));
+            final ExecutorService insertionExecutor = createSharedExecutor();
+            final JobNeighborhoods jobNeighborhoods = createSharedJobNeighborhoods(insertionExecutor);
+            final AtomicInteger noRunningTrajectories = new AtomicInteger(noTrajectories);
+            return MultiTrajectoryAlgorithm.Builder.newInstance(vrp, new MultiTrajectoryAlgorithm.TrajectoryFactory() {
+
+                @Override
+                public VehicleRoutingAlgorithm createAlgorithm(VehicleRoutingProblem vrp, Random random) {
+                    VehicleRoutingAlgorithm vra = buildAlgorithm(random, jobNeighborhoods, insertionExecutor);
+                    shutdownWhenAllEnd(insertionExecutor, noRunningTrajectories, vra);
+                    return vra;
+                }
+
+            })
+                .setNoTrajectories(noTrajectories)
+                .setExchangeInterval(Integer.valueOf(properties.getProperty(Parameter.TRAJECTORY_EXCHANGE_INTERVAL.toString())))
+                .setRandom(random)
+                .build();
+        }
+
+        /**
+         * Builds the algorithm with the specified random number generator. If <code>Parameter.SPECULATIVE_ITERATIONS</code>
+         * is greater than 1, it gets as many speculative workers, each with a random number generator seeded from random.
+         * Iteration start listeners are informed about each speculative iteration before its strategy is drawn, but the
+         * iteration end listeners of a round's iterations only after all iterations of the round have been started.
+         * <p>The algorithm and its workers use the specified executor for concurrent insertion, i.e. they share its
+         * threads instead of creating Parameter.THREADS threads each. If it is null, they insert sequentially.</p>
+         */
+        private VehicleRoutingAlgorithm buildAlgorithm(Random random, JobNeighborhoods jobNeighborhoods, ExecutorService insertionExecutor) {
+            int noSpeculativeIterations = getNoSpeculativeIterations();
+            long[] seeds = new long[noSpeculativeIterations > 1 ? noSpeculativeIterations : 0];
+            for (int k = 0; k < seeds.length; k++) {
+                seeds[k] = random.nextLong();
+            }
+            VehicleRoutingAlgorithm vra = new Jsprit(this, random, jobNeighborhoods, insertionExecutor).create(vrp);
+            if (seeds.length > 0) {
+                List<VehicleRoutingAlgorithm> workers = new ArrayList<>();
+                for (long seed : seeds) {
+                    workers.add(new Jsprit(this, new Random(seed), jobNeighborhoods, insertionExecutor).create(vrp));
+                }
+                vra.setSpeculativeWorkers(workers);
+            }
+            return vra;
+        }
+
+        /*
+         * returns the executor that is shared by the concurrent insertion strategies of parallel searches, i.e. the one
+         * that has been set, a new one with Parameter.THREADS threads, or null if insertion is sequential
+         */
+        private ExecutorService createSharedExecutor() {
+            if (es != null) return es;
+            int noThreads = Integer.valueOf(properties.getProperty(Parameter.THREADS.toString()));
+            if (noThreads <= 1) return null;
+            return Executors.newFixedThreadPool(noThreads);
+        }
+
+        /*
+         * creates the neighborhoods that are shared by parallel searches with the threads of the shared executor or,
+         * if insertion is sequential, with a temporary executor that has as many threads as there are processors.
+         * parallel searches query the transport costs concurrently anyway, i.e. they need to be thread-safe already
+         */
+        private JobNeighborhoods createSharedJobNeighborhoods(ExecutorService sharedExecutor) {
+            if (sharedExecutor != null) {
+                int noSharedThreads = sharedExecutor == es ? noThreads : Integer.valueOf(properties.getProperty(Parameter.THREADS.toString()));
+                return createJobNeighborhoods(vrp, properties, sharedExecutor, noSharedThreads);
+            }
+            int noProcessors = Runtime.getRuntime().availableProcessors();
+            if (noProcessors <= 1) return createJobNeighborhoods(vrp, properties, null, 1);
+            ExecutorService neighborhoodExecutor = Executors.newFixedThreadPool(noProcessors);
+            try {
+                return createJobNeighborhoods(vrp, properties, neighborhoodExecutor, noProcessors);
+            } finally {
+                neighborhoodExecutor.shutdown();
+            }
+        }
+
+        /*
+         * shuts down the specified executor (unless it has been set) when the last of the algorithms sharing it ends
+         */
+        private void shutdownWhenAllEnd(final ExecutorService insertionExecutor, final AtomicInteger noRunningAlgorithms, VehicleRoutingAlgorithm vra) {
+            if (insertionExecutor == null || insertionExecutor == es) return;
+            vra.addListener(new AlgorithmEndsListener() {
+
+                @Override
+                public void informAlgorithmEnds(VehicleRoutingProblem problem, Collection<VehicleRoutingProblemSolution> solutions) {
+                    if (noRunningAlgorithms.decrementAndGet() == 0) insertionExecutor.shutdown();
+                }
+
+            });
+        }
+
+        private int getNoSpeculativeIterations() {
+            return Integer.valueOf(properties.getProperty(Parameter.SPECULATIVE_ITERATIONS.toString()));
+        }
+
+        private void assertNothingShared() {
+            if (stateManager != null || constraintManager != null)
+                throw new IllegalStateException("state and constraint manager cannot be shared by parallel searches. each search creates its own.");
+            if (fleetManager != null)
+                throw new IllegalStateException("fleet manager cannot be shared by parallel searches. each search creates its own.");
+            if (solutionAcceptor != null || !customStrategies.isEmpty())
+                throw new IllegalStateException("custom acceptors and search strategies cannot be shared by parallel searches.");
         }
 
     }
@@ -378,6 +514,8 @@ public class Jsprit {
 
     private VehicleFleetManager vehicleFleetManager;
 
+    private JobNeighborhoods jobNeighborhoods;
+
     private Jsprit(Builder builder) {
         this.stateManager = builder.stateManager;
         this.constraintManager = builder.constraintManager;
@@ -394,6 +532,14 @@ public class Jsprit {
         vehicleFleetManager = builder.fleetManager;
     }
 
+    private Jsprit(Builder builder, Random random, JobNeighborhoods jobNeighborhoods, ExecutorService insertionExecutor) {
+        this(builder);
+        this.random = random;
+        this.jobNeighborhoods = jobNeighborhoods;
+        this.es = insertionExecutor;
+        if (insertionExecutor == null) this.noThreads = 1;
+    }
+
     private void ini(VehicleRoutingProblem vrp) {
         if (regretScorer == null) regretScorer = getRegretScorer(vrp);
     }
@@ -411,6 +557,8 @@ public class Jsprit {
 
         if (stateManager == null) {
             stateManager = new StateManager(vrp);
+            //only core updaters, which are route-local, are registered with a state manager created here
+            stateManager.setKeepStatesOfUnchangedRoutes(true);
         }
         if (constraintManager == null) {
             constraintManager = new ConstraintManager(vrp, stateManager);
@@ -437,23 +585,31 @@ public class Jsprit {
         double noiseLevel = toDouble(getProperty(Parameter.INSERTION_NOISE_LEVEL.toString()));
         double noiseProbability = toDouble(getProperty(Parameter.INSERTION_NOISE_PROB.toString()));
 
-        JobNeighborhoods jobNeighborhoods = new JobNeighborhoodsFactory().createNeighborhoods(vrp, new AvgServiceAndShipmentDistance(vrp.getTransportCosts()), (int) (vrp.getJobs().values().size() * 0.5));
-        jobNeighborhoods.initialise();
+        if (jobNeighborhoods == null) {
+            jobNeighborhoods = createJobNeighborhoods(vrp, properties, es, noThreads);
+        }
 
         final double maxCosts;
         if(properties.containsKey(Parameter.MAX_TRANSPORT_COSTS.toString())){
             maxCosts = Double.parseDouble(getProperty(Parameter.MAX_TRANSPORT_COSTS.toString()));
         }
+        else if (jobNeighborhoods instanceof JobNeighborhoodsSpatialIndex) {
+            //the spatial index measures distances between coordinates, whereas noise and penalties are transport costs
+            List<Job> farthestJobs = ((JobNeighborhoodsSpatialIndex) jobNeighborhoods).getFarthestJobs();
+            maxCosts = farthestJobs.isEmpty() ? 0. : new AvgServiceAndShipmentDistance(vrp.getTransportCosts()).getDistance(farthestJobs.get(0), farthestJobs.get(1));
+        }
         else{
             maxCosts = jobNeighborhoods.getMaxDistance();
         }
 
         IterationStartsListener noiseConfigurator;
+        ConcurrentInsertionNoiseMaker concurrentNoiseMaker = null;
         if (noThreads > 1) {
             ConcurrentInsertionNoiseMaker noiseMaker = new ConcurrentInsertionNoiseMaker(vrp, maxCosts, noiseLevel, noiseProbability);
             noiseMaker.setRandom(random);
             constraintManager.addConstraint(noiseMaker);
             noiseConfigurator = noiseMaker;
+            concurrentNoiseMaker = noiseMaker;
         } else {
             InsertionNoiseMaker noiseMaker = new InsertionNoiseMaker(vrp, maxCosts, noiseLevel, noiseProbability);
             noiseMaker.setRandom(random);
@@ -517,6 +673,11 @@ public class Jsprit {
         stringRuin.setStringLength(lMin, lMax);
         stringRuin.setRandom(random);
 
+        //ruin strategies share the index of the string ruin such that unchanged routes are indexed only once
+        for (AbstractRuinStrategy ruin : Arrays.asList(radial, random_for_regret, random_for_best, worst, clusters)) {
+            ruin.setSolutionIndex(stringRuin.getSolutionIndex());
+        }
+
         AbstractInsertionStrategy regret;
         final ScoringFunction scorer;
 
@@ -577,6 +738,7 @@ public class Jsprit {
         regret.setRandom(random);
 
         AbstractInsertionStrategy best;
+        IterationStartsListener insertionDataCaching = null;
         if (vrp.getJobs().size() < 250 || es == null) {
             BestInsertion bestInsertion = (BestInsertion) new InsertionStrategyBuilder(vrp, vehicleFleetManager, stateManager, constraintManager)
                 .setInsertionStrategy(InsertionStrategyBuilder.Strategy.BEST)
@@ -593,6 +755,9 @@ public class Jsprit {
                 .setConcurrentMode(es, noThreads)
                 .setActivityInsertionCostCalculator(activityInsertion)
                 .build();
+            bestInsertion.setDependencyTypes(constraintManager.getDependencyTypes());
+            bestInsertion.setInsertionDataCaching(fixedCostParam == 0d);
+            insertionDataCaching = insertionDataCaching(bestInsertion, concurrentNoiseMaker, fixedCostParam > 0d);
             best = bestInsertion;
         }
         best.setRandom(random);
@@ -677,6 +842,7 @@ public class Jsprit {
             vra.addListener(schrimpfThreshold);
         }
         vra.addListener(noiseConfigurator);
+        if (insertionDataCaching != null) vra.addListener(insertionDataCaching);
         vra.addListener(noise);
         vra.addListener(clusters);
         if (increasingAbsoluteFixedCosts != null) vra.addListener(increasingAbsoluteFixedCosts);
@@ -691,6 +857,38 @@ public class Jsprit {
 
     }
 
+    /**
+     * Creates the neighborhoods of radial, cluster and string ruins. If <code>Parameter.SPATIAL_INDEX</code> is set to
+     * one of the metrics of {@link JobNeighborhoodsSpatialIndex.Metric}, neighbors are taken from a spatial index over
+     * job coordinates instead of a precomputed table of transport costs. The table is calculated with the threads of
+     * the specified executor service if there is one, i.e. transport costs must then be thread-safe (as they already
+     * need to be for concurrent insertion).
+     */
+    private static JobNeighborhoods createJobNeighborhoods(VehicleRoutingProblem vrp, Properties properties, ExecutorService es, int noThreads) {
+        String spatialIndex = properties.getProperty(Parameter.SPATIAL_INDEX.toString());
+        JobNeighborhoods jobNeighborhoods;
+        if (spatialIndex != null) {
+            jobNeighborhoods = new JobNeighborhoodsFactory().createNeighborhoods(vrp, getMetric(spatialIndex));
+        } else {
+            JobDistance jobDistance = new AvgServiceAndShipmentDistance(vrp.getTransportCosts());
+            int capacity = (int) (vrp.getJobs().values().size() * 0.5);
+            if (es != null && noThreads > 1) {
+                jobNeighborhoods = new JobNeighborhoodsFactory().createNeighborhoods(vrp, jobDistance, capacity, es, noThreads);
+            } else {
+                jobNeighborhoods = new JobNeighborhoodsFactory().createNeighborhoods(vrp, jobDistance, capacity);
+            }
+        }
+        jobNeighborhoods.initialise();
+        return jobNeighborhoods;
+    }
+
+    private static JobNeighborhoodsSpatialIndex.Metric getMetric(String name) {
+        for (JobNeighborhoodsSpatialIndex.Metric metric : JobNeighborhoodsSpatialIndex.Metric.values()) {
+            if (metric.toString().equals(name)) return metric;
+        }
+        throw new IllegalArgumentException("unknown spatial index metric " + name + ". use " + Arrays.toString(JobNeighborhoodsSpatialIndex.Metric.values()));
+    }
+
     private SearchStrategyModule configureModule(RuinAndRecreateModule ruinAndRecreateModule) {
         ruinAndRecreateModule.setRandom(random);
         ruinAndRecreateModule.setMinUnassignedJobsToBeReinserted(Integer.valueOf(properties.getProperty(Parameter.MIN_UNASSIGNED.toString())));
@@ -706,6 +904,23 @@ public class Jsprit {
     }
 
 
+    /**
+     * Insertion data can only be cached if insertion costs solely depend on the route a job is inserted into, i.e.
+     * neither in noisy iterations nor if fixed costs depend on the completeness of the solution. Must be informed
+     * after the noise maker.
+     */
+    private static IterationStartsListener insertionDataCaching(final BestInsertionConcurrent bestInsertion, final ConcurrentInsertionNoiseMaker noiseMaker, final boolean solutionDependentFixedCosts) {
+        return new IterationStartsListener() {
+
+            @Override
+            public void informIterationStarts(int i, VehicleRoutingProblem problem, Collection<VehicleRoutingProblemSolution> solutions) {
+                boolean noisy = noiseMaker != null && noiseMaker.isMakingNoise();
+                bestInsertion.setInsertionDataCaching(!noisy && !solutionDependentFixedCosts);
+            }
+
+        };
+    }
+
     private void handleExecutorShutdown(VehicleRoutingAlgorithm vra) {
         if (setupExecutorInternally) {
             final Thread hook = new Thread() {
@@ -26,8 +26,6 @@ import com.graphhopper.jsprit.core.problem.constraint.HardRouteConstraint;
 import com.graphhopper.jsprit.core.problem.misc.JobInsertionContext;
 import com.graphhopper.jsprit.core.problem.solution.route.activity.TourActivity;
 
-import java.util.ArrayList;
-import java.util.Collection;
 import java.util.List;
 
 /**
@@ -46,40 +44,44 @@ abstract class AbstractInsertionCalculator implements JobInsertionCostsCalculato
         return null;
     }
 
-    ConstraintsStatus fulfilled(JobInsertionContext iFacts, TourActivity prevAct, TourActivity newAct, TourActivity nextAct, double prevActDepTime, Collection<HardConstraint> failedActivityConstraints, ConstraintManager constraintManager) {
+    ConstraintsStatus fulfilled(JobInsertionContext iFacts, TourActivity prevAct, TourActivity newAct, TourActivity nextAct, double prevActDepTime, List<HardConstraint> failedActivityConstraints, ConstraintManager constraintManager) {
+        /*
+        constraints that are not fulfilled are directly added to failedActivityConstraints. if a subsequent constraint
+        breaks, they are removed again such that only the breaking constraint is reported
+         */
+        int noFailedBefore = failedActivityConstraints.size();
         ConstraintsStatus notFulfilled = null;
-        List<HardConstraint> failed = new ArrayList<>();
         for (HardActivityConstraint c : constraintManager.getCriticalHardActivityConstraints()) {
             ConstraintsStatus status = c.fulfilled(iFacts, prevAct, newAct, nextAct, prevActDepTime);
             if (status.equals(ConstraintsStatus.NOT_FULFILLED_BREAK)) {
+                truncate(failedActivityConstraints, noFailedBefore);
                 failedActivityConstraints.add(c);
                 return status;
             } else {
                 if (status.equals(ConstraintsStatus.NOT_FULFILLED)) {
-                    failed.add(c);
+                    failedActivityConstraints.add(c);
                     notFulfilled = status;
                 }
             }
         }
         if (notFulfilled != null) {
-            failedActivityConstraints.addAll(failed);
             return notFulfilled;
         }
 
         for (HardActivityConstraint c : constraintManager.getHighPrioHardActivityConstraints()) {
             ConstraintsStatus status = c.fulfilled(iFacts, prevAct, newAct, nextAct, prevActDepTime);
             if (status.equals(ConstraintsStatus.NOT_FULFILLED_BREAK)) {
+                truncate(failedActivityConstraints, noFailedBefore);
                 failedActivityConstraints.add(c);
                 return status;
             } else {
                 if (status.equals(ConstraintsStatus.NOT_FULFILLED)) {
-                    failed.add(c);
+                    failedActivityConstraints.add(c);
                     notFulfilled = status;
                 }
             }
         }
         if (notFulfilled != null) {
-            failedActivityConstraints.addAll(failed);
             return notFulfilled;
         }
 
@@ -93,4 +95,8 @@ abstract class AbstractInsertionCalculator implements JobInsertionCostsCalculato
         return ConstraintsStatus.FULFILLED;
     }
 
+    private static void truncate(List<HardConstraint> list, int size) {
+        while (list.size() > size) list.remove(list.size() - 1);
+    }
+
 }
@@ -17,6 +17,8 @@
  */
 package com.graphhopper.jsprit.core.algorithm.recreate;
 
+import com.graphhopper.jsprit.core.problem.cost.TransportCostsHolder;
+import com.graphhopper.jsprit.core.problem.cost.TransportCostsQueries;
 import com.graphhopper.jsprit.core.problem.cost.VehicleRoutingActivityCosts;
 import com.graphhopper.jsprit.core.problem.cost.VehicleRoutingTransportCosts;
 import com.graphhopper.jsprit.core.problem.driver.Driver;
@@ -57,6 +59,7 @@ final class AuxilliaryCostCalculator {
         double startCost = 0.0;
         cost += startCost;
         double departureTimePrevAct = depTime;
+        TransportCostsHolder transport = new TransportCostsHolder();
         while (actIter.hasNext()) {
             TourActivity act = actIter.next();
             if (act instanceof End) {
@@ -64,8 +67,9 @@ final class AuxilliaryCostCalculator {
                     return cost;
                 }
             }
-            double transportCost = routingCosts.getTransportCost(prevAct.getLocation(), act.getLocation(), departureTimePrevAct, driver, vehicle);
-            double transportTime = routingCosts.getTransportTime(prevAct.getLocation(), act.getLocation(), departureTimePrevAct, driver, vehicle);
+            TransportCostsQueries.getTransportTimeAndCost(routingCosts, prevAct.getLocation(), act.getLocation(), departureTimePrevAct, driver, vehicle, transport);
+            double transportCost = transport.getTransportCost();
+            double transportTime = transport.getTransportTime();
             cost += transportCost;
             double actStartTime = departureTimePrevAct + transportTime;
             departureTimePrevAct = Math.max(actStartTime, act.getTheoreticalEarliestOperationStartTime()) + activityCosts.getActivityDuration(act,actStartTime,driver,vehicle);
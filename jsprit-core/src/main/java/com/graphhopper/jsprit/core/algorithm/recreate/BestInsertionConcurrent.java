@@ -18,186 +18,181 @@
 package com.graphhopper.jsprit.core.algorithm.recreate;
 
 import com.graphhopper.jsprit.core.algorithm.recreate.InsertionData.NoInsertionFound;
-import com.graphhopper.jsprit.core.algorithm.recreate.listener.InsertionListeners;
 import com.graphhopper.jsprit.core.problem.VehicleRoutingProblem;
-import com.graphhopper.jsprit.core.problem.driver.Driver;
+import com.graphhopper.jsprit.core.problem.constraint.DependencyType;
 import com.graphhopper.jsprit.core.problem.job.Job;
 import com.graphhopper.jsprit.core.problem.solution.route.VehicleRoute;
 import com.graphhopper.jsprit.core.problem.vehicle.Vehicle;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.ArrayList;
-import java.util.Collection;
-import java.util.Collections;
-import java.util.List;
-import java.util.concurrent.*;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
 
 
 /**
+ * Best insertion that evaluates insertion costs concurrently.
+ * <p>
+ * <p>Insertion data of jobs into routes is memorized in a {@link RouteVersionedInsertionCache}. Before the next job
+ * is inserted, all insertion data of this job and a small window of subsequent jobs that is missing or outdated is
+ * calculated in a single parallel pass (see {@link ParallelInsertionEvaluator}). Thus, after an insertion usually only
+ * the modified route needs to be re-evaluated, and if there are only a few routes the window keeps all threads busy.
+ * Jobs that depend on other routes or other jobs of the same route (see {@link DependencyType}) are always evaluated
+ * against all routes. Re-evaluations are pruned with the best costs of the job that are still valid; insertion data
+ * that has not been found due to such a bound is re-evaluated once the bound does not hold anymore.
+ * <p>
+ * <p>Caching assumes that the insertion costs of a job into a route only depend on that route (and the vehicles
+ * available). If they also depend on random noise or on the entire solution (e.g. the solution completeness ratio
+ * of fixed costs), caching must be switched off with {@link #setInsertionDataCaching(boolean)}. Then, each job is
+ * evaluated against all routes in one parallel pass.
+ *
  * @author stefan schroeder
  */
 
 public final class BestInsertionConcurrent extends AbstractInsertionStrategy {
 
-    static class Batch {
-        List<VehicleRoute> routes = new ArrayList<VehicleRoute>();
-
-    }
-
-    class Insertion {
-
-        private final VehicleRoute route;
-
-        private final InsertionData insertionData;
-
-        public Insertion(VehicleRoute vehicleRoute, InsertionData insertionData) {
-            super();
-            this.route = vehicleRoute;
-            this.insertionData = insertionData;
-        }
-
-        public VehicleRoute getRoute() {
-            return route;
-        }
-
-        public InsertionData getInsertionData() {
-            return insertionData;
-        }
-
-    }
-
     private static Logger logger = LoggerFactory.getLogger(BestInsertionConcurrent.class);
 
-    private final static double NO_NEW_DEPARTURE_TIME_YET = -12345.12345;
+    private JobInsertionCostsCalculator bestInsertionCostCalculator;
 
-    private final static Vehicle NO_NEW_VEHICLE_YET = null;
+    private int nuOfBatches;
 
-    private final static Driver NO_NEW_DRIVER_YET = null;
+    private DependencyType[] dependencyTypes = null;
 
-    private InsertionListeners insertionsListeners;
+    private boolean cacheInsertionData = true;
 
-    private JobInsertionCostsCalculator bestInsertionCostCalculator;
-
-    private int nuOfBatches;
+    private final ParallelInsertionEvaluator evaluator;
 
-    private ExecutorCompletionService<Insertion> completionService;
+    private boolean[] valid = new boolean[8];
 
     public BestInsertionConcurrent(JobInsertionCostsCalculator jobInsertionCalculator, ExecutorService executorService, int nuOfBatches, VehicleRoutingProblem vehicleRoutingProblem) {
         super(vehicleRoutingProblem);
-        this.insertionsListeners = new InsertionListeners();
         this.nuOfBatches = nuOfBatches;
         bestInsertionCostCalculator = jobInsertionCalculator;
-        completionService = new ExecutorCompletionService<Insertion>(executorService);
+        evaluator = new ParallelInsertionEvaluator(jobInsertionCalculator, executorService, nuOfBatches);
         logger.debug("initialise {}", this);
     }
 
+    public void setDependencyTypes(DependencyType[] dependencyTypes) {
+        this.dependencyTypes = dependencyTypes;
+    }
+
+    /**
+     * Switches caching of insertion data between insertions on or off (default: on). Switch it off if insertion
+     * costs do not only depend on the route a job is inserted into, e.g. if noise is added to them or if they
+     * depend on the state of the entire solution.
+     *
+     * @param cacheInsertionData true if insertion data can be reused as long as its route has not changed
+     */
+    public void setInsertionDataCaching(boolean cacheInsertionData) {
+        this.cacheInsertionData = cacheInsertionData;
+    }
+
     @Override
     public String toString() {
         return "[name=bestInsertion]";
     }
 
+    /**
+     * Runs insertion.
+     *
+     * @throws java.lang.RuntimeException if smth went wrong with thread execution
+     */
     @Override
     public Collection<Job> insertUnassignedJobs(Collection<VehicleRoute> vehicleRoutes, Collection<Job> unassignedJobs) {
         List<Job> badJobs = new ArrayList<Job>(unassignedJobs.size());
         List<Job> unassignedJobList = new ArrayList<Job>(unassignedJobs);
         Collections.shuffle(unassignedJobList, random);
         Collections.sort(unassignedJobList, new AccordingToPriorities());
-        List<Batch> batches = distributeRoutes(vehicleRoutes, nuOfBatches);
-        List<String> failedConstraintNames = new ArrayList<>();
-        for (final Job unassignedJob : unassignedJobList) {
-            Insertion bestInsertion = null;
+        Job[] jobs = unassignedJobList.toArray(new Job[unassignedJobList.size()]);
+        List<VehicleRoute> routes = new ArrayList<VehicleRoute>(vehicleRoutes);
+        RouteVersionedInsertionCache cache = new RouteVersionedInsertionCache(jobs.length);
+        for (int j = 0; j < jobs.length; j++) {
+            Job unassignedJob = jobs[j];
+            updateInsertionData(cache, jobs, j, routes);
+            List<String> failedConstraintNames = new ArrayList<>();
+            InsertionData bestInsertionData = null;
+            int bestRouteIndex = -1;
             double bestInsertionCost = Double.MAX_VALUE;
-            for (final Batch batch : batches) {
-                completionService.submit(new Callable<Insertion>() {
-
-                    @Override
-                    public Insertion call() throws Exception {
-                        return getBestInsertion(batch, unassignedJob);
-                    }
-
-                });
-            }
-            try {
-                for (int i = 0; i < batches.size(); i++) {
-                    Future<Insertion> futureIData = completionService.take();
-                    Insertion insertion = futureIData.get();
-                    if (insertion.insertionData instanceof NoInsertionFound) {
-                        failedConstraintNames.addAll(insertion.getInsertionData().getFailedConstraintNames());
-                        continue;
-                    }
-                    if (insertion.getInsertionData().getInsertionCost() < bestInsertionCost) {
-                        bestInsertion = insertion;
-                        bestInsertionCost = insertion.getInsertionData().getInsertionCost();
-                    }
+            for (int r = 0; r < routes.size(); r++) {
+                InsertionData iData = cache.get(j, r);
+                if (iData instanceof NoInsertionFound) {
+                    failedConstraintNames.addAll(iData.getFailedConstraintNames());
+                    continue;
+                }
+                if (iData.getInsertionCost() < bestInsertionCost) {
+                    bestInsertionData = iData;
+                    bestRouteIndex = r;
+                    bestInsertionCost = iData.getInsertionCost();
                 }
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-            } catch (ExecutionException e) {
-                throw new RuntimeException(e);
             }
+            cache.clear(j);
             VehicleRoute newRoute = VehicleRoute.emptyRoute();
             InsertionData newIData = bestInsertionCostCalculator.getInsertionData(newRoute, unassignedJob, NO_NEW_VEHICLE_YET, NO_NEW_DEPARTURE_TIME_YET, NO_NEW_DRIVER_YET, bestInsertionCost);
-            if (newIData.getInsertionCost() < bestInsertionCost) {
-                bestInsertion = new Insertion(newRoute, newIData);
+            if (newIData instanceof NoInsertionFound) {
+                failedConstraintNames.addAll(newIData.getFailedConstraintNames());
+            } else if (newIData.getInsertionCost() < bestInsertionCost) {
+                bestInsertionData = newIData;
+                bestRouteIndex = routes.size();
                 vehicleRoutes.add(newRoute);
-                batches.get(random.nextInt(batches.size())).routes.add(newRoute);
+                routes.add(newRoute);
             }
-            if (bestInsertion == null) {
+            if (bestInsertionData == null) {
                 badJobs.add(unassignedJob);
                 markUnassigned(unassignedJob, failedConstraintNames);
+                continue;
             }
-            else insertJob(unassignedJob, bestInsertion.getInsertionData(), bestInsertion.getRoute());
+            VehicleRoute bestRoute = routes.get(bestRouteIndex);
+            Vehicle oldVehicle = bestRoute.getVehicle();
+            insertJob(unassignedJob, bestInsertionData, bestRoute);
+            cache.informJobInserted(bestRouteIndex, oldVehicle, bestRoute.getVehicle());
         }
         return badJobs;
     }
 
-
-    private Insertion getBestInsertion(Batch batch, Job unassignedJob) {
-        Insertion bestInsertion = null;
-        InsertionData empty = new InsertionData.NoInsertionFound();
-        double bestInsertionCost = Double.MAX_VALUE;
-        for (VehicleRoute vehicleRoute : batch.routes) {
-            InsertionData iData = bestInsertionCostCalculator.getInsertionData(vehicleRoute, unassignedJob, NO_NEW_VEHICLE_YET, NO_NEW_DEPARTURE_TIME_YET, NO_NEW_DRIVER_YET, bestInsertionCost);
-            if (iData instanceof NoInsertionFound) {
-                empty.getFailedConstraintNames().addAll(iData.getFailedConstraintNames());
-                continue;
-            }
-            if (iData.getInsertionCost() < bestInsertionCost) {
-                bestInsertion = new Insertion(vehicleRoute, iData);
-                bestInsertionCost = iData.getInsertionCost();
+    /**
+     * Calculates missing and outdated insertion data of job j and the jobs in the look-ahead window after j.
+     */
+    private void updateInsertionData(RouteVersionedInsertionCache cache, Job[] jobs, int j, List<VehicleRoute> routes) {
+        int noRoutes = routes.size();
+        if (noRoutes == 0) return;
+        if (!cacheInsertionData) {
+            cache.ensureCapacity(j, noRoutes);
+            for (int r = 0; r < noRoutes; r++) {
+                evaluator.add(j, r, Double.MAX_VALUE);
             }
+            evaluator.evaluate(cache, jobs, routes);
+            return;
         }
-        if (bestInsertion == null) return new Insertion(null, empty);
-        return bestInsertion;
-    }
-
-    private List<Batch> distributeRoutes(Collection<VehicleRoute> vehicleRoutes, int nuOfBatches) {
-        List<Batch> batches = new ArrayList<Batch>();
-        for (int i = 0; i < nuOfBatches; i++) batches.add(new Batch());
-        /*
-         * if route.size < nuOfBatches add as much routes as empty batches are available
-		 * else add one empty route anyway
-		 */
-        if (vehicleRoutes.size() < nuOfBatches) {
-            int nOfNewRoutes = nuOfBatches - vehicleRoutes.size();
-            for (int i = 0; i < nOfNewRoutes; i++) {
-                vehicleRoutes.add(VehicleRoute.emptyRoute());
+        int window = Math.max(1, (4 * nuOfBatches + noRoutes - 1) / noRoutes);
+        int end = Math.min(jobs.length, j + window);
+        if (valid.length < noRoutes) valid = new boolean[2 * noRoutes];
+        for (int row = j; row < end; row++) {
+            cache.ensureCapacity(row, noRoutes);
+            boolean dependent = dependsOnOtherJobs(jobs[row]);
+            double bestCost = Double.MAX_VALUE;
+            for (int r = 0; r < noRoutes; r++) {
+                valid[r] = dependent ? cache.isUpToDate(row, r) : cache.isValid(row, r, routes.get(r));
+                if (valid[r] && !(cache.get(row, r) instanceof NoInsertionFound)) {
+                    bestCost = Math.min(bestCost, cache.get(row, r).getInsertionCost());
+                }
+            }
+            //insertion data with the same costs as the best must still be found to break ties as sequential best insertion does
+            double bound = bestCost == Double.MAX_VALUE ? Double.MAX_VALUE : Math.nextUp(bestCost);
+            for (int r = 0; r < noRoutes; r++) {
+                boolean pruned = valid[r] && cache.get(row, r) instanceof NoInsertionFound && cache.getBound(row, r) < bound;
+                if (!valid[r] || pruned) {
+                    evaluator.add(row, r, bound);
+                }
             }
-        } else {
-            vehicleRoutes.add(VehicleRoute.emptyRoute());
-        }
-        /*
-         * distribute routes to batches equally
-		 */
-        int count = 0;
-        for (VehicleRoute route : vehicleRoutes) {
-            if (count == nuOfBatches) count = 0;
-            batches.get(count).routes.add(route);
-            count++;
         }
-        return batches;
+        evaluator.evaluate(cache, jobs, routes);
     }
 
+    private boolean dependsOnOtherJobs(Job job) {
+        if (dependencyTypes == null || dependencyTypes[job.getIndex()] == null) return false;
+        DependencyType dependencyType = dependencyTypes[job.getIndex()];
+        return dependencyType.equals(DependencyType.INTER_ROUTE) || dependencyType.equals(DependencyType.INTRA_ROUTE);
+    }
 
 }
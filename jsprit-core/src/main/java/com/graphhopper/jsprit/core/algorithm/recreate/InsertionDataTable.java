@@ -0,0 +1,104 @@
+/*
+ * Licensed to GraphHopper GmbH under one or more contributor
+ * license agreements. See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ *
+ * GraphHopper GmbH licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.graphhopper.jsprit.core.algorithm.recreate;
+
+import java.util.Arrays;
+
+/**
+ * Memorizes the best insertion alternatives of a single job, i.e. up to <code>slotsPerRoute</code> alternatives (one per
+ * vehicle) for every route, sorted by insertion costs and stamped with the version (the update round) of the route
+ * they have been calculated for.
+ * <p>
+ * <p>Routes are addressed by their index, and the underlying arrays are reused in every update round such that
+ * memorizing insertion data does not allocate anything.
+ */
+class InsertionDataTable {
+
+    private final int slotsPerRoute;
+
+    private InsertionData[] insertionData;
+
+    private int[] versions;
+
+    private int[] sizes;
+
+    InsertionDataTable(int slotsPerRoute, int noRoutes) {
+        this.slotsPerRoute = slotsPerRoute;
+        int capacity = Math.max(1, noRoutes);
+        insertionData = new InsertionData[capacity * slotsPerRoute];
+        versions = new int[capacity];
+        sizes = new int[capacity];
+        Arrays.fill(versions, -1);
+    }
+
+    /**
+     * Discards the alternatives of the specified route and stamps it with the specified version.
+     */
+    void reset(int routeIndex, int version) {
+        ensureCapacity(routeIndex + 1);
+        Arrays.fill(insertionData, routeIndex * slotsPerRoute, routeIndex * slotsPerRoute + sizes[routeIndex], null);
+        sizes[routeIndex] = 0;
+        versions[routeIndex] = version;
+    }
+
+    /**
+     * Adds an alternative of the specified route. If all slots are occupied, the most expensive alternative is dropped.
+     */
+    void add(int routeIndex, InsertionData iData) {
+        int offset = routeIndex * slotsPerRoute;
+        int size = sizes[routeIndex];
+        int pos = size;
+        if (size == slotsPerRoute) {
+            if (iData.getInsertionCost() >= insertionData[offset + size - 1].getInsertionCost()) return;
+            pos = size - 1;
+        } else sizes[routeIndex] = size + 1;
+        while (pos > 0 && insertionData[offset + pos - 1].getInsertionCost() > iData.getInsertionCost()) {
+            insertionData[offset + pos] = insertionData[offset + pos - 1];
+            pos--;
+        }
+        insertionData[offset + pos] = iData;
+    }
+
+    int getVersion(int routeIndex) {
+        if (routeIndex >= versions.length) return -1;
+        return versions[routeIndex];
+    }
+
+    int size(int routeIndex) {
+        if (routeIndex >= sizes.length) return 0;
+        return sizes[routeIndex];
+    }
+
+    /**
+     * Returns the alternative of the specified route at the specified rank (0 is the cheapest).
+     */
+    InsertionData get(int routeIndex, int rank) {
+        return insertionData[routeIndex * slotsPerRoute + rank];
+    }
+
+    private void ensureCapacity(int noRoutes) {
+        if (versions.length >= noRoutes) return;
+        int capacity = Math.max(noRoutes, 2 * versions.length);
+        insertionData = Arrays.copyOf(insertionData, capacity * slotsPerRoute);
+        int oldLength = versions.length;
+        versions = Arrays.copyOf(versions, capacity);
+        Arrays.fill(versions, oldLength, capacity, -1);
+        sizes = Arrays.copyOf(sizes, capacity);
+    }
+
+}
@@ -18,11 +18,13 @@
 
 package com.graphhopper.jsprit.core.algorithm.recreate;
 
+import com.graphhopper.jsprit.core.problem.VehicleRoutingProblem;
 import com.graphhopper.jsprit.core.problem.job.Job;
 import com.graphhopper.jsprit.core.problem.solution.route.VehicleRoute;
 import com.graphhopper.jsprit.core.problem.vehicle.Vehicle;
 import com.graphhopper.jsprit.core.problem.vehicle.VehicleFleetManager;
 import com.graphhopper.jsprit.core.problem.vehicle.VehicleImpl;
+import com.graphhopper.jsprit.core.problem.vehicle.VehicleTypeKey;
 
 import java.util.*;
 
@@ -31,28 +33,42 @@ import java.util.*;
  */
 class InsertionDataUpdater {
 
-    static boolean update(boolean addAllAvailable, Set<String> initialVehicleIds, VehicleFleetManager fleetManager, JobInsertionCostsCalculator insertionCostsCalculator, TreeSet<VersionedInsertionData> insertionDataSet, int updateRound, Job unassignedJob, Collection<VehicleRoute> routes) {
-        for(VehicleRoute route : routes) {
-            Collection<Vehicle> relevantVehicles = new ArrayList<>();
-            if (!(route.getVehicle() instanceof VehicleImpl.NoVehicle)) {
-                relevantVehicles.add(route.getVehicle());
-                if(addAllAvailable && !initialVehicleIds.contains(route.getVehicle().getId())){
-                    relevantVehicles.addAll(fleetManager.getAvailableVehicles(route.getVehicle()));
-                }
-            } else relevantVehicles.addAll(fleetManager.getAvailableVehicles());
-            for (Vehicle v : relevantVehicles) {
-                double depTime = v.getEarliestDeparture();
-                InsertionData iData = insertionCostsCalculator.getInsertionData(route, unassignedJob, v, depTime, route.getDriver(), Double.MAX_VALUE);
-                if (iData instanceof InsertionData.NoInsertionFound) {
-                    continue;
-                }
-                insertionDataSet.add(new VersionedInsertionData(iData, updateRound, route));
+    /**
+     * Calculates the insertion data of unassignedJob into the route with the specified index and memorizes it in
+     * insertionDataTable with the specified update round as version.
+     */
+    static boolean update(boolean addAllAvailable, Set<String> initialVehicleIds, VehicleFleetManager fleetManager, JobInsertionCostsCalculator insertionCostsCalculator, InsertionDataTable insertionDataTable, int updateRound, Job unassignedJob, VehicleRoute route, int routeIndex) {
+        insertionDataTable.reset(routeIndex, updateRound);
+        Collection<Vehicle> relevantVehicles = new ArrayList<>();
+        if (!(route.getVehicle() instanceof VehicleImpl.NoVehicle)) {
+            relevantVehicles.add(route.getVehicle());
+            if(addAllAvailable && !initialVehicleIds.contains(route.getVehicle().getId())){
+                relevantVehicles.addAll(fleetManager.getAvailableVehicles(route.getVehicle()));
+            }
+        } else relevantVehicles.addAll(fleetManager.getAvailableVehicles());
+        for (Vehicle v : relevantVehicles) {
+            double depTime = v.getEarliestDeparture();
+            InsertionData iData = insertionCostsCalculator.getInsertionData(route, unassignedJob, v, depTime, route.getDriver(), Double.MAX_VALUE);
+            if (iData instanceof InsertionData.NoInsertionFound) {
+                continue;
             }
+            insertionDataTable.add(routeIndex, iData);
         }
         return true;
     }
 
-
+    /**
+     * Returns the number of insertion alternatives a single route can have, i.e. one per vehicle type key (vehicles
+     * of the same type but with different locations, skills etc. are alternatives of their own) plus the vehicle of
+     * the route.
+     */
+    static int getMaxAlternativesPerRoute(VehicleRoutingProblem vrp) {
+        Set<VehicleTypeKey> typeKeys = new HashSet<>();
+        for (Vehicle v : vrp.getVehicles()) {
+            typeKeys.add(v.getVehicleTypeIdentifier());
+        }
+        return typeKeys.size() + 1;
+    }
 
     static VehicleRoute findRoute(Collection<VehicleRoute> routes, Job job) {
         for(VehicleRoute r : routes){
@@ -61,67 +77,24 @@ class InsertionDataUpdater {
         return null;
     }
 
-    static Comparator<VersionedInsertionData> getComparator(){
-        return (o1, o2) -> {
-            if (o1.getiData().getInsertionCost() < o2.getiData().getInsertionCost()) return -1;
-            return 1;
-        };
-    }
-
-    static ScoredJob getBest(boolean switchAllowed, Set<String> initialVehicleIds, VehicleFleetManager fleetManager, JobInsertionCostsCalculator insertionCostsCalculator, ScoringFunction scoringFunction, TreeSet<VersionedInsertionData>[] priorityQueues, Map<VehicleRoute, Integer> updates, List<Job> unassignedJobList, List<ScoredJob> badJobs) {
+    static ScoredJob getBest(boolean switchAllowed, Set<String> initialVehicleIds, VehicleFleetManager fleetManager, JobInsertionCostsCalculator insertionCostsCalculator, ScoringFunction scoringFunction, InsertionDataTable[] insertionDataTables, List<VehicleRoute> routes, int[] routeVersions, List<Job> unassignedJobList, List<ScoredJob> badJobs) {
         ScoredJob bestScoredJob = null;
         for(Job j : unassignedJobList){
             VehicleRoute bestRoute = null;
             InsertionData best = null;
             InsertionData secondBest = null;
-            TreeSet<VersionedInsertionData> priorityQueue = priorityQueues[j.getIndex()];
-            Iterator<VersionedInsertionData> iterator = priorityQueue.iterator();
+            InsertionDataTable insertionDataTable = insertionDataTables[j.getIndex()];
             List<String> failedConstraintNames = new ArrayList<>();
-            while(iterator.hasNext()){
-                VersionedInsertionData versionedIData = iterator.next();
-                if(bestRoute != null){
-                    if(versionedIData.getRoute() == bestRoute){
-                        continue;
-                    }
-                }
-                if (versionedIData.getiData() instanceof InsertionData.NoInsertionFound) {
-                    failedConstraintNames.addAll(versionedIData.getiData().getFailedConstraintNames());
-                    continue;
-                }
-                if(!(versionedIData.getRoute().getVehicle() instanceof VehicleImpl.NoVehicle)) {
-                    if (versionedIData.getiData().getSelectedVehicle() != versionedIData.getRoute().getVehicle()) {
-                        if (!switchAllowed) continue;
-                        if (initialVehicleIds.contains(versionedIData.getRoute().getVehicle().getId())) continue;
-                    }
-                }
-                if(versionedIData.getiData().getSelectedVehicle() != versionedIData.getRoute().getVehicle()) {
-                    if (fleetManager.isLocked(versionedIData.getiData().getSelectedVehicle())) {
-                        Vehicle available = fleetManager.getAvailableVehicle(versionedIData.getiData().getSelectedVehicle().getVehicleTypeIdentifier());
-                        if (available != null) {
-                            InsertionData oldData = versionedIData.getiData();
-                            InsertionData newData = new InsertionData(oldData.getInsertionCost(), oldData.getPickupInsertionIndex(),
-                                oldData.getDeliveryInsertionIndex(), available, oldData.getSelectedDriver());
-                            newData.setVehicleDepartureTime(oldData.getVehicleDepartureTime());
-                            for(Event e : oldData.getEvents()){
-                                if(e instanceof SwitchVehicle){
-                                    newData.getEvents().add(new SwitchVehicle(versionedIData.getRoute(),available,oldData.getVehicleDepartureTime()));
-                                }
-                                else newData.getEvents().add(e);
-                            }
-                            versionedIData = new VersionedInsertionData(newData, versionedIData.getVersion(), versionedIData.getRoute());
-                        } else continue;
-                    }
-                }
-                int currentDataVersion = updates.get(versionedIData.getRoute());
-                if(versionedIData.getVersion() == currentDataVersion){
-                    if(best == null) {
-                        best = versionedIData.getiData();
-                        bestRoute = versionedIData.getRoute();
-                    }
-                    else {
-                        secondBest = versionedIData.getiData();
-                        break;
-                    }
+            for (int r = 0; r < routes.size(); r++) {
+                if (insertionDataTable.getVersion(r) < routeVersions[r]) continue;
+                InsertionData iData = getFirstFeasible(switchAllowed, initialVehicleIds, fleetManager, insertionDataTable, r, routes.get(r));
+                if (iData == null) continue;
+                if (best == null || iData.getInsertionCost() < best.getInsertionCost()) {
+                    secondBest = best;
+                    best = iData;
+                    bestRoute = routes.get(r);
+                } else if (secondBest == null || iData.getInsertionCost() < secondBest.getInsertionCost()) {
+                    secondBest = iData;
                 }
             }
             VehicleRoute emptyRoute = VehicleRoute.emptyRoute();
@@ -158,6 +131,41 @@ class InsertionDataUpdater {
         return bestScoredJob;
     }
 
+    /**
+     * Returns the cheapest alternative of the specified route that can still be realized, i.e. that does not switch to a
+     * vehicle that is locked meanwhile (then another available vehicle of the same type is used if there is one).
+     */
+    private static InsertionData getFirstFeasible(boolean switchAllowed, Set<String> initialVehicleIds, VehicleFleetManager fleetManager, InsertionDataTable insertionDataTable, int routeIndex, VehicleRoute route) {
+        for (int rank = 0; rank < insertionDataTable.size(routeIndex); rank++) {
+            InsertionData iData = insertionDataTable.get(routeIndex, rank);
+            if(!(route.getVehicle() instanceof VehicleImpl.NoVehicle)) {
+                if (iData.getSelectedVehicle() != route.getVehicle()) {
+                    if (!switchAllowed) continue;
+                    if (initialVehicleIds.contains(route.getVehicle().getId())) continue;
+                }
+            }
+            if(iData.getSelectedVehicle() != route.getVehicle()) {
+                if (fleetManager.isLocked(iData.getSelectedVehicle())) {
+                    Vehicle available = fleetManager.getAvailableVehicle(iData.getSelectedVehicle().getVehicleTypeIdentifier());
+                    if (available != null) {
+                        InsertionData newData = new InsertionData(iData.getInsertionCost(), iData.getPickupInsertionIndex(),
+                            iData.getDeliveryInsertionIndex(), available, iData.getSelectedDriver());
+                        newData.setVehicleDepartureTime(iData.getVehicleDepartureTime());
+                        for(Event e : iData.getEvents()){
+                            if(e instanceof SwitchVehicle){
+                                newData.getEvents().add(new SwitchVehicle(route,available,iData.getVehicleDepartureTime()));
+                            }
+                            else newData.getEvents().add(e);
+                        }
+                        return newData;
+                    } else continue;
+                }
+            }
+            return iData;
+        }
+        return null;
+    }
+
     private static double score(Job unassignedJob, InsertionData best, InsertionData secondBest, ScoringFunction scoringFunction) {
         return Scorer.score(unassignedJob,best,secondBest,scoringFunction);
     }
@@ -0,0 +1,137 @@
+/*
+ * Licensed to GraphHopper GmbH under one or more contributor
+ * license agreements. See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ *
+ * GraphHopper GmbH licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.graphhopper.jsprit.core.algorithm.recreate;
+
+import com.graphhopper.jsprit.core.problem.JobActivityFactory;
+import com.graphhopper.jsprit.core.problem.Location;
+import com.graphhopper.jsprit.core.problem.constraint.HardConstraint;
+import com.graphhopper.jsprit.core.problem.job.Job;
+import com.graphhopper.jsprit.core.problem.misc.ActivityContext;
+import com.graphhopper.jsprit.core.problem.solution.route.activity.End;
+import com.graphhopper.jsprit.core.problem.solution.route.activity.Start;
+import com.graphhopper.jsprit.core.problem.solution.route.activity.TourActivity;
+import com.graphhopper.jsprit.core.problem.vehicle.Vehicle;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Objects an insertion calculator only needs while scanning the insertion positions of a job. They are reused by
+ * all subsequent calculations of the same thread, thus they must not escape the calculation (e.g. into
+ * {@link InsertionData}) and calculations must not be nested.
+ */
+final class InsertionScratchContext {
+
+    private static final ThreadLocal<InsertionScratchContext> scratchContexts = new ThreadLocal<InsertionScratchContext>() {
+
+        @Override
+        protected InsertionScratchContext initialValue() {
+            return new InsertionScratchContext();
+        }
+
+    };
+
+    /**
+     * Returns the scratch context of the current thread.
+     */
+    static InsertionScratchContext get() {
+        return scratchContexts.get();
+    }
+
+    private final Start start = new Start(null, 0., Double.MAX_VALUE);
+
+    private final End end = new End((Location) null, 0., Double.MAX_VALUE);
+
+    private final ActivityContext activityContext = new ActivityContext();
+
+    private final List<HardConstraint> failedActivityConstraints = new ArrayList<>();
+
+    private JobActivityFactory activityFactory;
+
+    private Job job;
+
+    private TourActivity activity;
+
+    private double activityEarliestStart;
+
+    private double activityLatestStart;
+
+    private InsertionScratchContext() {
+    }
+
+    /**
+     * Returns the start of the new vehicle departing at the specified time.
+     */
+    Start getStart(Vehicle newVehicle, double newVehicleDepartureTime) {
+        start.setLocation(newVehicle.getStartLocation());
+        start.setTheoreticalEarliestOperationStartTime(newVehicle.getEarliestDeparture());
+        start.setTheoreticalLatestOperationStartTime(Double.MAX_VALUE);
+        start.setArrTime(0.);
+        start.setEndTime(newVehicleDepartureTime);
+        return start;
+    }
+
+    /**
+     * Returns the end of the new vehicle.
+     */
+    End getEnd(Vehicle newVehicle) {
+        end.setLocation(newVehicle.getEndLocation());
+        end.setTheoreticalEarliestOperationStartTime(0.);
+        end.setTheoreticalLatestOperationStartTime(newVehicle.getLatestArrival());
+        end.setArrTime(0.);
+        end.setEndTime(newVehicle.getLatestArrival());
+        return end;
+    }
+
+    /**
+     * Returns an activity context with insertion index 0 and neither arrival nor end time.
+     */
+    ActivityContext getActivityContext() {
+        activityContext.setArrivalTime(0.);
+        activityContext.setEndTime(0.);
+        activityContext.setInsertionIndex(0);
+        return activityContext;
+    }
+
+    /**
+     * Returns an empty list to collect failed constraints in.
+     */
+    List<HardConstraint> getFailedActivityConstraints() {
+        failedActivityConstraints.clear();
+        return failedActivityConstraints;
+    }
+
+    /**
+     * Returns the first activity of the specified job as created by activityFactory. The activity is only created again if
+     * the previous call asked for another job, otherwise its operation time window is reset.
+     */
+    TourActivity getActivity(Job job, JobActivityFactory activityFactory) {
+        if (this.job != job || this.activityFactory != activityFactory) {
+            activity = activityFactory.createActivities(job).get(0);
+            activityEarliestStart = activity.getTheoreticalEarliestOperationStartTime();
+            activityLatestStart = activity.getTheoreticalLatestOperationStartTime();
+            this.job = job;
+            this.activityFactory = activityFactory;
+        } else {
+            activity.setTheoreticalEarliestOperationStartTime(activityEarliestStart);
+            activity.setTheoreticalLatestOperationStartTime(activityLatestStart);
+        }
+        return activity;
+    }
+
+}
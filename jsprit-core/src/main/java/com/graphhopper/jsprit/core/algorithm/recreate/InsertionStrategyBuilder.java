@@ -216,7 +216,7 @@ public class InsertionStrategyBuilder {
 
             } else {
                 if (isFastRegret) {
-                    RegretInsertionConcurrentFast regret = new RegretInsertionConcurrentFast(costCalculator, vrp, executor, fleetManager);
+                    RegretInsertionConcurrentFast regret = new RegretInsertionConcurrentFast(costCalculator, vrp, executor, nuOfThreads, fleetManager);
                     regret.setSwitchAllowed(allowVehicleSwitch);
                     insertion = regret;
                 } else {
@@ -19,6 +19,8 @@
 package com.graphhopper.jsprit.core.algorithm.recreate;
 
 import com.graphhopper.jsprit.core.algorithm.state.InternalStates;
+import com.graphhopper.jsprit.core.problem.cost.TransportCostsHolder;
+import com.graphhopper.jsprit.core.problem.cost.TransportCostsQueries;
 import com.graphhopper.jsprit.core.problem.cost.VehicleRoutingActivityCosts;
 import com.graphhopper.jsprit.core.problem.cost.VehicleRoutingTransportCosts;
 import com.graphhopper.jsprit.core.problem.misc.JobInsertionContext;
@@ -34,6 +36,8 @@ import com.graphhopper.jsprit.core.problem.vehicle.Vehicle;
  * Additional costs are then basically calculated as delta c = c_ik + c_kj - c_ij.
  * <p>
  * <p>Note once time has an effect on costs this class requires activity endTimes.
+ * <p>
+ * <p>Transport time and costs of a relation are queried at once (see {@link TransportCostsQueries}).
  *
  * @author stefan
  */
@@ -49,6 +53,15 @@ public class LocalActivityInsertionCostsCalculator implements ActivityInsertionC
 
     private RouteAndActivityStateGetter stateManager;
 
+    private final ThreadLocal<TransportCostsHolder> transportCostsHolders = new ThreadLocal<TransportCostsHolder>() {
+
+        @Override
+        protected TransportCostsHolder initialValue() {
+            return new TransportCostsHolder();
+        }
+
+    };
+
     public LocalActivityInsertionCostsCalculator(VehicleRoutingTransportCosts routingCosts, VehicleRoutingActivityCosts actCosts, RouteAndActivityStateGetter stateManager) {
         super();
         this.routingCosts = routingCosts;
@@ -59,8 +72,10 @@ public class LocalActivityInsertionCostsCalculator implements ActivityInsertionC
     @Override
     public double getCosts(JobInsertionContext iFacts, TourActivity prevAct, TourActivity nextAct, TourActivity newAct, double depTimeAtPrevAct) {
 
-        double tp_costs_prevAct_newAct = routingCosts.getTransportCost(prevAct.getLocation(), newAct.getLocation(), depTimeAtPrevAct, iFacts.getNewDriver(), iFacts.getNewVehicle());
-        double tp_time_prevAct_newAct = routingCosts.getTransportTime(prevAct.getLocation(), newAct.getLocation(), depTimeAtPrevAct, iFacts.getNewDriver(), iFacts.getNewVehicle());
+        TransportCostsHolder transport = transportCostsHolders.get();
+        TransportCostsQueries.getTransportTimeAndCost(routingCosts, prevAct.getLocation(), newAct.getLocation(), depTimeAtPrevAct, iFacts.getNewDriver(), iFacts.getNewVehicle(), transport);
+        double tp_costs_prevAct_newAct = transport.getTransportCost();
+        double tp_time_prevAct_newAct = transport.getTransportTime();
         double newAct_arrTime = depTimeAtPrevAct + tp_time_prevAct_newAct;
         double newAct_endTime = Math.max(newAct_arrTime, newAct.getTheoreticalEarliestOperationStartTime()) + activityCosts.getActivityDuration(newAct, newAct_arrTime, iFacts.getNewDriver(), iFacts.getNewVehicle());
 
@@ -68,8 +83,9 @@ public class LocalActivityInsertionCostsCalculator implements ActivityInsertionC
 
         if (isEnd(nextAct) && !toDepot(iFacts.getNewVehicle())) return tp_costs_prevAct_newAct + solutionCompletenessRatio * activityCostsWeight * act_costs_newAct;
 
-        double tp_costs_newAct_nextAct = routingCosts.getTransportCost(newAct.getLocation(), nextAct.getLocation(), newAct_endTime, iFacts.getNewDriver(), iFacts.getNewVehicle());
-        double tp_time_newAct_nextAct = routingCosts.getTransportTime(newAct.getLocation(), nextAct.getLocation(), newAct_endTime, iFacts.getNewDriver(), iFacts.getNewVehicle());
+        TransportCostsQueries.getTransportTimeAndCost(routingCosts, newAct.getLocation(), nextAct.getLocation(), newAct_endTime, iFacts.getNewDriver(), iFacts.getNewVehicle(), transport);
+        double tp_costs_newAct_nextAct = transport.getTransportCost();
+        double tp_time_newAct_nextAct = transport.getTransportTime();
         double nextAct_arrTime = newAct_endTime + tp_time_newAct_nextAct;
         double endTime_nextAct_new = Math.max(nextAct_arrTime, nextAct.getTheoreticalEarliestOperationStartTime()) + activityCosts.getActivityDuration(nextAct, nextAct_arrTime, iFacts.getNewDriver(), iFacts.getNewVehicle());
         double act_costs_nextAct = activityCosts.getActivityCost(nextAct, nextAct_arrTime, iFacts.getNewDriver(), iFacts.getNewVehicle());
@@ -83,14 +99,14 @@ public class LocalActivityInsertionCostsCalculator implements ActivityInsertionC
                 tp_costs_prevAct_nextAct = routingCosts.getTransportCost(prevAct.getLocation(), nextAct.getLocation(), depTimeAtPrevAct, iFacts.getNewDriver(), iFacts.getNewVehicle());
             oldCosts += tp_costs_prevAct_nextAct;
         } else {
-            double tp_costs_prevAct_nextAct = routingCosts.getTransportCost(prevAct.getLocation(), nextAct.getLocation(), prevAct.getEndTime(), iFacts.getRoute().getDriver(), iFacts.getRoute().getVehicle());
-            double arrTime_nextAct = depTimeAtPrevAct + routingCosts.getTransportTime(prevAct.getLocation(), nextAct.getLocation(), prevAct.getEndTime(), iFacts.getRoute().getDriver(), iFacts.getRoute().getVehicle());
+            TransportCostsQueries.getTransportTimeAndCost(routingCosts, prevAct.getLocation(), nextAct.getLocation(), prevAct.getEndTime(), iFacts.getRoute().getDriver(), iFacts.getRoute().getVehicle(), transport);
+            double tp_costs_prevAct_nextAct = transport.getTransportCost();
+            double arrTime_nextAct = depTimeAtPrevAct + transport.getTransportTime();
             double endTime_nextAct_old = Math.max(arrTime_nextAct, nextAct.getTheoreticalEarliestOperationStartTime()) + activityCosts.getActivityDuration(nextAct, arrTime_nextAct, iFacts.getRoute().getDriver(),iFacts.getRoute().getVehicle());
             double actCost_nextAct = activityCosts.getActivityCost(nextAct, arrTime_nextAct, iFacts.getRoute().getDriver(), iFacts.getRoute().getVehicle());
 
             double endTimeDelay_nextAct = Math.max(0, endTime_nextAct_new - endTime_nextAct_old);
-            Double futureWaiting = stateManager.getActivityState(nextAct, iFacts.getRoute().getVehicle(), InternalStates.FUTURE_WAITING, Double.class);
-            if (futureWaiting == null) futureWaiting = 0.;
+            double futureWaiting = stateManager.getDoubleActivityState(nextAct, iFacts.getRoute().getVehicle(), InternalStates.FUTURE_WAITING, 0.);
             double waitingTime_savings_timeUnit = Math.min(futureWaiting, endTimeDelay_nextAct);
             double waitingTime_savings = waitingTime_savings_timeUnit * iFacts.getRoute().getVehicle().getType().getVehicleCostParams().perWaitingTimeUnit;
             oldCosts += solutionCompletenessRatio * activityCostsWeight * waitingTime_savings;
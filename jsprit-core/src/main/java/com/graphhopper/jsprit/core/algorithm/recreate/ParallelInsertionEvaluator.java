@@ -0,0 +1,172 @@
+/*
+ * Licensed to GraphHopper GmbH under one or more contributor
+ * license agreements. See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ *
+ * GraphHopper GmbH licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.graphhopper.jsprit.core.algorithm.recreate;
+
+import com.graphhopper.jsprit.core.algorithm.recreate.InsertionData.NoInsertionFound;
+import com.graphhopper.jsprit.core.problem.job.Job;
+import com.graphhopper.jsprit.core.problem.solution.route.VehicleRoute;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Evaluates the pending (job, route) pairs of an insertion round in a single parallel pass.
+ * <p>
+ * <p>Pairs are added row by row (a row being a job), and are distributed among the threads in chunks of consecutive
+ * pairs that each thread claims from a shared counter, i.e. threads that finish early take over the remaining work.
+ * Within a chunk, each pair is pruned with the smaller of its bound and the best costs the chunk found for the same
+ * row so far. Rounds with only a few pairs are evaluated by the calling thread to avoid dispatch overhead.
+ * <p>
+ * <p>The workers and the pair buffers are created once and reused by all rounds. An evaluator must not be used by
+ * several threads at the same time.
+ */
+final class ParallelInsertionEvaluator {
+
+    private final JobInsertionCostsCalculator insertionCostsCalculator;
+
+    private final ExecutorService executorService;
+
+    private final int nuOfThreads;
+
+    private final List<Callable<Boolean>> workers;
+
+    private final AtomicInteger nextPair = new AtomicInteger();
+
+    private int[] rows = new int[64];
+
+    private int[] routeIndices = new int[64];
+
+    private double[] bounds = new double[64];
+
+    private int nuPairs = 0;
+
+    /*
+     * state of the current pass. it is published to the workers by submitting them to the executor service
+     */
+    private RouteVersionedInsertionCache cache;
+
+    private Job[] jobs;
+
+    private List<VehicleRoute> routes;
+
+    private int chunkSize;
+
+    ParallelInsertionEvaluator(JobInsertionCostsCalculator insertionCostsCalculator, ExecutorService executorService, int nuOfThreads) {
+        this.insertionCostsCalculator = insertionCostsCalculator;
+        this.executorService = executorService;
+        this.nuOfThreads = nuOfThreads;
+        workers = new ArrayList<>(nuOfThreads);
+        for (int t = 0; t < nuOfThreads; t++) {
+            workers.add(new Callable<Boolean>() {
+
+                @Override
+                public Boolean call() throws Exception {
+                    int start;
+                    while ((start = nextPair.getAndAdd(chunkSize)) < nuPairs) {
+                        evaluate(start, Math.min(nuPairs, start + chunkSize));
+                    }
+                    return true;
+                }
+
+            });
+        }
+    }
+
+    /**
+     * Adds a pair to be evaluated in the next pass. Pairs of the same row must be added consecutively.
+     *
+     * @param row        row of the job in the cache
+     * @param routeIndex index of the route
+     * @param bound      best known costs of the job
+     */
+    void add(int row, int routeIndex, double bound) {
+        if (nuPairs == rows.length) {
+            rows = Arrays.copyOf(rows, 2 * nuPairs);
+            routeIndices = Arrays.copyOf(routeIndices, 2 * nuPairs);
+            bounds = Arrays.copyOf(bounds, 2 * nuPairs);
+        }
+        rows[nuPairs] = row;
+        routeIndices[nuPairs] = routeIndex;
+        bounds[nuPairs] = bound;
+        nuPairs++;
+    }
+
+    /**
+     * Evaluates all pairs added since the last pass and puts their insertion data into the specified cache.
+     *
+     * @param cache  the cache whose rows are the specified jobs
+     * @param jobs   jobs by row
+     * @param routes routes by index
+     * @throws java.lang.RuntimeException if smth went wrong with thread execution
+     */
+    void evaluate(RouteVersionedInsertionCache cache, Job[] jobs, List<VehicleRoute> routes) {
+        this.cache = cache;
+        this.jobs = jobs;
+        this.routes = routes;
+        try {
+            if (nuPairs < 2 * nuOfThreads) {
+                evaluate(0, nuPairs);
+            } else {
+                chunkSize = Math.max(1, nuPairs / (4 * nuOfThreads));
+                nextPair.set(0);
+                invokeWorkers();
+            }
+        } finally {
+            nuPairs = 0;
+            this.cache = null;
+            this.jobs = null;
+            this.routes = null;
+        }
+    }
+
+    private void evaluate(int from, int to) {
+        int row = -1;
+        double bestCost = Double.MAX_VALUE;
+        for (int i = from; i < to; i++) {
+            if (rows[i] != row) {
+                row = rows[i];
+                bestCost = Double.MAX_VALUE;
+            }
+            double bound = Math.min(bounds[i], bestCost);
+            InsertionData iData = insertionCostsCalculator.getInsertionData(routes.get(routeIndices[i]), jobs[row], AbstractInsertionStrategy.NO_NEW_VEHICLE_YET,
+                AbstractInsertionStrategy.NO_NEW_DEPARTURE_TIME_YET, AbstractInsertionStrategy.NO_NEW_DRIVER_YET, bound);
+            cache.put(row, routeIndices[i], iData, bound);
+            if (!(iData instanceof NoInsertionFound)) bestCost = Math.min(bestCost, iData.getInsertionCost());
+        }
+    }
+
+    private void invokeWorkers() {
+        try {
+            for (Future<Boolean> future : executorService.invokeAll(workers)) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+}
@@ -28,8 +28,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.*;
-import java.util.concurrent.Callable;
-import java.util.concurrent.ExecutorService;
+import java.util.concurrent.*;
 
 /**
  * Insertion based on regret approach.
@@ -38,6 +37,10 @@ import java.util.concurrent.ExecutorService;
  * between secondBest and firstBest, plus additional scoring variables that can defined in this.ScoringFunction.
  * The idea is that if the cost of the secondBest alternative is way higher than the first best, it seems to be important to insert this
  * customer immediatedly. If difference is not that high, it might not impact solution if this customer is inserted later.
+ * <p>
+ * <p>Unassigned jobs are partitioned into as many contiguous blocks as there are threads. Both the update of the jobs' insertion data
+ * and the search for the best scored job run block-wise in parallel. The block results are reduced in block order such that
+ * the best scored job is the same as the one found sequentially.
  *
  * @author stefan schroeder
  */
@@ -52,6 +55,8 @@ public class RegretInsertionConcurrentFast extends AbstractInsertionStrategy {
 
     private final ExecutorService executor;
 
+    private final int nuOfThreads;
+
     private VehicleFleetManager fleetManager;
 
     private Set<String> initialVehicleIds;
@@ -73,11 +78,17 @@ public class RegretInsertionConcurrentFast extends AbstractInsertionStrategy {
     }
 
     public RegretInsertionConcurrentFast(JobInsertionCostsCalculator jobInsertionCalculator, VehicleRoutingProblem vehicleRoutingProblem, ExecutorService executorService, VehicleFleetManager fleetManager) {
+        this(jobInsertionCalculator, vehicleRoutingProblem, executorService, Runtime.getRuntime().availableProcessors(), fleetManager);
+    }
+
+    public RegretInsertionConcurrentFast(JobInsertionCostsCalculator jobInsertionCalculator, VehicleRoutingProblem vehicleRoutingProblem, ExecutorService executorService, int nuOfThreads, VehicleFleetManager fleetManager) {
         super(vehicleRoutingProblem);
+        if (nuOfThreads < 1) throw new IllegalArgumentException("number of threads must be at least 1");
         this.scoringFunction = new DefaultScorer(vehicleRoutingProblem);
         this.insertionCostsCalculator = jobInsertionCalculator;
         this.vrp = vehicleRoutingProblem;
         this.executor = executorService;
+        this.nuOfThreads = nuOfThreads;
         this.fleetManager = fleetManager;
         this.initialVehicleIds = getInitialVehicleIds(vehicleRoutingProblem);
         logger.debug("initialise " + this);
@@ -137,28 +148,33 @@ public class RegretInsertionConcurrentFast extends AbstractInsertionStrategy {
         }
 
         List<Job> jobs = new ArrayList<>(unassignedJobs);
-        TreeSet<VersionedInsertionData>[] priorityQueues = new TreeSet[vrp.getJobs().values().size() + 2];
-        VehicleRoute lastModified = null;
+        InsertionDataTable[] insertionDataTables = new InsertionDataTable[vrp.getJobs().values().size() + 2];
+        List<VehicleRoute> routeList = new ArrayList<>(routes);
+        Map<VehicleRoute, Integer> routeIndices = new HashMap<>();
+        for (int r = 0; r < routeList.size(); r++) routeIndices.put(routeList.get(r), r);
+        int[] routeVersions = new int[routeList.size() + jobs.size()];
+        int lastModified = -1;
         boolean firstRun = true;
         int updateRound = 0;
-        Map<VehicleRoute, Integer> updates = new HashMap<>();
         while (!jobs.isEmpty()) {
             List<Job> unassignedJobList = new ArrayList<>(jobs);
             List<ScoredJob> badJobList = new ArrayList<>();
-            if(!firstRun && lastModified == null) throw new IllegalStateException("ho. this must not be.");
-            updateInsertionData(priorityQueues, routes, unassignedJobList, updateRound,firstRun,lastModified,updates);
+            if(!firstRun && lastModified < 0) throw new IllegalStateException("ho. this must not be.");
+            updateInsertionData(insertionDataTables, routeList, unassignedJobList, updateRound, firstRun, lastModified, routeVersions);
             if(firstRun) firstRun = false;
             updateRound++;
-            ScoredJob bestScoredJob = InsertionDataUpdater.getBest(switchAllowed,initialVehicleIds,fleetManager, insertionCostsCalculator, scoringFunction, priorityQueues, updates, unassignedJobList, badJobList);
+            ScoredJob bestScoredJob = getBest(insertionDataTables, routeList, routeVersions, unassignedJobList, badJobList);
             if (bestScoredJob != null) {
                 if (bestScoredJob.isNewRoute()) {
                     routes.add(bestScoredJob.getRoute());
+                    routeIndices.put(bestScoredJob.getRoute(), routeList.size());
+                    routeList.add(bestScoredJob.getRoute());
                 }
                 insertJob(bestScoredJob.getJob(), bestScoredJob.getInsertionData(), bestScoredJob.getRoute());
                 jobs.remove(bestScoredJob.getJob());
-                lastModified = bestScoredJob.getRoute();
+                lastModified = routeIndices.get(bestScoredJob.getRoute());
             }
-            else lastModified = null;
+            else lastModified = -1;
             for (ScoredJob bad : badJobList) {
                 Job unassigned = bad.getJob();
                 jobs.remove(unassigned);
@@ -169,53 +185,97 @@ public class RegretInsertionConcurrentFast extends AbstractInsertionStrategy {
         return badJobs;
     }
 
-    private void updateInsertionData(final TreeSet<VersionedInsertionData>[] priorityQueues, final Collection<VehicleRoute> routes, List<Job> unassignedJobList, final int updateRound, final boolean firstRun, final VehicleRoute lastModified, Map<VehicleRoute, Integer> updates) {
-        List<Callable<Boolean>> tasks = new ArrayList<>();
-        boolean updatedAllRoutes = false;
-        for (final Job unassignedJob : unassignedJobList) {
-            if(priorityQueues[unassignedJob.getIndex()] == null){
-                priorityQueues[unassignedJob.getIndex()] = new TreeSet<>(InsertionDataUpdater.getComparator());
-            }
-            if(firstRun) {
-                updatedAllRoutes = true;
-                makeCallables(tasks, true, priorityQueues[unassignedJob.getIndex()], updateRound, unassignedJob, routes, lastModified);
+    private void updateInsertionData(final InsertionDataTable[] insertionDataTables, final List<VehicleRoute> routes, List<Job> unassignedJobList, final int updateRound, final boolean firstRun, final int lastModified, int[] routeVersions) {
+        for (Job unassignedJob : unassignedJobList) {
+            if(insertionDataTables[unassignedJob.getIndex()] == null){
+                insertionDataTables[unassignedJob.getIndex()] = new InsertionDataTable(InsertionDataUpdater.getMaxAlternativesPerRoute(vrp), routes.size());
             }
-            else{
-                if(dependencyTypes == null || dependencyTypes[unassignedJob.getIndex()] == null){
-                    makeCallables(tasks, updatedAllRoutes, priorityQueues[unassignedJob.getIndex()], updateRound, unassignedJob, routes, lastModified);
-                }
-                else {
-                    DependencyType dependencyType = dependencyTypes[unassignedJob.getIndex()];
-                    if (dependencyType.equals(DependencyType.INTER_ROUTE) || dependencyType.equals(DependencyType.INTRA_ROUTE)) {
-                        updatedAllRoutes = true;
-                        makeCallables(tasks, true, priorityQueues[unassignedJob.getIndex()], updateRound, unassignedJob, routes, lastModified);
-                    } else {
-                        makeCallables(tasks, updatedAllRoutes, priorityQueues[unassignedJob.getIndex()], updateRound, unassignedJob, routes, lastModified);
+        }
+        /*
+         * routeVersions[r] is the round in which route r has been modified last, i.e. insertion data of r that is older
+         * is outdated. jobs that depend on other jobs are evaluated against all routes, since inserting one of their
+         * partners might have changed their insertion data of unmodified routes, too. all other jobs are only evaluated
+         * against the modified route
+         */
+        if (firstRun) Arrays.fill(routeVersions, 0, routes.size(), updateRound);
+        else routeVersions[lastModified] = updateRound;
+        List<Callable<Boolean>> tasks = new ArrayList<>(nuOfThreads);
+        for (final List<Job> block : partition(unassignedJobList)) {
+            tasks.add(() -> {
+                for (Job unassignedJob : block) {
+                    boolean updateAllRoutes = firstRun || dependsOnOtherJobs(unassignedJob);
+                    int fromRoute = updateAllRoutes ? 0 : lastModified;
+                    int toRoute = updateAllRoutes ? routes.size() : lastModified + 1;
+                    for (int r = fromRoute; r < toRoute; r++) {
+                        InsertionDataUpdater.update(switchAllowed, initialVehicleIds, fleetManager, insertionCostsCalculator, insertionDataTables[unassignedJob.getIndex()], updateRound, unassignedJob, routes.get(r), r);
                     }
                 }
+                return true;
+            });
+        }
+        invokeAll(tasks);
+    }
+
+    private ScoredJob getBest(final InsertionDataTable[] insertionDataTables, final List<VehicleRoute> routes, final int[] routeVersions, List<Job> unassignedJobList, List<ScoredJob> badJobList) {
+        List<List<Job>> blocks = partition(unassignedJobList);
+        final List<List<ScoredJob>> badJobsOfBlocks = new ArrayList<>(blocks.size());
+        List<Callable<ScoredJob>> tasks = new ArrayList<>(blocks.size());
+        for (final List<Job> block : blocks) {
+            final List<ScoredJob> badJobsOfBlock = new ArrayList<>();
+            badJobsOfBlocks.add(badJobsOfBlock);
+            tasks.add(() -> InsertionDataUpdater.getBest(switchAllowed, initialVehicleIds, fleetManager, insertionCostsCalculator, scoringFunction, insertionDataTables, routes, routeVersions, block, badJobsOfBlock));
+        }
+        List<ScoredJob> bestOfBlocks = invokeAll(tasks);
+        ScoredJob bestScoredJob = null;
+        for (int b = 0; b < blocks.size(); b++) {
+            badJobList.addAll(badJobsOfBlocks.get(b));
+            ScoredJob scoredJob = bestOfBlocks.get(b);
+            if (scoredJob == null) continue;
+            if (bestScoredJob == null || scoredJob.getScore() > bestScoredJob.getScore()) {
+                bestScoredJob = scoredJob;
             }
         }
-        if(updatedAllRoutes){
-            for(VehicleRoute r : routes) updates.put(r,updateRound);
+        return bestScoredJob;
+    }
+
+    private List<List<Job>> partition(List<Job> jobs) {
+        int noBlocks = Math.min(nuOfThreads, jobs.size());
+        List<List<Job>> blocks = new ArrayList<>(noBlocks);
+        for (int b = 0; b < noBlocks; b++) {
+            blocks.add(jobs.subList(b * jobs.size() / noBlocks, (b + 1) * jobs.size() / noBlocks));
         }
-        else{
-            updates.put(lastModified,updateRound);
+        return blocks;
+    }
+
+    private <T> List<T> invokeAll(List<Callable<T>> tasks) {
+        List<T> results = new ArrayList<>(tasks.size());
+        if (tasks.size() == 1) {
+            try {
+                results.add(tasks.get(0).call());
+            } catch (RuntimeException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+            return results;
         }
         try {
-            executor.invokeAll(tasks);
+            for (Future<T> future : executor.invokeAll(tasks)) {
+                results.add(future.get());
+            }
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
             throw new RuntimeException(e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException(e);
         }
+        return results;
     }
 
-    private void makeCallables(List<Callable<Boolean>> tasks, boolean updateAll, final TreeSet<VersionedInsertionData> priorityQueue, final int updateRound, final Job unassignedJob, final Collection<VehicleRoute> routes, final VehicleRoute lastModified) {
-        if(updateAll) {
-            tasks.add(() -> InsertionDataUpdater.update(switchAllowed, initialVehicleIds, fleetManager, insertionCostsCalculator, priorityQueue, updateRound, unassignedJob, routes));
-        }
-        else {
-            tasks.add(() -> InsertionDataUpdater.update(switchAllowed, initialVehicleIds, fleetManager, insertionCostsCalculator, priorityQueue, updateRound, unassignedJob, Arrays.asList(lastModified)));
-        }
+    private boolean dependsOnOtherJobs(Job job) {
+        if (dependencyTypes == null || dependencyTypes[job.getIndex()] == null) return false;
+        DependencyType dependencyType = dependencyTypes[job.getIndex()];
+        return dependencyType.equals(DependencyType.INTER_ROUTE) || dependencyType.equals(DependencyType.INTRA_ROUTE);
     }
 
 
@@ -127,35 +127,39 @@ public class RegretInsertionFast extends AbstractInsertionStrategy {
 //        }
 
         List<Job> jobs = new ArrayList<Job>(unassignedJobs);
-        TreeSet<VersionedInsertionData>[] priorityQueues = new TreeSet[vrp.getJobs().values().size() + 2];
-        VehicleRoute lastModified = null;
+        InsertionDataTable[] insertionDataTables = new InsertionDataTable[vrp.getJobs().values().size() + 2];
+        List<VehicleRoute> routeList = new ArrayList<>(routes);
+        Map<VehicleRoute, Integer> routeIndices = new HashMap<>();
+        for (int r = 0; r < routeList.size(); r++) routeIndices.put(routeList.get(r), r);
+        int[] routeVersions = new int[routeList.size() + jobs.size()];
+        int lastModified = -1;
         boolean firstRun = true;
         int updateRound = 0;
-        Map<VehicleRoute, Integer> updates = new HashMap<>();
         while (!jobs.isEmpty()) {
             List<Job> unassignedJobList = new ArrayList<>(jobs);
             List<ScoredJob> badJobList = new ArrayList<>();
-            if(!firstRun && lastModified == null) throw new IllegalStateException("last modified route is null. this should not be.");
+            if(!firstRun && lastModified < 0) throw new IllegalStateException("last modified route is null. this should not be.");
             if(firstRun){
-                updateInsertionData(priorityQueues, routes, unassignedJobList, updateRound, firstRun, lastModified, updates);
+                updateInsertionData(insertionDataTables, routeList, unassignedJobList, updateRound, firstRun, lastModified, routeVersions);
                 firstRun = false;
             }
             else{
                 //update for all routes || remove history and only update modified route
-                updateInsertionData(priorityQueues, routes, unassignedJobList, updateRound, firstRun, lastModified, updates);
-//                updates.put(lastModified,updateRound);
+                updateInsertionData(insertionDataTables, routeList, unassignedJobList, updateRound, firstRun, lastModified, routeVersions);
             }
             updateRound++;
-            ScoredJob bestScoredJob = InsertionDataUpdater.getBest(switchAllowed,initialVehicleIds,fleetManager,insertionCostsCalculator,scoringFunction,priorityQueues,updates,unassignedJobList,badJobList);
+            ScoredJob bestScoredJob = InsertionDataUpdater.getBest(switchAllowed,initialVehicleIds,fleetManager,insertionCostsCalculator,scoringFunction,insertionDataTables,routeList,routeVersions,unassignedJobList,badJobList);
             if (bestScoredJob != null) {
                 if (bestScoredJob.isNewRoute()) {
                     routes.add(bestScoredJob.getRoute());
+                    routeIndices.put(bestScoredJob.getRoute(), routeList.size());
+                    routeList.add(bestScoredJob.getRoute());
                 }
                 insertJob(bestScoredJob.getJob(), bestScoredJob.getInsertionData(), bestScoredJob.getRoute());
                 jobs.remove(bestScoredJob.getJob());
-                lastModified = bestScoredJob.getRoute();
+                lastModified = routeIndices.get(bestScoredJob.getRoute());
             }
-            else lastModified = null;
+            else lastModified = -1;
             for (ScoredJob bad : badJobList) {
                 Job unassigned = bad.getJob();
                 jobs.remove(unassigned);
@@ -166,34 +170,35 @@ public class RegretInsertionFast extends AbstractInsertionStrategy {
         return badJobs;
     }
 
-    private void updateInsertionData(TreeSet<VersionedInsertionData>[] priorityQueues, Collection<VehicleRoute> routes, List<Job> unassignedJobList, int updateRound, boolean firstRun, VehicleRoute lastModified, Map<VehicleRoute, Integer> updates) {
+    private void updateInsertionData(InsertionDataTable[] insertionDataTables, List<VehicleRoute> routes, List<Job> unassignedJobList, int updateRound, boolean firstRun, int lastModified, int[] routeVersions) {
         for (Job unassignedJob : unassignedJobList) {
-            if(priorityQueues[unassignedJob.getIndex()] == null){
-                priorityQueues[unassignedJob.getIndex()] = new TreeSet<>(InsertionDataUpdater.getComparator());
+            if(insertionDataTables[unassignedJob.getIndex()] == null){
+                insertionDataTables[unassignedJob.getIndex()] = new InsertionDataTable(InsertionDataUpdater.getMaxAlternativesPerRoute(vrp), routes.size());
             }
-            if(firstRun) {
-                InsertionDataUpdater.update(switchAllowed, initialVehicleIds, fleetManager, insertionCostsCalculator, priorityQueues[unassignedJob.getIndex()], updateRound, unassignedJob, routes);
-                for(VehicleRoute r : routes) updates.put(r,updateRound);
-            }
-            else{
-                if(dependencyTypes == null || dependencyTypes[unassignedJob.getIndex()] == null){
-                    InsertionDataUpdater.update(switchAllowed, initialVehicleIds, fleetManager, insertionCostsCalculator, priorityQueues[unassignedJob.getIndex()], updateRound, unassignedJob, Arrays.asList(lastModified));
-                    updates.put(lastModified,updateRound);
-                }
-                else {
-                    DependencyType dependencyType = dependencyTypes[unassignedJob.getIndex()];
-                    if (dependencyType.equals(DependencyType.INTER_ROUTE) || dependencyType.equals(DependencyType.INTRA_ROUTE)) {
-                        InsertionDataUpdater.update(switchAllowed, initialVehicleIds, fleetManager, insertionCostsCalculator, priorityQueues[unassignedJob.getIndex()], updateRound, unassignedJob, routes);
-                        for(VehicleRoute r : routes) updates.put(r,updateRound);
-                    } else {
-                        InsertionDataUpdater.update(switchAllowed, initialVehicleIds, fleetManager, insertionCostsCalculator, priorityQueues[unassignedJob.getIndex()], updateRound, unassignedJob, Arrays.asList(lastModified));
-                        updates.put(lastModified,updateRound);
-                    }
-                }
+        }
+        /*
+         * routeVersions[r] is the round in which route r has been modified last, i.e. insertion data of r that is older
+         * is outdated. jobs that depend on other jobs are evaluated against all routes, since inserting one of their
+         * partners might have changed their insertion data of unmodified routes, too. all other jobs are only evaluated
+         * against the modified route
+         */
+        if (firstRun) Arrays.fill(routeVersions, 0, routes.size(), updateRound);
+        else routeVersions[lastModified] = updateRound;
+        for (Job unassignedJob : unassignedJobList) {
+            boolean updateAllRoutes = firstRun || dependsOnOtherJobs(unassignedJob);
+            int fromRoute = updateAllRoutes ? 0 : lastModified;
+            int toRoute = updateAllRoutes ? routes.size() : lastModified + 1;
+            for (int r = fromRoute; r < toRoute; r++) {
+                InsertionDataUpdater.update(switchAllowed, initialVehicleIds, fleetManager, insertionCostsCalculator, insertionDataTables[unassignedJob.getIndex()], updateRound, unassignedJob, routes.get(r), r);
             }
         }
     }
 
+    private boolean dependsOnOtherJobs(Job job) {
+        if (dependencyTypes == null || dependencyTypes[job.getIndex()] == null) return false;
+        DependencyType dependencyType = dependencyTypes[job.getIndex()];
+        return dependencyType.equals(DependencyType.INTER_ROUTE) || dependencyType.equals(DependencyType.INTRA_ROUTE);
+    }
 
 
 }
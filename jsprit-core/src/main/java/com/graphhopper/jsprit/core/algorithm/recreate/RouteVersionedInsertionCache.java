@@ -0,0 +1,147 @@
+/*
+ * Licensed to GraphHopper GmbH under one or more contributor
+ * license agreements. See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ *
+ * GraphHopper GmbH licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.graphhopper.jsprit.core.algorithm.recreate;
+
+import com.graphhopper.jsprit.core.problem.solution.route.VehicleRoute;
+import com.graphhopper.jsprit.core.problem.vehicle.Vehicle;
+import com.graphhopper.jsprit.core.problem.vehicle.VehicleImpl;
+
+import java.util.Arrays;
+
+/**
+ * Memorizes insertion data of jobs (rows) into routes (columns) together with the version (a logical clock) at which
+ * they have been calculated.
+ * <p>
+ * <p>Memorized insertion data is valid as long as its route has not been modified, no vehicle has been released and
+ * the vehicle it switches to (if any) has not been locked by another route since. Thus, when a job is inserted, only
+ * insertion data of the modified route needs to be re-calculated (unless vehicles were switched).
+ * <p>
+ * <p>Rows can be updated concurrently as long as each row is updated by a single thread and no job is inserted
+ * meanwhile.
+ */
+class RouteVersionedInsertionCache {
+
+    private final InsertionData[][] insertionData;
+
+    private final int[][] versions;
+
+    private final double[][] bounds;
+
+    private int[] routeVersions = new int[8];
+
+    private int[] lockedVehicleVersions = new int[8];
+
+    private int releaseVersion = 0;
+
+    private int version = 1;
+
+    RouteVersionedInsertionCache(int noJobs) {
+        insertionData = new InsertionData[noJobs][];
+        versions = new int[noJobs][];
+        bounds = new double[noJobs][];
+    }
+
+    /**
+     * Makes sure that the specified row can memorize insertion data for noRoutes routes. Must not be called
+     * concurrently.
+     */
+    void ensureCapacity(int row, int noRoutes) {
+        if (insertionData[row] == null) {
+            int capacity = Math.max(8, 2 * noRoutes);
+            insertionData[row] = new InsertionData[capacity];
+            versions[row] = new int[capacity];
+            bounds[row] = new double[capacity];
+        } else if (insertionData[row].length < noRoutes) {
+            insertionData[row] = Arrays.copyOf(insertionData[row], 2 * noRoutes);
+            versions[row] = Arrays.copyOf(versions[row], 2 * noRoutes);
+            bounds[row] = Arrays.copyOf(bounds[row], 2 * noRoutes);
+        }
+        if (routeVersions.length < noRoutes) {
+            routeVersions = Arrays.copyOf(routeVersions, 2 * noRoutes);
+        }
+    }
+
+    boolean isValid(int row, int routeIndex, VehicleRoute route) {
+        int dataVersion = versions[row][routeIndex];
+        if (dataVersion == 0) return false;
+        if (dataVersion < routeVersions[routeIndex] || dataVersion < releaseVersion) return false;
+        InsertionData data = insertionData[row][routeIndex];
+        if (data instanceof InsertionData.NoInsertionFound) return true;
+        Vehicle selectedVehicle = data.getSelectedVehicle();
+        if (selectedVehicle == route.getVehicle()) return true;
+        int vehicleIndex = selectedVehicle.getIndex();
+        return vehicleIndex >= lockedVehicleVersions.length || dataVersion >= lockedVehicleVersions[vehicleIndex];
+    }
+
+    /**
+     * Returns true if the insertion data has been calculated after the last insertion.
+     */
+    boolean isUpToDate(int row, int routeIndex) {
+        return versions[row][routeIndex] == version;
+    }
+
+    InsertionData get(int row, int routeIndex) {
+        return insertionData[row][routeIndex];
+    }
+
+    /**
+     * Returns the best known costs the insertion data has been calculated with. If no insertion has been found, the
+     * job might still be insertable at costs at or above this bound.
+     */
+    double getBound(int row, int routeIndex) {
+        return bounds[row][routeIndex];
+    }
+
+    void put(int row, int routeIndex, InsertionData data) {
+        put(row, routeIndex, data, Double.MAX_VALUE);
+    }
+
+    void put(int row, int routeIndex, InsertionData data, double bound) {
+        insertionData[row][routeIndex] = data;
+        versions[row][routeIndex] = version;
+        bounds[row][routeIndex] = bound;
+    }
+
+    void clear(int row) {
+        insertionData[row] = null;
+        versions[row] = null;
+        bounds[row] = null;
+    }
+
+    /**
+     * Informs the cache that a job has been inserted into the route with the specified index, and that the vehicle of
+     * that route changed from oldVehicle to newVehicle (which can be the same).
+     */
+    void informJobInserted(int routeIndex, Vehicle oldVehicle, Vehicle newVehicle) {
+        version++;
+        if (routeVersions.length <= routeIndex) {
+            routeVersions = Arrays.copyOf(routeVersions, 2 * (routeIndex + 1));
+        }
+        routeVersions[routeIndex] = version;
+        if (oldVehicle == newVehicle) return;
+        if (!(oldVehicle instanceof VehicleImpl.NoVehicle)) {
+            releaseVersion = version;
+        }
+        int vehicleIndex = newVehicle.getIndex();
+        if (lockedVehicleVersions.length <= vehicleIndex) {
+            lockedVehicleVersions = Arrays.copyOf(lockedVehicleVersions, 2 * (vehicleIndex + 1));
+        }
+        lockedVehicleVersions[vehicleIndex] = version;
+    }
+
+}
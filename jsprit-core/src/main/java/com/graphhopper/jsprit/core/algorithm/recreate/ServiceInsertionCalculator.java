@@ -39,9 +39,8 @@ import com.graphhopper.jsprit.core.problem.vehicle.Vehicle;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.ArrayList;
-import java.util.Collection;
 import java.util.Iterator;
+import java.util.List;
 
 /**
  * Calculator that calculates the best insertion position for a {@link Service}.
@@ -95,8 +94,9 @@ final class ServiceInsertionCalculator extends AbstractInsertionCalculator {
         JobInsertionContext insertionContext = new JobInsertionContext(currentRoute, jobToInsert, newVehicle, newDriver, newVehicleDepartureTime);
         Service service = (Service) jobToInsert;
         int insertionIndex = InsertionData.NO_INDEX;
+        InsertionScratchContext scratchContext = InsertionScratchContext.get();
 
-        TourActivity deliveryAct2Insert = activityFactory.createActivities(service).get(0);
+        TourActivity deliveryAct2Insert = scratchContext.getActivity(service, activityFactory);
         insertionContext.getAssociatedActivities().add(deliveryAct2Insert);
 
         /*
@@ -105,7 +105,7 @@ final class ServiceInsertionCalculator extends AbstractInsertionCalculator {
         InsertionData noInsertion = checkRouteContraints(insertionContext, constraintManager);
         if (noInsertion != null) return noInsertion;
 
-        Collection<HardConstraint> failedActivityConstraints = new ArrayList<>();
+        List<HardConstraint> failedActivityConstraints = scratchContext.getFailedActivityConstraints();
 
         /*
         check soft constraints at route level
@@ -119,9 +119,10 @@ final class ServiceInsertionCalculator extends AbstractInsertionCalculator {
         /*
         generate new start and end for new vehicle
          */
-        Start start = new Start(newVehicle.getStartLocation(), newVehicle.getEarliestDeparture(), Double.MAX_VALUE);
-        start.setEndTime(newVehicleDepartureTime);
-        End end = new End(newVehicle.getEndLocation(), 0.0, newVehicle.getLatestArrival());
+        Start start = scratchContext.getStart(newVehicle, newVehicleDepartureTime);
+        End end = scratchContext.getEnd(newVehicle);
+        ActivityContext activityContext = scratchContext.getActivityContext();
+        insertionContext.setActivityContext(activityContext);
 
         TourActivity prevAct = start;
         double prevActStartTime = newVehicleDepartureTime;
@@ -139,9 +140,7 @@ final class ServiceInsertionCalculator extends AbstractInsertionCalculator {
 			for(TimeWindow timeWindow : service.getTimeWindows()) {
                 deliveryAct2Insert.setTheoreticalEarliestOperationStartTime(timeWindow.getStart());
                 deliveryAct2Insert.setTheoreticalLatestOperationStartTime(timeWindow.getEnd());
-                ActivityContext activityContext = new ActivityContext();
                 activityContext.setInsertionIndex(actIndex);
-                insertionContext.setActivityContext(activityContext);
                 ConstraintsStatus status = fulfilled(insertionContext, prevAct, deliveryAct2Insert, nextAct, prevActStartTime, failedActivityConstraints, constraintManager);
                 if (status.equals(ConstraintsStatus.FULFILLED)) {
                     double additionalICostsAtActLevel = softActivityConstraint.getCosts(insertionContext, prevAct, deliveryAct2Insert, nextAct, prevActStartTime);
@@ -170,6 +169,7 @@ final class ServiceInsertionCalculator extends AbstractInsertionCalculator {
             return emptyInsertionData;
         }
         InsertionData insertionData = new InsertionData(bestCost, InsertionData.NO_INDEX, insertionIndex, newVehicle, newDriver);
+        deliveryAct2Insert = activityFactory.createActivities(service).get(0);
         deliveryAct2Insert.setTheoreticalEarliestOperationStartTime(bestTimeWindow.getStart());
         deliveryAct2Insert.setTheoreticalLatestOperationStartTime(bestTimeWindow.getEnd());
         insertionData.getEvents().add(new InsertActivity(currentRoute, newVehicle, deliveryAct2Insert, insertionIndex));
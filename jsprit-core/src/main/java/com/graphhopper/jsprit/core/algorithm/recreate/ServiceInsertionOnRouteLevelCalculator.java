@@ -23,6 +23,8 @@ import com.graphhopper.jsprit.core.problem.Location;
 import com.graphhopper.jsprit.core.problem.constraint.HardActivityConstraint;
 import com.graphhopper.jsprit.core.problem.constraint.HardActivityConstraint.ConstraintsStatus;
 import com.graphhopper.jsprit.core.problem.constraint.HardRouteConstraint;
+import com.graphhopper.jsprit.core.problem.cost.TransportCostsHolder;
+import com.graphhopper.jsprit.core.problem.cost.TransportCostsQueries;
 import com.graphhopper.jsprit.core.problem.cost.VehicleRoutingActivityCosts;
 import com.graphhopper.jsprit.core.problem.cost.VehicleRoutingTransportCosts;
 import com.graphhopper.jsprit.core.problem.driver.Driver;
@@ -74,6 +76,8 @@ final class ServiceInsertionOnRouteLevelCalculator implements JobInsertionCostsC
 
     private End end;
 
+    private final TransportCostsHolder transport = new TransportCostsHolder();
+
     public void setJobActivityFactory(JobActivityFactory jobActivityFactory) {
         this.activityFactory = jobActivityFactory;
     }
@@ -190,8 +194,9 @@ final class ServiceInsertionOnRouteLevelCalculator implements JobInsertionCostsC
             /**
              * calculate transport and activity costs with new vehicle (without inserting k)
              */
-            double transportCost_prevAct_nextAct_newVehicle = transportCosts.getTransportCost(prevAct.getLocation(), nextAct.getLocation(), prevActDepTime_newVehicle, newDriver, newVehicle);
-            double transportTime_prevAct_nextAct_newVehicle = transportCosts.getTransportTime(prevAct.getLocation(), nextAct.getLocation(), prevActDepTime_newVehicle, newDriver, newVehicle);
+            TransportCostsQueries.getTransportTimeAndCost(transportCosts, prevAct.getLocation(), nextAct.getLocation(), prevActDepTime_newVehicle, newDriver, newVehicle, transport);
+            double transportCost_prevAct_nextAct_newVehicle = transport.getTransportCost();
+            double transportTime_prevAct_nextAct_newVehicle = transport.getTransportTime();
             double arrTime_nextAct_newVehicle = prevActDepTime_newVehicle + transportTime_prevAct_nextAct_newVehicle;
             double activityCost_nextAct = activityCosts.getActivityCost(nextAct, arrTime_nextAct_newVehicle, newDriver, newVehicle);
 
@@ -267,8 +272,7 @@ final class ServiceInsertionOnRouteLevelCalculator implements JobInsertionCostsC
                 /**
                  * compute cost-diff of tour with and without new activity --> insertion_costs
                  */
-                Double currentRouteCosts = stateManager.getRouteState(currentRoute, InternalStates.COSTS, Double.class);
-                if (currentRouteCosts == null) currentRouteCosts = 0.;
+                double currentRouteCosts = stateManager.getDoubleRouteState(currentRoute, InternalStates.COSTS, 0.);
                 double insertion_costs = auxilliaryPathCostCalculator.costOfPath(wholeTour, start.getEndTime(), newDriver, newVehicle) - currentRouteCosts;
 
                 /**
@@ -307,12 +311,10 @@ final class ServiceInsertionOnRouteLevelCalculator implements JobInsertionCostsC
     }
 
     private double sumOf_prevCosts_oldVehicle(VehicleRoute vehicleRoute, TourActivity act) {
-        Double prevCost;
         if (act instanceof End) {
-            prevCost = stateManager.getRouteState(vehicleRoute, InternalStates.COSTS, Double.class);
-        } else prevCost = stateManager.getActivityState(act, InternalStates.COSTS, Double.class);
-        if (prevCost == null) prevCost = 0.;
-        return prevCost;
+            return stateManager.getDoubleRouteState(vehicleRoute, InternalStates.COSTS, 0.);
+        }
+        return stateManager.getDoubleActivityState(act, InternalStates.COSTS, 0.);
     }
 
     private Comparator<InsertionData> getComparator() {
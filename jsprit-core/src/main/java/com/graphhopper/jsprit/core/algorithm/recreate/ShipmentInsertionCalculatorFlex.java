@@ -24,6 +24,8 @@ import com.graphhopper.jsprit.core.problem.constraint.HardConstraint;
 import com.graphhopper.jsprit.core.problem.constraint.SoftActivityConstraint;
 import com.graphhopper.jsprit.core.problem.constraint.SoftRouteConstraint;
 import com.graphhopper.jsprit.core.problem.cost.VehicleRoutingActivityCosts;
+import com.graphhopper.jsprit.core.problem.cost.TransportCostsHolder;
+import com.graphhopper.jsprit.core.problem.cost.TransportCostsQueries;
 import com.graphhopper.jsprit.core.problem.cost.VehicleRoutingTransportCosts;
 import com.graphhopper.jsprit.core.problem.driver.Driver;
 import com.graphhopper.jsprit.core.problem.job.Job;
@@ -133,6 +135,8 @@ public final class ShipmentInsertionCalculatorFlex extends AbstractInsertionCalc
         TimeWindow bestPickupTimeWindow = null;
         TimeWindow bestDeliveryTimeWindow = null;
 
+        TransportCostsHolder transport = new TransportCostsHolder();
+
 
         Start start = new Start(newVehicle.getStartLocation(), newVehicle.getEarliestDeparture(), newVehicle.getLatestArrival());
         start.setEndTime(newVehicleDepartureTime);
@@ -177,7 +181,7 @@ public final class ShipmentInsertionCalculatorFlex extends AbstractInsertionCalc
                     double additionalPickupICosts = softActivityConstraint.getCosts(insertionContext, prevAct, pickupShipment, nextAct, prevActEndTime);
                     double pickupAIC = calculate(insertionContext, prevAct, pickupShipment, nextAct, prevActEndTime);
 
-                    double shipmentPickupArrTime = prevActEndTime + transportCosts.getTransportTime(prevAct.getLocation(), pickupShipment.getLocation(), prevActEndTime, newDriver, newVehicle);
+                    double shipmentPickupArrTime = prevActEndTime + TransportCostsQueries.getTransportTime(transportCosts, prevAct.getLocation(), pickupShipment.getLocation(), prevActEndTime, newDriver, newVehicle, transport);
                     double shipmentPickupEndTime = Math.max(shipmentPickupArrTime, pickupShipment.getTheoreticalEarliestOperationStartTime()) + activityCosts.getActivityDuration(pickupShipment, shipmentPickupArrTime, newDriver, newVehicle);
 
                     pickupContext.setArrivalTime(shipmentPickupArrTime);
@@ -232,7 +236,7 @@ public final class ShipmentInsertionCalculatorFlex extends AbstractInsertionCalc
                             if (deliveryInsertionNotFulfilledBreak) break;
                         }
                         //update prevAct and endTime
-                        double nextActArrTime = prevActEndTimeForDeliveryLoop + transportCosts.getTransportTime(prevActForDeliveryLoop.getLocation(), nextActForDeliveryLoop.getLocation(), prevActEndTimeForDeliveryLoop, newDriver, newVehicle);
+                        double nextActArrTime = prevActEndTimeForDeliveryLoop + TransportCostsQueries.getTransportTime(transportCosts, prevActForDeliveryLoop.getLocation(), nextActForDeliveryLoop.getLocation(), prevActEndTimeForDeliveryLoop, newDriver, newVehicle, transport);
                         prevActEndTimeForDeliveryLoop = Math.max(nextActArrTime, nextActForDeliveryLoop.getTheoreticalEarliestOperationStartTime()) + activityCosts.getActivityDuration(nextActForDeliveryLoop, nextActArrTime, newDriver, newVehicle);
                         prevActForDeliveryLoop = nextActForDeliveryLoop;
                         j++;
@@ -244,7 +248,7 @@ public final class ShipmentInsertionCalculatorFlex extends AbstractInsertionCalc
             }
 
             //update prevAct and endTime
-            double nextActArrTime = prevActEndTime + transportCosts.getTransportTime(prevAct.getLocation(), nextAct.getLocation(), prevActEndTime, newDriver, newVehicle);
+            double nextActArrTime = prevActEndTime + TransportCostsQueries.getTransportTime(transportCosts, prevAct.getLocation(), nextAct.getLocation(), prevActEndTime, newDriver, newVehicle, transport);
             prevActEndTime = Math.max(nextActArrTime, nextAct.getTheoreticalEarliestOperationStartTime()) + activityCosts.getActivityDuration(nextAct, nextActArrTime, newDriver, newVehicle);
             prevAct = nextAct;
             i++;
@@ -18,6 +18,8 @@
 package com.graphhopper.jsprit.core.algorithm.recreate;
 
 import com.graphhopper.jsprit.core.problem.constraint.SoftActivityConstraint;
+import com.graphhopper.jsprit.core.problem.cost.TransportCostsHolder;
+import com.graphhopper.jsprit.core.problem.cost.TransportCostsQueries;
 import com.graphhopper.jsprit.core.problem.cost.VehicleRoutingActivityCosts;
 import com.graphhopper.jsprit.core.problem.cost.VehicleRoutingTransportCosts;
 import com.graphhopper.jsprit.core.problem.misc.JobInsertionContext;
@@ -30,6 +32,15 @@ public class VariableTransportCostCalculator implements SoftActivityConstraint {
 
     private final VehicleRoutingActivityCosts activityCosts;
 
+    private final ThreadLocal<TransportCostsHolder> transportCostsHolders = new ThreadLocal<TransportCostsHolder>() {
+
+        @Override
+        protected TransportCostsHolder initialValue() {
+            return new TransportCostsHolder();
+        }
+
+    };
+
     public VariableTransportCostCalculator(VehicleRoutingTransportCosts routingCosts, VehicleRoutingActivityCosts activityCosts) {
         super();
         this.routingCosts = routingCosts;
@@ -38,8 +49,10 @@ public class VariableTransportCostCalculator implements SoftActivityConstraint {
 
     @Override
     public double getCosts(JobInsertionContext iFacts, TourActivity prevAct, TourActivity newAct, TourActivity nextAct, double depTimeAtPrevAct) {
-        double tp_costs_prevAct_newAct = routingCosts.getTransportCost(prevAct.getLocation(), newAct.getLocation(), depTimeAtPrevAct, iFacts.getNewDriver(), iFacts.getNewVehicle());
-        double tp_time_prevAct_newAct = routingCosts.getTransportTime(prevAct.getLocation(), newAct.getLocation(), depTimeAtPrevAct, iFacts.getNewDriver(), iFacts.getNewVehicle());
+        TransportCostsHolder transport = transportCostsHolders.get();
+        TransportCostsQueries.getTransportTimeAndCost(routingCosts, prevAct.getLocation(), newAct.getLocation(), depTimeAtPrevAct, iFacts.getNewDriver(), iFacts.getNewVehicle(), transport);
+        double tp_costs_prevAct_newAct = transport.getTransportCost();
+        double tp_time_prevAct_newAct = transport.getTransportTime();
 
         double newAct_arrTime = depTimeAtPrevAct + tp_time_prevAct_newAct;
         double newAct_endTime = Math.max(newAct_arrTime, newAct.getTheoreticalEarliestOperationStartTime()) + activityCosts.getActivityDuration(newAct,newAct_arrTime,iFacts.getNewDriver(),iFacts.getNewVehicle());
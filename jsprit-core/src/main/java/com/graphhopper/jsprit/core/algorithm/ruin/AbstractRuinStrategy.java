@@ -23,6 +23,7 @@ import com.graphhopper.jsprit.core.algorithm.ruin.listener.RuinListener;
 import com.graphhopper.jsprit.core.algorithm.ruin.listener.RuinListeners;
 import com.graphhopper.jsprit.core.problem.VehicleRoutingProblem;
 import com.graphhopper.jsprit.core.problem.job.Job;
+import com.graphhopper.jsprit.core.problem.solution.SolutionIndex;
 import com.graphhopper.jsprit.core.problem.solution.route.VehicleRoute;
 import com.graphhopper.jsprit.core.util.RandomNumberGeneration;
 import org.slf4j.Logger;
@@ -41,6 +42,10 @@ public abstract class AbstractRuinStrategy implements RuinStrategy {
 
     protected VehicleRoutingProblem vrp;
 
+    protected SolutionIndex solutionIndex;
+
+    private boolean routesIndexed;
+
     public void setRandom(Random random) {
         this.random = random;
     }
@@ -55,6 +60,29 @@ public abstract class AbstractRuinStrategy implements RuinStrategy {
         return ruinShareFactory;
     }
 
+    /**
+     * Sets the index that maps jobs to the routes serving them. It is built with the routes to be ruined at ruin start
+     * and informed about every removed job, such that jobs are removed without scanning all routes. The ruin strategies
+     * of an algorithm can share one index, since routes that are unchanged copies take over their index entries.
+     *
+     * @param solutionIndex the index, or null if jobs are to be looked up by scanning the routes
+     */
+    public void setSolutionIndex(SolutionIndex solutionIndex) {
+        this.solutionIndex = solutionIndex;
+    }
+
+    public SolutionIndex getSolutionIndex() {
+        return solutionIndex;
+    }
+
+    /**
+     * Returns true while {@link #ruinRoutes(Collection)} is called by {@link #ruin(Collection)}, i.e. if the solution
+     * index has been built with the routes to be ruined.
+     */
+    protected boolean routesIndexed() {
+        return routesIndexed;
+    }
+
     protected AbstractRuinStrategy(VehicleRoutingProblem vrp) {
         this.vrp = vrp;
         ruinListeners = new RuinListeners();
@@ -63,7 +91,16 @@ public abstract class AbstractRuinStrategy implements RuinStrategy {
     @Override
     public Collection<Job> ruin(Collection<VehicleRoute> vehicleRoutes) {
         ruinListeners.ruinStarts(vehicleRoutes);
-        Collection<Job> unassigned = ruinRoutes(vehicleRoutes);
+        Collection<Job> unassigned;
+        if (solutionIndex != null) {
+            solutionIndex.build(vehicleRoutes);
+            routesIndexed = true;
+            try {
+                unassigned = ruinRoutes(vehicleRoutes);
+            } finally {
+                routesIndexed = false;
+            }
+        } else unassigned = ruinRoutes(vehicleRoutes);
         logger.trace("ruin: [ruined={}]", unassigned.size());
         ruinListeners.ruinEnds(vehicleRoutes, unassigned);
         return unassigned;
@@ -88,6 +125,10 @@ public abstract class AbstractRuinStrategy implements RuinStrategy {
 
     protected boolean removeJob(Job job, Collection<VehicleRoute> vehicleRoutes) {
         if (jobIsInitial(job)) return false;
+        if (routesIndexed) {
+            VehicleRoute route = solutionIndex.getRoute(job);
+            return route != null && removeJob(job, route);
+        }
         for (VehicleRoute route : vehicleRoutes) {
             if (removeJob(job, route)) {
                 return true;
@@ -104,6 +145,7 @@ public abstract class AbstractRuinStrategy implements RuinStrategy {
         if (jobIsInitial(job)) return false;
         boolean removed = route.getTourActivities().removeJob(job);
         if (removed) {
+            if (solutionIndex != null) solutionIndex.informJobRemoved(job, route);
             logger.trace("ruin: {}", job.getId());
             ruinListeners.removed(job, route);
             return true;
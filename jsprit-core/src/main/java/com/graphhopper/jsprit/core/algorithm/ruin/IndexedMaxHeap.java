@@ -0,0 +1,127 @@
+/*
+ * Licensed to GraphHopper GmbH under one or more contributor
+ * license agreements. See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ *
+ * GraphHopper GmbH licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.graphhopper.jsprit.core.algorithm.ruin;
+
+import java.util.Arrays;
+
+/**
+ * Max-heap of int keys in [0,capacity) with double values. Besides insertion and removal of the maximum, values of
+ * contained keys can be updated and arbitrary keys can be removed in O(log n). Ties are broken by the lower key.
+ */
+final class IndexedMaxHeap {
+
+    private final int[] heap;
+
+    private final int[] positions;
+
+    private final double[] values;
+
+    private int size = 0;
+
+    IndexedMaxHeap(int capacity) {
+        heap = new int[capacity];
+        positions = new int[capacity];
+        values = new double[capacity];
+        Arrays.fill(positions, -1);
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    boolean contains(int key) {
+        return positions[key] >= 0;
+    }
+
+    double getValue(int key) {
+        return values[key];
+    }
+
+    /**
+     * Returns the key with the highest value.
+     */
+    int peek() {
+        if (size == 0) throw new IllegalStateException("heap is empty");
+        return heap[0];
+    }
+
+    /**
+     * Inserts key with the specified value, or updates its value if the key is already contained.
+     */
+    void put(int key, double value) {
+        if (!contains(key)) {
+            values[key] = value;
+            heap[size] = key;
+            positions[key] = size;
+            size++;
+            siftUp(size - 1);
+        } else {
+            double oldValue = values[key];
+            values[key] = value;
+            if (value > oldValue) siftUp(positions[key]);
+            else siftDown(positions[key]);
+        }
+    }
+
+    void remove(int key) {
+        int pos = positions[key];
+        if (pos < 0) return;
+        size--;
+        positions[key] = -1;
+        if (pos == size) return;
+        int last = heap[size];
+        heap[pos] = last;
+        positions[last] = pos;
+        siftUp(pos);
+        siftDown(positions[last]);
+    }
+
+    private void siftUp(int pos) {
+        int key = heap[pos];
+        while (pos > 0) {
+            int parent = (pos - 1) / 2;
+            if (!isHigher(key, heap[parent])) break;
+            move(heap[parent], pos);
+            pos = parent;
+        }
+        move(key, pos);
+    }
+
+    private void siftDown(int pos) {
+        int key = heap[pos];
+        while (true) {
+            int child = 2 * pos + 1;
+            if (child >= size) break;
+            if (child + 1 < size && isHigher(heap[child + 1], heap[child])) child++;
+            if (!isHigher(heap[child], key)) break;
+            move(heap[child], pos);
+            pos = child;
+        }
+        move(key, pos);
+    }
+
+    private void move(int key, int pos) {
+        heap[pos] = key;
+        positions[key] = pos;
+    }
+
+    private boolean isHigher(int key1, int key2) {
+        return values[key1] > values[key2] || (values[key1] == values[key2] && key1 < key2);
+    }
+
+}
@@ -21,6 +21,8 @@ package com.graphhopper.jsprit.core.algorithm.ruin;
 import com.graphhopper.jsprit.core.algorithm.ruin.distance.JobDistance;
 import com.graphhopper.jsprit.core.problem.VehicleRoutingProblem;
 
+import java.util.concurrent.ExecutorService;
+
 /**
  * Created by schroeder on 05/03/15.
  */
@@ -35,4 +37,16 @@ public class JobNeighborhoodsFactory {
         return new JobNeighborhoodsOptimized(vrp, jobDistance, capacity);
     }
 
+    /**
+     * Creates neighborhoods that are calculated with noThreads threads of the specified executor service. Thus,
+     * jobDistance must be thread-safe.
+     */
+    public JobNeighborhoods createNeighborhoods(VehicleRoutingProblem vrp, JobDistance jobDistance, int capacity, ExecutorService executorService, int noThreads) {
+        return new JobNeighborhoodsOptimized(vrp, jobDistance, capacity, executorService, noThreads);
+    }
+
+    public JobNeighborhoods createNeighborhoods(VehicleRoutingProblem vrp, JobNeighborhoodsSpatialIndex.Metric metric) {
+        return new JobNeighborhoodsSpatialIndex(vrp, metric);
+    }
+
 }
@@ -25,10 +25,18 @@ import com.graphhopper.jsprit.core.util.StopWatch;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.*;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.*;
 
 /**
  * Created by schroeder on 07/01/15.
+ * <p>
+ * <p>Neighborhoods of the jobs are calculated sequentially unless an executor service is specified. Then they are
+ * calculated in parallel with the threads of this executor, and {@link JobDistance} (and the transport costs it is
+ * based on) must be thread-safe.
  */
 class JobNeighborhoodsOptimized implements JobNeighborhoods {
 
@@ -83,16 +91,30 @@ class JobNeighborhoodsOptimized implements JobNeighborhoods {
 
     private double maxDistance = 0.;
 
+    private ExecutorService executorService;
+
+    private int noThreads = 1;
+
     public JobNeighborhoodsOptimized(VehicleRoutingProblem vrp, JobDistance jobDistance, int capacity) {
         super();
         this.vrp = vrp;
         this.jobDistance = jobDistance;
         this.capacity = capacity;
-        neighbors = new int[vrp.getJobsInclusiveInitialJobsInRoutes().size()+1][capacity];
+        neighbors = new int[vrp.getJobsInclusiveInitialJobsInRoutes().size()+1][];
         jobs = new Job[vrp.getJobsInclusiveInitialJobsInRoutes().size()+1];
         logger.debug("initialize {}", this);
     }
 
+    /**
+     * Calculates the neighborhoods with noThreads threads of the specified executor service. Thus, jobDistance must be
+     * thread-safe. The executor service is not shut down.
+     */
+    public JobNeighborhoodsOptimized(VehicleRoutingProblem vrp, JobDistance jobDistance, int capacity, ExecutorService executorService, int noThreads) {
+        this(vrp, jobDistance, capacity);
+        this.executorService = executorService;
+        this.noThreads = noThreads;
+    }
+
     @Override
     public Iterator<Job> getNearestNeighborsIterator(int nNeighbors, Job neighborTo) {
         if (neighborTo.getIndex() == 0) {
@@ -100,6 +122,9 @@ class JobNeighborhoodsOptimized implements JobNeighborhoods {
         }
         
         int[] neighbors = this.neighbors[neighborTo.getIndex()-1];
+        if (neighbors == null) {
+            return Collections.emptyIterator();
+        }
         return new ArrayIterator(nNeighbors,neighbors,jobs);
     }
 
@@ -119,39 +144,126 @@ class JobNeighborhoodsOptimized implements JobNeighborhoods {
         logger.debug("pre-process distances between locations ...");
         StopWatch stopWatch = new StopWatch();
         stopWatch.start();
-        for (Job job_i : vrp.getJobsInclusiveInitialJobsInRoutes().values()) {
-            jobs[job_i.getIndex()] = job_i;
-            List<ReferencedJob> jobList = new ArrayList<ReferencedJob>(vrp.getJobsInclusiveInitialJobsInRoutes().values().size());
-            for (Job job_j : vrp.getJobsInclusiveInitialJobsInRoutes().values()) {
-                if (job_i == job_j) continue;
-                double distance = jobDistance.getDistance(job_i, job_j);
-                if (distance > maxDistance) maxDistance = distance;
-                ReferencedJob referencedJob = new ReferencedJob(job_j, distance);
-                jobList.add(referencedJob);
-            }
-            Collections.sort(jobList,getComparator());
-            int[] jobIndices = new int[capacity];
-            for(int index=0;index<capacity;index++){
-                jobIndices[index] = jobList.get(index).getJob().getIndex();
-            }
-            neighbors[job_i.getIndex()-1] = jobIndices;
+        final Job[] allJobs = vrp.getJobsInclusiveInitialJobsInRoutes().values().toArray(new Job[0]);
+        for (Job job : allJobs) {
+            jobs[job.getIndex()] = job;
+        }
+        final int noNeighbors = Math.min(capacity, allJobs.length - 1);
+        if (executorService == null || noThreads <= 1) {
+            maxDistance = calculateNeighbors(allJobs, 0, allJobs.length, noNeighbors);
+        } else {
+            maxDistance = calculateNeighborsConcurrently(allJobs, noNeighbors);
         }
         stopWatch.stop();
         logger.debug("pre-processing comp-time: {}", stopWatch);
     }
 
-    private Comparator<ReferencedJob> getComparator(){
-        return new Comparator<ReferencedJob>() {
-            @Override
-            public int compare(ReferencedJob o1, ReferencedJob o2) {
-                if (o1.getDistance() < o2.getDistance()) {
-                    return -1;
-                } else if (o1.getDistance() > o2.getDistance()){
-                    return 1;
+    private double calculateNeighborsConcurrently(final Job[] allJobs, final int noNeighbors) {
+        int noBlocks = Math.min(allJobs.length, 4 * noThreads);
+        List<Callable<Double>> tasks = new ArrayList<>(noBlocks);
+        for (int b = 0; b < noBlocks; b++) {
+            final int from = (int) ((long) b * allJobs.length / noBlocks);
+            final int to = (int) ((long) (b + 1) * allJobs.length / noBlocks);
+            tasks.add(new Callable<Double>() {
+
+                @Override
+                public Double call() throws Exception {
+                    return calculateNeighbors(allJobs, from, to, noNeighbors);
                 }
-                else return 0;
+
+            });
+        }
+        double maxDistance = 0.;
+        try {
+            for (Future<Double> future : executorService.invokeAll(tasks)) {
+                maxDistance = Math.max(maxDistance, future.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException(e);
+        }
+        return maxDistance;
+    }
+
+    private double calculateNeighbors(Job[] allJobs, int from, int to, int noNeighbors) {
+        double maxDistance = 0.;
+        for (int i = from; i < to; i++) {
+            maxDistance = Math.max(maxDistance, calculateNeighbors(allJobs, i, noNeighbors));
+        }
+        return maxDistance;
+    }
+
+    /**
+     * Determines the noNeighbors nearest neighbors of allJobs[i] with a bounded max-heap, i.e. without sorting all
+     * other jobs. Equally distant jobs are ordered according to their position in allJobs. Returns the max. distance
+     * from allJobs[i] to any other job.
+     */
+    private double calculateNeighbors(Job[] allJobs, int i, int noNeighbors) {
+        Job job_i = allJobs[i];
+        double[] heapDistances = new double[noNeighbors];
+        int[] heapPositions = new int[noNeighbors];
+        int heapSize = 0;
+        double maxDistance = 0.;
+        for (int j = 0; j < allJobs.length; j++) {
+            if (i == j) continue;
+            double distance = jobDistance.getDistance(job_i, allJobs[j]);
+            if (distance > maxDistance) maxDistance = distance;
+            if (noNeighbors == 0) continue;
+            if (heapSize < noNeighbors) {
+                heapDistances[heapSize] = distance;
+                heapPositions[heapSize] = j;
+                siftUp(heapDistances, heapPositions, heapSize);
+                heapSize++;
+            } else if (isFarther(heapDistances[0], heapPositions[0], distance, j)) {
+                heapDistances[0] = distance;
+                heapPositions[0] = j;
+                siftDown(heapDistances, heapPositions, 0, heapSize);
             }
-        };
+        }
+        int[] jobIndices = new int[noNeighbors];
+        for (int k = heapSize - 1; k >= 0; k--) {
+            jobIndices[k] = allJobs[heapPositions[0]].getIndex();
+            heapDistances[0] = heapDistances[k];
+            heapPositions[0] = heapPositions[k];
+            siftDown(heapDistances, heapPositions, 0, k);
+        }
+        neighbors[job_i.getIndex() - 1] = jobIndices;
+        return maxDistance;
+    }
+
+    private static boolean isFarther(double distance1, int position1, double distance2, int position2) {
+        return distance1 > distance2 || (distance1 == distance2 && position1 > position2);
+    }
+
+    private static void siftUp(double[] distances, int[] positions, int k) {
+        while (k > 0) {
+            int parent = (k - 1) / 2;
+            if (!isFarther(distances[k], positions[k], distances[parent], positions[parent])) break;
+            swap(distances, positions, k, parent);
+            k = parent;
+        }
+    }
+
+    private static void siftDown(double[] distances, int[] positions, int k, int size) {
+        while (true) {
+            int child = 2 * k + 1;
+            if (child >= size) break;
+            if (child + 1 < size && isFarther(distances[child + 1], positions[child + 1], distances[child], positions[child])) child++;
+            if (!isFarther(distances[child], positions[child], distances[k], positions[k])) break;
+            swap(distances, positions, k, child);
+            k = child;
+        }
+    }
+
+    private static void swap(double[] distances, int[] positions, int k, int l) {
+        double distance = distances[k];
+        distances[k] = distances[l];
+        distances[l] = distance;
+        int position = positions[k];
+        positions[k] = positions[l];
+        positions[l] = position;
     }
 
     @Override
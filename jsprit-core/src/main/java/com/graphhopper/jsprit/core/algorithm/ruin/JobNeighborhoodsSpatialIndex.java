@@ -0,0 +1,235 @@
+/*
+ * Licensed to GraphHopper GmbH under one or more contributor
+ * license agreements. See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ *
+ * GraphHopper GmbH licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.graphhopper.jsprit.core.algorithm.ruin;
+
+import com.graphhopper.jsprit.core.problem.VehicleRoutingProblem;
+import com.graphhopper.jsprit.core.problem.job.Activity;
+import com.graphhopper.jsprit.core.problem.job.Job;
+import com.graphhopper.jsprit.core.util.Coordinate;
+import com.graphhopper.jsprit.core.util.DistanceUnit;
+import com.graphhopper.jsprit.core.util.StopWatch;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+
+/**
+ * Job neighborhoods that are answered by a spatial index (k-d tree) over the coordinates of the jobs instead of a
+ * precomputed neighborhood table. It requires O(n) memory and O(n log n) time to build, and thus allows radial and
+ * cluster ruins on problems where the table of {@link JobNeighborhoodsFactory} is too large.
+ * <p>
+ * <p>Neighbors are determined by the distance between the coordinates of the jobs (see
+ * {@link com.graphhopper.jsprit.core.problem.Location#getCoordinate()}), not by transport costs. The coordinate of a
+ * job with more than one activity (e.g. a shipment) is the mean of the coordinates of its activities. For
+ * {@link Metric#GREAT_CIRCLE}, x is the longitude and y the latitude (as in
+ * {@link com.graphhopper.jsprit.core.util.GreatCircleDistanceCalculator}); jobs are then indexed as points on the unit
+ * sphere, whose chord distances are in the same order as great circle distances.
+ * <p>
+ * <p>The index is immutable once initialised and can be queried concurrently.
+ */
+public class JobNeighborhoodsSpatialIndex implements JobNeighborhoods {
+
+    public enum Metric {
+
+        EUCLIDEAN("euclidean"), MANHATTAN("manhattan"), GREAT_CIRCLE("great_circle");
+
+        String name;
+
+        Metric(String name) {
+            this.name = name;
+        }
+
+        public String toString() {
+            return name;
+        }
+
+    }
+
+    private static final double EARTH_RADIUS = 6372.8; // km
+
+    private static Logger logger = LoggerFactory.getLogger(JobNeighborhoodsSpatialIndex.class);
+
+    private final VehicleRoutingProblem vrp;
+
+    private final Metric metric;
+
+    private final DistanceUnit distanceUnit;
+
+    private Job[] jobs;
+
+    private int[] pointsOfJobs;
+
+    private KdTree tree;
+
+    private double maxDistance = 0.;
+
+    private List<Job> farthestJobs = Collections.emptyList();
+
+    public JobNeighborhoodsSpatialIndex(VehicleRoutingProblem vrp, Metric metric) {
+        this(vrp, metric, DistanceUnit.Kilometer);
+    }
+
+    /**
+     * @param vrp          the problem
+     * @param metric       distance metric of the coordinates
+     * @param distanceUnit unit of great circle distances, ignored by the other metrics
+     */
+    public JobNeighborhoodsSpatialIndex(VehicleRoutingProblem vrp, Metric metric, DistanceUnit distanceUnit) {
+        this.vrp = vrp;
+        this.metric = metric;
+        this.distanceUnit = distanceUnit;
+        logger.debug("initialize {}", this);
+    }
+
+    @Override
+    public Iterator<Job> getNearestNeighborsIterator(int nNeighbors, Job neighborTo) {
+        int point = getPoint(neighborTo);
+        if (point < 0) return Collections.<Job>emptyIterator();
+        int[] neighbors = tree.nearest(point, nNeighbors);
+        return new JobNeighborhoodsOptimized.ArrayIterator(neighbors.length, neighbors, jobs);
+    }
+
+    /**
+     * Returns the distance between the coordinates of the specified jobs in units of the metric.
+     */
+    public double getDistance(Job job, Job otherJob) {
+        int point = getPoint(job);
+        int otherPoint = getPoint(otherJob);
+        if (point < 0 || otherPoint < 0) throw new IllegalArgumentException("job is not indexed");
+        return fromIndexDistance(tree.distance(point, otherPoint));
+    }
+
+    @Override
+    public void initialise() {
+        StopWatch stopWatch = new StopWatch();
+        stopWatch.start();
+        Collection<Job> allJobs = vrp.getJobsInclusiveInitialJobsInRoutes().values();
+        jobs = allJobs.toArray(new Job[allJobs.size()]);
+        int dims = metric == Metric.GREAT_CIRCLE ? 3 : 2;
+        double[] coordinates = new double[jobs.length * dims];
+        int maxJobIndex = 0;
+        for (int i = 0; i < jobs.length; i++) {
+            setCoordinates(jobs[i], coordinates, i * dims);
+            maxJobIndex = Math.max(maxJobIndex, jobs[i].getIndex());
+        }
+        pointsOfJobs = new int[maxJobIndex + 1];
+        Arrays.fill(pointsOfJobs, -1);
+        for (int i = 0; i < jobs.length; i++) {
+            if (jobs[i].getIndex() >= 0) pointsOfJobs[jobs[i].getIndex()] = i;
+        }
+        tree = new KdTree(coordinates, dims, metric == Metric.MANHATTAN);
+        maxDistance = fromIndexDistance(estimateMaxDistance(coordinates, dims));
+        stopWatch.stop();
+        logger.debug("spatial index comp-time: {}; nuOfJobs indexed: {}", stopWatch, jobs.length);
+    }
+
+    /**
+     * Returns an estimate of the maximum distance between two jobs, i.e. the largest distance between any job and the
+     * jobs with extreme coordinates. It is at least half of the actual maximum. Like the neighborhoods, it is in units
+     * of the metric, not of transport costs.
+     */
+    @Override
+    public double getMaxDistance() {
+        return maxDistance;
+    }
+
+    /**
+     * Returns the two jobs whose distance is {@link #getMaxDistance()}, or an empty list if no two jobs have different
+     * coordinates. Unlike {@link #getMaxDistance()}, their job distance can be determined in units of transport costs
+     * with a single query.
+     */
+    public List<Job> getFarthestJobs() {
+        return farthestJobs;
+    }
+
+    private int getPoint(Job job) {
+        if (tree == null) throw new IllegalStateException("spatial index has not been initialised yet");
+        int index = job.getIndex();
+        if (index < 0 || index >= pointsOfJobs.length) return -1;
+        int point = pointsOfJobs[index];
+        if (point < 0 || jobs[point] != job) return -1;
+        return point;
+    }
+
+    private void setCoordinates(Job job, double[] coordinates, int offset) {
+        List<Activity> activities = job.getActivities();
+        if (activities.isEmpty()) throw new IllegalArgumentException("job " + job.getId() + " has no location");
+        for (Activity activity : activities) {
+            if (activity.getLocation() == null || activity.getLocation().getCoordinate() == null) {
+                throw new IllegalArgumentException("location of job " + job.getId() + " has no coordinate. a spatial index requires coordinates.");
+            }
+            Coordinate coordinate = activity.getLocation().getCoordinate();
+            if (metric == Metric.GREAT_CIRCLE) {
+                double lon = Math.toRadians(coordinate.getX());
+                double lat = Math.toRadians(coordinate.getY());
+                coordinates[offset] += Math.cos(lat) * Math.cos(lon);
+                coordinates[offset + 1] += Math.cos(lat) * Math.sin(lon);
+                coordinates[offset + 2] += Math.sin(lat);
+            } else {
+                coordinates[offset] += coordinate.getX();
+                coordinates[offset + 1] += coordinate.getY();
+            }
+        }
+        if (metric == Metric.GREAT_CIRCLE) {
+            double norm = Math.sqrt(coordinates[offset] * coordinates[offset] + coordinates[offset + 1] * coordinates[offset + 1] + coordinates[offset + 2] * coordinates[offset + 2]);
+            if (norm > 0.) {
+                for (int d = 0; d < 3; d++) coordinates[offset + d] /= norm;
+            }
+        } else {
+            coordinates[offset] /= activities.size();
+            coordinates[offset + 1] /= activities.size();
+        }
+    }
+
+    private double estimateMaxDistance(double[] coordinates, int dims) {
+        int noPoints = coordinates.length / dims;
+        double max = 0.;
+        for (int d = 0; d < dims; d++) {
+            int minPoint = 0;
+            int maxPoint = 0;
+            for (int i = 1; i < noPoints; i++) {
+                if (coordinates[i * dims + d] < coordinates[minPoint * dims + d]) minPoint = i;
+                if (coordinates[i * dims + d] > coordinates[maxPoint * dims + d]) maxPoint = i;
+            }
+            for (int i = 0; i < noPoints; i++) {
+                int extremePoint = tree.distance(minPoint, i) >= tree.distance(maxPoint, i) ? minPoint : maxPoint;
+                double distance = tree.distance(extremePoint, i);
+                if (distance > max) {
+                    max = distance;
+                    farthestJobs = Arrays.asList(jobs[extremePoint], jobs[i]);
+                }
+            }
+        }
+        return max;
+    }
+
+    private double fromIndexDistance(double distance) {
+        if (metric != Metric.GREAT_CIRCLE) return distance;
+        return 2. * Math.asin(Math.min(1., distance / 2.)) * getEarthRadius();
+    }
+
+    private double getEarthRadius() {
+        return distanceUnit == DistanceUnit.Meter ? EARTH_RADIUS * 1000. : EARTH_RADIUS;
+    }
+
+    @Override
+    public String toString() {
+        return "[name=neighborhoodWithSpatialIndex][metric=" + metric + "]";
+    }
+
+}
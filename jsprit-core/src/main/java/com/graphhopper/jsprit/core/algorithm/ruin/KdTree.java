@@ -0,0 +1,261 @@
+/*
+ * Licensed to GraphHopper GmbH under one or more contributor
+ * license agreements. See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ *
+ * GraphHopper GmbH licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.graphhopper.jsprit.core.algorithm.ruin;
+
+import java.util.Arrays;
+
+/**
+ * Static k-d tree over points that answers k-nearest queries by Euclidean or Manhattan distance.
+ * <p>
+ * <p>The tree is stored implicitly in a permutation of the points: the points of a subtree occupy a contiguous range,
+ * and the point in the middle of the range splits it at the dimension with the largest spread. Once built, the tree
+ * is immutable and can be queried concurrently. Equally distant points are returned in the order of their indices.
+ */
+class KdTree {
+
+    /**
+     * Bounded max-heap of candidate points. Polling all candidates yields them in descending order.
+     */
+    private static class Candidates {
+
+        private final int limit;
+
+        private double[] distances;
+
+        private int[] points;
+
+        private int size = 0;
+
+        Candidates(int limit) {
+            this.limit = limit;
+            int capacity = Math.max(1, Math.min(limit, 16));
+            distances = new double[capacity];
+            points = new int[capacity];
+        }
+
+        boolean isFull() {
+            return size == limit;
+        }
+
+        double worstDistance() {
+            return distances[0];
+        }
+
+        void offer(double distance, int point) {
+            if (isFull()) {
+                if (!isFarther(distances[0], points[0], distance, point)) return;
+                distances[0] = distance;
+                points[0] = point;
+                siftDown(0);
+                return;
+            }
+            if (size == distances.length) {
+                distances = Arrays.copyOf(distances, 2 * size);
+                points = Arrays.copyOf(points, 2 * size);
+            }
+            distances[size] = distance;
+            points[size] = point;
+            siftUp(size++);
+        }
+
+        int[] toSortedArray() {
+            int[] sorted = new int[size];
+            while (size > 0) {
+                sorted[size - 1] = points[0];
+                size--;
+                swap(0, size);
+                siftDown(0);
+            }
+            return sorted;
+        }
+
+        private void siftUp(int i) {
+            while (i > 0) {
+                int parent = (i - 1) / 2;
+                if (!isFarther(distances[i], points[i], distances[parent], points[parent])) return;
+                swap(i, parent);
+                i = parent;
+            }
+        }
+
+        private void siftDown(int i) {
+            while (true) {
+                int farthest = i;
+                int left = 2 * i + 1;
+                int right = left + 1;
+                if (left < size && isFarther(distances[left], points[left], distances[farthest], points[farthest])) {
+                    farthest = left;
+                }
+                if (right < size && isFarther(distances[right], points[right], distances[farthest], points[farthest])) {
+                    farthest = right;
+                }
+                if (farthest == i) return;
+                swap(i, farthest);
+                i = farthest;
+            }
+        }
+
+        private void swap(int i, int j) {
+            double distance = distances[i];
+            distances[i] = distances[j];
+            distances[j] = distance;
+            int point = points[i];
+            points[i] = points[j];
+            points[j] = point;
+        }
+
+        private static boolean isFarther(double distance, int point, double otherDistance, int otherPoint) {
+            return distance > otherDistance || (distance == otherDistance && point > otherPoint);
+        }
+
+    }
+
+    private final double[] coordinates;
+
+    private final int dims;
+
+    private final boolean manhattan;
+
+    private final int[] points;
+
+    private final byte[] splitDims;
+
+    /**
+     * Builds the tree.
+     *
+     * @param coordinates coordinates of the points, i.e. coordinate d of point i is at <code>i * dims + d</code>
+     * @param dims        number of dimensions
+     * @param manhattan   true if distances are Manhattan distances, false if they are Euclidean distances
+     */
+    KdTree(double[] coordinates, int dims, boolean manhattan) {
+        if (dims < 1 || dims > Byte.MAX_VALUE) throw new IllegalArgumentException("number of dimensions must be within [1," + Byte.MAX_VALUE + "]");
+        if (coordinates.length % dims != 0) throw new IllegalArgumentException("number of coordinates must be a multiple of dims");
+        this.coordinates = coordinates;
+        this.dims = dims;
+        this.manhattan = manhattan;
+        int noPoints = coordinates.length / dims;
+        points = new int[noPoints];
+        for (int i = 0; i < noPoints; i++) {
+            points[i] = i;
+        }
+        splitDims = new byte[noPoints];
+        build(0, noPoints);
+    }
+
+    int size() {
+        return points.length;
+    }
+
+    double distance(int point, int otherPoint) {
+        double distance = 0.;
+        for (int d = 0; d < dims; d++) {
+            double diff = coordinate(point, d) - coordinate(otherPoint, d);
+            distance += manhattan ? Math.abs(diff) : diff * diff;
+        }
+        return manhattan ? distance : Math.sqrt(distance);
+    }
+
+    /**
+     * Returns the k points nearest to the specified point (the point itself is excluded) in ascending order of
+     * their distance.
+     */
+    int[] nearest(int point, int k) {
+        if (k <= 0 || points.length == 0) return new int[0];
+        Candidates candidates = new Candidates(k);
+        nearest(0, points.length, point, candidates);
+        return candidates.toSortedArray();
+    }
+
+    private void nearest(int lo, int hi, int query, Candidates candidates) {
+        if (lo >= hi) return;
+        int mid = (lo + hi) >>> 1;
+        int p = points[mid];
+        if (p != query) candidates.offer(distance(query, p), p);
+        if (hi - lo == 1) return;
+        int dim = splitDims[mid];
+        double diff = coordinate(query, dim) - coordinate(p, dim);
+        if (diff < 0.) {
+            nearest(lo, mid, query, candidates);
+            if (!candidates.isFull() || -diff <= candidates.worstDistance()) nearest(mid + 1, hi, query, candidates);
+        } else {
+            nearest(mid + 1, hi, query, candidates);
+            if (!candidates.isFull() || diff <= candidates.worstDistance()) nearest(lo, mid, query, candidates);
+        }
+    }
+
+    private void build(int lo, int hi) {
+        while (hi - lo > 1) {
+            int dim = getDimWithLargestSpread(lo, hi);
+            int mid = (lo + hi) >>> 1;
+            select(lo, hi - 1, mid, dim);
+            splitDims[mid] = (byte) dim;
+            build(lo, mid);
+            lo = mid + 1;
+        }
+    }
+
+    private int getDimWithLargestSpread(int lo, int hi) {
+        int bestDim = 0;
+        double largestSpread = -1.;
+        for (int d = 0; d < dims; d++) {
+            double min = Double.MAX_VALUE;
+            double max = -Double.MAX_VALUE;
+            for (int i = lo; i < hi; i++) {
+                double c = coordinate(points[i], d);
+                if (c < min) min = c;
+                if (c > max) max = c;
+            }
+            if (max - min > largestSpread) {
+                largestSpread = max - min;
+                bestDim = d;
+            }
+        }
+        return bestDim;
+    }
+
+    /**
+     * Partially sorts points[lo..hi] (inclusive) such that the point at k is at its sorted position with respect to
+     * the specified dimension, smaller or equal points before and greater or equal points after it.
+     */
+    private void select(int lo, int hi, int k, int dim) {
+        while (hi > lo) {
+            double pivot = coordinate(points[(lo + hi) >>> 1], dim);
+            int i = lo;
+            int j = hi;
+            while (i <= j) {
+                while (coordinate(points[i], dim) < pivot) i++;
+                while (coordinate(points[j], dim) > pivot) j--;
+                if (i <= j) {
+                    int tmp = points[i];
+                    points[i] = points[j];
+                    points[j] = tmp;
+                    i++;
+                    j--;
+                }
+            }
+            if (k <= j) hi = j;
+            else if (k >= i) lo = i;
+            else return;
+        }
+    }
+
+    private double coordinate(int point, int dim) {
+        return coordinates[point * dims + dim];
+    }
+
+}
@@ -20,6 +20,7 @@ package com.graphhopper.jsprit.core.algorithm.ruin;
 import com.graphhopper.jsprit.core.problem.AbstractActivity;
 import com.graphhopper.jsprit.core.problem.VehicleRoutingProblem;
 import com.graphhopper.jsprit.core.problem.job.Job;
+import com.graphhopper.jsprit.core.problem.solution.SolutionIndex;
 import com.graphhopper.jsprit.core.problem.solution.route.VehicleRoute;
 import com.graphhopper.jsprit.core.problem.solution.route.activity.TourActivity;
 import com.graphhopper.jsprit.core.util.RandomUtils;
@@ -62,9 +63,22 @@ public final class RuinString extends AbstractRuinStrategy {
         super(vrp);
         this.vrp = vrp;
         this.jobNeighborhoods = jobNeighborhoods;
+        super.setSolutionIndex(new SolutionIndex(vrp));
         logger.debug("initialise {}", this);
     }
 
+    /**
+     * Sets the index that maps jobs to their routes and activities to their positions. String ruin cannot do without
+     * it, i.e. it creates an index of its own unless it shares one with other ruin strategies.
+     *
+     * @param solutionIndex the index
+     */
+    @Override
+    public void setSolutionIndex(SolutionIndex solutionIndex) {
+        if (solutionIndex == null) throw new IllegalArgumentException("string ruin requires a solution index");
+        super.setSolutionIndex(solutionIndex);
+    }
+
     public void setNoRoutes(int kMin, int kMax) {
         this.kMin = kMin;
         this.kMax = kMax;
@@ -95,11 +109,12 @@ public final class RuinString extends AbstractRuinStrategy {
         noStrings = Math.min(noStrings, vehicleRoutes.size());
         Set<Job> unassignedJobs = new HashSet<>();
         Set<VehicleRoute> ruinedRoutes = new HashSet<>();
+        if (!routesIndexed()) solutionIndex.build(vehicleRoutes);
         Job prevJob = RandomUtils.nextJob(vrp.getJobs().values(), random);
         Iterator<Job> neighborhoodIterator = jobNeighborhoods.getNearestNeighborsIterator(kMax * lMax, prevJob);
         while (neighborhoodIterator.hasNext() && ruinedRoutes.size() <= noStrings) {
             if (!unassignedJobs.contains(prevJob)) {
-                VehicleRoute route = getRouteOf(prevJob, vehicleRoutes);
+                VehicleRoute route = solutionIndex.getRoute(prevJob);
                 if (route != null && !ruinedRoutes.contains(route)) {
                     if (random.nextDouble() < .5) {
                         ruinRouteWithStringRuin(route, prevJob, unassignedJobs);
@@ -114,13 +129,6 @@ public final class RuinString extends AbstractRuinStrategy {
         return unassignedJobs;
     }
 
-    private VehicleRoute getRouteOf(Job job, Collection<VehicleRoute> vehicleRoutes) {
-        for (VehicleRoute route : vehicleRoutes) {
-            if (route.getTourActivities().servesJob(job)) return route;
-        }
-        return null;
-    }
-
     private void ruinRouteWithSplitStringRuin(VehicleRoute seedRoute, Job prevJob, Set<Job> unassignedJobs) {
         int noActivities = seedRoute.getActivities().size();
         int stringLength;
@@ -132,16 +140,7 @@ public final class RuinString extends AbstractRuinStrategy {
 
         List<AbstractActivity> acts = vrp.getActivities(prevJob);
         AbstractActivity randomSeedAct = RandomUtils.nextItem(acts, random);
-        int seedIndex = 0;
-
-        int index = 0;
-        for (TourActivity act : seedRoute.getActivities()) {
-            if (act.getIndex() == randomSeedAct.getIndex()) {
-                seedIndex = index;
-                break;
-            }
-            index++;
-        }
+        int seedIndex = getSeedIndex(randomSeedAct);
 
         int totalStringLength = stringLength + preservedSubstringLength;
         List<Integer> stringBounds = StringUtil.getLowerBoundsOfAllStrings(totalStringLength, seedIndex, noActivities);
@@ -184,16 +183,8 @@ public final class RuinString extends AbstractRuinStrategy {
         stringLength = Math.min(stringLength, seedRoute.getActivities().size());
         List<AbstractActivity> acts = vrp.getActivities(prevJob);
         AbstractActivity randomSeedAct = RandomUtils.nextItem(acts, random);
-        int seedIndex = 0;
+        int seedIndex = getSeedIndex(randomSeedAct);
         int noActivities = seedRoute.getActivities().size();
-        int index = 0;
-        for (TourActivity act : seedRoute.getActivities()) {
-            if (act.getIndex() == randomSeedAct.getIndex()) {
-                seedIndex = index;
-                break;
-            }
-            index++;
-        }
         List<Integer> stringBounds = StringUtil.getLowerBoundsOfAllStrings(stringLength, seedIndex, noActivities);
         if (stringBounds.isEmpty()) return;
         int lowerBound = RandomUtils.nextItem(stringBounds, random);
@@ -214,5 +205,8 @@ public final class RuinString extends AbstractRuinStrategy {
 
     }
 
+    private int getSeedIndex(AbstractActivity seedActivity) {
+        return Math.max(0, solutionIndex.getPosition(seedActivity));
+    }
 
 }
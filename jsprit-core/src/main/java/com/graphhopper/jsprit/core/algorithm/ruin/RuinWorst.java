@@ -81,68 +81,149 @@ public final class RuinWorst extends AbstractRuinStrategy {
     }
 
     private void ruin(Collection<VehicleRoute> vehicleRoutes, int nOfJobs2BeRemoved, List<Job> unassignedJobs) {
-        LinkedList<Job> availableJobs = new LinkedList<Job>(vrp.getJobs().values());
+        if (nOfJobs2BeRemoved <= 0) return;
+        RemovalSavings removalSavings = new RemovalSavings(vehicleRoutes);
         int toRemove = nOfJobs2BeRemoved;
         while (toRemove > 0) {
-            Job worst = getWorst(vehicleRoutes);
+            Job worst = removalSavings.getWorst();
             if (worst == null) break;
-            if (removeJob(worst, vehicleRoutes)) {
-                availableJobs.remove(worst);
+            VehicleRoute route = removalSavings.remove(worst);
+            if (removeJob(worst, route)) {
                 unassignedJobs.add(worst);
             }
             toRemove--;
         }
     }
 
-    private Job getWorst(Collection<VehicleRoute> copied) {
-        Job worst = null;
-        double bestSavings = Double.MIN_VALUE;
-
-        for (VehicleRoute route : copied) {
-            if (route.isEmpty()) continue;
-            Map<Job, Double> savingsMap = new HashMap<Job, Double>();
-            TourActivity actBefore = route.getStart();
-            TourActivity actToEval = null;
-            for (TourActivity act : route.getActivities()) {
-                if (!(act instanceof TourActivity.JobActivity)) {
-                    continue;
-                }
+    /**
+     * Memorizes the savings of removing the job activities of the routes (i.e. the cost of the detour to the activity)
+     * and the resulting savings of removing a job in a max-heap. Activities of each route are linked to their
+     * predecessor and successor such that removing a job only requires recalculating the savings of its former
+     * neighbors.
+     */
+    private class RemovalSavings {
 
-                if (actToEval == null) {
-                    actToEval = act;
-                    continue;
-                }
-                double savings = savings(route, actBefore, actToEval, act);
-                Job job = ((TourActivity.JobActivity) actToEval).getJob();
-                if (!savingsMap.containsKey(job)) {
-                    savingsMap.put(job, savings);
-                } else {
-                    double s = savingsMap.get(job);
-                    savingsMap.put(job, s + savings);
-                }
-                actBefore = actToEval;
-                actToEval = act;
+        private final List<VehicleRoute> routes = new ArrayList<>();
+
+        private final TourActivity[] activities;
+
+        private final int[] routeOfActivity;
+
+        private final int[] prev;
+
+        private final int[] next;
+
+        private final double[] activitySavings;
+
+        private final int[] nextActivityOfSameJob;
+
+        private final int[] firstActivityOfJob;
+
+        private final Job[] jobs;
+
+        private final IndexedMaxHeap jobSavings;
+
+        RemovalSavings(Collection<VehicleRoute> vehicleRoutes) {
+            int noActivities = 0;
+            for (VehicleRoute route : vehicleRoutes) {
+                noActivities += route.getActivities().size();
             }
-            if (actToEval == null) {
-                continue;
+            activities = new TourActivity[noActivities];
+            routeOfActivity = new int[noActivities];
+            prev = new int[noActivities];
+            next = new int[noActivities];
+            activitySavings = new double[noActivities];
+            nextActivityOfSameJob = new int[noActivities];
+            int noJobs = vrp.getJobsInclusiveInitialJobsInRoutes().size() + 1;
+            firstActivityOfJob = new int[noJobs];
+            Arrays.fill(firstActivityOfJob, -1);
+            jobs = new Job[noJobs];
+            jobSavings = new IndexedMaxHeap(noJobs);
+
+            int slot = 0;
+            for (VehicleRoute route : vehicleRoutes) {
+                if (route.isEmpty()) continue;
+                int routeIndex = routes.size();
+                routes.add(route);
+                int prevSlot = -1;
+                for (TourActivity act : route.getActivities()) {
+                    if (!(act instanceof TourActivity.JobActivity)) continue;
+                    activities[slot] = act;
+                    routeOfActivity[slot] = routeIndex;
+                    prev[slot] = prevSlot;
+                    next[slot] = -1;
+                    if (prevSlot >= 0) next[prevSlot] = slot;
+                    nextActivityOfSameJob[slot] = -1;
+                    Job job = ((TourActivity.JobActivity) act).getJob();
+                    if (isRemovable(job)) {
+                        nextActivityOfSameJob[slot] = firstActivityOfJob[job.getIndex()];
+                        firstActivityOfJob[job.getIndex()] = slot;
+                        jobs[job.getIndex()] = job;
+                    }
+                    prevSlot = slot;
+                    slot++;
+                }
             }
-            double savings = savings(route, actBefore, actToEval, route.getEnd());
-            Job job = ((TourActivity.JobActivity) actToEval).getJob();
-            if (!savingsMap.containsKey(job)) {
-                savingsMap.put(job, savings);
-            } else {
-                double s = savingsMap.get(job);
-                savingsMap.put(job, s + savings);
+            for (int s = 0; s < slot; s++) {
+                Job job = getJob(s);
+                if (!isRemovable(job)) continue;
+                activitySavings[s] = savings(s);
+                double savingsSoFar = jobSavings.contains(job.getIndex()) ? jobSavings.getValue(job.getIndex()) : 0.;
+                jobSavings.put(job.getIndex(), savingsSoFar + activitySavings[s]);
             }
-            //getCounts best
-            for (Job j : savingsMap.keySet()) {
-                if (savingsMap.get(j) > bestSavings) {
-                    bestSavings = savingsMap.get(j);
-                    worst = j;
-                }
+        }
+
+        /**
+         * Returns the job whose removal saves most, or null if no removal saves anything.
+         */
+        Job getWorst() {
+            if (jobSavings.isEmpty()) return null;
+            int worst = jobSavings.peek();
+            if (!(jobSavings.getValue(worst) > Double.MIN_VALUE)) return null;
+            return jobs[worst];
+        }
+
+        /**
+         * Removes the activities of job from the linked routes, updates the savings of their neighbors, and returns
+         * the route the job has been removed from.
+         */
+        VehicleRoute remove(Job job) {
+            jobSavings.remove(job.getIndex());
+            int first = firstActivityOfJob[job.getIndex()];
+            for (int s = first; s >= 0; s = nextActivityOfSameJob[s]) {
+                int p = prev[s];
+                int n = next[s];
+                if (p >= 0) next[p] = n;
+                if (n >= 0) prev[n] = p;
+                if (p >= 0) updateSavings(p);
+                if (n >= 0) updateSavings(n);
             }
+            return routes.get(routeOfActivity[first]);
+        }
+
+        private void updateSavings(int slot) {
+            Job job = getJob(slot);
+            if (!isRemovable(job) || !jobSavings.contains(job.getIndex())) return;
+            double newSavings = savings(slot);
+            jobSavings.put(job.getIndex(), jobSavings.getValue(job.getIndex()) - activitySavings[slot] + newSavings);
+            activitySavings[slot] = newSavings;
         }
-        return worst;
+
+        private double savings(int slot) {
+            VehicleRoute route = routes.get(routeOfActivity[slot]);
+            TourActivity actBefore = prev[slot] >= 0 ? activities[prev[slot]] : route.getStart();
+            TourActivity actAfter = next[slot] >= 0 ? activities[next[slot]] : route.getEnd();
+            return RuinWorst.this.savings(route, actBefore, activities[slot], actAfter);
+        }
+
+        private Job getJob(int slot) {
+            return ((TourActivity.JobActivity) activities[slot]).getJob();
+        }
+
+        private boolean isRemovable(Job job) {
+            return job.getIndex() >= 0 && job.getIndex() < jobs.length && vrp.getJobs().containsKey(job.getId());
+        }
+
     }
 
     private double savings(VehicleRoute route, TourActivity actBefore, TourActivity actToEval, TourActivity act) {
@@ -19,7 +19,11 @@ package com.graphhopper.jsprit.core.algorithm.ruin.distance;
 
 import com.graphhopper.jsprit.core.problem.job.Job;
 
-
+/**
+ * Distance between two jobs. Implementations that are used to calculate job neighborhoods in parallel (see
+ * {@link com.graphhopper.jsprit.core.algorithm.ruin.JobNeighborhoodsFactory}) must be thread-safe, and so must the
+ * transport costs they are based on.
+ */
 public interface JobDistance {
 
     public double getDistance(Job i, Job j);
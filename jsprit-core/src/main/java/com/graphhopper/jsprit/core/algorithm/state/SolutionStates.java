@@ -0,0 +1,232 @@
+/*
+ * Licensed to GraphHopper GmbH under one or more contributor
+ * license agreements. See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ *
+ * GraphHopper GmbH licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.graphhopper.jsprit.core.algorithm.state;
+
+import com.graphhopper.jsprit.core.problem.solution.route.VehicleRoute;
+import com.graphhopper.jsprit.core.problem.solution.route.activity.TourActivity;
+import com.graphhopper.jsprit.core.problem.vehicle.Vehicle;
+
+import java.util.Arrays;
+
+/**
+ * Storage of the problem, route and activity states of the solution a {@link StateManager} currently describes.
+ * <p>
+ * <p>Note that routes point to the slot their states are stored in (see {@link VehicleRoute#getIndex()}).</p>
+ */
+class SolutionStates {
+
+    final int nuVehicleTypeKeys;
+
+    int nuStates;
+
+    Object[] problemStates;
+
+    Object[][] activityStates;
+
+    Object[][][] vehicleDependentActivityStates;
+
+    double[][] activityDoubleStates;
+
+    double[][][] vehicleDependentActivityDoubleStates;
+
+    /*
+     * activity states are versioned: a row of activity states is only valid if its epoch is equal to the current epoch.
+     * thus clear() just increments the epoch and stale rows are reset when they are written to next time.
+     */
+    int epoch = 1;
+
+    int[] activityStateEpochs;
+
+    int[] vehicleDependentActivityStateEpochs;
+
+    Object[][] routeStates;
+
+    Object[][][] vehicleDependentRouteStates;
+
+    double[][] routeDoubleStates;
+
+    double[][][] vehicleDependentRouteDoubleStates;
+
+    /*
+     * indexedRoutes[i] is the route that owns the route state slot i. a route that carries an index that is not owned by
+     * itself (e.g. since it got its index from another storage or before the last clear()) has no states.
+     */
+    VehicleRoute[] indexedRoutes;
+
+    int nuIndexedRoutes;
+
+    /*
+     * modification count and version of the activity sequence, vehicle and departure time of the route in slot i when
+     * its states were updated the last time (modification count -1 if they have never been). if only the activities of
+     * an inserted job have been added since then, the states can be updated incrementally from the insertion point. if
+     * nothing has changed, e.g. since the route is an unchanged copy of the route the states have been computed for,
+     * they are still valid.
+     */
+    int[] routeModificationCounts;
+
+    long[] routeVersions;
+
+    Vehicle[] routeVehicles;
+
+    double[] routeDepartureTimes;
+
+    /*
+     * activityVersions[i] is the version of the route whose states have been memorized last for the activity with index i.
+     */
+    long[] activityVersions;
+
+    /*
+     * routeClaims[i] is the insertion round in which slot i has been claimed by a route of the solution to be recreated.
+     * unclaimed slots belong to routes of other solutions, and can be handed over to the copies of these routes.
+     */
+    int[] routeClaims;
+
+    int insertionRound;
+
+    int maxNuRoutes;
+
+    SolutionStates(int nuActivities, int nuVehicleTypeKeys, int nuRoutes, int nuStates) {
+        this.nuVehicleTypeKeys = nuVehicleTypeKeys;
+        activityVersions = new long[nuActivities];
+        init(nuActivities, nuRoutes, nuStates);
+    }
+
+    /**
+     * (Re)allocates the state arrays, i.e. all states are lost.
+     */
+    void init(int nuActivities, int nuRoutes, int nuStates) {
+        this.nuStates = nuStates;
+        activityStates = new Object[nuActivities][nuStates];
+        vehicleDependentActivityStates = new Object[nuActivities][nuVehicleTypeKeys][nuStates];
+        activityDoubleStates = new double[nuActivities][nuStates];
+        vehicleDependentActivityDoubleStates = new double[nuActivities][nuVehicleTypeKeys][nuStates];
+        activityStateEpochs = new int[nuActivities];
+        vehicleDependentActivityStateEpochs = new int[nuActivities];
+        initRouteStates(nuRoutes, nuStates);
+        problemStates = new Object[nuStates];
+    }
+
+    private void initRouteStates(int nuRoutes, int nuStates) {
+        routeStates = new Object[nuRoutes][nuStates];
+        vehicleDependentRouteStates = new Object[nuRoutes][nuVehicleTypeKeys][nuStates];
+        routeDoubleStates = new double[nuRoutes][nuStates];
+        vehicleDependentRouteDoubleStates = new double[nuRoutes][nuVehicleTypeKeys][nuStates];
+        indexedRoutes = new VehicleRoute[nuRoutes];
+        routeModificationCounts = new int[nuRoutes];
+        routeVersions = new long[nuRoutes];
+        routeClaims = new int[nuRoutes];
+        routeVehicles = new Vehicle[nuRoutes];
+        routeDepartureTimes = new double[nuRoutes];
+        nuIndexedRoutes = 0;
+    }
+
+    /**
+     * Returns the index of the route state slot that is owned by the specified route, or -1 if the route does not own
+     * a slot, i.e. if no state has been memorized for it (since the last clear()).
+     */
+    int getRouteIndex(VehicleRoute route) {
+        int index = route.getIndex();
+        if (index < 0 || index >= nuIndexedRoutes || indexedRoutes[index] != route) return -1;
+        return index;
+    }
+
+    int getOrAssignRouteIndex(VehicleRoute route) {
+        int index = getRouteIndex(route);
+        if (index >= 0) return index;
+        if (nuIndexedRoutes == indexedRoutes.length) growRouteStates(2 * indexedRoutes.length);
+        index = nuIndexedRoutes++;
+        resetRouteStates(index, route);
+        return index;
+    }
+
+    void resetRouteStates(int index, VehicleRoute route) {
+        Arrays.fill(routeStates[index], null);
+        fill_twoDimArr(vehicleDependentRouteStates[index], null);
+        Arrays.fill(routeDoubleStates[index], StateManager.NO_DOUBLE_STATE);
+        fill_twoDimArr(vehicleDependentRouteDoubleStates[index], StateManager.NO_DOUBLE_STATE);
+        indexedRoutes[index] = route;
+        routeModificationCounts[index] = -1;
+        routeVehicles[index] = null;
+        route.setIndex(index);
+    }
+
+    private void growRouteStates(int nuRoutes) {
+        int oldNuRoutes = indexedRoutes.length;
+        indexedRoutes = Arrays.copyOf(indexedRoutes, nuRoutes);
+        routeModificationCounts = Arrays.copyOf(routeModificationCounts, nuRoutes);
+        routeVersions = Arrays.copyOf(routeVersions, nuRoutes);
+        routeClaims = Arrays.copyOf(routeClaims, nuRoutes);
+        routeVehicles = Arrays.copyOf(routeVehicles, nuRoutes);
+        routeDepartureTimes = Arrays.copyOf(routeDepartureTimes, nuRoutes);
+        routeStates = Arrays.copyOf(routeStates, nuRoutes);
+        vehicleDependentRouteStates = Arrays.copyOf(vehicleDependentRouteStates, nuRoutes);
+        routeDoubleStates = Arrays.copyOf(routeDoubleStates, nuRoutes);
+        vehicleDependentRouteDoubleStates = Arrays.copyOf(vehicleDependentRouteDoubleStates, nuRoutes);
+        for (int i = oldNuRoutes; i < nuRoutes; i++) {
+            routeStates[i] = new Object[nuStates];
+            vehicleDependentRouteStates[i] = new Object[nuVehicleTypeKeys][nuStates];
+            routeDoubleStates[i] = new double[nuStates];
+            vehicleDependentRouteDoubleStates[i] = new double[nuVehicleTypeKeys][nuStates];
+        }
+    }
+
+    /**
+     * Invalidates all states. Activity and route states are reset lazily when they are written to the next time.
+     */
+    void clear() {
+        epoch++;
+        if (epoch == Integer.MAX_VALUE) {
+            Arrays.fill(activityStateEpochs, 0);
+            Arrays.fill(vehicleDependentActivityStateEpochs, 0);
+            epoch = 1;
+        }
+        nuIndexedRoutes = 0;
+        Arrays.fill(problemStates, null);
+    }
+
+    void validateActivityStates(int actIndex) {
+        if (activityStateEpochs[actIndex] == epoch) return;
+        Arrays.fill(activityStates[actIndex], null);
+        Arrays.fill(activityDoubleStates[actIndex], StateManager.NO_DOUBLE_STATE);
+        activityStateEpochs[actIndex] = epoch;
+    }
+
+    void validateVehicleDependentActivityStates(int actIndex) {
+        if (vehicleDependentActivityStateEpochs[actIndex] == epoch) return;
+        fill_twoDimArr(vehicleDependentActivityStates[actIndex], null);
+        fill_twoDimArr(vehicleDependentActivityDoubleStates[actIndex], StateManager.NO_DOUBLE_STATE);
+        vehicleDependentActivityStateEpochs[actIndex] = epoch;
+    }
+
+    boolean hasStatesOf(TourActivity act, long routeVersion) {
+        return act.getIndex() > 0 && activityVersions[act.getIndex()] == routeVersion;
+    }
+
+    private static void fill_twoDimArr(Object[][] states, Object o) {
+        for (Object[] rows : states) {
+            Arrays.fill(rows, o);
+        }
+    }
+
+    private static void fill_twoDimArr(double[][] states, double value) {
+        for (double[] rows : states) {
+            Arrays.fill(rows, value);
+        }
+    }
+
+}
@@ -24,6 +24,7 @@ import com.graphhopper.jsprit.core.algorithm.ruin.listener.RuinListeners;
 import com.graphhopper.jsprit.core.problem.VehicleRoutingProblem;
 import com.graphhopper.jsprit.core.problem.job.Job;
 import com.graphhopper.jsprit.core.problem.solution.VehicleRoutingProblemSolution;
+import com.graphhopper.jsprit.core.problem.solution.route.IncrementalRouteVisitor;
 import com.graphhopper.jsprit.core.problem.solution.route.ReverseRouteActivityVisitor;
 import com.graphhopper.jsprit.core.problem.solution.route.RouteActivityVisitor;
 import com.graphhopper.jsprit.core.problem.solution.route.RouteVisitor;
@@ -35,17 +36,29 @@ import com.graphhopper.jsprit.core.problem.solution.route.state.RouteAndActivity
 import com.graphhopper.jsprit.core.problem.vehicle.Vehicle;
 
 import java.util.*;
+import java.util.concurrent.ExecutorService;
 
 /**
  * Manages states.
  * <p>
  * <p>Some condition, rules or constraints are stateful. This StateManager manages these states, i.e. it offers
  * methods to add, store and retrieve states based on the problem, vehicle-routes and tour-activities.
+ * <p>
+ * <p>States are stored in {@link SolutionStates}, i.e. in arrays indexed by activity, route and state index.
+ * <p>
+ * <p>Double states are stored in primitive arrays, i.e. they are memorized and read without boxing (see
+ * {@link #putDoubleActivityState(TourActivity, StateId, double)}). All other states, e.g. loads which are
+ * multi-dimensional {@link com.graphhopper.jsprit.core.problem.Capacity} objects, are stored as objects.</p>
  *
  * @author schroeder
  */
 public class StateManager implements RouteAndActivityStateGetter, IterationStartsListener, RuinListener, InsertionStartsListener, JobInsertedListener, InsertionEndsListener {
 
+    /**
+     * Marks an empty slot in the primitive double state arrays, i.e. no double state has been memorized for it.
+     */
+    static final double NO_DOUBLE_STATE = Double.NaN;
+
     private RouteActivityVisitor routeActivityVisitor = new RouteActivityVisitor();
 
     private ReverseRouteActivityVisitor revRouteActivityVisitor = new ReverseRouteActivityVisitor();
@@ -62,6 +75,8 @@ public class StateManager implements RouteAndActivityStateGetter, IterationStart
 
     private boolean updateTWs = false;
 
+    private boolean keepStatesOfUnchangedRoutes = false;
+
     private final int initialNoStates = 21;
 
     private int stateIndexCounter;
@@ -72,28 +87,20 @@ public class StateManager implements RouteAndActivityStateGetter, IterationStart
 
     private int nuVehicleTypeKeys;
 
-    private Object[] problemStates;
-
-    private Object[][] activityStates;
-
-    private Object[][][] vehicleDependentActivityStates;
-
-    private Map<VehicleRoute, Object[]> routeStateMap;
-
-    private Map<VehicleRoute, Object[][]> vehicleDependentRouteStateMap;
-
-    private Object[][] routeStatesArr;
+    private int nuStates;
 
-    private Object[][][] vehicleDependentRouteStatesArr;
+    private SolutionStates states;
 
     private VehicleRoutingProblem vrp;
 
-    private final boolean isIndexedBased;
-
     int getMaxIndexOfVehicleTypeIdentifiers() {
         return nuVehicleTypeKeys;
     }
 
+    int getNuActivities() {
+        return nuActivities;
+    }
+
     /**
      * Create and returns a stateId with the specified state-name.
      * <p>
@@ -106,12 +113,9 @@ public class StateManager implements RouteAndActivityStateGetter, IterationStart
      */
     public StateId createStateId(String name) {
         if (createdStateIds.containsKey(name)) return createdStateIds.get(name);
-        if (stateIndexCounter >= activityStates[0].length) {
-            activityStates = new Object[nuActivities][stateIndexCounter + 1];
-            vehicleDependentActivityStates = new Object[nuActivities][nuVehicleTypeKeys][stateIndexCounter + 1];
-            routeStatesArr = new Object[vrp.getVehicles().size() + 2][stateIndexCounter+1];
-            vehicleDependentRouteStatesArr = new Object[vrp.getVehicles().size() + 2][nuVehicleTypeKeys][stateIndexCounter+1];
-            problemStates = new Object[stateIndexCounter+1];
+        if (stateIndexCounter >= nuStates) {
+            nuStates = stateIndexCounter + 1;
+            initStates();
         }
         StateId id = StateFactory.createId(name, stateIndexCounter);
         incStateIndexCounter();
@@ -119,6 +123,10 @@ public class StateManager implements RouteAndActivityStateGetter, IterationStart
         return id;
     }
 
+    private void initStates() {
+        states.init(nuActivities, states.indexedRoutes.length, nuStates);
+    }
+
     private void incStateIndexCounter() {
         stateIndexCounter++;
     }
@@ -131,23 +139,15 @@ public class StateManager implements RouteAndActivityStateGetter, IterationStart
      */
     public StateManager(VehicleRoutingProblem vehicleRoutingProblem) {
         stateIndexCounter = initialNoStates;
-        int initialStateArrayLength = 30;
+        nuStates = 30;
         this.vrp = vehicleRoutingProblem;
         nuActivities = Math.max(10, vrp.getNuActivities() + 1);
         nuVehicleTypeKeys = Math.max(3, getNuVehicleTypes(vrp) + 2);
-        activityStates = new Object[nuActivities][initialStateArrayLength];
-        vehicleDependentActivityStates = new Object[nuActivities][nuVehicleTypeKeys][initialStateArrayLength];
-//        if(vehicleRoutingProblem.getFleetSize().equals(VehicleRoutingProblem.FleetSize.FINITE)){
-//            isIndexedBased = true;
-//            routeStatesArr = new Object[vrp.getVehicles().size() + 2][initialStateArrayLength];
-//            vehicleDependentRouteStatesArr = new Object[vrp.getVehicles().size() + 2][nuVehicleTypeKeys][initialStateArrayLength];
-//        }
-//        else {
-            isIndexedBased = false;
-            routeStateMap = new HashMap<VehicleRoute, Object[]>();
-            vehicleDependentRouteStateMap = new HashMap<VehicleRoute, Object[][]>();
-//        }
-        problemStates = new Object[initialStateArrayLength];
+        states = createSolutionStates();
+    }
+
+    private SolutionStates createSolutionStates() {
+        return new SolutionStates(nuActivities, nuVehicleTypeKeys, Math.max(10, vrp.getVehicles().size() + 2), nuStates);
     }
 
     private int getNuVehicleTypes(VehicleRoutingProblem vrp) {
@@ -168,7 +168,8 @@ public class StateManager implements RouteAndActivityStateGetter, IterationStart
      * @param <T>     the type of the state value
      */
     public <T> void putProblemState(StateId stateId, Class<T> type, T state) {
-        problemStates[stateId.getIndex()] = state;
+        SolutionStates s = states;
+        s.problemStates[stateId.getIndex()] = state;
 //         problemStates.putState(stateId, type, state);
     }
 
@@ -182,38 +183,17 @@ public class StateManager implements RouteAndActivityStateGetter, IterationStart
      * @return the state value that is associated to the specified stateId or null if no value is associated
      */
     public <T> T getProblemState(StateId stateId, Class<T> type) {
-        return type.cast(problemStates[stateId.getIndex()]);
+        SolutionStates s = states;
+        return type.cast(s.problemStates[stateId.getIndex()]);
     }
 
     /**
      * Clears all states, i.e. set all value to null.
+     * <p>This does not touch activity and route states at all. It just invalidates them, i.e. stale states are
+     * reset lazily when their activity or route is written to the next time.</p>
      */
     public void clear() {
-        fill_twoDimArr(activityStates, null);
-        fill_threeDimArr(vehicleDependentActivityStates, null);
-        if(isIndexedBased) {
-            fill_twoDimArr(routeStatesArr, null);
-            fill_threeDimArr(vehicleDependentRouteStatesArr, null);
-        }
-        else{
-            routeStateMap.clear();
-            vehicleDependentRouteStateMap.clear();
-        }
-        Arrays.fill(problemStates,null);
-    }
-
-    private void fill_threeDimArr(Object[][][] states, Object o) {
-        for (Object[][] twoDimArr : states) {
-            for (Object[] oneDimArr : twoDimArr) {
-                Arrays.fill(oneDimArr, o);
-            }
-        }
-    }
-
-    private void fill_twoDimArr(Object[][] states, Object o) {
-        for (Object[] rows : states) {
-            Arrays.fill(rows, o);
-        }
+        states.clear();
     }
 
     /**
@@ -230,13 +210,20 @@ public class StateManager implements RouteAndActivityStateGetter, IterationStart
      */
     @Override
     public <T> T getActivityState(TourActivity act, StateId stateId, Class<T> type) {
+        SolutionStates s = states;
         if (act.getIndex() == 0) throw new IllegalStateException("activity index is 0. this should not be.");
         if (act.getIndex() < 0) return null;
+        if (s.activityStateEpochs[act.getIndex()] != s.epoch) return null;
+        if (type.isAssignableFrom(Double.class) && s.activityStates[act.getIndex()][stateId.getIndex()] == null) {
+            double doubleState = s.activityDoubleStates[act.getIndex()][stateId.getIndex()];
+            if (Double.isNaN(doubleState)) return null;
+            return type.cast(doubleState);
+        }
         T state;
         try {
-            state = type.cast(activityStates[act.getIndex()][stateId.getIndex()]);
+            state = type.cast(s.activityStates[act.getIndex()][stateId.getIndex()]);
         } catch (ClassCastException e) {
-            throw getClassCastException(e, stateId, type.toString(), activityStates[act.getIndex()][stateId.getIndex()].getClass().toString());
+            throw getClassCastException(e, stateId, type.toString(), s.activityStates[act.getIndex()][stateId.getIndex()].getClass().toString());
         }
         return state;
     }
@@ -251,8 +238,11 @@ public class StateManager implements RouteAndActivityStateGetter, IterationStart
      * @throws java.lang.IllegalStateException if <code>act.getIndex()==0</code> since this suggests that act has no index at all
      */
     public boolean hasActivityState(TourActivity act, Vehicle vehicle, StateId stateId) {
+        SolutionStates s = states;
         if (act.getIndex() == 0) throw new IllegalStateException("activity index is 0. this should not be.");
-        return vehicleDependentActivityStates[act.getIndex()][vehicle.getVehicleTypeIdentifier().getIndex()][stateId.getIndex()] != null;
+        if (s.vehicleDependentActivityStateEpochs[act.getIndex()] != s.epoch) return false;
+        if (s.vehicleDependentActivityStates[act.getIndex()][vehicle.getVehicleTypeIdentifier().getIndex()][stateId.getIndex()] != null) return true;
+        return !Double.isNaN(s.vehicleDependentActivityDoubleStates[act.getIndex()][vehicle.getVehicleTypeIdentifier().getIndex()][stateId.getIndex()]);
     }
 
     /**
@@ -271,13 +261,20 @@ public class StateManager implements RouteAndActivityStateGetter, IterationStart
      * @throws java.lang.IllegalStateException if <code>act.getIndex()==0</code> since this suggests that act has no index at all
      */
     public <T> T getActivityState(TourActivity act, Vehicle vehicle, StateId stateId, Class<T> type) {
+        SolutionStates s = states;
         if (act.getIndex() == 0) throw new IllegalStateException("activity index is 0. this should not be.");
         if (act.getIndex() < 0) return null; //act.getIndex() < 0 indicates that act is either Start (-1) or End (-2)
+        if (s.vehicleDependentActivityStateEpochs[act.getIndex()] != s.epoch) return null;
+        if (type.isAssignableFrom(Double.class) && s.vehicleDependentActivityStates[act.getIndex()][vehicle.getVehicleTypeIdentifier().getIndex()][stateId.getIndex()] == null) {
+            double doubleState = s.vehicleDependentActivityDoubleStates[act.getIndex()][vehicle.getVehicleTypeIdentifier().getIndex()][stateId.getIndex()];
+            if (Double.isNaN(doubleState)) return null;
+            return type.cast(doubleState);
+        }
         T state;
         try {
-            state = type.cast(vehicleDependentActivityStates[act.getIndex()][vehicle.getVehicleTypeIdentifier().getIndex()][stateId.getIndex()]);
+            state = type.cast(s.vehicleDependentActivityStates[act.getIndex()][vehicle.getVehicleTypeIdentifier().getIndex()][stateId.getIndex()]);
         } catch (ClassCastException e) {
-            Object state_class = vehicleDependentActivityStates[act.getIndex()][vehicle.getVehicleTypeIdentifier().getIndex()][stateId.getIndex()];
+            Object state_class = s.vehicleDependentActivityStates[act.getIndex()][vehicle.getVehicleTypeIdentifier().getIndex()][stateId.getIndex()];
             throw getClassCastException(e, stateId, type.toString(), state_class.getClass().toString());
         }
         return state;
@@ -301,25 +298,21 @@ public class StateManager implements RouteAndActivityStateGetter, IterationStart
      */
     @Override
     public <T> T getRouteState(VehicleRoute route, StateId stateId, Class<T> type) {
+        SolutionStates s = states;
         if (route == null) return null;
-        T state = null;
-        if(isIndexedBased){
-            try {
-                state = type.cast(routeStatesArr[route.getVehicle().getIndex()][stateId.getIndex()]);
-            } catch (ClassCastException e) {
-                throw getClassCastException(e,stateId,type.toString(),routeStatesArr[route.getVehicle().getIndex()][stateId.getIndex()].getClass().toString());
-            }
+        int routeIndex = s.getRouteIndex(route);
+        if (routeIndex < 0) return null;
+        Object state = s.routeStates[routeIndex][stateId.getIndex()];
+        if (state == null && type.isAssignableFrom(Double.class)) {
+            double doubleState = s.routeDoubleStates[routeIndex][stateId.getIndex()];
+            if (Double.isNaN(doubleState)) return null;
+            return type.cast(doubleState);
         }
-        else {
-            try {
-                if (routeStateMap.containsKey(route)) {
-                    state = type.cast(routeStateMap.get(route)[stateId.getIndex()]);
-                }
-            } catch (ClassCastException e) {
-                throw getClassCastException(e, stateId, type.toString(), routeStateMap.get(route)[stateId.getIndex()].getClass().toString());
-            }
+        try {
+            return type.cast(state);
+        } catch (ClassCastException e) {
+            throw getClassCastException(e, stateId, type.toString(), state.getClass().toString());
         }
-        return state;
     }
 
     /**
@@ -332,9 +325,12 @@ public class StateManager implements RouteAndActivityStateGetter, IterationStart
      */
     @SuppressWarnings("UnusedDeclaration")
     public boolean hasRouteState(VehicleRoute route, Vehicle vehicle, StateId stateId) {
-        if (!vehicleDependentRouteStateMap.containsKey(route)) return false;
-        return vehicleDependentRouteStateMap.get(route)[vehicle.getVehicleTypeIdentifier().getIndex()][stateId.getIndex()] != null;
-//        return vehicle_dependent_route_states[route.getActivities().get(0).getIndex()][vehicle.getVehicleTypeIdentifier().getIndex()][stateId.getIndex()] != null;
+        SolutionStates s = states;
+        int routeIndex = s.getRouteIndex(route);
+        if (routeIndex < 0) return false;
+        int vehicleTypeIndex = vehicle.getVehicleTypeIdentifier().getIndex();
+        if (s.vehicleDependentRouteStates[routeIndex][vehicleTypeIndex][stateId.getIndex()] != null) return true;
+        return !Double.isNaN(s.vehicleDependentRouteDoubleStates[routeIndex][vehicleTypeIndex][stateId.getIndex()]);
     }
 
     /**
@@ -351,27 +347,122 @@ public class StateManager implements RouteAndActivityStateGetter, IterationStart
      * @throws java.lang.IllegalStateException if <code>!route.isEmpty()</code> and <code>act(0).getIndex()==0</code> since this suggests that act has no index at all
      */
     public <T> T getRouteState(VehicleRoute route, Vehicle vehicle, StateId stateId, Class<T> type) {
-//        if (route.isEmpty()) return null;
-        T state = null;
-        if(isIndexedBased){
-            try {
-                state = type.cast(vehicleDependentRouteStatesArr[route.getVehicle().getIndex()][vehicle.getVehicleTypeIdentifier().getIndex()][stateId.getIndex()]);
-            } catch (ClassCastException e) {
-                throw getClassCastException(e, stateId, type.toString(), vehicleDependentRouteStatesArr[route.getVehicle().getIndex()][vehicle.getVehicleTypeIdentifier().getIndex()][stateId.getIndex()].getClass().toString());
-            }
+        SolutionStates s = states;
+        int routeIndex = s.getRouteIndex(route);
+        if (routeIndex < 0) return null;
+        int vehicleTypeIndex = vehicle.getVehicleTypeIdentifier().getIndex();
+        Object state = s.vehicleDependentRouteStates[routeIndex][vehicleTypeIndex][stateId.getIndex()];
+        if (state == null && type.isAssignableFrom(Double.class)) {
+            double doubleState = s.vehicleDependentRouteDoubleStates[routeIndex][vehicleTypeIndex][stateId.getIndex()];
+            if (Double.isNaN(doubleState)) return null;
+            return type.cast(doubleState);
         }
-        else {
-            try {
-                if (vehicleDependentRouteStateMap.containsKey(route)) {
-                    state = type.cast(vehicleDependentRouteStateMap.get(route)[vehicle.getVehicleTypeIdentifier().getIndex()][stateId.getIndex()]);
-                }
-            } catch (ClassCastException e) {
-                throw getClassCastException(e, stateId, type.toString(), vehicleDependentRouteStateMap.get(route)[vehicle.getVehicleTypeIdentifier().getIndex()][stateId.getIndex()].getClass().toString());
-            }
+        try {
+            return type.cast(state);
+        } catch (ClassCastException e) {
+            throw getClassCastException(e, stateId, type.toString(), state.getClass().toString());
         }
+    }
+
+    /**
+     * Returns the double state that is associated to the specified activity and stateId, or the specified default value
+     * if no state is associated.
+     * <p>In contrast to {@link #getActivityState(TourActivity, StateId, Class)} the state value is neither boxed nor cast,
+     * i.e. this should be used to read states that are memorized with putDoubleActivityState(...).</p>
+     *
+     * @param act          the activity for which a state value is associated to
+     * @param stateId      the stateId for which a state value is associated to
+     * @param defaultValue the value that is returned if no state is associated
+     * @return the associated double state or the default value
+     * @throws java.lang.ClassCastException    if a state that is not a Double has been memorized with the generic method
+     * @throws java.lang.IllegalStateException if <code>act.getIndex()==0</code> since this suggests that act has no index at all
+     */
+    @Override
+    public double getDoubleActivityState(TourActivity act, StateId stateId, double defaultValue) {
+        SolutionStates s = states;
+        if (act.getIndex() == 0) throw new IllegalStateException("activity index is 0. this should not be.");
+        if (act.getIndex() < 0) return defaultValue;
+        if (s.activityStateEpochs[act.getIndex()] != s.epoch) return defaultValue;
+        double state = s.activityDoubleStates[act.getIndex()][stateId.getIndex()];
+        if (Double.isNaN(state)) return toDouble(s.activityStates[act.getIndex()][stateId.getIndex()], stateId, defaultValue);
+        return state;
+    }
+
+    /**
+     * Returns the double state that is associated to the specified activity, vehicle and stateId, or the specified
+     * default value if no state is associated.
+     *
+     * @param act          the activity for which a state value is associated to
+     * @param vehicle      the vehicle for which a state value is associated to
+     * @param stateId      the stateId for which a state value is associated to
+     * @param defaultValue the value that is returned if no state is associated
+     * @return the associated double state or the default value
+     * @throws java.lang.ClassCastException    if a state that is not a Double has been memorized with the generic method
+     * @throws java.lang.IllegalStateException if <code>act.getIndex()==0</code> since this suggests that act has no index at all
+     */
+    @Override
+    public double getDoubleActivityState(TourActivity act, Vehicle vehicle, StateId stateId, double defaultValue) {
+        SolutionStates s = states;
+        if (act.getIndex() == 0) throw new IllegalStateException("activity index is 0. this should not be.");
+        if (act.getIndex() < 0) return defaultValue;
+        if (s.vehicleDependentActivityStateEpochs[act.getIndex()] != s.epoch) return defaultValue;
+        int vehicleTypeIndex = vehicle.getVehicleTypeIdentifier().getIndex();
+        double state = s.vehicleDependentActivityDoubleStates[act.getIndex()][vehicleTypeIndex][stateId.getIndex()];
+        if (Double.isNaN(state)) return toDouble(s.vehicleDependentActivityStates[act.getIndex()][vehicleTypeIndex][stateId.getIndex()], stateId, defaultValue);
         return state;
     }
 
+    /**
+     * Returns the double state that is associated to the specified route and stateId, or the specified default value
+     * if no state is associated.
+     *
+     * @param route        the route for which a state value is associated to
+     * @param stateId      the stateId for which a state value is associated to
+     * @param defaultValue the value that is returned if no state is associated
+     * @return the associated double state or the default value
+     * @throws java.lang.ClassCastException if a state that is not a Double has been memorized with the generic method
+     */
+    @Override
+    public double getDoubleRouteState(VehicleRoute route, StateId stateId, double defaultValue) {
+        SolutionStates s = states;
+        if (route == null) return defaultValue;
+        int routeIndex = s.getRouteIndex(route);
+        if (routeIndex < 0) return defaultValue;
+        double state = s.routeDoubleStates[routeIndex][stateId.getIndex()];
+        if (Double.isNaN(state)) return toDouble(s.routeStates[routeIndex][stateId.getIndex()], stateId, defaultValue);
+        return state;
+    }
+
+    /**
+     * Returns the double state that is associated to the specified route, vehicle and stateId, or the specified default
+     * value if no state is associated.
+     *
+     * @param route        the route for which a state value is associated to
+     * @param vehicle      the vehicle for which a state value is associated to
+     * @param stateId      the stateId for which a state value is associated to
+     * @param defaultValue the value that is returned if no state is associated
+     * @return the associated double state or the default value
+     * @throws java.lang.ClassCastException if a state that is not a Double has been memorized with the generic method
+     */
+    @Override
+    public double getDoubleRouteState(VehicleRoute route, Vehicle vehicle, StateId stateId, double defaultValue) {
+        SolutionStates s = states;
+        int routeIndex = s.getRouteIndex(route);
+        if (routeIndex < 0) return defaultValue;
+        int vehicleTypeIndex = vehicle.getVehicleTypeIdentifier().getIndex();
+        double state = s.vehicleDependentRouteDoubleStates[routeIndex][vehicleTypeIndex][stateId.getIndex()];
+        if (Double.isNaN(state)) return toDouble(s.vehicleDependentRouteStates[routeIndex][vehicleTypeIndex][stateId.getIndex()], stateId, defaultValue);
+        return state;
+    }
+
+    private double toDouble(Object state, StateId stateId, double defaultValue) {
+        if (state == null) return defaultValue;
+        if (!(state instanceof Double)) {
+            throw new ClassCastException("state with stateId '" + stateId.toString() + "' is of " + state.getClass().toString() + ". cannot cast it to " + Double.class.toString() + ".");
+        }
+        return (Double) state;
+    }
+
     /**
      * Associates the specified activity and stateId to the state value. If a state value is already associated to the
      * specified activity and stateId, it is replaced by the new state value.
@@ -418,11 +509,17 @@ public class StateManager implements RouteAndActivityStateGetter, IterationStart
     }
 
     <T> void putInternalTypedActivityState(TourActivity act, StateId stateId, T state) {
-        activityStates[act.getIndex()][stateId.getIndex()] = state;
+        SolutionStates s = states;
+        s.validateActivityStates(act.getIndex());
+        s.activityStates[act.getIndex()][stateId.getIndex()] = state;
+        s.activityDoubleStates[act.getIndex()][stateId.getIndex()] = NO_DOUBLE_STATE;
     }
 
     <T> void putInternalTypedActivityState(TourActivity act, Vehicle vehicle, StateId stateId, T state) {
-        vehicleDependentActivityStates[act.getIndex()][vehicle.getVehicleTypeIdentifier().getIndex()][stateId.getIndex()] = state;
+        SolutionStates s = states;
+        s.validateVehicleDependentActivityStates(act.getIndex());
+        s.vehicleDependentActivityStates[act.getIndex()][vehicle.getVehicleTypeIdentifier().getIndex()][stateId.getIndex()] = state;
+        s.vehicleDependentActivityDoubleStates[act.getIndex()][vehicle.getVehicleTypeIdentifier().getIndex()][stateId.getIndex()] = NO_DOUBLE_STATE;
     }
 
     /**
@@ -458,30 +555,113 @@ public class StateManager implements RouteAndActivityStateGetter, IterationStart
     }
 
     <T> void putTypedInternalRouteState(VehicleRoute route, StateId stateId, T state) {
-//        if (route.isEmpty()) return;
-        if(isIndexedBased){
-            routeStatesArr[route.getVehicle().getIndex()][stateId.getIndex()] = state;
-        }
-        else {
-            if (!routeStateMap.containsKey(route)) {
-                routeStateMap.put(route, new Object[stateIndexCounter]);
-            }
-            routeStateMap.get(route)[stateId.getIndex()] = state;
-        }
+        SolutionStates s = states;
+        int routeIndex = s.getOrAssignRouteIndex(route);
+        s.routeStates[routeIndex][stateId.getIndex()] = state;
+        s.routeDoubleStates[routeIndex][stateId.getIndex()] = NO_DOUBLE_STATE;
     }
 
     <T> void putTypedInternalRouteState(VehicleRoute route, Vehicle vehicle, StateId stateId, T state) {
-//        if (route.isEmpty()) return;
-        if(isIndexedBased){
-            vehicleDependentRouteStatesArr[route.getVehicle().getIndex()][vehicle.getVehicleTypeIdentifier().getIndex()][stateId.getIndex()] = state;
-        }
-        else {
-            if (!vehicleDependentRouteStateMap.containsKey(route)) {
-                vehicleDependentRouteStateMap.put(route, new Object[nuVehicleTypeKeys][stateIndexCounter]);
-            }
-            vehicleDependentRouteStateMap.get(route)[vehicle.getVehicleTypeIdentifier().getIndex()][stateId.getIndex()] = state;
-        }
+        SolutionStates s = states;
+        int routeIndex = s.getOrAssignRouteIndex(route);
+        int vehicleTypeIndex = vehicle.getVehicleTypeIdentifier().getIndex();
+        s.vehicleDependentRouteStates[routeIndex][vehicleTypeIndex][stateId.getIndex()] = state;
+        s.vehicleDependentRouteDoubleStates[routeIndex][vehicleTypeIndex][stateId.getIndex()] = NO_DOUBLE_STATE;
+    }
 
+    /**
+     * Associates the specified activity and stateId to the double state value without boxing it. If a state value is
+     * already associated to the specified activity and stateId, it is replaced by the new state value.
+     * <p>NaN marks the absence of a double state, i.e. memorizing NaN removes the state.</p>
+     *
+     * @param act     the activity for which a state value is associated to
+     * @param stateId the stateId which is the associated key to the activity state
+     * @param state   the state that is associated to the activity and stateId
+     * @throws java.lang.IllegalStateException if <code>act.getIndex() == 0</code>
+     *                                         || stateId.getIndex < noInternalStates
+     */
+    public void putDoubleActivityState(TourActivity act, StateId stateId, double state) {
+        if (act.getIndex() == 0) throw new IllegalStateException("activity index is 0. this should not be.");
+        if (stateId.getIndex() < initialNoStates) StateFactory.throwReservedIdException(stateId.toString());
+        putInternalDoubleActivityState(act, stateId, state);
+    }
+
+    /**
+     * Associates the specified activity, vehicle and stateId to the double state value without boxing it. If a state
+     * value is already associated to the specified activity, vehicle and stateId, it is replaced by the new state value.
+     * <p>NaN marks the absence of a double state, i.e. memorizing NaN removes the state.</p>
+     *
+     * @param act     the activity for which a state value is associated to
+     * @param vehicle the vehicle for which a state value is associated to
+     * @param stateId the stateId which is the associated key to the activity state
+     * @param state   the state that is associated to the activity, vehicle and stateId
+     * @throws java.lang.IllegalStateException if <code>act.getIndex() == 0</code>
+     *                                         || stateId.getIndex < noInternalStates
+     */
+    public void putDoubleActivityState(TourActivity act, Vehicle vehicle, StateId stateId, double state) {
+        if (act.getIndex() == 0) throw new IllegalStateException("activity index is 0. this should not be.");
+        if (stateId.getIndex() < initialNoStates) StateFactory.throwReservedIdException(stateId.toString());
+        putInternalDoubleActivityState(act, vehicle, stateId, state);
+    }
+
+    /**
+     * Associates the specified route and stateId to the double state value without boxing it.
+     * <p>NaN marks the absence of a double state, i.e. memorizing NaN removes the state.</p>
+     *
+     * @param route   the route for which a state value is associated to
+     * @param stateId the stateId which is the associated key to the route state
+     * @param state   the state that is associated to the route and stateId
+     * @throws java.lang.IllegalStateException if stateId is equal to a stateId that is already used internally.
+     */
+    public void putDoubleRouteState(VehicleRoute route, StateId stateId, double state) {
+        if (stateId.getIndex() < initialNoStates) StateFactory.throwReservedIdException(stateId.toString());
+        putInternalDoubleRouteState(route, stateId, state);
+    }
+
+    /**
+     * Associates the specified route, vehicle and stateId to the double state value without boxing it.
+     * <p>NaN marks the absence of a double state, i.e. memorizing NaN removes the state.</p>
+     *
+     * @param route   the route for which a state value is associated to
+     * @param vehicle the vehicle for which a state value is associated to
+     * @param stateId the stateId which is the associated key to the route state
+     * @param state   the state that is associated to the route, vehicle and stateId
+     * @throws java.lang.IllegalStateException if <code>vehicle.getIndex() == 0</code> || <code>stateId.getIndex() < noInternalStates</code>
+     */
+    public void putDoubleRouteState(VehicleRoute route, Vehicle vehicle, StateId stateId, double state) {
+        if (vehicle.getIndex() == 0) throw new IllegalStateException("vehicle index is 0. this should not be.");
+        if (stateId.getIndex() < initialNoStates) StateFactory.throwReservedIdException(stateId.toString());
+        putInternalDoubleRouteState(route, vehicle, stateId, state);
+    }
+
+    void putInternalDoubleActivityState(TourActivity act, StateId stateId, double state) {
+        SolutionStates s = states;
+        s.validateActivityStates(act.getIndex());
+        s.activityDoubleStates[act.getIndex()][stateId.getIndex()] = state;
+        s.activityStates[act.getIndex()][stateId.getIndex()] = null;
+    }
+
+    void putInternalDoubleActivityState(TourActivity act, Vehicle vehicle, StateId stateId, double state) {
+        SolutionStates s = states;
+        s.validateVehicleDependentActivityStates(act.getIndex());
+        int vehicleTypeIndex = vehicle.getVehicleTypeIdentifier().getIndex();
+        s.vehicleDependentActivityDoubleStates[act.getIndex()][vehicleTypeIndex][stateId.getIndex()] = state;
+        s.vehicleDependentActivityStates[act.getIndex()][vehicleTypeIndex][stateId.getIndex()] = null;
+    }
+
+    void putInternalDoubleRouteState(VehicleRoute route, StateId stateId, double state) {
+        SolutionStates s = states;
+        int routeIndex = s.getOrAssignRouteIndex(route);
+        s.routeDoubleStates[routeIndex][stateId.getIndex()] = state;
+        s.routeStates[routeIndex][stateId.getIndex()] = null;
+    }
+
+    void putInternalDoubleRouteState(VehicleRoute route, Vehicle vehicle, StateId stateId, double state) {
+        SolutionStates s = states;
+        int routeIndex = s.getOrAssignRouteIndex(route);
+        int vehicleTypeIndex = vehicle.getVehicleTypeIdentifier().getIndex();
+        s.vehicleDependentRouteDoubleStates[routeIndex][vehicleTypeIndex][stateId.getIndex()] = state;
+        s.vehicleDependentRouteStates[routeIndex][vehicleTypeIndex][stateId.getIndex()] = null;
     }
 
     /**
@@ -493,6 +673,11 @@ public class StateManager implements RouteAndActivityStateGetter, IterationStart
      * <p>
      * <p>The following rule pertain for activity/route visitors:These visitors visits all activities/route in a route subsequently in two cases. First, if insertionStart (after ruinStrategies have removed activities from routes)
      * and, second, if a job has been inserted and thus if a route has changed.
+     * <p>
+     * <p>Note that if {@link #setKeepStatesOfUnchangedRoutes(boolean)} is switched on, routes that are unchanged copies
+     * of routes whose states have been calculated before (e.g. routes the ruin strategy has not touched) are not visited
+     * at insertionStart, but take over the memorized states. Then visitors must only derive states from the route itself
+     * (its activities, vehicle and departure time) and must memorize them with this stateManager.
      *
      * @param updater the update to be added
      */
@@ -505,6 +690,20 @@ public class StateManager implements RouteAndActivityStateGetter, IterationStart
         updaters.add(updater);
     }
 
+    /**
+     * Sets whether unchanged copies of routes take over the states memorized before instead of being visited by all
+     * state updaters at insertionStart (default: false).
+     * <p>Only switch this on if all registered state updaters are route-local, i.e. if they derive their states solely
+     * from the route itself (its activities, vehicle and departure time) and memorize them with this stateManager.
+     * This holds for the core updaters. An updater that depends on anything else (e.g. other routes or unassigned jobs)
+     * or that keeps states of its own would otherwise see stale states.</p>
+     *
+     * @param keepStatesOfUnchangedRoutes true if unchanged copies of routes are to take over memorized states
+     */
+    public void setKeepStatesOfUnchangedRoutes(boolean keepStatesOfUnchangedRoutes) {
+        this.keepStatesOfUnchangedRoutes = keepStatesOfUnchangedRoutes;
+    }
+
     public void addAllStateUpdater(Collection<StateUpdater> updaters) {
         for (StateUpdater u : updaters) addStateUpdater(u);
     }
@@ -557,32 +756,157 @@ public class StateManager implements RouteAndActivityStateGetter, IterationStart
     public void informJobInserted(Job job2insert, VehicleRoute inRoute, double additionalCosts, double additionalTime) {
 //		log.debug("insert " + job2insert + " in " + inRoute);
         insertionListeners.informJobInserted(job2insert, inRoute, additionalCosts, additionalTime);
+        if (!updateStatesIncrementally(job2insert, inRoute)) {
+            for (RouteVisitor v : routeVisitors) {
+                v.visit(inRoute);
+            }
+            routeActivityVisitor.visit(inRoute);
+            revRouteActivityVisitor.visit(inRoute);
+        }
+        memorizeRouteVersion(inRoute);
+    }
+
+    /**
+     * Updates the states of the specified route from the activities of the inserted job on, if the route has not
+     * changed otherwise since its states were updated the last time, i.e. if no other activity has been added or removed
+     * and neither vehicle nor departure time have been switched.
+     *
+     * @return true if states have been updated, false if they need to be updated by visiting the entire route
+     */
+    private boolean updateStatesIncrementally(Job insertedJob, VehicleRoute route) {
+        SolutionStates s = states;
+        int routeIndex = s.getRouteIndex(route);
+        if (routeIndex < 0 || s.routeModificationCounts[routeIndex] < 0) return false;
+        if (s.routeVehicles[routeIndex] != route.getVehicle() || s.routeDepartureTimes[routeIndex] != getDepartureTime(route)) return false;
+        int nuAdded = route.getTourActivities().getModificationCount() - s.routeModificationCounts[routeIndex];
+        if (nuAdded <= 0) return false;
+        List<TourActivity> activities = route.getActivities();
+        int firstInsertedIndex = -1;
+        int lastInsertedIndex = -1;
+        int nuInserted = 0;
+        for (int i = 0; i < activities.size() && nuInserted < nuAdded; i++) {
+            TourActivity act = activities.get(i);
+            if (act instanceof TourActivity.JobActivity && ((TourActivity.JobActivity) act).getJob().equals(insertedJob)) {
+                if (firstInsertedIndex < 0) firstInsertedIndex = i;
+                lastInsertedIndex = i;
+                nuInserted++;
+            } else if (!s.hasStatesOf(act, s.routeVersions[routeIndex])) return false;
+        }
+        if (nuInserted != nuAdded) return false;
+        for (int i = lastInsertedIndex + 1; i < activities.size(); i++) {
+            if (!s.hasStatesOf(activities.get(i), s.routeVersions[routeIndex])) return false;
+        }
         for (RouteVisitor v : routeVisitors) {
-            v.visit(inRoute);
+            if (v instanceof IncrementalRouteVisitor) {
+                ((IncrementalRouteVisitor) v).visit(route, firstInsertedIndex, lastInsertedIndex);
+            } else v.visit(route);
+        }
+        routeActivityVisitor.visit(route, firstInsertedIndex, lastInsertedIndex);
+        revRouteActivityVisitor.visit(route, firstInsertedIndex, lastInsertedIndex);
+        return true;
+    }
+
+    private void memorizeRouteVersion(VehicleRoute route) {
+        SolutionStates s = states;
+        int routeIndex = s.getOrAssignRouteIndex(route);
+        long version = route.getTourActivities().getVersion();
+        s.routeModificationCounts[routeIndex] = route.getTourActivities().getModificationCount();
+        s.routeVersions[routeIndex] = version;
+        s.routeVehicles[routeIndex] = route.getVehicle();
+        s.routeDepartureTimes[routeIndex] = getDepartureTime(route);
+        for (TourActivity act : route.getActivities()) {
+            if (act.getIndex() > 0) s.activityVersions[act.getIndex()] = version;
         }
-        routeActivityVisitor.visit(inRoute);
-        revRouteActivityVisitor.visit(inRoute);
     }
 
+    private static double getDepartureTime(VehicleRoute route) {
+        return route.getStart() == null ? 0. : route.getStart().getEndTime();
+    }
+
+    /**
+     * Hands the states memorized for the route in the slot the specified route points to over to the specified route,
+     * if that route has not changed since, i.e. if the specified route is an unchanged copy of it.
+     *
+     * @return true if the states have been handed over, false if they need to be updated
+     */
+    private boolean takeOverStates(VehicleRoute route) {
+        SolutionStates s = states;
+        int routeIndex = route.getIndex();
+        if (routeIndex < 0 || routeIndex >= s.nuIndexedRoutes || s.routeClaims[routeIndex] == s.insertionRound) return false;
+        if (s.routeModificationCounts[routeIndex] < 0 || s.routeVersions[routeIndex] != route.getTourActivities().getVersion()) return false;
+        if (s.routeVehicles[routeIndex] != route.getVehicle() || s.routeDepartureTimes[routeIndex] != getDepartureTime(route)) return false;
+        for (TourActivity act : route.getActivities()) {
+            if (!s.hasStatesOf(act, s.routeVersions[routeIndex])) return false;
+        }
+        s.indexedRoutes[routeIndex] = route;
+        s.routeClaims[routeIndex] = s.insertionRound;
+        return true;
+    }
+
+    /**
+     * Claims a slot with reset states for the specified route. If the slot the route points to is not yet claimed by
+     * another route of the solution to be recreated, it is reused.
+     */
+    private void claimRouteIndex(VehicleRoute route) {
+        SolutionStates s = states;
+        int routeIndex = route.getIndex();
+        if (routeIndex >= 0 && routeIndex < s.nuIndexedRoutes && s.routeClaims[routeIndex] != s.insertionRound) {
+            s.resetRouteStates(routeIndex, route);
+        } else {
+            routeIndex = s.getOrAssignRouteIndex(route);
+        }
+        s.routeClaims[routeIndex] = s.insertionRound;
+    }
+
+    private void updateStates(VehicleRoute route) {
+        //activity visitors set arrival and end times, thus activities shared with other copies of the route must be detached
+        route.getTourActivities().detachActivities();
+        for (RouteVisitor v : routeVisitors) {
+            v.visit(route);
+        }
+        routeActivityVisitor.visit(route);
+        revRouteActivityVisitor.visit(route);
+        memorizeRouteVersion(route);
+    }
+
+    /**
+     * Updates the states of the specified routes.
+     * <p>Routes that are unchanged copies of routes whose states have been memorized before (e.g. routes the ruin
+     * strategy has not touched) take over these states, i.e. they are not recalculated, if switched on with
+     * {@link #setKeepStatesOfUnchangedRoutes(boolean)}.</p>
+     */
     @Override
     public void informInsertionStarts(Collection<VehicleRoute> vehicleRoutes, Collection<Job> unassignedJobs) {
-        insertionListeners.informInsertionStarts(vehicleRoutes, unassignedJobs);
+        SolutionStates s = states;
+        s.insertionRound++;
+        s.maxNuRoutes = Math.max(s.maxNuRoutes, vehicleRoutes.size());
+        List<VehicleRoute> routesToUpdate = new ArrayList<VehicleRoute>();
         for (VehicleRoute route : vehicleRoutes) {
-            for (RouteVisitor v : routeVisitors) {
-                v.visit(route);
-            }
-            routeActivityVisitor.visit(route);
-            revRouteActivityVisitor.visit(route);
+            if (!keepStatesOfUnchangedRoutes || !takeOverStates(route)) routesToUpdate.add(route);
+        }
+        for (VehicleRoute route : routesToUpdate) {
+            claimRouteIndex(route);
+        }
+        insertionListeners.informInsertionStarts(vehicleRoutes, unassignedJobs);
+        for (VehicleRoute route : routesToUpdate) {
+            updateStates(route);
         }
     }
 
     public void reCalculateStates(VehicleRoute route){
-        informInsertionStarts(Arrays.asList(route),Collections.<Job>emptyList());
+        insertionListeners.informInsertionStarts(Arrays.asList(route), Collections.<Job>emptyList());
+        updateStates(route);
     }
 
+    /**
+     * Clears problem states. Route and activity states are kept to be handed over to unchanged routes, unless the
+     * number of memorized routes exceeds a multiple of the number of routes of a solution.
+     */
     @Override
     public void informIterationStarts(int i, VehicleRoutingProblem problem, Collection<VehicleRoutingProblemSolution> solutions) {
-        clear();
+        SolutionStates s = states;
+        if (s.nuIndexedRoutes > 4 * Math.max(10, s.maxNuRoutes)) clear();
+        else Arrays.fill(s.problemStates, null);
     }
 
     @Override
@@ -20,7 +20,7 @@ package com.graphhopper.jsprit.core.algorithm.state;
 import com.graphhopper.jsprit.core.problem.cost.ForwardTransportTime;
 import com.graphhopper.jsprit.core.problem.cost.VehicleRoutingActivityCosts;
 import com.graphhopper.jsprit.core.problem.solution.route.VehicleRoute;
-import com.graphhopper.jsprit.core.problem.solution.route.activity.ActivityVisitor;
+import com.graphhopper.jsprit.core.problem.solution.route.activity.IncrementalActivityVisitor;
 import com.graphhopper.jsprit.core.problem.solution.route.activity.TourActivity;
 import com.graphhopper.jsprit.core.util.ActivityTimeTracker;
 
@@ -29,15 +29,22 @@ import com.graphhopper.jsprit.core.util.ActivityTimeTracker;
  * Updates arrival and end times of activities.
  * <p>
  * <p>Note that this modifies arrTime and endTime of each activity in a route.
+ * <p>
+ * <p>After an insertion, it starts at the inserted activities and stops as soon as arrTime and endTime of an
+ * activity do not change anymore.
  *
  * @author stefan
  */
-public class UpdateActivityTimes implements ActivityVisitor, StateUpdater {
+public class UpdateActivityTimes implements IncrementalActivityVisitor, StateUpdater {
 
     private ActivityTimeTracker timeTracker;
 
     private VehicleRoute route;
 
+    private boolean unchanged;
+
+    private boolean stoppedEarly;
+
     /**
      * Updates arrival and end times of activities.
      * <p>
@@ -61,17 +68,40 @@ public class UpdateActivityTimes implements ActivityVisitor, StateUpdater {
         timeTracker.begin(route);
         this.route = route;
         route.getStart().setEndTime(timeTracker.getActEndTime());
+        stoppedEarly = false;
+    }
+
+    @Override
+    public int begin(VehicleRoute route, int firstInsertedIndex, int lastInsertedIndex) {
+        if (firstInsertedIndex == 0) {
+            begin(route);
+            return 0;
+        }
+        this.route = route;
+        TourActivity prevAct = route.getActivities().get(firstInsertedIndex - 1);
+        timeTracker.begin(route, prevAct, prevAct.getEndTime());
+        stoppedEarly = false;
+        return firstInsertedIndex;
     }
 
     @Override
     public void visit(TourActivity activity) {
         timeTracker.visit(activity);
+        unchanged = activity.getArrTime() == timeTracker.getActArrTime() && activity.getEndTime() == timeTracker.getActEndTime();
         activity.setArrTime(timeTracker.getActArrTime());
         activity.setEndTime(timeTracker.getActEndTime());
     }
 
+    @Override
+    public boolean isDone() {
+        stoppedEarly = unchanged;
+        return unchanged;
+    }
+
     @Override
     public void finish() {
+        //if the times have not changed at an activity, they have not changed at the end either
+        if (stoppedEarly) return;
         timeTracker.finish();
         route.getEnd().setArrTime(timeTracker.getActArrTime());
     }
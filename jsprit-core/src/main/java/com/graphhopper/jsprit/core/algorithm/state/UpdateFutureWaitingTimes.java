@@ -20,7 +20,7 @@ package com.graphhopper.jsprit.core.algorithm.state;
 import com.graphhopper.jsprit.core.problem.cost.VehicleRoutingTransportCosts;
 import com.graphhopper.jsprit.core.problem.solution.route.VehicleRoute;
 import com.graphhopper.jsprit.core.problem.solution.route.activity.BreakActivity;
-import com.graphhopper.jsprit.core.problem.solution.route.activity.ReverseActivityVisitor;
+import com.graphhopper.jsprit.core.problem.solution.route.activity.IncrementalReverseActivityVisitor;
 import com.graphhopper.jsprit.core.problem.solution.route.activity.TourActivity;
 
 /**
@@ -28,7 +28,7 @@ import com.graphhopper.jsprit.core.problem.solution.route.activity.TourActivity;
  *
  * @author schroeder
  */
-public class UpdateFutureWaitingTimes implements ReverseActivityVisitor, StateUpdater {
+public class UpdateFutureWaitingTimes implements IncrementalReverseActivityVisitor, StateUpdater {
 
     private StateManager states;
 
@@ -50,14 +50,28 @@ public class UpdateFutureWaitingTimes implements ReverseActivityVisitor, StateUp
         this.futureWaiting = 0.;
     }
 
+    /**
+     * States depend on all subsequent activities, thus it always starts at the end of the route.
+     */
+    @Override
+    public int begin(VehicleRoute route, int firstInsertedIndex, int lastInsertedIndex) {
+        begin(route);
+        return route.getActivities().size() - 1;
+    }
+
     @Override
     public void visit(TourActivity activity) {
-        states.putInternalTypedActivityState(activity, route.getVehicle(), InternalStates.FUTURE_WAITING, futureWaiting);
+        states.putInternalDoubleActivityState(activity, route.getVehicle(), InternalStates.FUTURE_WAITING, futureWaiting);
 		if(!(activity instanceof BreakActivity)) {
             futureWaiting += Math.max(activity.getTheoreticalEarliestOperationStartTime() - activity.getArrTime(), 0);
 		}
     }
 
+    @Override
+    public boolean isDone() {
+        return false;
+    }
+
     @Override
     public void finish() {
     }
@@ -25,7 +25,7 @@ import com.graphhopper.jsprit.core.problem.job.Job;
 import com.graphhopper.jsprit.core.problem.job.Pickup;
 import com.graphhopper.jsprit.core.problem.job.Service;
 import com.graphhopper.jsprit.core.problem.solution.route.VehicleRoute;
-import com.graphhopper.jsprit.core.problem.solution.route.activity.ActivityVisitor;
+import com.graphhopper.jsprit.core.problem.solution.route.activity.IncrementalActivityVisitor;
 import com.graphhopper.jsprit.core.problem.solution.route.activity.TourActivity;
 
 import java.util.Collection;
@@ -38,10 +38,14 @@ import java.util.Collection;
  * <p>Note that this only works properly if you register this class as ActivityVisitor AND InsertionStartsListener AND JobInsertedListener.
  * The reason behind is that activity states are dependent on route-level states and vice versa. If this is properly registered,
  * this dependency is solved automatically.
+ * <p>
+ * <p>After an insertion, it continues with the load at the activity preceding the inserted activities and stops as
+ * soon as the load at an activity does not change anymore. If a delivery has been inserted, the load at the beginning
+ * changes, thus it starts from the beginning of the route.
  *
  * @author stefan
  */
-class UpdateLoads implements ActivityVisitor, StateUpdater, InsertionStartsListener, JobInsertedListener {
+class UpdateLoads implements IncrementalActivityVisitor, StateUpdater, InsertionStartsListener, JobInsertedListener {
 
     private StateManager stateManager;
 
@@ -54,6 +58,12 @@ class UpdateLoads implements ActivityVisitor, StateUpdater, InsertionStartsListe
 
     private VehicleRoute route;
 
+    private boolean deliveryInserted;
+
+    private boolean incremental;
+
+    private boolean unchanged;
+
     public UpdateLoads(StateManager stateManager) {
         super();
         this.stateManager = stateManager;
@@ -65,19 +75,45 @@ class UpdateLoads implements ActivityVisitor, StateUpdater, InsertionStartsListe
         currentLoad = stateManager.getRouteState(route, InternalStates.LOAD_AT_BEGINNING, Capacity.class);
         if (currentLoad == null) currentLoad = defaultValue;
         this.route = route;
+        incremental = false;
+        unchanged = false;
+    }
+
+    @Override
+    public int begin(VehicleRoute route, int firstInsertedIndex, int lastInsertedIndex) {
+        if (!deliveryInserted && firstInsertedIndex > 0) {
+            Capacity loadAtPrevAct = stateManager.getActivityState(route.getActivities().get(firstInsertedIndex - 1), InternalStates.LOAD, Capacity.class);
+            if (loadAtPrevAct != null) {
+                currentLoad = loadAtPrevAct;
+                this.route = route;
+                incremental = true;
+                return firstInsertedIndex;
+            }
+        }
+        begin(route);
+        return 0;
     }
 
     @Override
     public void visit(TourActivity act) {
         currentLoad = Capacity.addup(currentLoad, act.getSize());
+        if (incremental) {
+            unchanged = currentLoad.equals(stateManager.getActivityState(act, InternalStates.LOAD, Capacity.class));
+        }
         stateManager.putInternalTypedActivityState(act, InternalStates.LOAD, currentLoad);
 //		assert currentLoad.isLessOrEqual(route.getVehicle().getType().getCapacityDimensions()) : "currentLoad at activity must not be > vehicleCapacity";
 //		assert currentLoad.isGreaterOrEqual(Capacity.Builder.newInstance().build()) : "currentLoad at act must not be < 0 in one of the applied dimensions";
     }
 
+    @Override
+    public boolean isDone() {
+        return unchanged;
+    }
+
     @Override
     public void finish() {
         currentLoad = Capacity.Builder.newInstance().build();
+        unchanged = false;
     }
 
     void insertionStarts(VehicleRoute route) {
@@ -103,6 +139,7 @@ class UpdateLoads implements ActivityVisitor, StateUpdater, InsertionStartsListe
 
     @Override
     public void informJobInserted(Job job2insert, VehicleRoute inRoute, double additionalCosts, double additionalTime) {
+        deliveryInserted = job2insert instanceof Delivery;
         if (job2insert instanceof Delivery) {
             Capacity loadAtDepot = stateManager.getRouteState(inRoute, InternalStates.LOAD_AT_BEGINNING, Capacity.class);
             if (loadAtDepot == null) loadAtDepot = defaultValue;
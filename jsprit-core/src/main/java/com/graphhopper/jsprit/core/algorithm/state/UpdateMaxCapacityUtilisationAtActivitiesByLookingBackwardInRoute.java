@@ -19,7 +19,7 @@ package com.graphhopper.jsprit.core.algorithm.state;
 
 import com.graphhopper.jsprit.core.problem.Capacity;
 import com.graphhopper.jsprit.core.problem.solution.route.VehicleRoute;
-import com.graphhopper.jsprit.core.problem.solution.route.activity.ActivityVisitor;
+import com.graphhopper.jsprit.core.problem.solution.route.activity.IncrementalActivityVisitor;
 import com.graphhopper.jsprit.core.problem.solution.route.activity.TourActivity;
 
 /**
@@ -28,7 +28,7 @@ import com.graphhopper.jsprit.core.problem.solution.route.activity.TourActivity;
  *
  * @author schroeder
  */
-class UpdateMaxCapacityUtilisationAtActivitiesByLookingBackwardInRoute implements ActivityVisitor, StateUpdater {
+class UpdateMaxCapacityUtilisationAtActivitiesByLookingBackwardInRoute implements IncrementalActivityVisitor, StateUpdater {
 
     private StateManager stateManager;
 
@@ -50,6 +50,20 @@ class UpdateMaxCapacityUtilisationAtActivitiesByLookingBackwardInRoute implement
         if (maxLoad == null) maxLoad = defaultValue;
     }
 
+    @Override
+    public int begin(VehicleRoute route, int firstInsertedIndex, int lastInsertedIndex) {
+        if (firstInsertedIndex > 0) {
+            Capacity maxLoadAtPrevAct = stateManager.getActivityState(route.getActivities().get(firstInsertedIndex - 1), InternalStates.PAST_MAXLOAD, Capacity.class);
+            if (maxLoadAtPrevAct != null) {
+                this.route = route;
+                maxLoad = maxLoadAtPrevAct;
+                return firstInsertedIndex;
+            }
+        }
+        begin(route);
+        return 0;
+    }
+
     @Override
     public void visit(TourActivity act) {
         maxLoad = Capacity.max(maxLoad, stateManager.getActivityState(act, InternalStates.LOAD, Capacity.class));
@@ -58,6 +72,11 @@ class UpdateMaxCapacityUtilisationAtActivitiesByLookingBackwardInRoute implement
 //		assert maxLoad.isLessOrEqual(route.getVehicle().getType().getCapacityDimensions()) : "maxLoad can never be bigger than vehicleCap";
     }
 
+    @Override
+    public boolean isDone() {
+        return false;
+    }
+
     @Override
     public void finish() {
     }
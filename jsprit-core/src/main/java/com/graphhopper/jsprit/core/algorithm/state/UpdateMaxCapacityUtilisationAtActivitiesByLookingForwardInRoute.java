@@ -19,7 +19,7 @@ package com.graphhopper.jsprit.core.algorithm.state;
 
 import com.graphhopper.jsprit.core.problem.Capacity;
 import com.graphhopper.jsprit.core.problem.solution.route.VehicleRoute;
-import com.graphhopper.jsprit.core.problem.solution.route.activity.ReverseActivityVisitor;
+import com.graphhopper.jsprit.core.problem.solution.route.activity.IncrementalReverseActivityVisitor;
 import com.graphhopper.jsprit.core.problem.solution.route.activity.TourActivity;
 
 /**
@@ -39,7 +39,7 @@ import com.graphhopper.jsprit.core.problem.solution.route.activity.TourActivity;
  *
  * @author schroeder
  */
-class UpdateMaxCapacityUtilisationAtActivitiesByLookingForwardInRoute implements ReverseActivityVisitor, StateUpdater {
+class UpdateMaxCapacityUtilisationAtActivitiesByLookingForwardInRoute implements IncrementalReverseActivityVisitor, StateUpdater {
 
     private StateManager stateManager;
 
@@ -62,6 +62,15 @@ class UpdateMaxCapacityUtilisationAtActivitiesByLookingForwardInRoute implements
         if (maxLoad == null) maxLoad = defaultValue;
     }
 
+    /**
+     * States depend on all subsequent activities, thus it always starts at the end of the route.
+     */
+    @Override
+    public int begin(VehicleRoute route, int firstInsertedIndex, int lastInsertedIndex) {
+        begin(route);
+        return route.getActivities().size() - 1;
+    }
+
     @Override
     public void visit(TourActivity act) {
         maxLoad = Capacity.max(maxLoad, stateManager.getActivityState(act, InternalStates.LOAD, Capacity.class));
@@ -70,6 +79,11 @@ class UpdateMaxCapacityUtilisationAtActivitiesByLookingForwardInRoute implements
 //		assert maxLoad.isGreaterOrEqual(Capacity.Builder.newInstance().build()) : "maxLoad can never be smaller than 0";
     }
 
+    @Override
+    public boolean isDone() {
+        return false;
+    }
+
     @Override
     public void finish() {
     }
@@ -19,7 +19,7 @@ package com.graphhopper.jsprit.core.algorithm.state;
 
 import com.graphhopper.jsprit.core.problem.Capacity;
 import com.graphhopper.jsprit.core.problem.solution.route.VehicleRoute;
-import com.graphhopper.jsprit.core.problem.solution.route.activity.ActivityVisitor;
+import com.graphhopper.jsprit.core.problem.solution.route.activity.IncrementalActivityVisitor;
 import com.graphhopper.jsprit.core.problem.solution.route.activity.TourActivity;
 
 /**
@@ -32,7 +32,7 @@ import com.graphhopper.jsprit.core.problem.solution.route.activity.TourActivity;
  *
  * @author stefan
  */
-class UpdateMaxCapacityUtilisationAtRoute implements ActivityVisitor, StateUpdater {
+class UpdateMaxCapacityUtilisationAtRoute implements IncrementalActivityVisitor, StateUpdater {
 
     private StateManager stateManager;
 
@@ -58,12 +58,34 @@ class UpdateMaxCapacityUtilisationAtRoute implements ActivityVisitor, StateUpdat
         this.route = route;
     }
 
+    @Override
+    public int begin(VehicleRoute route, int firstInsertedIndex, int lastInsertedIndex) {
+        if (firstInsertedIndex > 0) {
+            TourActivity prevAct = route.getActivities().get(firstInsertedIndex - 1);
+            Capacity loadAtPrevAct = stateManager.getActivityState(prevAct, InternalStates.LOAD, Capacity.class);
+            Capacity maxLoadAtPrevAct = stateManager.getActivityState(prevAct, InternalStates.PAST_MAXLOAD, Capacity.class);
+            if (loadAtPrevAct != null && maxLoadAtPrevAct != null) {
+                currentLoad = loadAtPrevAct;
+                maxLoad = maxLoadAtPrevAct;
+                this.route = route;
+                return firstInsertedIndex;
+            }
+        }
+        begin(route);
+        return 0;
+    }
+
     @Override
     public void visit(TourActivity act) {
         currentLoad = Capacity.addup(currentLoad, act.getSize());
         maxLoad = Capacity.max(maxLoad, currentLoad);
     }
 
+    @Override
+    public boolean isDone() {
+        return false;
+    }
+
     @Override
     public void finish() {
         stateManager.putTypedInternalRouteState(route, InternalStates.MAXLOAD, maxLoad);
@@ -35,9 +35,15 @@ public class UpdateMaxTimeInVehicle implements StateUpdater, ActivityVisitor{
 
     private Map<Integer, Map<Job, Double>> openPickupEndTimesPerVehicle = new HashMap<>();
 
-    private Map<Integer, Map<TourActivity, Double>> slackTimesPerVehicle = new HashMap<>();
+    /*
+     * slack and start times by vehicle type index and activity index. slack times of activities that are no deliveries
+     * are NaN
+     */
+    private double[][] slackTimesPerVehicle;
 
-    private Map<Integer, Map<TourActivity, Double>> actStartTimesPerVehicle = new HashMap<>();
+    private double[][] actStartTimesPerVehicle;
+
+    private final int nuActivities;
 
     private VehicleRoute route;
 
@@ -74,6 +80,9 @@ public class UpdateMaxTimeInVehicle implements StateUpdater, ActivityVisitor{
         this.transportTime = transportTime;
         prevActEndTimes = new double[stateManager.getMaxIndexOfVehicleTypeIdentifiers() + 1];
         prevActLocations = new Location[stateManager.getMaxIndexOfVehicleTypeIdentifiers() + 1];
+        slackTimesPerVehicle = new double[stateManager.getMaxIndexOfVehicleTypeIdentifiers() + 1][];
+        actStartTimesPerVehicle = new double[stateManager.getMaxIndexOfVehicleTypeIdentifiers() + 1][];
+        nuActivities = stateManager.getNuActivities();
         this.activityCosts = activityCosts;
     }
 
@@ -86,15 +95,15 @@ public class UpdateMaxTimeInVehicle implements StateUpdater, ActivityVisitor{
     @Override
     public void begin(VehicleRoute route) {
         openPickupEndTimesPerVehicle.clear();
-        slackTimesPerVehicle.clear();
-        actStartTimesPerVehicle.clear();
         vehicles = vehiclesToUpdate.get(route);
         this.route = route;
         for(Vehicle v : vehicles){
             int vehicleIndex = v.getVehicleTypeIdentifier().getIndex();
             openPickupEndTimesPerVehicle.put(vehicleIndex, new HashMap<Job, Double>());
-            slackTimesPerVehicle.put(vehicleIndex, new HashMap<TourActivity, Double>());
-            actStartTimesPerVehicle.put(vehicleIndex, new HashMap<TourActivity, Double>());
+            if (slackTimesPerVehicle[vehicleIndex] == null) {
+                slackTimesPerVehicle[vehicleIndex] = new double[nuActivities];
+                actStartTimesPerVehicle[vehicleIndex] = new double[nuActivities];
+            }
             prevActEndTimes[vehicleIndex] = v.getEarliestDeparture();
             prevActLocations[vehicleIndex] = v.getStartLocation();
         }
@@ -113,6 +122,7 @@ public class UpdateMaxTimeInVehicle implements StateUpdater, ActivityVisitor{
             memorizeActStart(activity,v,activityStart);
             double activityEnd = activityStart + activityCosts.getActivityDuration(activity, activityArrival, route.getDriver(), v);
             Map<Job, Double> openPickups = openPickupEndTimesPerVehicle.get(vehicleIndex);
+            double slackTime = Double.NaN;
             if (activity instanceof ServiceActivity || activity instanceof PickupActivity) {
                 openPickups.put(((TourActivity.JobActivity) activity).getJob(), activityEnd);
             } else if (activity instanceof DeliveryActivity) {
@@ -122,9 +132,9 @@ public class UpdateMaxTimeInVehicle implements StateUpdater, ActivityVisitor{
                     pickupEnd = openPickups.get(job);
                     openPickups.remove(job);
                 } else pickupEnd = v.getEarliestDeparture();
-                double slackTime = maxTime - (activityStart - pickupEnd);
-                slackTimesPerVehicle.get(vehicleIndex).put(activity, slackTime);
+                slackTime = maxTime - (activityStart - pickupEnd);
             }
+            slackTimesPerVehicle[vehicleIndex][activity.getIndex()] = slackTime;
             prevActLocations[vehicleIndex] = activity.getLocation();
             prevActEndTimes[vehicleIndex] = activityEnd;
         }
@@ -140,7 +150,7 @@ public class UpdateMaxTimeInVehicle implements StateUpdater, ActivityVisitor{
     }
 
     private void memorizeActStart(TourActivity activity, Vehicle v, double activityStart) {
-        actStartTimesPerVehicle.get(v.getVehicleTypeIdentifier().getIndex()).put(activity, activityStart);
+        actStartTimesPerVehicle[v.getVehicleTypeIdentifier().getIndex()][activity.getIndex()] = activityStart;
     }
 
     @Override
@@ -161,27 +171,27 @@ public class UpdateMaxTimeInVehicle implements StateUpdater, ActivityVisitor{
             }
 
             double minSlackTimeAtEnd = minSlackTime(openDeliveries);
-            stateManager.putRouteState(route, v, minSlackId, minSlackTimeAtEnd);
+            stateManager.putDoubleRouteState(route, v, minSlackId, minSlackTimeAtEnd);
             stateManager.putRouteState(route, v, openJobsId, new HashMap<>(openDeliveries));
-            List<TourActivity> acts = new ArrayList<>(this.route.getActivities());
-            Collections.reverse(acts);
-            for (TourActivity act : acts) {
+            List<TourActivity> acts = this.route.getActivities();
+            for (int i = acts.size() - 1; i >= 0; i--) {
+                TourActivity act = acts.get(i);
                 Job job = ((TourActivity.JobActivity) act).getJob();
                 if (act instanceof ServiceActivity || act instanceof PickupActivity) {
                     openDeliveries.remove(job);
                     double minSlackTime = minSlackTime(openDeliveries);
 //                    double latestStart = actStart(act, v) + minSlackTime;
                     stateManager.putActivityState(act, v, openJobsId, new HashMap<>(openDeliveries));
-                    stateManager.putActivityState(act, v, minSlackId, minSlackTime);
+                    stateManager.putDoubleActivityState(act, v, minSlackId, minSlackTime);
                 } else {
-                    if (slackTimesPerVehicle.get(vehicleIndex).containsKey(act)) {
-                        double slackTime = slackTimesPerVehicle.get(vehicleIndex).get(act);
+                    double slackTime = slackTimesPerVehicle[vehicleIndex][act.getIndex()];
+                    if (!Double.isNaN(slackTime)) {
                         openDeliveries.put(job, slackTime);
                     }
                     double minSlackTime = minSlackTime(openDeliveries);
 //                    double latestStart = actStart(act, v) + minSlackTime;
                     stateManager.putActivityState(act, v, openJobsId, new HashMap<>(openDeliveries));
-                    stateManager.putActivityState(act, v, minSlackId, minSlackTime);
+                    stateManager.putDoubleActivityState(act, v, minSlackId, minSlackTime);
                 }
             }
         }
@@ -206,32 +216,31 @@ public class UpdateMaxTimeInVehicle implements StateUpdater, ActivityVisitor{
             }
 
             double minSlackTimeAtEnd = minSlackTime(openDeliveries);
-            stateManager.putRouteState(route, v, minSlackId, routeEnd + minSlackTimeAtEnd);
-            List<TourActivity> acts = new ArrayList<>(activities);
-            Collections.reverse(acts);
-            for (TourActivity act : acts) {
+            stateManager.putDoubleRouteState(route, v, minSlackId, routeEnd + minSlackTimeAtEnd);
+            for (int i = activities.size() - 1; i >= 0; i--) {
+                TourActivity act = activities.get(i);
                 Job job = ((TourActivity.JobActivity) act).getJob();
                 if (act instanceof ServiceActivity || act instanceof PickupActivity) {
                     String jobId = job.getId();
                     openDeliveries.remove(jobId);
                     double minSlackTime = minSlackTime(openDeliveries);
                     double latestStart = actStart(act, v) + minSlackTime;
-                    stateManager.putActivityState(act, v, minSlackId, latestStart);
+                    stateManager.putDoubleActivityState(act, v, minSlackId, latestStart);
                 } else {
-                    if (slackTimesPerVehicle.get(vehicleIndex).containsKey(act)) {
-                        double slackTime = slackTimesPerVehicle.get(vehicleIndex).get(act);
+                    double slackTime = slackTimesPerVehicle[vehicleIndex][act.getIndex()];
+                    if (!Double.isNaN(slackTime)) {
                         openDeliveries.put(job, slackTime);
                     }
                     double minSlackTime = minSlackTime(openDeliveries);
                     double latestStart = actStart(act, v) + minSlackTime;
-                    stateManager.putActivityState(act, v, minSlackId, latestStart);
+                    stateManager.putDoubleActivityState(act, v, minSlackId, latestStart);
                 }
             }
         }
     }
 
     private double actStart(TourActivity act, Vehicle v) {
-        return actStartTimesPerVehicle.get(v.getVehicleTypeIdentifier().getIndex()).get(act);
+        return actStartTimesPerVehicle[v.getVehicleTypeIdentifier().getIndex()][act.getIndex()];
     }
 
     private double minSlackTime(Map<Job, Double> openDeliveries) {
@@ -20,15 +20,18 @@ package com.graphhopper.jsprit.core.algorithm.state;
 import com.graphhopper.jsprit.core.problem.cost.VehicleRoutingActivityCosts;
 import com.graphhopper.jsprit.core.problem.cost.VehicleRoutingTransportCosts;
 import com.graphhopper.jsprit.core.problem.solution.route.VehicleRoute;
-import com.graphhopper.jsprit.core.problem.solution.route.activity.ReverseActivityVisitor;
+import com.graphhopper.jsprit.core.problem.solution.route.activity.IncrementalReverseActivityVisitor;
 import com.graphhopper.jsprit.core.problem.solution.route.activity.TourActivity;
 
 /**
  * Updates and memorizes latest operation start times at activities.
+ * <p>
+ * <p>After an insertion, it starts at the last inserted activity and stops as soon as the latest operation start time
+ * of an activity does not change anymore.
  *
  * @author schroeder
  */
-class UpdatePracticalTimeWindows implements ReverseActivityVisitor, StateUpdater {
+class UpdatePracticalTimeWindows implements IncrementalReverseActivityVisitor, StateUpdater {
 
     private StateManager states;
 
@@ -42,6 +45,10 @@ class UpdatePracticalTimeWindows implements ReverseActivityVisitor, StateUpdater
 
     private TourActivity prevAct;
 
+    private boolean incremental;
+
+    private boolean unchanged;
+
     public UpdatePracticalTimeWindows(StateManager states, VehicleRoutingTransportCosts tpCosts, VehicleRoutingActivityCosts activityCosts) {
         super();
         this.states = states;
@@ -54,6 +61,26 @@ class UpdatePracticalTimeWindows implements ReverseActivityVisitor, StateUpdater
         this.route = route;
         latestArrTimeAtPrevAct = route.getEnd().getTheoreticalLatestOperationStartTime();
         prevAct = route.getEnd();
+        incremental = false;
+        unchanged = false;
+    }
+
+    @Override
+    public int begin(VehicleRoute route, int firstInsertedIndex, int lastInsertedIndex) {
+        if (lastInsertedIndex + 1 < route.getActivities().size()) {
+            TourActivity nextAct = route.getActivities().get(lastInsertedIndex + 1);
+            double latestArrTimeAtNextAct = states.getDoubleActivityState(nextAct, InternalStates.LATEST_OPERATION_START_TIME, Double.NaN);
+            if (!Double.isNaN(latestArrTimeAtNextAct)) {
+                this.route = route;
+                latestArrTimeAtPrevAct = latestArrTimeAtNextAct;
+                prevAct = nextAct;
+                incremental = true;
+                unchanged = false;
+                return lastInsertedIndex;
+            }
+        }
+        begin(route);
+        return route.getActivities().size() - 1;
     }
 
     @Override
@@ -61,12 +88,20 @@ class UpdatePracticalTimeWindows implements ReverseActivityVisitor, StateUpdater
         double potentialLatestArrivalTimeAtCurrAct = latestArrTimeAtPrevAct - transportCosts.getBackwardTransportTime(activity.getLocation(), prevAct.getLocation(), latestArrTimeAtPrevAct, route.getDriver(), route.getVehicle()) - activityCosts.getActivityDuration(activity,latestArrTimeAtPrevAct,route.getDriver(),route.getVehicle());
         double latestArrivalTime = Math.min(activity.getTheoreticalLatestOperationStartTime(), potentialLatestArrivalTimeAtCurrAct);
 
-        states.putInternalTypedActivityState(activity, InternalStates.LATEST_OPERATION_START_TIME, latestArrivalTime);
+        if (incremental) {
+            unchanged = latestArrivalTime == states.getDoubleActivityState(activity, InternalStates.LATEST_OPERATION_START_TIME, Double.NaN);
+        }
+        states.putInternalDoubleActivityState(activity, InternalStates.LATEST_OPERATION_START_TIME, latestArrivalTime);
 
         latestArrTimeAtPrevAct = latestArrivalTime;
         prevAct = activity;
     }
 
+    @Override
+    public boolean isDone() {
+        return unchanged;
+    }
+
     @Override
     public void finish() {
     }
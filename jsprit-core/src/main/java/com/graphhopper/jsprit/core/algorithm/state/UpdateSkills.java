@@ -20,13 +20,13 @@ package com.graphhopper.jsprit.core.algorithm.state;
 
 import com.graphhopper.jsprit.core.problem.Skills;
 import com.graphhopper.jsprit.core.problem.solution.route.VehicleRoute;
-import com.graphhopper.jsprit.core.problem.solution.route.activity.ActivityVisitor;
+import com.graphhopper.jsprit.core.problem.solution.route.activity.IncrementalActivityVisitor;
 import com.graphhopper.jsprit.core.problem.solution.route.activity.TourActivity;
 
 /**
  * Update to update required skills on route
  */
-public class UpdateSkills implements StateUpdater, ActivityVisitor {
+public class UpdateSkills implements StateUpdater, IncrementalActivityVisitor {
 
     private Skills.Builder skillBuilder;
 
@@ -44,6 +44,18 @@ public class UpdateSkills implements StateUpdater, ActivityVisitor {
         skillBuilder = Skills.Builder.newInstance();
     }
 
+    @Override
+    public int begin(VehicleRoute route, int firstInsertedIndex, int lastInsertedIndex) {
+        Skills skills = statesManager.getRouteState(route, InternalStates.SKILLS, Skills.class);
+        if (skills == null) {
+            begin(route);
+            return 0;
+        }
+        this.route = route;
+        skillBuilder = Skills.Builder.newInstance().addAllSkills(skills.values());
+        return firstInsertedIndex;
+    }
+
     @Override
     public void visit(TourActivity activity) {
         if (activity instanceof TourActivity.JobActivity) {
@@ -52,6 +64,11 @@ public class UpdateSkills implements StateUpdater, ActivityVisitor {
         }
     }
 
+    @Override
+    public boolean isDone() {
+        return true;
+    }
+
     @Override
     public void finish() {
         Skills skills = skillBuilder.build();
@@ -21,7 +21,7 @@ import com.graphhopper.jsprit.core.problem.cost.ForwardTransportCost;
 import com.graphhopper.jsprit.core.problem.cost.VehicleRoutingActivityCosts;
 import com.graphhopper.jsprit.core.problem.cost.VehicleRoutingTransportCosts;
 import com.graphhopper.jsprit.core.problem.solution.route.VehicleRoute;
-import com.graphhopper.jsprit.core.problem.solution.route.activity.ActivityVisitor;
+import com.graphhopper.jsprit.core.problem.solution.route.activity.IncrementalActivityVisitor;
 import com.graphhopper.jsprit.core.problem.solution.route.activity.TourActivity;
 import com.graphhopper.jsprit.core.util.ActivityTimeTracker;
 
@@ -31,8 +31,16 @@ import com.graphhopper.jsprit.core.util.ActivityTimeTracker;
  * <p>
  * <p>Thus it modifies <code>stateManager.getRouteState(route, StateTypes.COSTS)</code> and <br>
  * <code>stateManager.getActivityState(activity, StateTypes.COSTS)</code>
+ * <p>
+ * <p>After an insertion, it continues with the costs memorized at the activity preceding the inserted activities.
+ * It stops once end time and accumulated costs at an activity equal the memorized ones, since costs and times of
+ * the remaining activities and the route do not change then. Costs are accumulated along the route, i.e. as long as
+ * the inserted activities add costs, it visits the route up to its end.
+ * <p>
+ * <p>If the transport costs answer combined queries, transport costs of a leg come along with its transport time, i.e.
+ * each leg is queried once.
  */
-public class UpdateVariableCosts implements ActivityVisitor, StateUpdater {
+public class UpdateVariableCosts implements IncrementalActivityVisitor, StateUpdater {
 
     private VehicleRoutingActivityCosts activityCost;
 
@@ -50,6 +58,10 @@ public class UpdateVariableCosts implements ActivityVisitor, StateUpdater {
 
     private ActivityTimeTracker timeTracker;
 
+    private boolean unchanged;
+
+    private boolean stoppedEarly;
+
     /**
      * Updates total costs (i.e. transport and activity costs) at route and activity level.
      * <p>
@@ -81,39 +93,82 @@ public class UpdateVariableCosts implements ActivityVisitor, StateUpdater {
         timeTracker.begin(route);
         prevAct = route.getStart();
         startTimeAtPrevAct = timeTracker.getActEndTime();
+        totalOperationCost = 0.0;
+        stoppedEarly = false;
+    }
+
+    @Override
+    public int begin(VehicleRoute route, int firstInsertedIndex, int lastInsertedIndex) {
+        if (firstInsertedIndex > 0) {
+            TourActivity prevAct = route.getActivities().get(firstInsertedIndex - 1);
+            double costsAtPrevAct = states.getDoubleActivityState(prevAct, InternalStates.COSTS, Double.NaN);
+            double endTimeAtPrevAct = states.getDoubleActivityState(prevAct, InternalStates.COSTS_END_TIME, Double.NaN);
+            if (!Double.isNaN(costsAtPrevAct) && !Double.isNaN(endTimeAtPrevAct)) {
+                vehicleRoute = route;
+                timeTracker.begin(route, prevAct, endTimeAtPrevAct);
+                this.prevAct = prevAct;
+                startTimeAtPrevAct = endTimeAtPrevAct;
+                totalOperationCost = costsAtPrevAct;
+                stoppedEarly = false;
+                return firstInsertedIndex;
+            }
+        }
+        begin(route);
+        return 0;
     }
 
     @Override
     public void visit(TourActivity act) {
         timeTracker.visit(act);
 
-        double transportCost = this.transportCost.getTransportCost(prevAct.getLocation(), act.getLocation(), startTimeAtPrevAct, vehicleRoute.getDriver(), vehicleRoute.getVehicle());
+        double transportCost = timeTracker.getTransportCost();
+        if (Double.isNaN(transportCost)) {
+            transportCost = this.transportCost.getTransportCost(prevAct.getLocation(), act.getLocation(), startTimeAtPrevAct, vehicleRoute.getDriver(), vehicleRoute.getVehicle());
+        }
         double actCost = activityCost.getActivityCost(act, timeTracker.getActArrTime(), vehicleRoute.getDriver(), vehicleRoute.getVehicle());
 
         totalOperationCost += transportCost;
         totalOperationCost += actCost;
 
-        states.putInternalTypedActivityState(act, InternalStates.COSTS, totalOperationCost);
-
         prevAct = act;
         startTimeAtPrevAct = timeTracker.getActEndTime();
+
+        unchanged = states.getDoubleActivityState(act, InternalStates.COSTS, Double.NaN) == totalOperationCost
+            && states.getDoubleActivityState(act, InternalStates.COSTS_END_TIME, Double.NaN) == startTimeAtPrevAct;
+        if (!unchanged) {
+            states.putInternalDoubleActivityState(act, InternalStates.COSTS, totalOperationCost);
+            states.putInternalDoubleActivityState(act, InternalStates.COSTS_END_TIME, startTimeAtPrevAct);
+        }
+    }
+
+    @Override
+    public boolean isDone() {
+        stoppedEarly = unchanged && !Double.isNaN(states.getDoubleRouteState(vehicleRoute, InternalStates.COSTS, Double.NaN));
+        return stoppedEarly;
     }
 
     @Override
     public void finish() {
+        //if costs and end time have not changed at an activity, the costs of the route have not changed either
+        if (!stoppedEarly) updateRouteCosts();
+        startTimeAtPrevAct = 0.0;
+        prevAct = null;
+        vehicleRoute = null;
+        totalOperationCost = 0.0;
+    }
+
+    private void updateRouteCosts() {
         timeTracker.finish();
-        double transportCost = this.transportCost.getTransportCost(prevAct.getLocation(), vehicleRoute.getEnd().getLocation(), startTimeAtPrevAct, vehicleRoute.getDriver(), vehicleRoute.getVehicle());
+        double transportCost = timeTracker.getTransportCost();
+        if (Double.isNaN(transportCost)) {
+            transportCost = this.transportCost.getTransportCost(prevAct.getLocation(), vehicleRoute.getEnd().getLocation(), startTimeAtPrevAct, vehicleRoute.getDriver(), vehicleRoute.getVehicle());
+        }
         double actCost = activityCost.getActivityCost(vehicleRoute.getEnd(), timeTracker.getActEndTime(), vehicleRoute.getDriver(), vehicleRoute.getVehicle());
 
         totalOperationCost += transportCost;
         totalOperationCost += actCost;
 
-        states.putTypedInternalRouteState(vehicleRoute, InternalStates.COSTS, totalOperationCost);
-
-        startTimeAtPrevAct = 0.0;
-        prevAct = null;
-        vehicleRoute = null;
-        totalOperationCost = 0.0;
+        states.putInternalDoubleRouteState(vehicleRoute, InternalStates.COSTS, totalOperationCost);
     }
 
 }
@@ -21,7 +21,7 @@ package com.graphhopper.jsprit.core.algorithm.state;
 import com.graphhopper.jsprit.core.problem.Location;
 import com.graphhopper.jsprit.core.problem.cost.VehicleRoutingActivityCosts;
 import com.graphhopper.jsprit.core.problem.cost.VehicleRoutingTransportCosts;
-import com.graphhopper.jsprit.core.problem.solution.route.RouteVisitor;
+import com.graphhopper.jsprit.core.problem.solution.route.IncrementalRouteVisitor;
 import com.graphhopper.jsprit.core.problem.solution.route.VehicleRoute;
 import com.graphhopper.jsprit.core.problem.solution.route.activity.TourActivity;
 import com.graphhopper.jsprit.core.problem.vehicle.Vehicle;
@@ -29,8 +29,9 @@ import com.graphhopper.jsprit.core.problem.vehicle.Vehicle;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Iterator;
+import java.util.List;
 
-public class UpdateVehicleDependentPracticalTimeWindows implements RouteVisitor, StateUpdater {
+public class UpdateVehicleDependentPracticalTimeWindows implements IncrementalRouteVisitor, StateUpdater {
 
     @Override
     public void visit(VehicleRoute route) {
@@ -42,6 +43,51 @@ public class UpdateVehicleDependentPracticalTimeWindows implements RouteVisitor,
         finish();
     }
 
+    /**
+     * Starts at the last inserted activity with the latest arrival times memorized at its successor, and stops before
+     * the inserted activities as soon as the latest arrival times of an activity do not change anymore for all vehicles.
+     */
+    @Override
+    public void visit(VehicleRoute route, int firstInsertedIndex, int lastInsertedIndex) {
+        List<TourActivity> activities = route.getActivities();
+        if (lastInsertedIndex + 1 >= activities.size()) {
+            visit(route);
+            return;
+        }
+        begin(route);
+        TourActivity nextAct = activities.get(lastInsertedIndex + 1);
+        for (Vehicle vehicle : vehicles) {
+            double latestArrTimeAtNextAct = stateManager.getDoubleActivityState(nextAct, vehicle, InternalStates.LATEST_OPERATION_START_TIME, Double.NaN);
+            if (Double.isNaN(latestArrTimeAtNextAct)) {
+                visit(route);
+                return;
+            }
+            latest_arrTimes_at_prevAct[vehicle.getVehicleTypeIdentifier().getIndex()] = latestArrTimeAtNextAct;
+            location_of_prevAct[vehicle.getVehicleTypeIdentifier().getIndex()] = nextAct.getLocation();
+        }
+        for (int i = lastInsertedIndex; i >= 0; i--) {
+            TourActivity activity = activities.get(i);
+            if (i >= firstInsertedIndex) {
+                visit(activity);
+                continue;
+            }
+            for (Vehicle vehicle : vehicles) {
+                old_latest_arrTimes[vehicle.getVehicleTypeIdentifier().getIndex()] = stateManager.getDoubleActivityState(activity, vehicle, InternalStates.LATEST_OPERATION_START_TIME, Double.NaN);
+            }
+            visit(activity);
+            boolean unchanged = true;
+            for (Vehicle vehicle : vehicles) {
+                int index = vehicle.getVehicleTypeIdentifier().getIndex();
+                if (old_latest_arrTimes[index] != latest_arrTimes_at_prevAct[index]) {
+                    unchanged = false;
+                    break;
+                }
+            }
+            if (unchanged) break;
+        }
+        finish();
+    }
+
     public static interface VehiclesToUpdate {
 
         public Collection<Vehicle> get(VehicleRoute route);
@@ -69,6 +115,8 @@ public class UpdateVehicleDependentPracticalTimeWindows implements RouteVisitor,
 
     private Location[] location_of_prevAct;
 
+    private double[] old_latest_arrTimes;
+
     private Collection<Vehicle> vehicles;
 
     public UpdateVehicleDependentPracticalTimeWindows(StateManager stateManager, VehicleRoutingTransportCosts tpCosts, VehicleRoutingActivityCosts activityCosts) {
@@ -78,6 +126,7 @@ public class UpdateVehicleDependentPracticalTimeWindows implements RouteVisitor,
         this.activityCosts = activityCosts;
         latest_arrTimes_at_prevAct = new double[stateManager.getMaxIndexOfVehicleTypeIdentifiers() + 1];
         location_of_prevAct = new Location[stateManager.getMaxIndexOfVehicleTypeIdentifiers() + 1];
+        old_latest_arrTimes = new double[stateManager.getMaxIndexOfVehicleTypeIdentifiers() + 1];
     }
 
     public void setVehiclesToUpdate(VehiclesToUpdate vehiclesToUpdate) {
@@ -109,7 +158,7 @@ public class UpdateVehicleDependentPracticalTimeWindows implements RouteVisitor,
             if (latestArrivalTime < activity.getTheoreticalEarliestOperationStartTime()) {
                 stateManager.putTypedInternalRouteState(route, vehicle, InternalStates.SWITCH_NOT_FEASIBLE, true);
             }
-            stateManager.putInternalTypedActivityState(activity, vehicle, InternalStates.LATEST_OPERATION_START_TIME, latestArrivalTime);
+            stateManager.putInternalDoubleActivityState(activity, vehicle, InternalStates.LATEST_OPERATION_START_TIME, latestArrivalTime);
             latest_arrTimes_at_prevAct[vehicle.getVehicleTypeIdentifier().getIndex()] = latestArrivalTime;
             location_of_prevAct[vehicle.getVehicleTypeIdentifier().getIndex()] = activity.getLocation();
         }
@@ -0,0 +1,38 @@
+/*
+ * Licensed to GraphHopper GmbH under one or more contributor
+ * license agreements. See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ *
+ * GraphHopper GmbH licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.graphhopper.jsprit.core.problem.cost;
+
+import com.graphhopper.jsprit.core.problem.Location;
+import com.graphhopper.jsprit.core.problem.driver.Driver;
+import com.graphhopper.jsprit.core.problem.vehicle.Vehicle;
+
+/**
+ * Transport costs that answer transport time, distance and transport costs of a relation with a single query.
+ * <p>
+ * <p>The values must be the same as the ones returned by {@link #getTransportTime(Location, Location, double, Driver, Vehicle)},
+ * {@link #getDistance(Location, Location, double, Vehicle)} and {@link #getTransportCost(Location, Location, double, Driver, Vehicle)}.
+ * Use {@link TransportCostsQueries} to query transport costs that may or may not implement this interface.
+ */
+public interface CombinedTransportCosts extends VehicleRoutingTransportCosts {
+
+    /**
+     * Writes transport time, distance and transport costs from -&gt; to into the specified holder.
+     */
+    public void getTransportCosts(Location from, Location to, double departureTime, Driver driver, Vehicle vehicle, TransportCostsHolder holder);
+
+}
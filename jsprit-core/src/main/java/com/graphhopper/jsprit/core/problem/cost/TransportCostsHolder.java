@@ -0,0 +1,56 @@
+/*
+ * Licensed to GraphHopper GmbH under one or more contributor
+ * license agreements. See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ *
+ * GraphHopper GmbH licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.graphhopper.jsprit.core.problem.cost;
+
+/**
+ * Holds transport time, distance and transport costs of a relation, see {@link CombinedTransportCosts}.
+ * <p>
+ * <p>A holder is meant to be reused for many queries, i.e. its values are only valid until the next query.
+ */
+public class TransportCostsHolder {
+
+    private double transportTime;
+
+    private double distance;
+
+    private double transportCost;
+
+    public void set(double transportTime, double distance, double transportCost) {
+        this.transportTime = transportTime;
+        this.distance = distance;
+        this.transportCost = transportCost;
+    }
+
+    public double getTransportTime() {
+        return transportTime;
+    }
+
+    public double getDistance() {
+        return distance;
+    }
+
+    public double getTransportCost() {
+        return transportCost;
+    }
+
+    @Override
+    public String toString() {
+        return "[transportTime=" + transportTime + "][distance=" + distance + "][transportCost=" + transportCost + "]";
+    }
+
+}
@@ -0,0 +1,71 @@
+/*
+ * Licensed to GraphHopper GmbH under one or more contributor
+ * license agreements. See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ *
+ * GraphHopper GmbH licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.graphhopper.jsprit.core.problem.cost;
+
+import com.graphhopper.jsprit.core.problem.Location;
+import com.graphhopper.jsprit.core.problem.driver.Driver;
+import com.graphhopper.jsprit.core.problem.vehicle.Vehicle;
+
+/**
+ * Queries transport time, distance and transport costs at once. If the transport costs implement
+ * {@link CombinedTransportCosts}, queries are delegated to them, otherwise each value is queried separately.
+ */
+public final class TransportCostsQueries {
+
+    private TransportCostsQueries() {
+    }
+
+    public static void getTransportCosts(VehicleRoutingTransportCosts transportCosts, Location from, Location to, double departureTime, Driver driver, Vehicle vehicle, TransportCostsHolder holder) {
+        if (transportCosts instanceof CombinedTransportCosts) {
+            ((CombinedTransportCosts) transportCosts).getTransportCosts(from, to, departureTime, driver, vehicle, holder);
+            return;
+        }
+        holder.set(transportCosts.getTransportTime(from, to, departureTime, driver, vehicle),
+            transportCosts.getDistance(from, to, departureTime, vehicle),
+            transportCosts.getTransportCost(from, to, departureTime, driver, vehicle));
+    }
+
+    /**
+     * Like {@link #getTransportCosts(VehicleRoutingTransportCosts, Location, Location, double, Driver, Vehicle, TransportCostsHolder)},
+     * but for callers that do not need the distance: it is not queried (and set to NaN) if the transport costs do not
+     * implement {@link CombinedTransportCosts}.
+     */
+    public static void getTransportTimeAndCost(VehicleRoutingTransportCosts transportCosts, Location from, Location to, double departureTime, Driver driver, Vehicle vehicle, TransportCostsHolder holder) {
+        if (transportCosts instanceof CombinedTransportCosts) {
+            ((CombinedTransportCosts) transportCosts).getTransportCosts(from, to, departureTime, driver, vehicle, holder);
+            return;
+        }
+        holder.set(transportCosts.getTransportTime(from, to, departureTime, driver, vehicle), Double.NaN,
+            transportCosts.getTransportCost(from, to, departureTime, driver, vehicle));
+    }
+
+    /**
+     * Returns the transport time from -&gt; to. If the transport costs implement {@link CombinedTransportCosts}, it is
+     * answered by the combined query, i.e. the holder gets distance and transport costs along, otherwise only the
+     * transport time is queried (and distance and transport costs are set to NaN).
+     */
+    public static double getTransportTime(ForwardTransportTime transportTime, Location from, Location to, double departureTime, Driver driver, Vehicle vehicle, TransportCostsHolder holder) {
+        if (transportTime instanceof CombinedTransportCosts) {
+            ((CombinedTransportCosts) transportTime).getTransportCosts(from, to, departureTime, driver, vehicle, holder);
+        } else {
+            holder.set(transportTime.getTransportTime(from, to, departureTime, driver, vehicle), Double.NaN, Double.NaN);
+        }
+        return holder.getTransportTime();
+    }
+
+}
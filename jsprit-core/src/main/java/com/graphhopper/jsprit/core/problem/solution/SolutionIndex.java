@@ -0,0 +1,253 @@
+/*
+ * Licensed to GraphHopper GmbH under one or more contributor
+ * license agreements. See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ *
+ * GraphHopper GmbH licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.graphhopper.jsprit.core.problem.solution;
+
+import com.graphhopper.jsprit.core.problem.VehicleRoutingProblem;
+import com.graphhopper.jsprit.core.problem.job.Job;
+import com.graphhopper.jsprit.core.problem.solution.route.VehicleRoute;
+import com.graphhopper.jsprit.core.problem.solution.route.activity.TourActivity;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Index of the routes of a solution that maps jobs to the route serving them, and activities to their position in
+ * this route.
+ * <p>
+ * <p>Every iteration works on a copy of a solution, i.e. on route instances of its own. Thus, the index is
+ * (re-)built with the routes of each solution it is used with. Each route occupies a slot of the index that is
+ * identified by the version of its activity sequence (see
+ * {@link com.graphhopper.jsprit.core.problem.solution.route.activity.TourActivities#getVersion()}), which copies keep
+ * until they are modified. An unchanged copy of a route indexed before just takes over the slot of that route, and
+ * only routes that have changed are indexed activity by activity. Thus, building the index is linear in the number of
+ * routes plus the number of activities of changed routes.
+ * <p>
+ * <p>Route lookups take constant time, and so do position lookups unless the route has been modified (then its
+ * positions are recalculated once, i.e. with the first position lookup of an activity of this route). The index must
+ * be informed about every job that is inserted into or removed from one of its routes in between.
+ * <p>
+ * <p>The ruin strategies of an algorithm share one index (see
+ * {@link com.graphhopper.jsprit.core.algorithm.ruin.AbstractRuinStrategy#setSolutionIndex(SolutionIndex)}), which
+ * they build with the routes to be ruined and inform about the jobs they remove.
+ */
+public class SolutionIndex {
+
+    private int[] slotOfJob;
+
+    private int[] slotOfActivity;
+
+    private int[] positionOfActivity;
+
+    private VehicleRoute[] routeOfSlot = new VehicleRoute[8];
+
+    private long[] versionOfSlot = new long[8];
+
+    private int[] claimOfSlot = new int[8];
+
+    private boolean[] positionsOutdated = new boolean[8];
+
+    private int nuSlots = 0;
+
+    private int claim = 0;
+
+    private final Map<Long, Integer> slotOfVersion = new HashMap<>();
+
+    private final Map<VehicleRoute, Integer> slotOfRoute = new IdentityHashMap<>();
+
+    public SolutionIndex(VehicleRoutingProblem vrp) {
+        slotOfJob = new int[vrp.getJobsInclusiveInitialJobsInRoutes().size() + 1];
+        slotOfActivity = new int[vrp.getNuActivities() + 1];
+        positionOfActivity = new int[vrp.getNuActivities() + 1];
+        Arrays.fill(slotOfJob, -1);
+        Arrays.fill(slotOfActivity, -1);
+    }
+
+    /**
+     * Indexes the specified routes. Routes that are unchanged copies of routes indexed by the last build (or modified
+     * since as the index has been informed about) take over their slots, all others are indexed anew.
+     *
+     * @param routes routes to be indexed
+     */
+    public void build(Collection<VehicleRoute> routes) {
+        claim++;
+        boolean[] unknown = new boolean[routes.size()];
+        int i = 0;
+        for (VehicleRoute route : routes) {
+            Integer slot = slotOfVersion.get(route.getTourActivities().getVersion());
+            if (slot != null && claimOfSlot[slot] != claim) {
+                slotOfRoute.remove(routeOfSlot[slot]);
+                routeOfSlot[slot] = route;
+                slotOfRoute.put(route, slot);
+                claimOfSlot[slot] = claim;
+            } else unknown[i] = true;
+            i++;
+        }
+        /*
+         * slots of routes that are not part of the solution anymore are released. jobs and activities might still
+         * refer to them, which is why lookups verify that the route actually contains them
+         */
+        for (int slot = 0; slot < nuSlots; slot++) {
+            if (claimOfSlot[slot] != claim && routeOfSlot[slot] != null) {
+                slotOfRoute.remove(routeOfSlot[slot]);
+                routeOfSlot[slot] = null;
+                slotOfVersion.remove(versionOfSlot[slot]);
+            }
+        }
+        i = 0;
+        int freeSlot = 0;
+        for (VehicleRoute route : routes) {
+            if (unknown[i]) {
+                while (freeSlot < nuSlots && routeOfSlot[freeSlot] != null) freeSlot++;
+                if (freeSlot == nuSlots) addSlot();
+                indexRoute(route, freeSlot);
+            }
+            i++;
+        }
+    }
+
+    /**
+     * Returns the route serving the specified job.
+     *
+     * @param job the job
+     * @return the route, or null if no indexed route serves the job
+     */
+    public VehicleRoute getRoute(Job job) {
+        int index = job.getIndex();
+        if (index < 0 || index >= slotOfJob.length || slotOfJob[index] < 0) return null;
+        VehicleRoute route = routeOfSlot[slotOfJob[index]];
+        if (route == null || !route.getTourActivities().servesJob(job)) return null;
+        return route;
+    }
+
+    /**
+     * Returns the position of the specified job activity in its route, i.e. its index in
+     * <code>route.getActivities()</code>.
+     *
+     * @param activity the activity
+     * @return the position, or -1 if no indexed route contains the activity
+     */
+    public int getPosition(TourActivity activity) {
+        int index = activity.getIndex();
+        if (index < 0 || index >= slotOfActivity.length || slotOfActivity[index] < 0) return -1;
+        int slot = slotOfActivity[index];
+        VehicleRoute route = routeOfSlot[slot];
+        if (route == null) return -1;
+        if (positionsOutdated[slot]) {
+            indexPositions(route, slot);
+        }
+        /*
+         * activities that have been removed from their route still refer to it
+         */
+        int position = positionOfActivity[index];
+        List<TourActivity> activities = route.getActivities();
+        if (position >= activities.size() || activities.get(position).getIndex() != index) return -1;
+        return position;
+    }
+
+    /**
+     * Informs the index that the specified job has been inserted into the specified route.
+     */
+    public void informJobInserted(Job job, VehicleRoute route) {
+        int slot = getSlot(route);
+        if (slot < 0) return;
+        if (isIndexed(job)) slotOfJob[job.getIndex()] = slot;
+        for (TourActivity activity : route.getActivities()) {
+            if (isIndexed(activity) && activity instanceof TourActivity.JobActivity && ((TourActivity.JobActivity) activity).getJob() == job) {
+                slotOfActivity[activity.getIndex()] = slot;
+            }
+        }
+        informRouteModified(route, slot);
+    }
+
+    /**
+     * Informs the index that the specified job has been removed from the specified route.
+     */
+    public void informJobRemoved(Job job, VehicleRoute route) {
+        int slot = getSlot(route);
+        if (slot < 0) return;
+        if (isIndexed(job) && slotOfJob[job.getIndex()] == slot) slotOfJob[job.getIndex()] = -1;
+        informRouteModified(route, slot);
+    }
+
+    private int getSlot(VehicleRoute route) {
+        Integer slot = slotOfRoute.get(route);
+        return slot == null ? -1 : slot;
+    }
+
+    private void informRouteModified(VehicleRoute route, int slot) {
+        slotOfVersion.remove(versionOfSlot[slot]);
+        versionOfSlot[slot] = route.getTourActivities().getVersion();
+        slotOfVersion.put(versionOfSlot[slot], slot);
+        positionsOutdated[slot] = true;
+    }
+
+    private void addSlot() {
+        if (nuSlots == routeOfSlot.length) {
+            routeOfSlot = Arrays.copyOf(routeOfSlot, 2 * nuSlots);
+            versionOfSlot = Arrays.copyOf(versionOfSlot, 2 * nuSlots);
+            claimOfSlot = Arrays.copyOf(claimOfSlot, 2 * nuSlots);
+            positionsOutdated = Arrays.copyOf(positionsOutdated, 2 * nuSlots);
+        }
+        nuSlots++;
+    }
+
+    private void indexRoute(VehicleRoute route, int slot) {
+        routeOfSlot[slot] = route;
+        slotOfRoute.put(route, slot);
+        claimOfSlot[slot] = claim;
+        versionOfSlot[slot] = route.getTourActivities().getVersion();
+        slotOfVersion.put(versionOfSlot[slot], slot);
+        positionsOutdated[slot] = false;
+        int position = 0;
+        for (TourActivity activity : route.getActivities()) {
+            if (activity instanceof TourActivity.JobActivity) {
+                Job job = ((TourActivity.JobActivity) activity).getJob();
+                if (isIndexed(job)) slotOfJob[job.getIndex()] = slot;
+                if (isIndexed(activity)) {
+                    slotOfActivity[activity.getIndex()] = slot;
+                    positionOfActivity[activity.getIndex()] = position;
+                }
+            }
+            position++;
+        }
+    }
+
+    private void indexPositions(VehicleRoute route, int slot) {
+        int position = 0;
+        for (TourActivity activity : route.getActivities()) {
+            if (isIndexed(activity) && slotOfActivity[activity.getIndex()] == slot) {
+                positionOfActivity[activity.getIndex()] = position;
+            }
+            position++;
+        }
+        positionsOutdated[slot] = false;
+    }
+
+    private boolean isIndexed(Job job) {
+        return job.getIndex() >= 0 && job.getIndex() < slotOfJob.length;
+    }
+
+    private boolean isIndexed(TourActivity activity) {
+        return activity.getIndex() >= 0 && activity.getIndex() < slotOfActivity.length;
+    }
+
+}
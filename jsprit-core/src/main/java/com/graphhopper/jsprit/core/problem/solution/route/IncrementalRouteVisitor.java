@@ -0,0 +1,37 @@
+/*
+ * Licensed to GraphHopper GmbH under one or more contributor
+ * license agreements. See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ *
+ * GraphHopper GmbH licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.graphhopper.jsprit.core.problem.solution.route;
+
+/**
+ * RouteVisitor that can update the states of a route after activities have been inserted without visiting the whole
+ * route.
+ */
+public interface IncrementalRouteVisitor extends RouteVisitor {
+
+    /**
+     * Visits the specified route after the activities in [firstInsertedIndex, lastInsertedIndex] that belong to the
+     * inserted job have been inserted. All other activities and their states are unchanged. Indices are positions in
+     * <code>route.getActivities()</code>.
+     *
+     * @param route              the route
+     * @param firstInsertedIndex index of the first inserted activity
+     * @param lastInsertedIndex  index of the last inserted activity
+     */
+    public void visit(VehicleRoute route, int firstInsertedIndex, int lastInsertedIndex);
+
+}
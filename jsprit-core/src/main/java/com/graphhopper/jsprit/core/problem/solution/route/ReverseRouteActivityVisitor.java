@@ -17,17 +17,25 @@
  */
 package com.graphhopper.jsprit.core.problem.solution.route;
 
+import com.graphhopper.jsprit.core.problem.solution.route.activity.IncrementalReverseActivityVisitor;
 import com.graphhopper.jsprit.core.problem.solution.route.activity.ReverseActivityVisitor;
 import com.graphhopper.jsprit.core.problem.solution.route.activity.TourActivity;
 
 import java.util.ArrayList;
-import java.util.Collection;
+import java.util.Arrays;
 import java.util.Iterator;
+import java.util.List;
 
 
 public class ReverseRouteActivityVisitor implements RouteVisitor {
 
-    private Collection<ReverseActivityVisitor> visitors = new ArrayList<ReverseActivityVisitor>();
+    private List<ReverseActivityVisitor> visitors = new ArrayList<ReverseActivityVisitor>();
+
+    private boolean incremental = true;
+
+    private int[] startIndices = new int[0];
+
+    private boolean[] done = new boolean[0];
 
     @Override
     public void visit(VehicleRoute route) {
@@ -42,6 +50,51 @@ public class ReverseRouteActivityVisitor implements RouteVisitor {
         finish(route);
     }
 
+    /**
+     * Visits the specified route after the activities in [firstInsertedIndex, lastInsertedIndex] have been inserted.
+     * <p>If all visitors are {@link IncrementalReverseActivityVisitor}s, each of them starts at the index it requires,
+     * and the visit ends once all of them are done. Otherwise, the whole route is visited.
+     *
+     * @param route              the route
+     * @param firstInsertedIndex index of the first inserted activity
+     * @param lastInsertedIndex  index of the last inserted activity
+     */
+    public void visit(VehicleRoute route, int firstInsertedIndex, int lastInsertedIndex) {
+        if (visitors.isEmpty()) return;
+        if (route.isEmpty()) return;
+        if (!incremental) {
+            visit(route);
+            return;
+        }
+        if (done.length < visitors.size()) {
+            done = new boolean[visitors.size()];
+            startIndices = new int[visitors.size()];
+        }
+        Arrays.fill(done, false);
+        List<TourActivity> activities = route.getActivities();
+        int fromIndex = lastInsertedIndex;
+        for (int v = 0; v < visitors.size(); v++) {
+            startIndices[v] = Math.min(activities.size() - 1, ((IncrementalReverseActivityVisitor) visitors.get(v)).begin(route, firstInsertedIndex, lastInsertedIndex));
+            fromIndex = Math.max(fromIndex, startIndices[v]);
+        }
+        int nuVisiting = visitors.size();
+        for (int i = fromIndex; i >= 0 && nuVisiting > 0; i--) {
+            TourActivity act = activities.get(i);
+            for (int v = 0; v < visitors.size(); v++) {
+                if (!done[v] && startIndices[v] >= i) visitors.get(v).visit(act);
+            }
+            if (i < firstInsertedIndex) {
+                for (int v = 0; v < visitors.size(); v++) {
+                    if (!done[v] && startIndices[v] >= i && ((IncrementalReverseActivityVisitor) visitors.get(v)).isDone()) {
+                        done[v] = true;
+                        nuVisiting--;
+                    }
+                }
+            }
+        }
+        finish(route);
+    }
+
     private void finish(VehicleRoute route) {
         for (ReverseActivityVisitor visitor : visitors) {
             visitor.finish();
@@ -65,6 +118,7 @@ public class ReverseRouteActivityVisitor implements RouteVisitor {
     public void addActivityVisitor(ReverseActivityVisitor activityVisitor) {
         if (!visitors.contains(activityVisitor)) {
             visitors.add(activityVisitor);
+            if (!(activityVisitor instanceof IncrementalReverseActivityVisitor)) incremental = false;
         }
     }
 }
@@ -18,15 +18,21 @@
 package com.graphhopper.jsprit.core.problem.solution.route;
 
 import com.graphhopper.jsprit.core.problem.solution.route.activity.ActivityVisitor;
+import com.graphhopper.jsprit.core.problem.solution.route.activity.IncrementalActivityVisitor;
 import com.graphhopper.jsprit.core.problem.solution.route.activity.TourActivity;
 
 import java.util.ArrayList;
-import java.util.Collection;
+import java.util.Arrays;
+import java.util.List;
 
 
 public class RouteActivityVisitor implements RouteVisitor {
 
-    private Collection<ActivityVisitor> visitors = new ArrayList<ActivityVisitor>();
+    private List<ActivityVisitor> visitors = new ArrayList<ActivityVisitor>();
+
+    private boolean incremental = true;
+
+    private boolean[] done = new boolean[0];
 
     @Override
     public void visit(VehicleRoute route) {
@@ -38,6 +44,55 @@ public class RouteActivityVisitor implements RouteVisitor {
         end(route);
     }
 
+    /**
+     * Visits the specified route after the activities in [firstInsertedIndex, lastInsertedIndex] have been inserted.
+     * <p>If all visitors are {@link IncrementalActivityVisitor}s, all of them start at the smallest index any of
+     * them requires, and the visit ends once all of them are done. Otherwise, the whole route is visited.
+     *
+     * @param route              the route
+     * @param firstInsertedIndex index of the first inserted activity
+     * @param lastInsertedIndex  index of the last inserted activity
+     */
+    public void visit(VehicleRoute route, int firstInsertedIndex, int lastInsertedIndex) {
+        if (visitors.isEmpty()) return;
+        if (!incremental) {
+            visit(route);
+            return;
+        }
+        int fromIndex = firstInsertedIndex;
+        int startIndex;
+        while ((startIndex = begin(route, fromIndex, lastInsertedIndex)) < fromIndex) {
+            fromIndex = startIndex;
+        }
+        if (done.length < visitors.size()) done = new boolean[visitors.size()];
+        Arrays.fill(done, false);
+        int nuVisiting = visitors.size();
+        List<TourActivity> activities = route.getActivities();
+        for (int i = fromIndex; i < activities.size() && nuVisiting > 0; i++) {
+            TourActivity act = activities.get(i);
+            for (int v = 0; v < visitors.size(); v++) {
+                if (!done[v]) visitors.get(v).visit(act);
+            }
+            if (i > lastInsertedIndex) {
+                for (int v = 0; v < visitors.size(); v++) {
+                    if (!done[v] && ((IncrementalActivityVisitor) visitors.get(v)).isDone()) {
+                        done[v] = true;
+                        nuVisiting--;
+                    }
+                }
+            }
+        }
+        end(route);
+    }
+
+    private int begin(VehicleRoute route, int firstInsertedIndex, int lastInsertedIndex) {
+        int startIndex = firstInsertedIndex;
+        for (ActivityVisitor visitor : visitors) {
+            startIndex = Math.min(startIndex, ((IncrementalActivityVisitor) visitor).begin(route, firstInsertedIndex, lastInsertedIndex));
+        }
+        return startIndex;
+    }
+
     private void end(VehicleRoute route) {
         for (ActivityVisitor visitor : visitors) {
             visitor.finish();
@@ -61,6 +116,7 @@ public class RouteActivityVisitor implements RouteVisitor {
     public RouteActivityVisitor addActivityVisitor(ActivityVisitor activityVisitor) {
         if (!visitors.contains(activityVisitor)) {
             visitors.add(activityVisitor);
+            if (!(activityVisitor instanceof IncrementalActivityVisitor)) incremental = false;
         }
         return this;
     }
@@ -37,7 +37,9 @@ import java.util.*;
 public class VehicleRoute {
 
     /**
-     * Returns a deep copy of this vehicleRoute.
+     * Returns a copy of this vehicleRoute.
+     * <p>Start and end are copied, whereas the activities are shared with the specified route until either route
+     * modifies them (see {@link TourActivities}).
      *
      * @param route route to copy
      * @return copied route
@@ -335,6 +337,8 @@ public class VehicleRoute {
 
     private End end;
 
+    private int index = -1;
+
     /**
      * Copy constructor copying a route.
      *
@@ -346,6 +350,7 @@ public class VehicleRoute {
         this.tourActivities = TourActivities.copyOf(route.getTourActivities());
         this.vehicle = route.getVehicle();
         this.driver = route.getDriver();
+        this.index = route.getIndex();
     }
 
     /**
@@ -361,6 +366,27 @@ public class VehicleRoute {
         this.end = builder.end;
     }
 
+    /**
+     * Returns the dense index of this route, i.e. the slot in which states of this route are memorized, or -1 if no
+     * index has been assigned yet.
+     * <p>The index is assigned by the state manager that first memorizes a state of this route. Copies of a route
+     * inherit its index, such that the state manager can hand over the states of a route to an unchanged copy.</p>
+     *
+     * @return index of this route
+     */
+    public int getIndex() {
+        return index;
+    }
+
+    /**
+     * Sets the dense index of this route.
+     *
+     * @param index the index of this route
+     */
+    public void setIndex(int index) {
+        this.index = index;
+    }
+
     /**
      * Returns an unmodifiable list of activities on this route (without start/end).
      *
@@ -413,6 +439,8 @@ public class VehicleRoute {
      * @param vehicleDepTime of employed vehicle
      */
     public void setVehicleAndDepartureTime(Vehicle vehicle, double vehicleDepTime) {
+        //activity times change with vehicle and departure time, thus activities must not be shared with copies anymore
+        tourActivities.detachActivities();
         this.vehicle = vehicle;
         setStartAndEnd(vehicle, vehicleDepTime);
     }
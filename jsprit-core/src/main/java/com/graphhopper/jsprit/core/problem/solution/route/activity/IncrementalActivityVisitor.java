@@ -0,0 +1,53 @@
+/*
+ * Licensed to GraphHopper GmbH under one or more contributor
+ * license agreements. See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ *
+ * GraphHopper GmbH licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.graphhopper.jsprit.core.problem.solution.route.activity;
+
+import com.graphhopper.jsprit.core.problem.solution.route.VehicleRoute;
+
+/**
+ * ActivityVisitor that can update the states of a route after activities have been inserted without visiting the
+ * whole route, i.e. it restarts from the states of the activity before the inserted ones and it may stop once its
+ * states do not change anymore.
+ * <p>
+ * <p>An incremental visit is begin(route, firstInsertedIndex, lastInsertedIndex), followed by visit(activity) for
+ * the activities from the returned index on until the route ends or isDone() returns true, followed by finish().
+ * Indices are positions in <code>route.getActivities()</code>.
+ */
+public interface IncrementalActivityVisitor extends ActivityVisitor {
+
+    /**
+     * Begins an incremental visit of the specified route. The activities in [firstInsertedIndex, lastInsertedIndex]
+     * that belong to the inserted job are new, all other activities and their states are unchanged.
+     *
+     * @param route              the route
+     * @param firstInsertedIndex index of the first inserted activity
+     * @param lastInsertedIndex  index of the last inserted activity
+     * @return index of the activity at which this visitor needs to start, at most firstInsertedIndex
+     */
+    public int begin(VehicleRoute route, int firstInsertedIndex, int lastInsertedIndex);
+
+    /**
+     * Returns true if the states of the remaining activities of the route would not change, i.e. if the visitor
+     * does not need to visit them. It is asked after each activity that follows the inserted ones, and once it
+     * returned true, the visitor is not visited anymore until finish().
+     *
+     * @return true if the remaining activities need not be visited
+     */
+    public boolean isDone();
+
+}
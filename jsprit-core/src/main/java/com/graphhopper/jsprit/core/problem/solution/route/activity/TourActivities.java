@@ -21,14 +21,28 @@ import com.graphhopper.jsprit.core.problem.job.Job;
 import com.graphhopper.jsprit.core.problem.solution.route.activity.TourActivity.JobActivity;
 
 import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
 
 
 /**
+ * Sequence of activities of a route.
+ * <p>Copies are copy-on-write, i.e. a copy shares the activity list, the jobs and the activities themselves with its
+ * original until either one is modified the first time. Then the modified sequence materializes a private copy
+ * (duplicating its activities). Thus, activities of an unmodified copy must not be changed, unless
+ * {@link #detachActivities()} has been called before.
+ *
  * @author stefan schroeder
  */
 
 public class TourActivities {
 
+    /**
+     * Returns a copy of the specified activity sequence. The copy shares activities with the specified sequence until
+     * either one is modified.
+     *
+     * @param tourActivities the activity sequence to copy
+     * @return the copy
+     */
     public static TourActivities copyOf(TourActivities tourActivities) {
         return new TourActivities(tourActivities);
     }
@@ -66,60 +80,106 @@ public class TourActivities {
         }
     }
 
-    private final ArrayList<TourActivity> tourActivities = new ArrayList<>();
+    private ArrayList<TourActivity> tourActivities = new ArrayList<>();
+
+    private Set<Job> jobs = new HashSet<>();
+
+    /*
+     * true if tourActivities, jobs and the activities themselves might be shared with a copy of this sequence (or with
+     * the original this sequence is a copy of).
+     */
+    private boolean shared;
+
+    private final List<TourActivity> activitiesView = new ActivitiesView();
 
-    private final Set<Job> jobs = new HashSet<>();
+    private final Set<Job> jobsView = new JobsView();
 
     private ReverseActivityIterator backward;
 
+    private static final AtomicLong versions = new AtomicLong();
+
+    private int modificationCount;
+
+    private long version = versions.incrementAndGet();
+
     private TourActivities(TourActivities tour2copy) {
-        for (TourActivity tourAct : tour2copy.getActivities()) {
-            TourActivity newAct = tourAct.duplicate();
-            this.tourActivities.add(newAct);
-            addJob(newAct);
-        }
+        tourActivities = tour2copy.tourActivities;
+        jobs = tour2copy.jobs;
+        shared = true;
+        tour2copy.shared = true;
+        modificationCount = tour2copy.modificationCount;
+        version = tour2copy.version;
     }
 
     public TourActivities() {
     }
 
+    /**
+     * Returns an unmodifiable view of the activities. The view reflects subsequent modifications of this sequence.
+     * <p>Note that if this sequence shares its activities with a copy, modifying it replaces all activities with
+     * duplicates, i.e. activity objects obtained before are not part of the sequence anymore.
+     *
+     * @return activities
+     */
     public List<TourActivity> getActivities() {
-        return Collections.unmodifiableList(tourActivities);
+        return activitiesView;
     }
 
     public Iterator<TourActivity> iterator() {
-        final Iterator<TourActivity> iterator = tourActivities.iterator();
         return new Iterator<TourActivity>() {
+            private int nextIndex = 0;
+
             private TourActivity lastReturned = null;
 
             @Override
             public boolean hasNext() {
-                return iterator.hasNext();
+                return nextIndex < tourActivities.size();
             }
 
             @Override
             public TourActivity next() {
-                return lastReturned = iterator.next();
+                if (!hasNext()) throw new NoSuchElementException();
+                return lastReturned = tourActivities.get(nextIndex++);
             }
 
             @Override
             public void remove() {
+                if (lastReturned == null) throw new IllegalStateException();
                 if (lastReturned instanceof JobActivity) {
                     throw new IllegalStateException("Cannot remove JobActivities via iterator. "
                         + "Use TourActivities.removeActivity(), or alternatively, consider TourActivities.removeJob()");
                 } else {
-                    iterator.remove();
+                    detachActivities();
+                    tourActivities.remove(--nextIndex);
+                    lastReturned = null;
+                    modified();
                 }
             }
         };
     }
 
+    /**
+     * Makes sure that neither the activities nor the activity list of this sequence are shared with a copy, such that
+     * activities can be changed without affecting other sequences.
+     */
+    public void detachActivities() {
+        if (!shared) return;
+        ArrayList<TourActivity> detachedActivities = new ArrayList<>(tourActivities.size() + 2);
+        for (TourActivity act : tourActivities) {
+            detachedActivities.add(act.duplicate());
+        }
+        tourActivities = detachedActivities;
+        jobs = new HashSet<>(jobs);
+        backward = null;
+        shared = false;
+    }
+
     public boolean isEmpty() {
         return (tourActivities.size() == 0);
     }
 
     public Collection<Job> getJobs() {
-        return Collections.unmodifiableSet(jobs);
+        return jobsView;
     }
 
     /**
@@ -148,17 +208,26 @@ public class TourActivities {
         if (!jobs.contains(job)) {
             return false;
         } else {
+            detachActivities();
             jobRemoved = jobs.remove(job);
         }
         boolean activityRemoved = false;
+        /*
+         * a job cannot have more activities than it specifies. thus, once all of them are removed, the remaining
+         * activities do not need to be looked at
+         */
+        int noActivitiesToRemove = job.getActivities().size();
+        int noRemoved = 0;
         Iterator<TourActivity> iterator = tourActivities.iterator();
-        while (iterator.hasNext()) {
+        while (iterator.hasNext() && (noActivitiesToRemove == 0 || noRemoved < noActivitiesToRemove)) {
             TourActivity c = iterator.next();
             if (c instanceof JobActivity) {
                 Job underlyingJob = ((JobActivity) c).getJob();
                 if (job.equals(underlyingJob)) {
                     iterator.remove();
+                    modified();
                     activityRemoved = true;
+                    noRemoved++;
                 }
             }
         }
@@ -171,6 +240,10 @@ public class TourActivities {
     /**
      * Removes activity from this activity sequence. Removes its corresponding job as well, if there are no other activities
      * related to this job.
+     * <p>If this sequence shares its activities with a copy, the first modification replaces them with duplicates (see
+     * {@link #detachActivities()}). An activity obtained before is then still found if it has an index assigned by the
+     * VehicleRoutingProblem (duplicates keep the index); otherwise only the activity currently in this sequence (see
+     * {@link #getActivities()}) can be removed.
      *
      * @param activity to be removed
      * @return true if activity has been removed, false otherwise
@@ -178,36 +251,50 @@ public class TourActivities {
     public boolean removeActivity(TourActivity activity) {
         if (!(activity instanceof JobActivity)) {
             //assumes that an activity can be added only once to tourActivities
-            return tourActivities.remove(activity);
+            int position = -1;
+            for (int i = 0; i < tourActivities.size() && position < 0; i++) {
+                if (isSameActivity(tourActivities.get(i), activity)) position = i;
+            }
+            if (position < 0) return false;
+            detachActivities();
+            tourActivities.remove(position);
+            modified();
+            return true;
         }
 
         Job job = ((JobActivity) activity).getJob();
+        int position = -1;
         boolean jobIsAlsoAssociateToOtherActs = false;
-        boolean actRemoved = false;
-        for (TourActivity act : new ArrayList<>(tourActivities)) {
-            if (act == activity) {
-                tourActivities.remove(act);
-                if (jobIsAlsoAssociateToOtherActs) {
-                    // other activities also refer to job --> do not remove job
-                    // thus no need to iterate any further
-                    return true;
-                }
-                actRemoved = true;
-            } else {
-                if (act instanceof JobActivity && ((JobActivity) act).getJob().equals(job)) {
-                    if (actRemoved) {
-                        // other activities also refer to job --> do not remove job
-                        // thus no need to iterate any further
-                        return true;
-                    }
-                    jobIsAlsoAssociateToOtherActs = true;
-                }
+        for (int i = 0; i < tourActivities.size(); i++) {
+            TourActivity act = tourActivities.get(i);
+            if (isSameActivity(act, activity)) {
+                if (position < 0) position = i;
+            } else if (act instanceof JobActivity && ((JobActivity) act).getJob().equals(job)) {
+                jobIsAlsoAssociateToOtherActs = true;
             }
+            if (position >= 0 && jobIsAlsoAssociateToOtherActs) break;
         }
-        if (actRemoved) {
+        if (position < 0) return false;
+        detachActivities();
+        tourActivities.remove(position);
+        modified();
+        if (!jobIsAlsoAssociateToOtherActs) {
             jobs.remove(job);
         }
-        return actRemoved;
+        return true;
+    }
+
+    /*
+     * once a shared sequence has been modified, it consists of duplicates of the activities a caller might have
+     * obtained before. duplicates keep the index of their original, thus activities with a problem-wide index (i.e.
+     * activities created by the VehicleRoutingProblem) are matched on their index.
+     */
+    private static boolean isSameActivity(TourActivity act, TourActivity activity) {
+        if (act == activity) return true;
+        if (activity.getIndex() <= 0 || act.getIndex() != activity.getIndex() || act.getClass() != activity.getClass()) {
+            return false;
+        }
+        return !(activity instanceof JobActivity) || ((JobActivity) act).getJob().equals(((JobActivity) activity).getJob());
     }
 
 
@@ -224,6 +311,7 @@ public class TourActivities {
     public void addActivity(int insertionIndex, TourActivity act) {
 
         assert insertionIndex >= 0 : "insertionIndex < 0, this cannot be";
+        detachActivities();
 
 		/*
          * if 1 --> between start and act(0) --> act(0)
@@ -237,6 +325,7 @@ public class TourActivities {
         } else if (insertionIndex >= tourActivities.size()) {
             tourActivities.add(act);
         }
+        modified();
         addJob(act);
     }
 
@@ -250,7 +339,9 @@ public class TourActivities {
     public void addActivity(TourActivity act) {
         if (tourActivities.contains(act))
             throw new IllegalArgumentException("act " + act + " already in tour. cannot add act twice.");
+        detachActivities();
         tourActivities.add(act);
+        modified();
         addJob(act);
     }
 
@@ -271,6 +362,67 @@ public class TourActivities {
         return jobs.size();
     }
 
+    /**
+     * Returns the number of times an activity has been added to or removed from this activity sequence.
+     * <p>This allows to find out cheaply whether the sequence has changed in between, e.g. whether exactly one
+     * activity has been inserted.
+     *
+     * @return no. of modifications
+     */
+    public int getModificationCount() {
+        return modificationCount;
+    }
+
+    /**
+     * Returns the version of this activity sequence. Each modification assigns a new, globally unique version, and
+     * copies keep the version of their original.
+     * <p>Thus two activity sequences with the same version consist of the same activities (i.e. activities with the
+     * same indices) in the same order.
+     *
+     * @return version of this activity sequence
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    private void modified() {
+        modificationCount++;
+        version = versions.incrementAndGet();
+    }
+
+    private class ActivitiesView extends AbstractList<TourActivity> implements RandomAccess {
+
+        @Override
+        public TourActivity get(int index) {
+            return tourActivities.get(index);
+        }
+
+        @Override
+        public int size() {
+            return tourActivities.size();
+        }
+
+    }
+
+    private class JobsView extends AbstractSet<Job> {
+
+        @Override
+        public Iterator<Job> iterator() {
+            return Collections.unmodifiableSet(jobs).iterator();
+        }
+
+        @Override
+        public int size() {
+            return jobs.size();
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            return jobs.contains(o);
+        }
+
+    }
+
     public Iterator<TourActivity> reverseActivityIterator() {
         if (backward == null) backward = new ReverseActivityIterator(tourActivities);
         else backward.reset();
@@ -33,4 +33,41 @@ public interface RouteAndActivityStateGetter {
 
     public <T> T getRouteState(VehicleRoute route, Vehicle vehicle, StateId stateId, Class<T> type);
 
+    /**
+     * Returns the double state of the specified activity and stateId, or the specified default value if there is none.
+     * <p>Implementations that store double states without boxing should override this. Note that NaN cannot be
+     * distinguished from a missing state, i.e. the default value is returned for it.</p>
+     */
+    default double getDoubleActivityState(TourActivity act, StateId stateId, double defaultValue) {
+        Double state = getActivityState(act, stateId, Double.class);
+        return state == null || state.isNaN() ? defaultValue : state;
+    }
+
+    /**
+     * Returns the double state of the specified activity, vehicle and stateId, or the specified default value if there
+     * is none (see {@link #getDoubleActivityState(TourActivity, StateId, double)}).
+     */
+    default double getDoubleActivityState(TourActivity act, Vehicle vehicle, StateId stateId, double defaultValue) {
+        Double state = getActivityState(act, vehicle, stateId, Double.class);
+        return state == null || state.isNaN() ? defaultValue : state;
+    }
+
+    /**
+     * Returns the double state of the specified route and stateId, or the specified default value if there is none
+     * (see {@link #getDoubleActivityState(TourActivity, StateId, double)}).
+     */
+    default double getDoubleRouteState(VehicleRoute route, StateId stateId, double defaultValue) {
+        Double state = getRouteState(route, stateId, Double.class);
+        return state == null || state.isNaN() ? defaultValue : state;
+    }
+
+    /**
+     * Returns the double state of the specified route, vehicle and stateId, or the specified default value if there is
+     * none (see {@link #getDoubleActivityState(TourActivity, StateId, double)}).
+     */
+    default double getDoubleRouteState(VehicleRoute route, Vehicle vehicle, StateId stateId, double defaultValue) {
+        Double state = getRouteState(route, vehicle, stateId, Double.class);
+        return state == null || state.isNaN() ? defaultValue : state;
+    }
+
 }
@@ -18,6 +18,8 @@
 package com.graphhopper.jsprit.core.util;
 
 import com.graphhopper.jsprit.core.problem.cost.ForwardTransportTime;
+import com.graphhopper.jsprit.core.problem.cost.TransportCostsHolder;
+import com.graphhopper.jsprit.core.problem.cost.TransportCostsQueries;
 import com.graphhopper.jsprit.core.problem.cost.VehicleRoutingActivityCosts;
 import com.graphhopper.jsprit.core.problem.solution.route.VehicleRoute;
 import com.graphhopper.jsprit.core.problem.solution.route.activity.ActivityVisitor;
@@ -49,6 +51,8 @@ public class ActivityTimeTracker implements ActivityVisitor {
 
     private ActivityPolicy activityPolicy = ActivityPolicy.AS_SOON_AS_TIME_WINDOW_OPENS;
 
+    private final TransportCostsHolder transport = new TransportCostsHolder();
+
     public ActivityTimeTracker(ForwardTransportTime transportTime, VehicleRoutingActivityCosts activityCosts) {
         super();
         this.transportTime = transportTime;
@@ -70,6 +74,17 @@ public class ActivityTimeTracker implements ActivityVisitor {
         return actEndTime;
     }
 
+    /**
+     * Returns the transport costs of the leg to the activity visited last (or to the end after finish), if the
+     * transport costs answer combined queries (see {@link com.graphhopper.jsprit.core.problem.cost.CombinedTransportCosts}),
+     * and NaN otherwise.
+     *
+     * @return transport costs of the last leg
+     */
+    public double getTransportCost() {
+        return transport.getTransportCost();
+    }
+
     @Override
     public void begin(VehicleRoute route) {
         prevAct = route.getStart();
@@ -79,10 +94,25 @@ public class ActivityTimeTracker implements ActivityVisitor {
         beginFirst = true;
     }
 
+    /**
+     * Begins tracking times in the middle of the specified route, i.e. at the activity following prevAct.
+     *
+     * @param route            the route
+     * @param prevAct          the activity after which tracking starts
+     * @param endTimeAtPrevAct the end time of prevAct
+     */
+    public void begin(VehicleRoute route, TourActivity prevAct, double endTimeAtPrevAct) {
+        this.prevAct = prevAct;
+        startAtPrevAct = endTimeAtPrevAct;
+        actEndTime = startAtPrevAct;
+        this.route = route;
+        beginFirst = true;
+    }
+
     @Override
     public void visit(TourActivity activity) {
         if (!beginFirst) throw new IllegalStateException("never called begin. this however is essential here");
-        double transportTime = this.transportTime.getTransportTime(prevAct.getLocation(), activity.getLocation(), startAtPrevAct, route.getDriver(), route.getVehicle());
+        double transportTime = TransportCostsQueries.getTransportTime(this.transportTime, prevAct.getLocation(), activity.getLocation(), startAtPrevAct, route.getDriver(), route.getVehicle(), transport);
         double arrivalTimeAtCurrAct = startAtPrevAct + transportTime;
 
         actArrTime = arrivalTimeAtCurrAct;
@@ -105,7 +135,7 @@ public class ActivityTimeTracker implements ActivityVisitor {
 
     @Override
     public void finish() {
-        double transportTime = this.transportTime.getTransportTime(prevAct.getLocation(), route.getEnd().getLocation(), startAtPrevAct, route.getDriver(), route.getVehicle());
+        double transportTime = TransportCostsQueries.getTransportTime(this.transportTime, prevAct.getLocation(), route.getEnd().getLocation(), startAtPrevAct, route.getDriver(), route.getVehicle(), transport);
         double arrivalTimeAtCurrAct = startAtPrevAct + transportTime;
 
         actArrTime = arrivalTimeAtCurrAct;
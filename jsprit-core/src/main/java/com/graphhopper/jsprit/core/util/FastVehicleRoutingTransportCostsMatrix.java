@@ -19,19 +19,28 @@ package com.graphhopper.jsprit.core.util;
 
 import com.graphhopper.jsprit.core.problem.Location;
 import com.graphhopper.jsprit.core.problem.cost.AbstractForwardVehicleRoutingTransportCosts;
+import com.graphhopper.jsprit.core.problem.cost.CombinedTransportCosts;
+import com.graphhopper.jsprit.core.problem.cost.TransportCostsHolder;
 import com.graphhopper.jsprit.core.problem.driver.Driver;
 import com.graphhopper.jsprit.core.problem.vehicle.Vehicle;
 import com.graphhopper.jsprit.core.problem.vehicle.VehicleTypeImpl;
 
 
+
 /**
  * CostMatrix that allows pre-compiled time and distance-matrices to be considered as {@link com.graphhopper.jsprit.core.problem.cost.VehicleRoutingTransportCosts}
  * in the {@link com.graphhopper.jsprit.core.problem.VehicleRoutingProblem}.
  * <p>Note that you can also use it with distance matrix only (or time matrix).
+ * <p>Distances and times are stored in one flat array each (row by row), symmetric matrices only store the lower
+ * triangle (including the diagonal). Optionally, values are stored with float precision which halves the memory
+ * required. The number of values per array is limited to Integer.MAX_VALUE - 8, i.e. about 46,000 locations for
+ * asymmetric and about 65,000 locations for symmetric matrices.
  *
  * @author schroeder
  */
-public class FastVehicleRoutingTransportCostsMatrix extends AbstractForwardVehicleRoutingTransportCosts {
+public class FastVehicleRoutingTransportCostsMatrix extends AbstractForwardVehicleRoutingTransportCosts implements CombinedTransportCosts {
+
+    private static final long MAX_ARRAY_SIZE = Integer.MAX_VALUE - 8;
 
     /**
      * Builder that builds the matrix.
@@ -42,7 +51,15 @@ public class FastVehicleRoutingTransportCostsMatrix extends AbstractForwardVehic
 
         private boolean isSymmetric;
 
-        private double[][][] matrix;
+        private final boolean floatPrecision;
+
+        private double[] distances;
+
+        private double[] times;
+
+        private float[] floatDistances;
+
+        private float[] floatTimes;
 
         private final int noLocations;
 
@@ -54,13 +71,37 @@ public class FastVehicleRoutingTransportCostsMatrix extends AbstractForwardVehic
          * @return builder
          */
         public static Builder newInstance(int noLocations, boolean isSymmetric) {
-            return new Builder(noLocations, isSymmetric);
+            return new Builder(noLocations, isSymmetric, false);
         }
 
-        private Builder(int noLocations, boolean isSymmetric) {
+        /**
+         * Creates a new builder returning the matrix-builder.
+         * <p>If floatPrecision is true, values are stored as floats, i.e. with about 7 significant decimal digits.
+         *
+         * @param isSymmetric    true if matrix is symmetric, false otherwise
+         * @param floatPrecision true if values are to be stored with float precision, false otherwise
+         * @return builder
+         */
+        public static Builder newInstance(int noLocations, boolean isSymmetric, boolean floatPrecision) {
+            return new Builder(noLocations, isSymmetric, floatPrecision);
+        }
+
+        private Builder(int noLocations, boolean isSymmetric, boolean floatPrecision) {
+            if (noLocations < 0) throw new IllegalArgumentException("number of locations must not be negative");
             this.isSymmetric = isSymmetric;
-            matrix = new double[noLocations][noLocations][2];
+            this.floatPrecision = floatPrecision;
             this.noLocations = noLocations;
+            long size = isSymmetric ? (long) noLocations * (noLocations + 1) / 2 : (long) noLocations * noLocations;
+            if (size > MAX_ARRAY_SIZE) {
+                throw new IllegalArgumentException("too many locations: " + noLocations + ". a " + (isSymmetric ? "symmetric" : "asymmetric") + " matrix can have at most " + MAX_ARRAY_SIZE + " relations.");
+            }
+            if (floatPrecision) {
+                floatDistances = new float[(int) size];
+                floatTimes = new float[(int) size];
+            } else {
+                distances = new double[(int) size];
+                times = new double[(int) size];
+            }
         }
 
         /**
@@ -72,17 +113,12 @@ public class FastVehicleRoutingTransportCostsMatrix extends AbstractForwardVehic
          * @return builder
          */
         public Builder addTransportDistance(int fromIndex, int toIndex, double distance) {
-            add(fromIndex, toIndex, 0, distance);
+            int index = index(fromIndex, toIndex, noLocations, isSymmetric);
+            if (floatPrecision) floatDistances[index] = (float) distance;
+            else distances[index] = distance;
             return this;
         }
 
-        private void add(int fromIndex, int toIndex, int indicatorIndex, double value) {
-            if (isSymmetric) {
-                if (fromIndex < toIndex) matrix[fromIndex][toIndex][indicatorIndex] = value;
-                else matrix[toIndex][fromIndex][indicatorIndex] = value;
-            } else matrix[fromIndex][toIndex][indicatorIndex] = value;
-        }
-
         /**
          * Adds transport-time for a particular relation.
          *
@@ -92,7 +128,9 @@ public class FastVehicleRoutingTransportCostsMatrix extends AbstractForwardVehic
          * @return builder
          */
         public Builder addTransportTime(int fromIndex, int toIndex, double time) {
-            add(fromIndex, toIndex, 1, time);
+            int index = index(fromIndex, toIndex, noLocations, isSymmetric);
+            if (floatPrecision) floatTimes[index] = (float) time;
+            else times[index] = time;
             return this;
         }
 
@@ -115,42 +153,112 @@ public class FastVehicleRoutingTransportCostsMatrix extends AbstractForwardVehic
 
     private final boolean isSymmetric;
 
-    private final double[][][] matrix;
+    private final boolean floatPrecision;
+
+    private final double[] distances;
+
+    private final double[] times;
+
+    private final float[] floatDistances;
+
+    private final float[] floatTimes;
 
     private int noLocations;
 
+    /*
+     * legacy view of the matrix, built on the first call of getMatrix(). once it exists, values are read from it
+     */
+    private volatile double[][][] matrix;
+
     private FastVehicleRoutingTransportCostsMatrix(Builder builder) {
         this.isSymmetric = builder.isSymmetric;
-        matrix = builder.matrix;
+        this.floatPrecision = builder.floatPrecision;
+        distances = builder.distances;
+        times = builder.times;
+        floatDistances = builder.floatDistances;
+        floatTimes = builder.floatTimes;
         noLocations = builder.noLocations;
     }
 
+    private static int index(int from, int to, int noLocations, boolean isSymmetric) {
+        if (from < 0 || to < 0 || from >= noLocations || to >= noLocations) {
+            throw new IndexOutOfBoundsException("relation " + from + " -> " + to + " is out of bounds of matrix with " + noLocations + " locations");
+        }
+        if (isSymmetric) {
+            int row = Math.max(from, to);
+            return (int) ((long) row * (row + 1) / 2) + Math.min(from, to);
+        }
+        return from * noLocations + to;
+    }
+
     /**
      * First dim is from, second to and third indicates whether it is a distance value (index=0) or time value (index=1).
+     * <p>Note that the matrix is not stored like this anymore. The view is built once, on the first call, and
+     * requires several times the memory of this matrix. From then on, values are read from the view, i.e. modifying
+     * it changes the values of this matrix as it used to, but queries are slower. The value of a symmetric matrix
+     * from i to j is read at [min(i,j)][max(i,j)].
      *
-     * @return
+     * @return the matrix
+     * @deprecated use {@link #getDistance(int, int)} and {@link #getTransportTime(int, int)}
      */
+    @Deprecated
     public double[][][] getMatrix() {
+        double[][][] matrix = this.matrix;
+        if (matrix == null) {
+            synchronized (this) {
+                matrix = this.matrix;
+                if (matrix == null) {
+                    matrix = new double[noLocations][noLocations][2];
+                    for (int from = 0; from < noLocations; from++) {
+                        for (int to = 0; to < noLocations; to++) {
+                            int index = index(from, to, noLocations, isSymmetric);
+                            matrix[from][to][0] = floatPrecision ? floatDistances[index] : distances[index];
+                            matrix[from][to][1] = floatPrecision ? floatTimes[index] : times[index];
+                        }
+                    }
+                    this.matrix = matrix;
+                }
+            }
+        }
         return matrix;
     }
 
+    private double getFromLegacyView(double[][][] matrix, int fromIndex, int toIndex, int valueIndex) {
+        if (isSymmetric && fromIndex > toIndex) return matrix[toIndex][fromIndex][valueIndex];
+        return matrix[fromIndex][toIndex][valueIndex];
+    }
+
+    /*
+     * reads the value of the specified relation from the legacy view, i.e. maps the relation back to its locations
+     */
+    private double getRelationFromLegacyView(double[][][] matrix, int relationIndex, int valueIndex) {
+        if (!isSymmetric) return matrix[relationIndex / noLocations][relationIndex % noLocations][valueIndex];
+        int row = (int) ((Math.sqrt(8. * relationIndex + 1.) - 1.) / 2.);
+        while ((long) row * (row + 1) / 2 > relationIndex) row--;
+        while ((long) (row + 1) * (row + 2) / 2 <= relationIndex) row++;
+        int column = relationIndex - (int) ((long) row * (row + 1) / 2);
+        return matrix[column][row][valueIndex];
+    }
+
     @Override
     public double getTransportTime(Location from, Location to, double departureTime, Driver driver, Vehicle vehicle) {
         if (from.getIndex() < 0 || to.getIndex() < 0)
             throw new IllegalArgumentException("index of from " + from + " to " + to + " < 0 ");
-        int timeIndex = 1;
-        return get(from.getIndex(), to.getIndex(), timeIndex);
+        return getTransportTime(from.getIndex(), to.getIndex());
     }
 
-    private double get(int from, int to, int indicatorIndex) {
-        double value;
-        if (isSymmetric) {
-            if (from < to) value = matrix[from][to][indicatorIndex];
-            else value = matrix[to][from][indicatorIndex];
-        } else {
-            value = matrix[from][to][indicatorIndex];
-        }
-        return value;
+    /**
+     * Returns the transport time from to to.
+     *
+     * @param fromIndex from location index
+     * @param toIndex   to location index
+     * @return the transport time
+     */
+    public double getTransportTime(int fromIndex, int toIndex) {
+        double[][][] matrix = this.matrix;
+        if (matrix != null) return getFromLegacyView(matrix, fromIndex, toIndex, 1);
+        int index = index(fromIndex, toIndex, noLocations, isSymmetric);
+        return floatPrecision ? floatTimes[index] : times[index];
     }
 
     /**
@@ -161,8 +269,10 @@ public class FastVehicleRoutingTransportCostsMatrix extends AbstractForwardVehic
      * @return the distance
      */
     public double getDistance(int fromIndex, int toIndex) {
-        int distanceIndex = 0;
-        return get(fromIndex, toIndex, distanceIndex);
+        double[][][] matrix = this.matrix;
+        if (matrix != null) return getFromLegacyView(matrix, fromIndex, toIndex, 0);
+        int index = index(fromIndex, toIndex, noLocations, isSymmetric);
+        return floatPrecision ? floatDistances[index] : distances[index];
     }
 
     @Override
@@ -176,12 +286,71 @@ public class FastVehicleRoutingTransportCostsMatrix extends AbstractForwardVehic
             throw new IllegalArgumentException("index of from " + from + " to " + to + " < 0 ");
         if (vehicle == null) return getDistance(from.getIndex(), to.getIndex());
         VehicleTypeImpl.VehicleCostParams costParams = vehicle.getType().getVehicleCostParams();
-        return costParams.perDistanceUnit * getDistance(from.getIndex(), to.getIndex()) + costParams.perTransportTimeUnit * getTransportTime(from, to, departureTime, driver, vehicle);
+        return costParams.perDistanceUnit * getDistance(from.getIndex(), to.getIndex()) + costParams.perTransportTimeUnit * getTransportTime(from.getIndex(), to.getIndex());
+    }
+
+    @Override
+    public void getTransportCosts(Location from, Location to, double departureTime, Driver driver, Vehicle vehicle, TransportCostsHolder holder) {
+        if (from.getIndex() < 0 || to.getIndex() < 0)
+            throw new IllegalArgumentException("index of from " + from + " to " + to + " < 0 ");
+        if (matrix != null) {
+            double time = getTransportTime(from.getIndex(), to.getIndex());
+            double distance = getDistance(from.getIndex(), to.getIndex());
+            holder.set(time, distance, getTransportCost(time, distance, vehicle));
+            return;
+        }
+        int index = index(from.getIndex(), to.getIndex(), noLocations, isSymmetric);
+        double time = floatPrecision ? floatTimes[index] : times[index];
+        double distance = floatPrecision ? floatDistances[index] : distances[index];
+        holder.set(time, distance, getTransportCost(time, distance, vehicle));
+    }
+
+    /**
+     * Returns the position of the relation in the flat arrays.
+     */
+    int getRelationIndex(int fromIndex, int toIndex) {
+        return index(fromIndex, toIndex, noLocations, isSymmetric);
+    }
+
+    int getNoRelations() {
+        return floatPrecision ? floatTimes.length : times.length;
+    }
+
+    double getTransportTimeOfRelation(int relationIndex) {
+        double[][][] matrix = this.matrix;
+        if (matrix != null) return getRelationFromLegacyView(matrix, relationIndex, 1);
+        return floatPrecision ? floatTimes[relationIndex] : times[relationIndex];
+    }
+
+    double getDistanceOfRelation(int relationIndex) {
+        double[][][] matrix = this.matrix;
+        if (matrix != null) return getRelationFromLegacyView(matrix, relationIndex, 0);
+        return floatPrecision ? floatDistances[relationIndex] : distances[relationIndex];
+    }
+
+    private static double getTransportCost(double time, double distance, Vehicle vehicle) {
+        if (vehicle == null) return distance;
+        VehicleTypeImpl.VehicleCostParams costParams = vehicle.getType().getVehicleCostParams();
+        return costParams.perDistanceUnit * distance + costParams.perTransportTimeUnit * time;
     }
 
     public int getNoLocations() {
         return noLocations;
     }
 
+    /**
+     * Returns true if the matrix is symmetric.
+     */
+    public boolean isSymmetric() {
+        return isSymmetric;
+    }
+
+    /**
+     * Returns true if values are stored with float precision.
+     */
+    public boolean isFloatPrecision() {
+        return floatPrecision;
+    }
+
 
 }
@@ -0,0 +1,234 @@
+/*
+ * Licensed to GraphHopper GmbH under one or more contributor
+ * license agreements. See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ *
+ * GraphHopper GmbH licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.graphhopper.jsprit.core.util;
+
+import com.graphhopper.jsprit.core.problem.Location;
+import com.graphhopper.jsprit.core.problem.cost.AbstractForwardVehicleRoutingTransportCosts;
+import com.graphhopper.jsprit.core.problem.cost.CombinedTransportCosts;
+import com.graphhopper.jsprit.core.problem.cost.TransportCostsHolder;
+import com.graphhopper.jsprit.core.problem.driver.Driver;
+import com.graphhopper.jsprit.core.problem.vehicle.Vehicle;
+import com.graphhopper.jsprit.core.problem.vehicle.VehicleTypeImpl;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.FloatBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * CostMatrix that reads pre-compiled time and distance-matrices from a binary file that is mapped into memory (see
+ * {@link FileChannel#map(FileChannel.MapMode, long, long)}) instead of building them on the heap. Thus, opening the
+ * matrix is almost free, values are paged in on demand, and solver processes on the same host that use the same file
+ * share its pages in the page cache. Files are written by {@link MappedVehicleRoutingTransportCostsMatrixWriter}.
+ * <p>Like {@link FastVehicleRoutingTransportCostsMatrix}, relations are looked up by location indices.
+ * <p>File format (little endian): a header of four ints - magic number, format version, number of locations and
+ * flags (1 = symmetric, 2 = float precision) - followed by the distances and then the times, each stored row by row
+ * (symmetric matrices only store the lower triangle including the diagonal) as doubles or floats.
+ * <p>The mapping is released when the matrix is garbage collected; the file must not be modified meanwhile.
+ */
+public class MappedVehicleRoutingTransportCostsMatrix extends AbstractForwardVehicleRoutingTransportCosts implements CombinedTransportCosts {
+
+    static final int MAGIC_NUMBER = 0x4A53504D;
+
+    static final int VERSION = 1;
+
+    static final int HEADER_BYTES = 16;
+
+    static final int SYMMETRIC_FLAG = 1;
+
+    static final int FLOAT_PRECISION_FLAG = 2;
+
+    private static final int CHUNK_SHIFT = 27;
+
+    /**
+     * Maps the matrix stored in the specified file.
+     *
+     * @param file the file written by {@link MappedVehicleRoutingTransportCostsMatrixWriter}
+     * @return the matrix
+     * @throws IllegalArgumentException if the file is not a matrix file
+     */
+    public static MappedVehicleRoutingTransportCostsMatrix newInstance(File file) {
+        return new MappedVehicleRoutingTransportCostsMatrix(file, CHUNK_SHIFT);
+    }
+
+    static long noValues(int noLocations, boolean isSymmetric) {
+        return isSymmetric ? (long) noLocations * (noLocations + 1) / 2 : (long) noLocations * noLocations;
+    }
+
+    private final int noLocations;
+
+    private final boolean isSymmetric;
+
+    private final boolean floatPrecision;
+
+    private final int chunkShift;
+
+    private final long chunkMask;
+
+    private DoubleBuffer[] distances;
+
+    private DoubleBuffer[] times;
+
+    private FloatBuffer[] floatDistances;
+
+    private FloatBuffer[] floatTimes;
+
+    /**
+     * Maps the matrix in chunks of 2^chunkShift values (a single mapping cannot exceed 2 GB).
+     */
+    MappedVehicleRoutingTransportCostsMatrix(File file, int chunkShift) {
+        this.chunkShift = chunkShift;
+        this.chunkMask = (1L << chunkShift) - 1;
+        try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r"); FileChannel channel = randomAccessFile.getChannel()) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            while (header.hasRemaining()) {
+                if (channel.read(header) < 0) throw new IllegalArgumentException("file " + file + " is not a transport costs matrix");
+            }
+            header.flip();
+            if (header.getInt() != MAGIC_NUMBER) throw new IllegalArgumentException("file " + file + " is not a transport costs matrix");
+            int version = header.getInt();
+            if (version != VERSION) throw new IllegalArgumentException("unsupported matrix file version " + version);
+            noLocations = header.getInt();
+            int flags = header.getInt();
+            isSymmetric = (flags & SYMMETRIC_FLAG) != 0;
+            floatPrecision = (flags & FLOAT_PRECISION_FLAG) != 0;
+            long noValues = noValues(noLocations, isSymmetric);
+            int bytesPerValue = floatPrecision ? 4 : 8;
+            if (noLocations < 0 || channel.size() != HEADER_BYTES + 2 * noValues * bytesPerValue) {
+                throw new IllegalArgumentException("file " + file + " is corrupt. its size does not match the number of locations");
+            }
+            int noChunks = (int) ((noValues + chunkMask) >>> chunkShift);
+            if (floatPrecision) {
+                floatDistances = new FloatBuffer[noChunks];
+                floatTimes = new FloatBuffer[noChunks];
+            } else {
+                distances = new DoubleBuffer[noChunks];
+                times = new DoubleBuffer[noChunks];
+            }
+            for (int block = 0; block < 2; block++) {
+                long blockStart = HEADER_BYTES + block * noValues * bytesPerValue;
+                for (int chunk = 0; chunk < noChunks; chunk++) {
+                    long firstValue = (long) chunk << chunkShift;
+                    long chunkValues = Math.min(1L << chunkShift, noValues - firstValue);
+                    ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, blockStart + firstValue * bytesPerValue, chunkValues * bytesPerValue)
+                        .order(ByteOrder.LITTLE_ENDIAN);
+                    if (floatPrecision) {
+                        (block == 0 ? floatDistances : floatTimes)[chunk] = buffer.asFloatBuffer();
+                    } else {
+                        (block == 0 ? distances : times)[chunk] = buffer.asDoubleBuffer();
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private long index(int from, int to) {
+        if (from < 0 || to < 0 || from >= noLocations || to >= noLocations) {
+            throw new IndexOutOfBoundsException("relation " + from + " -> " + to + " is out of bounds of matrix with " + noLocations + " locations");
+        }
+        if (isSymmetric) {
+            long row = Math.max(from, to);
+            return row * (row + 1) / 2 + Math.min(from, to);
+        }
+        return (long) from * noLocations + to;
+    }
+
+    private double get(DoubleBuffer[] doubleValues, FloatBuffer[] floatValues, long index) {
+        int chunk = (int) (index >>> chunkShift);
+        int offset = (int) (index & chunkMask);
+        return floatPrecision ? floatValues[chunk].get(offset) : doubleValues[chunk].get(offset);
+    }
+
+    @Override
+    public double getTransportTime(Location from, Location to, double departureTime, Driver driver, Vehicle vehicle) {
+        if (from.getIndex() < 0 || to.getIndex() < 0)
+            throw new IllegalArgumentException("index of from " + from + " to " + to + " < 0 ");
+        return getTransportTime(from.getIndex(), to.getIndex());
+    }
+
+    /**
+     * Returns the transport time from to to.
+     *
+     * @param fromIndex from location index
+     * @param toIndex   to location index
+     * @return the transport time
+     */
+    public double getTransportTime(int fromIndex, int toIndex) {
+        return get(times, floatTimes, index(fromIndex, toIndex));
+    }
+
+    /**
+     * Returns the distance from to to.
+     *
+     * @param fromIndex from location index
+     * @param toIndex   to location index
+     * @return the distance
+     */
+    public double getDistance(int fromIndex, int toIndex) {
+        return get(distances, floatDistances, index(fromIndex, toIndex));
+    }
+
+    @Override
+    public double getDistance(Location from, Location to, double departureTime, Vehicle vehicle) {
+        return getDistance(from.getIndex(), to.getIndex());
+    }
+
+    @Override
+    public double getTransportCost(Location from, Location to, double departureTime, Driver driver, Vehicle vehicle) {
+        if (from.getIndex() < 0 || to.getIndex() < 0)
+            throw new IllegalArgumentException("index of from " + from + " to " + to + " < 0 ");
+        if (vehicle == null) return getDistance(from.getIndex(), to.getIndex());
+        VehicleTypeImpl.VehicleCostParams costParams = vehicle.getType().getVehicleCostParams();
+        return costParams.perDistanceUnit * getDistance(from.getIndex(), to.getIndex()) + costParams.perTransportTimeUnit * getTransportTime(from.getIndex(), to.getIndex());
+    }
+
+    @Override
+    public void getTransportCosts(Location from, Location to, double departureTime, Driver driver, Vehicle vehicle, TransportCostsHolder holder) {
+        if (from.getIndex() < 0 || to.getIndex() < 0)
+            throw new IllegalArgumentException("index of from " + from + " to " + to + " < 0 ");
+        long index = index(from.getIndex(), to.getIndex());
+        double time = get(times, floatTimes, index);
+        double distance = get(distances, floatDistances, index);
+        holder.set(time, distance, getTransportCost(time, distance, vehicle));
+    }
+
+    private static double getTransportCost(double time, double distance, Vehicle vehicle) {
+        if (vehicle == null) return distance;
+        VehicleTypeImpl.VehicleCostParams costParams = vehicle.getType().getVehicleCostParams();
+        return costParams.perDistanceUnit * distance + costParams.perTransportTimeUnit * time;
+    }
+
+    public int getNoLocations() {
+        return noLocations;
+    }
+
+    public boolean isSymmetric() {
+        return isSymmetric;
+    }
+
+    public boolean isFloatPrecision() {
+        return floatPrecision;
+    }
+
+}
@@ -0,0 +1,130 @@
+/*
+ * Licensed to GraphHopper GmbH under one or more contributor
+ * license agreements. See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ *
+ * GraphHopper GmbH licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.graphhopper.jsprit.core.util;
+
+import com.graphhopper.jsprit.core.problem.Location;
+import com.graphhopper.jsprit.core.problem.cost.VehicleRoutingTransportCosts;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.util.List;
+
+/**
+ * Writes time and distance-matrices into the file format of {@link MappedVehicleRoutingTransportCostsMatrix}.
+ */
+public class MappedVehicleRoutingTransportCostsMatrixWriter {
+
+    private interface ValueSupplier {
+
+        double get(int from, int to);
+
+    }
+
+    private final boolean floatPrecision;
+
+    /**
+     * @param floatPrecision true if values are to be written with float precision, false otherwise
+     */
+    public MappedVehicleRoutingTransportCostsMatrixWriter(boolean floatPrecision) {
+        this.floatPrecision = floatPrecision;
+    }
+
+    /**
+     * Writes the specified matrix into the specified file.
+     *
+     * @param matrix the matrix
+     * @param file   the file
+     */
+    public void write(final FastVehicleRoutingTransportCostsMatrix matrix, File file) {
+        write(file, matrix.getNoLocations(), matrix.isSymmetric(), new ValueSupplier() {
+            @Override
+            public double get(int from, int to) {
+                return matrix.getDistance(from, to);
+            }
+        }, new ValueSupplier() {
+            @Override
+            public double get(int from, int to) {
+                return matrix.getTransportTime(from, to);
+            }
+        });
+    }
+
+    /**
+     * Writes the distances and transport times between the specified locations into the specified file. The index of
+     * a location in the list becomes its location index in the written matrix. This converts matrices that are not
+     * based on location indices such as {@link VehicleRoutingTransportCostsMatrix}.
+     * <p>Costs are queried with departure time 0 and without driver and vehicle.
+     *
+     * @param costs       the transport costs
+     * @param locations   the locations
+     * @param isSymmetric true if the costs are symmetric, i.e. only relations from -> to with from >= to are written
+     * @param file        the file
+     */
+    public void write(final VehicleRoutingTransportCosts costs, final List<Location> locations, boolean isSymmetric, File file) {
+        write(file, locations.size(), isSymmetric, new ValueSupplier() {
+            @Override
+            public double get(int from, int to) {
+                return costs.getDistance(locations.get(from), locations.get(to), 0., null);
+            }
+        }, new ValueSupplier() {
+            @Override
+            public double get(int from, int to) {
+                return costs.getTransportTime(locations.get(from), locations.get(to), 0., null, null);
+            }
+        });
+    }
+
+    private void write(File file, int noLocations, boolean isSymmetric, ValueSupplier distances, ValueSupplier times) {
+        try (FileOutputStream out = new FileOutputStream(file); FileChannel channel = out.getChannel()) {
+            ByteBuffer buffer = ByteBuffer.allocate(1 << 16).order(ByteOrder.LITTLE_ENDIAN);
+            buffer.putInt(MappedVehicleRoutingTransportCostsMatrix.MAGIC_NUMBER);
+            buffer.putInt(MappedVehicleRoutingTransportCostsMatrix.VERSION);
+            buffer.putInt(noLocations);
+            int flags = 0;
+            if (isSymmetric) flags |= MappedVehicleRoutingTransportCostsMatrix.SYMMETRIC_FLAG;
+            if (floatPrecision) flags |= MappedVehicleRoutingTransportCostsMatrix.FLOAT_PRECISION_FLAG;
+            buffer.putInt(flags);
+            for (ValueSupplier values : new ValueSupplier[]{distances, times}) {
+                for (int from = 0; from < noLocations; from++) {
+                    int noColumns = isSymmetric ? from + 1 : noLocations;
+                    for (int to = 0; to < noColumns; to++) {
+                        if (buffer.remaining() < 8) flush(buffer, channel);
+                        if (floatPrecision) buffer.putFloat((float) values.get(from, to));
+                        else buffer.putDouble(values.get(from, to));
+                    }
+                }
+            }
+            flush(buffer, channel);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static void flush(ByteBuffer buffer, FileChannel channel) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+}
@@ -0,0 +1,359 @@
+/*
+ * Licensed to GraphHopper GmbH under one or more contributor
+ * license agreements. See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ *
+ * GraphHopper GmbH licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.graphhopper.jsprit.core.util;
+
+import com.graphhopper.jsprit.core.problem.Location;
+import com.graphhopper.jsprit.core.problem.cost.CombinedTransportCosts;
+import com.graphhopper.jsprit.core.problem.cost.TransportCostsHolder;
+import com.graphhopper.jsprit.core.problem.driver.Driver;
+import com.graphhopper.jsprit.core.problem.vehicle.Vehicle;
+import com.graphhopper.jsprit.core.problem.vehicle.VehicleTypeImpl;
+
+import java.util.Arrays;
+
+/**
+ * CostMatrix with time-dependent transport times, e.g. to model rush-hour congestion.
+ * <p>The transport time of a relation is a piecewise-linear function of the departure time (a profile), given by
+ * breakpoints (departureTime, transportTime). Between two breakpoints the transport time is interpolated linearly,
+ * before the first and after the last breakpoint it is constant. Profiles must preserve FIFO, i.e. departing later
+ * never means arriving earlier, which is why backward queries (departure time for a given arrival time, see
+ * {@link #getBackwardTransportTime(Location, Location, double, Driver, Vehicle)}) are well-defined.
+ * <p>Distances are not time-dependent. Relations are looked up by location indices (see {@link Location#getIndex()}),
+ * relations that have not been added have a transport time and distance of 0.
+ * <p>All profiles are stored in flat arrays, and both forward and backward queries find the segment by binary
+ * search, i.e. they take O(log k) for a profile with k breakpoints.
+ */
+public class TimeDependentVehicleRoutingTransportCostsMatrix implements CombinedTransportCosts {
+
+    private static final long MAX_ARRAY_SIZE = Integer.MAX_VALUE - 8;
+
+    /**
+     * Profiles in the order they have been added. Breakpoints of all profiles are appended to flat arrays.
+     */
+    private static class Profiles {
+
+        private int[] relations = new int[16];
+
+        private int[] offsets = new int[16];
+
+        private int[] lengths = new int[16];
+
+        private double[] departureTimes = new double[16];
+
+        private double[] transportTimes = new double[16];
+
+        private int size = 0;
+
+        private int noBreakpoints = 0;
+
+        void add(int relation, double[] departureTimes, double[] transportTimes) {
+            int length = departureTimes.length;
+            if ((long) noBreakpoints + length > MAX_ARRAY_SIZE) {
+                throw new IllegalStateException("too many breakpoints. a matrix can have at most " + MAX_ARRAY_SIZE + " breakpoints.");
+            }
+            if (size == relations.length) {
+                relations = Arrays.copyOf(relations, 2 * size);
+                offsets = Arrays.copyOf(offsets, 2 * size);
+                lengths = Arrays.copyOf(lengths, 2 * size);
+            }
+            if (noBreakpoints + length > this.departureTimes.length) {
+                int capacity = (int) Math.min(MAX_ARRAY_SIZE, Math.max(2L * this.departureTimes.length, noBreakpoints + length));
+                this.departureTimes = Arrays.copyOf(this.departureTimes, capacity);
+                this.transportTimes = Arrays.copyOf(this.transportTimes, capacity);
+            }
+            relations[size] = relation;
+            offsets[size] = noBreakpoints;
+            lengths[size] = length;
+            System.arraycopy(departureTimes, 0, this.departureTimes, noBreakpoints, length);
+            System.arraycopy(transportTimes, 0, this.transportTimes, noBreakpoints, length);
+            noBreakpoints += length;
+            size++;
+        }
+
+    }
+
+    /**
+     * Builder that builds the matrix.
+     */
+    public static class Builder {
+
+        private final int noLocations;
+
+        private final double[] distances;
+
+        private final Profiles profiles = new Profiles();
+
+        public static Builder newInstance(int noLocations) {
+            return new Builder(noLocations);
+        }
+
+        private Builder(int noLocations) {
+            if (noLocations < 0) throw new IllegalArgumentException("number of locations must not be negative");
+            long size = (long) noLocations * noLocations;
+            if (size > MAX_ARRAY_SIZE) {
+                throw new IllegalArgumentException("too many locations: " + noLocations + ". a matrix can have at most " + MAX_ARRAY_SIZE + " relations.");
+            }
+            this.noLocations = noLocations;
+            distances = new double[(int) size];
+        }
+
+        /**
+         * Adds a transport-distance for a particular relation.
+         *
+         * @param fromIndex from location index
+         * @param toIndex   to location index
+         * @param distance  the distance to be added
+         * @return builder
+         */
+        public Builder addTransportDistance(int fromIndex, int toIndex, double distance) {
+            distances[index(fromIndex, toIndex, noLocations)] = distance;
+            return this;
+        }
+
+        /**
+         * Adds a constant transport-time for a particular relation.
+         *
+         * @param fromIndex from location index
+         * @param toIndex   to location index
+         * @param time      the time to be added
+         * @return builder
+         */
+        public Builder addTransportTime(int fromIndex, int toIndex, double time) {
+            return addTransportTimeProfile(fromIndex, toIndex, new double[]{0.}, new double[]{time});
+        }
+
+        /**
+         * Adds the transport-time profile of a particular relation. The transport time when departing at
+         * departureTimes[i] is transportTimes[i]. If the relation already has a profile, it is replaced.
+         *
+         * @param fromIndex      from location index
+         * @param toIndex        to location index
+         * @param departureTimes departure times of the breakpoints in strictly ascending order
+         * @param transportTimes transport times at the breakpoints
+         * @return builder
+         * @throws IllegalArgumentException if the profile is empty, departure times are not ascending, or the profile
+         *                                  violates FIFO, i.e. departureTimes[i] + transportTimes[i] decreases
+         */
+        public Builder addTransportTimeProfile(int fromIndex, int toIndex, double[] departureTimes, double[] transportTimes) {
+            int index = index(fromIndex, toIndex, noLocations);
+            if (departureTimes.length == 0 || departureTimes.length != transportTimes.length) {
+                throw new IllegalArgumentException("profile of relation " + fromIndex + " -> " + toIndex + " must have as many departure times as transport times, and at least one");
+            }
+            for (int i = 1; i < departureTimes.length; i++) {
+                if (departureTimes[i] <= departureTimes[i - 1]) {
+                    throw new IllegalArgumentException("departure times of relation " + fromIndex + " -> " + toIndex + " must be strictly ascending");
+                }
+                if (departureTimes[i] + transportTimes[i] < departureTimes[i - 1] + transportTimes[i - 1]) {
+                    throw new IllegalArgumentException("profile of relation " + fromIndex + " -> " + toIndex + " violates FIFO. departing at "
+                        + departureTimes[i] + " arrives earlier than departing at " + departureTimes[i - 1]);
+                }
+            }
+            profiles.add(index, departureTimes, transportTimes);
+            return this;
+        }
+
+        /**
+         * Builds the matrix.
+         *
+         * @return matrix
+         */
+        public TimeDependentVehicleRoutingTransportCostsMatrix build() {
+            return new TimeDependentVehicleRoutingTransportCostsMatrix(this);
+        }
+
+    }
+
+    private static int index(int from, int to, int noLocations) {
+        if (from < 0 || to < 0 || from >= noLocations || to >= noLocations) {
+            throw new IndexOutOfBoundsException("relation " + from + " -> " + to + " is out of bounds of matrix with " + noLocations + " locations");
+        }
+        return from * noLocations + to;
+    }
+
+    private final int noLocations;
+
+    private final double[] distances;
+
+    /**
+     * Breakpoints of relation r are at [profileOffsets[r], profileOffsets[r + 1]).
+     */
+    private final int[] profileOffsets;
+
+    private final double[] departureTimes;
+
+    private final double[] transportTimes;
+
+    private TimeDependentVehicleRoutingTransportCostsMatrix(Builder builder) {
+        noLocations = builder.noLocations;
+        distances = builder.distances;
+        Profiles profiles = builder.profiles;
+        /*
+         * first, profileOffsets memorizes the profile of each relation (the last one added wins), then it is
+         * overwritten with the offsets of the profiles in the flat arrays
+         */
+        profileOffsets = new int[distances.length + 1];
+        Arrays.fill(profileOffsets, -1);
+        for (int p = 0; p < profiles.size; p++) {
+            profileOffsets[profiles.relations[p]] = p;
+        }
+        int noBreakpoints = 0;
+        for (int relation = 0; relation < distances.length; relation++) {
+            if (profileOffsets[relation] >= 0) noBreakpoints += profiles.lengths[profileOffsets[relation]];
+        }
+        departureTimes = new double[noBreakpoints];
+        transportTimes = new double[noBreakpoints];
+        int offset = 0;
+        for (int relation = 0; relation < distances.length; relation++) {
+            int p = profileOffsets[relation];
+            profileOffsets[relation] = offset;
+            if (p < 0) continue;
+            System.arraycopy(profiles.departureTimes, profiles.offsets[p], departureTimes, offset, profiles.lengths[p]);
+            System.arraycopy(profiles.transportTimes, profiles.offsets[p], transportTimes, offset, profiles.lengths[p]);
+            offset += profiles.lengths[p];
+        }
+        profileOffsets[distances.length] = offset;
+    }
+
+    /**
+     * Returns the transport time from to to when departing at departureTime.
+     *
+     * @param fromIndex     from location index
+     * @param toIndex       to location index
+     * @param departureTime the departure time at from
+     * @return the transport time
+     */
+    public double getTransportTime(int fromIndex, int toIndex, double departureTime) {
+        return getTransportTime(index(fromIndex, toIndex, noLocations), departureTime);
+    }
+
+    /**
+     * Returns the transport time from to to when arriving at arrivalTime, i.e. the departure time at from is
+     * arrivalTime minus the returned transport time.
+     *
+     * @param fromIndex   from location index
+     * @param toIndex     to location index
+     * @param arrivalTime the arrival time at to
+     * @return the transport time
+     */
+    public double getBackwardTransportTime(int fromIndex, int toIndex, double arrivalTime) {
+        return getBackwardTransportTime(index(fromIndex, toIndex, noLocations), arrivalTime);
+    }
+
+    /**
+     * Returns the distance from to to.
+     *
+     * @param fromIndex from location index
+     * @param toIndex   to location index
+     * @return the distance
+     */
+    public double getDistance(int fromIndex, int toIndex) {
+        return distances[index(fromIndex, toIndex, noLocations)];
+    }
+
+    private double getTransportTime(int relation, double departureTime) {
+        int first = profileOffsets[relation];
+        int last = profileOffsets[relation + 1] - 1;
+        if (last < first) return 0.;
+        if (departureTime <= departureTimes[first]) return transportTimes[first];
+        if (departureTime >= departureTimes[last]) return transportTimes[last];
+        int lo = first;
+        int hi = last;
+        // invariant: departureTimes[lo] < departureTime < departureTimes[hi]
+        while (hi - lo > 1) {
+            int mid = (lo + hi) >>> 1;
+            if (departureTimes[mid] <= departureTime) lo = mid;
+            else hi = mid;
+        }
+        double share = (departureTime - departureTimes[lo]) / (departureTimes[hi] - departureTimes[lo]);
+        return transportTimes[lo] + share * (transportTimes[hi] - transportTimes[lo]);
+    }
+
+    private double getBackwardTransportTime(int relation, double arrivalTime) {
+        int first = profileOffsets[relation];
+        int last = profileOffsets[relation + 1] - 1;
+        if (last < first) return 0.;
+        if (arrivalTime <= arrivalTime(first)) return transportTimes[first];
+        if (arrivalTime >= arrivalTime(last)) return transportTimes[last];
+        int lo = first;
+        int hi = last;
+        // invariant: arrivalTime(lo) < arrivalTime < arrivalTime(hi), arrival times are non-decreasing due to FIFO
+        while (hi - lo > 1) {
+            int mid = (lo + hi) >>> 1;
+            if (arrivalTime(mid) <= arrivalTime) lo = mid;
+            else hi = mid;
+        }
+        double share = (arrivalTime - arrivalTime(lo)) / (arrivalTime(hi) - arrivalTime(lo));
+        double departureTime = departureTimes[lo] + share * (departureTimes[hi] - departureTimes[lo]);
+        return arrivalTime - departureTime;
+    }
+
+    private double arrivalTime(int breakpoint) {
+        return departureTimes[breakpoint] + transportTimes[breakpoint];
+    }
+
+    private int relation(Location from, Location to) {
+        if (from.getIndex() < 0 || to.getIndex() < 0)
+            throw new IllegalArgumentException("index of from " + from + " to " + to + " < 0 ");
+        return index(from.getIndex(), to.getIndex(), noLocations);
+    }
+
+    @Override
+    public double getTransportTime(Location from, Location to, double departureTime, Driver driver, Vehicle vehicle) {
+        return getTransportTime(relation(from, to), departureTime);
+    }
+
+    @Override
+    public double getBackwardTransportTime(Location from, Location to, double arrivalTime, Driver driver, Vehicle vehicle) {
+        return getBackwardTransportTime(relation(from, to), arrivalTime);
+    }
+
+    @Override
+    public double getDistance(Location from, Location to, double departureTime, Vehicle vehicle) {
+        return distances[relation(from, to)];
+    }
+
+    @Override
+    public double getTransportCost(Location from, Location to, double departureTime, Driver driver, Vehicle vehicle) {
+        int relation = relation(from, to);
+        return getTransportCost(getTransportTime(relation, departureTime), distances[relation], vehicle);
+    }
+
+    @Override
+    public double getBackwardTransportCost(Location from, Location to, double arrivalTime, Driver driver, Vehicle vehicle) {
+        int relation = relation(from, to);
+        return getTransportCost(getBackwardTransportTime(relation, arrivalTime), distances[relation], vehicle);
+    }
+
+    @Override
+    public void getTransportCosts(Location from, Location to, double departureTime, Driver driver, Vehicle vehicle, TransportCostsHolder holder) {
+        int relation = relation(from, to);
+        double time = getTransportTime(relation, departureTime);
+        holder.set(time, distances[relation], getTransportCost(time, distances[relation], vehicle));
+    }
+
+    private static double getTransportCost(double time, double distance, Vehicle vehicle) {
+        if (vehicle == null) return distance;
+        VehicleTypeImpl.VehicleCostParams costParams = vehicle.getType().getVehicleCostParams();
+        return costParams.perDistanceUnit * distance + costParams.perTransportTimeUnit * time;
+    }
+
+    public int getNoLocations() {
+        return noLocations;
+    }
+
+}
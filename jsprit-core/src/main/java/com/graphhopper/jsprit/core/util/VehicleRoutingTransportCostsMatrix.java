@@ -19,14 +19,15 @@ package com.graphhopper.jsprit.core.util;
 
 import com.graphhopper.jsprit.core.problem.Location;
 import com.graphhopper.jsprit.core.problem.cost.AbstractForwardVehicleRoutingTransportCosts;
+import com.graphhopper.jsprit.core.problem.cost.CombinedTransportCosts;
+import com.graphhopper.jsprit.core.problem.cost.TransportCostsHolder;
 import com.graphhopper.jsprit.core.problem.driver.Driver;
 import com.graphhopper.jsprit.core.problem.vehicle.Vehicle;
 import com.graphhopper.jsprit.core.problem.vehicle.VehicleTypeImpl.VehicleCostParams;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.util.*;
 
 
 /**
@@ -36,64 +37,59 @@ import java.util.Map;
  * you set a particular distance, this expects distance-entries for all relations. This counts also
  * for a particular time. If the method getTransportCosts(...) is then invoked for a relation, where no distance can be found, an
  * IllegalStateException will be thrown. Thus if you want to only use distances only, do not use addTransportTime(...).
+ * <p>When the matrix is built, location ids are mapped to dense indices and values are stored in flat arrays (symmetric
+ * matrices only store the lower triangle). If a location passed to the matrix has an index (see
+ * {@link Location#getIndex()}) that is mapped to its id, values are looked up by that index directly, otherwise its id
+ * is looked up once per location instance. To make location indices match, either create locations with
+ * {@link #getLocationIndex(String)} or assign indices to ids with {@link Builder#setLocationIndex(String, int)}.
  *
  * @author schroeder
  */
-public class VehicleRoutingTransportCostsMatrix extends AbstractForwardVehicleRoutingTransportCosts {
+public class VehicleRoutingTransportCostsMatrix extends AbstractForwardVehicleRoutingTransportCosts implements CombinedTransportCosts {
 
-    static class RelationKey {
+    /**
+     * Values of relations in the order they have been added.
+     */
+    private static class Relations {
 
-        static RelationKey newKey(String from, String to) {
-            return new RelationKey(from, to);
-        }
+        private int[] froms = new int[16];
 
-        final String from;
-        final String to;
+        private int[] tos = new int[16];
 
-        public RelationKey(String from, String to) {
-            super();
-            this.from = from;
-            this.to = to;
-        }
+        private double[] values = new double[16];
 
-        /* (non-Javadoc)
-         * @see java.lang.Object#hashCode()
-         */
-        @Override
-        public int hashCode() {
-            final int prime = 31;
-            int result = 1;
-            result = prime * result + ((from == null) ? 0 : from.hashCode());
-            result = prime * result + ((to == null) ? 0 : to.hashCode());
-            return result;
-        }
+        private int size = 0;
 
-        /* (non-Javadoc)
-         * @see java.lang.Object#equals(java.lang.Object)
-         */
-        @Override
-        public boolean equals(Object obj) {
-            if (this == obj)
-                return true;
-            if (obj == null)
-                return false;
-            if (getClass() != obj.getClass())
-                return false;
-            RelationKey other = (RelationKey) obj;
-            if (from == null) {
-                if (other.from != null)
-                    return false;
-            } else if (!from.equals(other.from))
-                return false;
-            if (to == null) {
-                if (other.to != null)
-                    return false;
-            } else if (!to.equals(other.to))
-                return false;
-            return true;
+        void add(int from, int to, double value) {
+            if (size == froms.length) {
+                froms = Arrays.copyOf(froms, 2 * size);
+                tos = Arrays.copyOf(tos, 2 * size);
+                values = Arrays.copyOf(values, 2 * size);
+            }
+            froms[size] = from;
+            tos[size] = to;
+            values[size] = value;
+            size++;
         }
+
     }
 
+    /**
+     * Index a location instance has been resolved to. Entries are immutable, i.e. the cache of resolved locations
+     * can be shared by threads without locking. A lost update just costs another resolution.
+     */
+    private static final class ResolvedLocation {
+
+        private final Location location;
+
+        private final int index;
+
+        ResolvedLocation(Location location, int index) {
+            this.location = location;
+            this.index = index;
+        }
+
+    }
 
     /**
      * Builder that builds the matrix.
@@ -105,9 +101,13 @@ public class VehicleRoutingTransportCostsMatrix extends AbstractForwardVehicleRo
 
         private boolean isSymmetric;
 
-        private Map<RelationKey, Double> distances = new HashMap<RelationKey, Double>();
+        private Map<String, Integer> ids = new LinkedHashMap<>();
+
+        private Map<String, Integer> locationIndices = new HashMap<>();
+
+        private Relations distances = new Relations();
 
-        private Map<RelationKey, Double> times = new HashMap<RelationKey, Double>();
+        private Relations times = new Relations();
 
         private boolean distancesSet = false;
 
@@ -128,6 +128,21 @@ public class VehicleRoutingTransportCostsMatrix extends AbstractForwardVehicleRo
             this.isSymmetric = isSymmetric;
         }
 
+        /**
+         * Assigns the specified index to the specified location id, i.e. values of this location are looked up
+         * directly if it is passed to the matrix with this index (see {@link Location#getIndex()}). Ids without
+         * assigned index get the smallest indices that are not assigned.
+         *
+         * @param locationId location id
+         * @param index      location index
+         * @return builder
+         */
+        public Builder setLocationIndex(String locationId, int index) {
+            if (index < 0) throw new IllegalArgumentException("index must be >= 0");
+            locationIndices.put(locationId, index);
+            return this;
+        }
+
         /**
          * Adds a transport-distance for a particular relation.
          *
@@ -137,16 +152,8 @@ public class VehicleRoutingTransportCostsMatrix extends AbstractForwardVehicleRo
          * @return builder
          */
         public Builder addTransportDistance(String from, String to, double distance) {
-            RelationKey key = RelationKey.newKey(from, to);
             if (!distancesSet) distancesSet = true;
-            if (distances.containsKey(key)) {
-                log.warn("distance from " + from + " to " + to + " already exists. This overrides distance.");
-            }
-            distances.put(key, distance);
-            if (isSymmetric) {
-                RelationKey revKey = RelationKey.newKey(to, from);
-                if (distances.containsKey(revKey)) distances.put(revKey, distance);
-            }
+            distances.add(intern(from), intern(to), distance);
             return this;
         }
 
@@ -159,19 +166,20 @@ public class VehicleRoutingTransportCostsMatrix extends AbstractForwardVehicleRo
          * @return builder
          */
         public Builder addTransportTime(String from, String to, double time) {
-            RelationKey key = RelationKey.newKey(from, to);
             if (!timesSet) timesSet = true;
-            if (times.containsKey(key)) {
-                log.warn("transport-time from " + from + " to " + to + " already exists. This overrides times.");
-            }
-            times.put(key, time);
-            if (isSymmetric) {
-                RelationKey revKey = RelationKey.newKey(to, from);
-                if (times.containsKey(revKey)) times.put(revKey, time);
-            }
+            times.add(intern(from), intern(to), time);
             return this;
         }
 
+        private int intern(String id) {
+            Integer index = ids.get(id);
+            if (index == null) {
+                index = ids.size();
+                ids.put(id, index);
+            }
+            return index;
+        }
+
         /**
          * Builds the matrix.
          *
@@ -184,9 +192,15 @@ public class VehicleRoutingTransportCostsMatrix extends AbstractForwardVehicleRo
 
     }
 
-    private Map<RelationKey, Double> distances = new HashMap<RelationKey, Double>();
+    private final Map<String, Integer> locationIndices = new HashMap<>();
 
-    private Map<RelationKey, Double> times = new HashMap<RelationKey, Double>();
+    private final String[] locationIds;
+
+    private final double[] distances;
+
+    private final double[] times;
+
+    private final ResolvedLocation[] resolvedLocations;
 
     private boolean isSymmetric;
 
@@ -196,36 +210,116 @@ public class VehicleRoutingTransportCostsMatrix extends AbstractForwardVehicleRo
 
     private VehicleRoutingTransportCostsMatrix(Builder builder) {
         this.isSymmetric = builder.isSymmetric;
-        distances.putAll(builder.distances);
-        times.putAll(builder.times);
         timesSet = builder.timesSet;
         distancesSet = builder.distancesSet;
+        int noLocations = builder.ids.size();
+        for (Map.Entry<String, Integer> e : builder.locationIndices.entrySet()) {
+            noLocations = Math.max(noLocations, e.getValue() + 1);
+        }
+        locationIds = new String[noLocations];
+        for (Map.Entry<String, Integer> e : builder.locationIndices.entrySet()) {
+            if (locationIds[e.getValue()] != null) {
+                throw new IllegalArgumentException("location index " + e.getValue() + " is assigned to " + locationIds[e.getValue()] + " and " + e.getKey());
+            }
+            locationIds[e.getValue()] = e.getKey();
+            locationIndices.put(e.getKey(), e.getValue());
+        }
+        int[] builderIndexToIndex = new int[builder.ids.size()];
+        int nextIndex = 0;
+        for (Map.Entry<String, Integer> e : builder.ids.entrySet()) {
+            Integer index = locationIndices.get(e.getKey());
+            if (index == null) {
+                while (locationIds[nextIndex] != null) nextIndex++;
+                index = nextIndex;
+                locationIds[index] = e.getKey();
+                locationIndices.put(e.getKey(), index);
+            }
+            builderIndexToIndex[e.getValue()] = index;
+        }
+        distances = toArray(builder.distances, builderIndexToIndex, "distance");
+        times = toArray(builder.times, builderIndexToIndex, "transport-time");
+        int cacheSize = Integer.highestOneBit(Math.max(16, Math.min(1 << 20, 4 * noLocations)) - 1) << 1;
+        resolvedLocations = new ResolvedLocation[cacheSize];
     }
 
+    /*
+     * a relation that has been added before (in symmetric matrices also in the opposite direction) is overridden
+     */
+    private double[] toArray(Relations relations, int[] builderIndexToIndex, String valueName) {
+        long size = isSymmetric ? (long) locationIds.length * (locationIds.length + 1) / 2 : (long) locationIds.length * locationIds.length;
+        if (relations.size == 0) return new double[0];
+        if (size > Integer.MAX_VALUE - 8) throw new IllegalArgumentException("too many locations: " + locationIds.length);
+        double[] values = new double[(int) size];
+        Arrays.fill(values, Double.NaN);
+        for (int i = 0; i < relations.size; i++) {
+            int from = builderIndexToIndex[relations.froms[i]];
+            int to = builderIndexToIndex[relations.tos[i]];
+            int index = index(from, to);
+            if (!Double.isNaN(values[index])) {
+                Builder.log.warn(valueName + " from " + locationIds[from] + " to " + locationIds[to] + " already exists. This overrides " + valueName + ".");
+            }
+            values[index] = relations.values[i];
+        }
+        return values;
+    }
+
+    private int index(int from, int to) {
+        if (isSymmetric) {
+            int row = Math.max(from, to);
+            return (int) ((long) row * (row + 1) / 2) + Math.min(from, to);
+        }
+        return from * locationIds.length + to;
+    }
+
+    /**
+     * Returns the index the specified location id is mapped to, or -1 if the matrix does not know it.
+     *
+     * @param locationId location id
+     * @return location index
+     */
+    public int getLocationIndex(String locationId) {
+        Integer index = locationIndices.get(locationId);
+        return index == null ? -1 : index;
+    }
+
+    /**
+     * Returns the number of location indices, i.e. the highest index + 1.
+     */
+    public int getNoLocations() {
+        return locationIds.length;
+    }
 
     @Override
     public double getTransportTime(Location from, Location to, double departureTime, Driver driver, Vehicle vehicle) {
-        return getTime(from.getId(), to.getId());
+        if (!timesSet) return 0.0;
+        return get(times, getIndex(from), getIndex(to), from.getId(), to.getId(), "time");
     }
 
+    /*
+     * locations whose index is not mapped to their id are resolved by id once per location instance
+     */
+    private int getIndex(Location location) {
+        int index = location.getIndex();
+        if (index >= 0 && index < locationIds.length && location.getId().equals(locationIds[index])) return index;
+        int slot = System.identityHashCode(location) & (resolvedLocations.length - 1);
+        ResolvedLocation resolved = resolvedLocations[slot];
+        if (resolved != null && resolved.location == location) return resolved.index;
+        index = getLocationIndex(location.getId());
+        resolvedLocations[slot] = new ResolvedLocation(location, index);
+        return index;
+    }
 
-    private double getTime(String fromId, String toId) {
-        if (fromId.equals(toId)) return 0.0;
-        if (!timesSet) return 0.0;
-        RelationKey key = RelationKey.newKey(fromId, toId);
-        if (!isSymmetric) {
-            if (times.containsKey(key)) return times.get(key);
-            else
-                throw new IllegalStateException("time value for relation from " + fromId + " to " + toId + " does not exist");
-        } else {
-            Double time = times.get(key);
-            if (time == null) {
-                time = times.get(RelationKey.newKey(toId, fromId));
-            }
-            if (time != null) return time;
-            else
-                throw new IllegalStateException("time value for relation from " + fromId + " to " + toId + " does not exist");
+    private double get(double[] values, int from, int to, String fromId, String toId, String valueName) {
+        if (from < 0 || to < 0) {
+            if (fromId.equals(toId)) return 0.0;
+            throw new IllegalStateException(valueName + " value for relation from " + fromId + " to " + toId + " does not exist");
+        }
+        if (from == to) return 0.0;
+        double value = values[index(from, to)];
+        if (Double.isNaN(value)) {
+            throw new IllegalStateException(valueName + " value for relation from " + fromId + " to " + toId + " does not exist");
         }
+        return value;
     }
 
     /**
@@ -237,34 +331,40 @@ public class VehicleRoutingTransportCostsMatrix extends AbstractForwardVehicleRo
      * @throws IllegalStateException if distance of fromId -> toId is not found
      */
     public double getDistance(String fromId, String toId) {
-        if (fromId.equals(toId)) return 0.0;
         if (!distancesSet) return 0.0;
-        RelationKey key = RelationKey.newKey(fromId, toId);
-        if (!isSymmetric) {
-            if (distances.containsKey(key)) return distances.get(key);
-            else
-                throw new IllegalStateException("distance value for relation from " + fromId + " to " + toId + " does not exist");
-        } else {
-            Double time = distances.get(key);
-            if (time == null) {
-                time = distances.get(RelationKey.newKey(toId, fromId));
-            }
-            if (time != null) return time;
-            else
-                throw new IllegalStateException("distance value for relation from " + fromId + " to " + toId + " does not exist");
-        }
+        return get(distances, getLocationIndex(fromId), getLocationIndex(toId), fromId, toId, "distance");
+    }
+
+    private double getDistance(Location from, Location to) {
+        if (!distancesSet) return 0.0;
+        return get(distances, getIndex(from), getIndex(to), from.getId(), to.getId(), "distance");
     }
 
     @Override
     public double getTransportCost(Location from, Location to, double departureTime, Driver driver, Vehicle vehicle) {
-        if (vehicle == null) return getDistance(from.getId(), to.getId());
+        if (vehicle == null) return getDistance(from, to);
         VehicleCostParams costParams = vehicle.getType().getVehicleCostParams();
-        return costParams.perDistanceUnit * getDistance(from.getId(), to.getId()) + costParams.perTransportTimeUnit * getTime(from.getId(), to.getId());
+        return costParams.perDistanceUnit * getDistance(from, to) + costParams.perTransportTimeUnit * getTransportTime(from, to, departureTime, driver, vehicle);
     }
 
     @Override
     public double getDistance(Location from, Location to, double departureTime, Vehicle vehicle) {
-        return getDistance(from.getId(), to.getId());
+        return getDistance(from, to);
+    }
+
+    @Override
+    public void getTransportCosts(Location from, Location to, double departureTime, Driver driver, Vehicle vehicle, TransportCostsHolder holder) {
+        int fromIndex = getIndex(from);
+        int toIndex = getIndex(to);
+        double time = timesSet ? get(times, fromIndex, toIndex, from.getId(), to.getId(), "time") : 0.;
+        double distance = distancesSet ? get(distances, fromIndex, toIndex, from.getId(), to.getId(), "distance") : 0.;
+        holder.set(time, distance, getTransportCost(time, distance, vehicle));
+    }
+
+    private static double getTransportCost(double time, double distance, Vehicle vehicle) {
+        if (vehicle == null) return distance;
+        VehicleCostParams costParams = vehicle.getType().getVehicleCostParams();
+        return costParams.perDistanceUnit * distance + costParams.perTransportTimeUnit * time;
     }
 
 }
@@ -0,0 +1,304 @@
+/*
+ * Licensed to GraphHopper GmbH under one or more contributor
+ * license agreements. See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ *
+ * GraphHopper GmbH licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.graphhopper.jsprit.core.util;
+
+import com.graphhopper.jsprit.core.problem.Location;
+import com.graphhopper.jsprit.core.problem.cost.AbstractForwardVehicleRoutingTransportCosts;
+import com.graphhopper.jsprit.core.problem.cost.CombinedTransportCosts;
+import com.graphhopper.jsprit.core.problem.cost.TransportCostsHolder;
+import com.graphhopper.jsprit.core.problem.driver.Driver;
+import com.graphhopper.jsprit.core.problem.vehicle.Vehicle;
+import com.graphhopper.jsprit.core.problem.vehicle.VehicleType;
+import com.graphhopper.jsprit.core.problem.vehicle.VehicleTypeImpl;
+import com.graphhopper.jsprit.core.problem.vehicle.VehicleTypeKey;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * CostMatrix with vehicle type dependent times and distances, e.g. for a fleet of vans, bikes and trucks.
+ * <p>Each profile (e.g. "car", "bike") is a {@link FastVehicleRoutingTransportCostsMatrix}, and each vehicle type is
+ * assigned to a profile by its type id. Types without assignment use the default profile.
+ * <p>The profile and the cost parameters of a vehicle are resolved once per {@link VehicleTypeKey} index (see
+ * {@link com.graphhopper.jsprit.core.problem.VehicleRoutingProblem.Builder#addVehicle(com.graphhopper.jsprit.core.problem.AbstractVehicle)})
+ * and then looked up by that index. Optionally, transport costs are pre-multiplied per profile and cost parameters,
+ * i.e. a cost query is a single array access. Pre-multiplied costs are computed lazily on first use of a type, stored
+ * with double precision, and shared by all types with the same profile and cost parameters.
+ * <p>Relations are looked up by location indices (see {@link Location#getIndex()}). Without vehicle, the default
+ * profile is queried and transport costs equal the distance.
+ */
+public class VehicleTypeDependentTransportCostsMatrix extends AbstractForwardVehicleRoutingTransportCosts implements CombinedTransportCosts {
+
+    /**
+     * Builder that builds the matrix.
+     */
+    public static class Builder {
+
+        private final Map<String, FastVehicleRoutingTransportCostsMatrix> profiles = new HashMap<>();
+
+        private final Map<String, String> profilesOfTypes = new HashMap<>();
+
+        private String defaultProfile;
+
+        private boolean precomputeCosts = false;
+
+        public static Builder newInstance() {
+            return new Builder();
+        }
+
+        private Builder() {
+        }
+
+        /**
+         * Adds a profile, i.e. the times and distances of the vehicle types that are assigned to it.
+         *
+         * @param profile the name of the profile
+         * @param matrix  the times and distances
+         * @return builder
+         */
+        public Builder addProfile(String profile, FastVehicleRoutingTransportCostsMatrix matrix) {
+            profiles.put(profile, matrix);
+            return this;
+        }
+
+        /**
+         * Assigns the vehicle type with the specified id to a profile.
+         *
+         * @param vehicleTypeId the type id
+         * @param profile       the name of the profile
+         * @return builder
+         */
+        public Builder setProfile(String vehicleTypeId, String profile) {
+            profilesOfTypes.put(vehicleTypeId, profile);
+            return this;
+        }
+
+        /**
+         * Sets the profile of vehicle types that are not assigned to a profile, and of queries without vehicle.
+         *
+         * @param profile the name of the profile
+         * @return builder
+         */
+        public Builder setDefaultProfile(String profile) {
+            this.defaultProfile = profile;
+            return this;
+        }
+
+        /**
+         * Sets whether transport costs are to be pre-multiplied per profile and cost parameters. This saves the cost
+         * computation per query at the expense of one double per relation and combination of profile and cost
+         * parameters. Default is false.
+         *
+         * @param precomputeCosts true if costs are to be pre-multiplied, false otherwise
+         * @return builder
+         */
+        public Builder setPrecomputeCosts(boolean precomputeCosts) {
+            this.precomputeCosts = precomputeCosts;
+            return this;
+        }
+
+        /**
+         * Builds the matrix.
+         *
+         * @return matrix
+         * @throws IllegalArgumentException if a type or the default profile refers to a profile that has not been added
+         */
+        public VehicleTypeDependentTransportCostsMatrix build() {
+            if (defaultProfile != null && !profiles.containsKey(defaultProfile)) {
+                throw new IllegalArgumentException("default profile " + defaultProfile + " has not been added");
+            }
+            for (Map.Entry<String, String> e : profilesOfTypes.entrySet()) {
+                if (!profiles.containsKey(e.getValue())) {
+                    throw new IllegalArgumentException("profile " + e.getValue() + " of vehicle type " + e.getKey() + " has not been added");
+                }
+            }
+            return new VehicleTypeDependentTransportCostsMatrix(this);
+        }
+
+    }
+
+    /**
+     * Profile and cost parameters of a vehicle type.
+     */
+    private static class TypeCosts {
+
+        final VehicleType type;
+
+        final FastVehicleRoutingTransportCostsMatrix matrix;
+
+        final double perDistanceUnit;
+
+        final double perTransportTimeUnit;
+
+        final double[] costs;
+
+        TypeCosts(VehicleType type, FastVehicleRoutingTransportCostsMatrix matrix, double perDistanceUnit, double perTransportTimeUnit, double[] costs) {
+            this.type = type;
+            this.matrix = matrix;
+            this.perDistanceUnit = perDistanceUnit;
+            this.perTransportTimeUnit = perTransportTimeUnit;
+            this.costs = costs;
+        }
+
+        double getTransportCost(int relationIndex, double time, double distance) {
+            if (costs != null) return costs[relationIndex];
+            return perDistanceUnit * distance + perTransportTimeUnit * time;
+        }
+
+    }
+
+    private final Map<String, FastVehicleRoutingTransportCostsMatrix> profiles;
+
+    private final Map<String, String> profilesOfTypes;
+
+    private final String defaultProfile;
+
+    private final FastVehicleRoutingTransportCostsMatrix defaultMatrix;
+
+    private final boolean precomputeCosts;
+
+    private final Map<String, double[]> precomputedCosts = new HashMap<>();
+
+    private volatile TypeCosts[] typeCostsByTypeKeyIndex = new TypeCosts[0];
+
+    private VehicleTypeDependentTransportCostsMatrix(Builder builder) {
+        profiles = new HashMap<>(builder.profiles);
+        profilesOfTypes = new HashMap<>(builder.profilesOfTypes);
+        defaultProfile = builder.defaultProfile;
+        defaultMatrix = defaultProfile == null ? null : profiles.get(defaultProfile);
+        precomputeCosts = builder.precomputeCosts;
+    }
+
+    /**
+     * Returns the times and distances of the specified vehicle.
+     *
+     * @param vehicle the vehicle
+     * @return the times and distances
+     * @throws IllegalStateException if the type of the vehicle has no profile and there is no default profile
+     */
+    public FastVehicleRoutingTransportCostsMatrix getMatrix(Vehicle vehicle) {
+        if (vehicle == null) return getDefaultMatrix();
+        return getTypeCosts(vehicle).matrix;
+    }
+
+    private FastVehicleRoutingTransportCostsMatrix getDefaultMatrix() {
+        if (defaultMatrix == null) throw new IllegalStateException("there is no default profile");
+        return defaultMatrix;
+    }
+
+    private TypeCosts getTypeCosts(Vehicle vehicle) {
+        VehicleTypeKey typeKey = vehicle.getVehicleTypeIdentifier();
+        if (typeKey != null) {
+            TypeCosts[] typeCosts = typeCostsByTypeKeyIndex;
+            int index = typeKey.getIndex();
+            if (index >= 0 && index < typeCosts.length) {
+                TypeCosts costs = typeCosts[index];
+                if (costs != null && costs.type == vehicle.getType()) return costs;
+            }
+        }
+        return resolve(vehicle);
+    }
+
+    private synchronized TypeCosts resolve(Vehicle vehicle) {
+        VehicleType type = vehicle.getType();
+        String profile = profilesOfTypes.get(type.getTypeId());
+        if (profile == null) {
+            if (defaultProfile == null) {
+                throw new IllegalStateException("vehicle type " + type.getTypeId() + " has no profile and there is no default profile");
+            }
+            profile = defaultProfile;
+        }
+        FastVehicleRoutingTransportCostsMatrix matrix = profiles.get(profile);
+        VehicleTypeImpl.VehicleCostParams costParams = type.getVehicleCostParams();
+        double[] costs = null;
+        if (precomputeCosts) {
+            costs = getPrecomputedCosts(profile, costParams.perDistanceUnit, costParams.perTransportTimeUnit);
+        }
+        TypeCosts typeCosts = new TypeCosts(type, matrix, costParams.perDistanceUnit, costParams.perTransportTimeUnit, costs);
+        VehicleTypeKey typeKey = vehicle.getVehicleTypeIdentifier();
+        if (typeKey != null && typeKey.getIndex() >= 0) {
+            int index = typeKey.getIndex();
+            TypeCosts[] typeCostsByIndex = typeCostsByTypeKeyIndex;
+            if (index >= typeCostsByIndex.length) {
+                typeCostsByIndex = Arrays.copyOf(typeCostsByIndex, Math.max(index + 1, 2 * typeCostsByIndex.length));
+            } else {
+                typeCostsByIndex = typeCostsByIndex.clone();
+            }
+            typeCostsByIndex[index] = typeCosts;
+            typeCostsByTypeKeyIndex = typeCostsByIndex;
+        }
+        return typeCosts;
+    }
+
+    private double[] getPrecomputedCosts(String profile, double perDistanceUnit, double perTransportTimeUnit) {
+        String key = profile + "_" + perDistanceUnit + "_" + perTransportTimeUnit;
+        double[] costs = precomputedCosts.get(key);
+        if (costs == null) {
+            FastVehicleRoutingTransportCostsMatrix matrix = profiles.get(profile);
+            costs = new double[matrix.getNoRelations()];
+            for (int relation = 0; relation < costs.length; relation++) {
+                costs[relation] = perDistanceUnit * matrix.getDistanceOfRelation(relation) + perTransportTimeUnit * matrix.getTransportTimeOfRelation(relation);
+            }
+            precomputedCosts.put(key, costs);
+        }
+        return costs;
+    }
+
+    private static void checkIndices(Location from, Location to) {
+        if (from.getIndex() < 0 || to.getIndex() < 0)
+            throw new IllegalArgumentException("index of from " + from + " to " + to + " < 0 ");
+    }
+
+    @Override
+    public double getTransportTime(Location from, Location to, double departureTime, Driver driver, Vehicle vehicle) {
+        checkIndices(from, to);
+        return getMatrix(vehicle).getTransportTime(from.getIndex(), to.getIndex());
+    }
+
+    @Override
+    public double getDistance(Location from, Location to, double departureTime, Vehicle vehicle) {
+        checkIndices(from, to);
+        return getMatrix(vehicle).getDistance(from.getIndex(), to.getIndex());
+    }
+
+    @Override
+    public double getTransportCost(Location from, Location to, double departureTime, Driver driver, Vehicle vehicle) {
+        checkIndices(from, to);
+        if (vehicle == null) return getDefaultMatrix().getDistance(from.getIndex(), to.getIndex());
+        TypeCosts typeCosts = getTypeCosts(vehicle);
+        int relation = typeCosts.matrix.getRelationIndex(from.getIndex(), to.getIndex());
+        if (typeCosts.costs != null) return typeCosts.costs[relation];
+        return typeCosts.getTransportCost(relation, typeCosts.matrix.getTransportTimeOfRelation(relation), typeCosts.matrix.getDistanceOfRelation(relation));
+    }
+
+    @Override
+    public void getTransportCosts(Location from, Location to, double departureTime, Driver driver, Vehicle vehicle, TransportCostsHolder holder) {
+        checkIndices(from, to);
+        if (vehicle == null) {
+            getDefaultMatrix().getTransportCosts(from, to, departureTime, driver, null, holder);
+            return;
+        }
+        TypeCosts typeCosts = getTypeCosts(vehicle);
+        int relation = typeCosts.matrix.getRelationIndex(from.getIndex(), to.getIndex());
+        double time = typeCosts.matrix.getTransportTimeOfRelation(relation);
+        double distance = typeCosts.matrix.getDistanceOfRelation(relation);
+        holder.set(time, distance, typeCosts.getTransportCost(relation, time, distance));
+    }
+
+}
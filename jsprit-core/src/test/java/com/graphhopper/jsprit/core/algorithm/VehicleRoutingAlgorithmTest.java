@@ -182,4 +182,15 @@ public class VehicleRoutingAlgorithmTest {
         assertEquals(25, counter.getCountIterations());
     }
 
+    @Test(expected = IllegalStateException.class)
+    public void whenSpeculativeWorkerDoesNotKnowStrategy_itShouldThrowException() {
+        SearchStrategy strategy = mock(SearchStrategy.class);
+        when(strategy.getId()).thenReturn("strategy");
+        SearchStrategyManager stratManager = mock(SearchStrategyManager.class);
+        when(stratManager.getStrategies()).thenReturn(Arrays.asList(strategy));
+        VehicleRoutingAlgorithm algorithm = new VehicleRoutingAlgorithm(mock(VehicleRoutingProblem.class), stratManager);
+        VehicleRoutingAlgorithm worker = new VehicleRoutingAlgorithm(mock(VehicleRoutingProblem.class), mock(SearchStrategyManager.class));
+        algorithm.setSpeculativeWorkers(Arrays.asList(worker));
+    }
+
 }
@@ -18,25 +18,40 @@
 
 package com.graphhopper.jsprit.core.algorithm.box;
 
+import com.graphhopper.jsprit.core.algorithm.MultiTrajectoryAlgorithm;
 import com.graphhopper.jsprit.core.algorithm.SearchStrategy;
 import com.graphhopper.jsprit.core.algorithm.VehicleRoutingAlgorithm;
+import com.graphhopper.jsprit.core.algorithm.listener.AlgorithmEndsListener;
+import com.graphhopper.jsprit.core.algorithm.listener.IterationStartsListener;
 import com.graphhopper.jsprit.core.algorithm.listener.StrategySelectedListener;
 import com.graphhopper.jsprit.core.algorithm.recreate.InsertionData;
 import com.graphhopper.jsprit.core.algorithm.recreate.listener.BeforeJobInsertionListener;
 import com.graphhopper.jsprit.core.algorithm.recreate.listener.JobInsertedListener;
 import com.graphhopper.jsprit.core.algorithm.ruin.listener.RuinListener;
+import com.graphhopper.jsprit.core.algorithm.state.StateManager;
+import com.graphhopper.jsprit.core.algorithm.termination.PrematureAlgorithmTermination;
 import com.graphhopper.jsprit.core.problem.Location;
 import com.graphhopper.jsprit.core.problem.VehicleRoutingProblem;
+import com.graphhopper.jsprit.core.problem.constraint.ConstraintManager;
+import com.graphhopper.jsprit.core.problem.cost.AbstractForwardVehicleRoutingTransportCosts;
+import com.graphhopper.jsprit.core.problem.driver.Driver;
 import com.graphhopper.jsprit.core.problem.job.Job;
 import com.graphhopper.jsprit.core.problem.job.Service;
 import com.graphhopper.jsprit.core.problem.solution.VehicleRoutingProblemSolution;
 import com.graphhopper.jsprit.core.problem.solution.route.VehicleRoute;
+import com.graphhopper.jsprit.core.problem.vehicle.Vehicle;
 import com.graphhopper.jsprit.core.problem.vehicle.VehicleImpl;
+import com.graphhopper.jsprit.core.problem.vehicle.VehicleType;
+import com.graphhopper.jsprit.core.problem.vehicle.VehicleTypeImpl;
+import com.graphhopper.jsprit.core.util.EuclideanDistanceCalculator;
 import com.graphhopper.jsprit.core.util.RandomNumberGeneration;
+import com.graphhopper.jsprit.core.util.Solutions;
 import junit.framework.Assert;
 import org.junit.Test;
 
 import java.util.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Created by schroeder on 06/03/15.
@@ -477,6 +492,304 @@ public class JspritTest {
         Assert.assertTrue(true);
     }
 
+    @Test
+    public void multiTrajectorySearchShouldBeReproducible() {
+        VehicleRoutingProblem vrp = createProblemWithManyServices();
+        List<Double> firstRecord = runMultiTrajectorySearch(vrp);
+        List<Double> secondRecord = runMultiTrajectorySearch(vrp);
+        Assert.assertEquals(3 * 40, firstRecord.size());
+        Assert.assertEquals(firstRecord, secondRecord);
+    }
+
+    @Test
+    public void multiTrajectorySearchShouldReturnSolutionsOfAllTrajectories() {
+        VehicleRoutingProblem vrp = createProblemWithManyServices();
+        MultiTrajectoryAlgorithm algorithm = Jsprit.Builder.newInstance(vrp)
+            .setProperty(Jsprit.Parameter.TRAJECTORIES, "3")
+            .setProperty(Jsprit.Parameter.TRAJECTORY_EXCHANGE_INTERVAL, "5")
+            .setProperty(Jsprit.Parameter.ITERATIONS, "20")
+            .buildMultiTrajectoryAlgorithm();
+        Assert.assertEquals(3, algorithm.getAlgorithms().size());
+        Collection<VehicleRoutingProblemSolution> solutions = algorithm.searchSolutions();
+        Assert.assertTrue(solutions.size() >= 3);
+        Assert.assertTrue(Solutions.bestOf(solutions).getUnassignedJobs().isEmpty());
+    }
+
+    @Test
+    public void whenRunningConcurrently_speculativeWorkersOfAllTrajectoriesShouldShareOneInsertionExecutor() {
+        VehicleRoutingProblem vrp = createProblemWithManyServices();
+        final Set<String> threadsBefore = getPoolThreadNames();
+        MultiTrajectoryAlgorithm algorithm = Jsprit.Builder.newInstance(vrp)
+            .setProperty(Jsprit.Parameter.TRAJECTORIES, "3")
+            .setProperty(Jsprit.Parameter.TRAJECTORY_EXCHANGE_INTERVAL, "5")
+            .setProperty(Jsprit.Parameter.SPECULATIVE_ITERATIONS, "2")
+            .setProperty(Jsprit.Parameter.THREADS, "7")
+            .setProperty(Jsprit.Parameter.ITERATIONS, "20")
+            .buildMultiTrajectoryAlgorithm();
+        final Set<String> newThreads = new HashSet<>();
+        for (VehicleRoutingAlgorithm vra : algorithm.getAlgorithms()) {
+            vra.addListener(new IterationStartsListener() {
+
+                @Override
+                public void informIterationStarts(int i, VehicleRoutingProblem problem, Collection<VehicleRoutingProblemSolution> solutions) {
+                    for (String name : getPoolThreadNames()) {
+                        if (!threadsBefore.contains(name)) newThreads.add(name);
+                    }
+                }
+
+            });
+        }
+        Collection<VehicleRoutingProblemSolution> solutions = algorithm.searchSolutions();
+        //trajectories and speculative workers run in pools of their own, but only insertion pools have 7 threads
+        Map<String, Integer> noThreadsPerPool = new HashMap<>();
+        for (String name : newThreads) {
+            String pool = name.substring(0, name.indexOf("-thread"));
+            noThreadsPerPool.put(pool, noThreadsPerPool.containsKey(pool) ? noThreadsPerPool.get(pool) + 1 : 1);
+        }
+        int noInsertionPools = 0;
+        for (int noThreads : noThreadsPerPool.values()) {
+            if (noThreads > 3) noInsertionPools++;
+        }
+        Assert.assertEquals(1, noInsertionPools);
+        Assert.assertTrue(Solutions.bestOf(solutions).getUnassignedJobs().isEmpty());
+    }
+
+    @Test
+    public void whenMultiTrajectorySearchIsInterrupted_trajectoriesShouldStopAndInterruptStatusShouldBeRestored() throws InterruptedException {
+        VehicleRoutingProblem vrp = createProblemWithManyServices();
+        MultiTrajectoryAlgorithm algorithm = Jsprit.Builder.newInstance(vrp)
+            .setProperty(Jsprit.Parameter.TRAJECTORIES, "3")
+            .setProperty(Jsprit.Parameter.TRAJECTORY_EXCHANGE_INTERVAL, "5")
+            .setProperty(Jsprit.Parameter.ITERATIONS, "1000000")
+            .buildMultiTrajectoryAlgorithm();
+        final CountDownLatch ended = new CountDownLatch(3);
+        for (VehicleRoutingAlgorithm vra : algorithm.getAlgorithms()) {
+            vra.addListener(new AlgorithmEndsListener() {
+
+                @Override
+                public void informAlgorithmEnds(VehicleRoutingProblem problem, Collection<VehicleRoutingProblemSolution> solutions) {
+                    ended.countDown();
+                }
+
+            });
+        }
+        Thread.currentThread().interrupt();
+        boolean thrown = false;
+        try {
+            algorithm.searchSolutions();
+        } catch (RuntimeException e) {
+            thrown = true;
+        }
+        Assert.assertTrue(thrown);
+        Assert.assertTrue(Thread.interrupted());
+        Assert.assertTrue(ended.await(30, TimeUnit.SECONDS));
+    }
+
+    private Set<String> getPoolThreadNames() {
+        Set<String> names = new HashSet<>();
+        for (Thread thread : Thread.getAllStackTraces().keySet()) {
+            if (thread.getName().startsWith("pool-")) names.add(thread.getName());
+        }
+        return names;
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void whenSharingStateManager_multiTrajectorySearchShouldNotBeBuilt() {
+        VehicleRoutingProblem vrp = createProblemWithManyServices();
+        StateManager stateManager = new StateManager(vrp);
+        Jsprit.Builder.newInstance(vrp).setStateAndConstraintManager(stateManager, new ConstraintManager(vrp, stateManager))
+            .buildMultiTrajectoryAlgorithm();
+    }
+
+    @Test
+    public void speculativeSearchShouldBeReproducible() {
+        VehicleRoutingProblem vrp = createProblemWithManyServices();
+        List<Double> firstRecord = runSpeculativeSearch(vrp);
+        List<Double> secondRecord = runSpeculativeSearch(vrp);
+        Assert.assertEquals(50, firstRecord.size());
+        Assert.assertEquals(firstRecord, secondRecord);
+    }
+
+    @Test
+    public void whenTerminatingPrematurely_speculativeSearchShouldStopAtThatIteration() {
+        VehicleRoutingProblem vrp = createProblemWithManyServices();
+        VehicleRoutingAlgorithm vra = Jsprit.Builder.newInstance(vrp)
+            .setProperty(Jsprit.Parameter.SPECULATIVE_ITERATIONS, "4")
+            .setProperty(Jsprit.Parameter.ITERATIONS, "100")
+            .buildAlgorithm();
+        vra.addTerminationCriterion(new PrematureAlgorithmTermination() {
+
+            private int noIterations = 0;
+
+            @Override
+            public boolean isPrematureBreak(SearchStrategy.DiscoveredSolution discoveredSolution) {
+                return ++noIterations == 7;
+            }
+
+        });
+        final List<Integer> iterations = new ArrayList<>();
+        vra.addListener(new IterationStartsListener() {
+
+            @Override
+            public void informIterationStarts(int i, VehicleRoutingProblem problem, Collection<VehicleRoutingProblemSolution> solutions) {
+                iterations.add(i);
+            }
+
+        });
+        Collection<VehicleRoutingProblemSolution> solutions = vra.searchSolutions();
+        //the remaining iteration of the second round has been started as well
+        Assert.assertEquals(8, iterations.size());
+        Assert.assertTrue(Solutions.bestOf(solutions).getUnassignedJobs().isEmpty());
+    }
+
+    @Test
+    public void whenSearchingSpeculativelyAgain_itShouldReuseThePoolOfTheWorkers() {
+        VehicleRoutingProblem vrp = createProblemWithManyServices();
+        VehicleRoutingAlgorithm vra = Jsprit.Builder.newInstance(vrp)
+            .setProperty(Jsprit.Parameter.SPECULATIVE_ITERATIONS, "4")
+            .setProperty(Jsprit.Parameter.ITERATIONS, "8")
+            .buildAlgorithm();
+        vra.searchSolutions();
+        Set<Thread> threadsOfFirstSearch = getSpeculativeThreads();
+        Collection<VehicleRoutingProblemSolution> solutions = vra.searchSolutions();
+        Assert.assertFalse(threadsOfFirstSearch.isEmpty());
+        Assert.assertTrue(threadsOfFirstSearch.containsAll(getSpeculativeThreads()));
+        Assert.assertTrue(Solutions.bestOf(solutions).getUnassignedJobs().isEmpty());
+    }
+
+    private Set<Thread> getSpeculativeThreads() {
+        Set<Thread> threads = new HashSet<>();
+        for (Thread thread : Thread.getAllStackTraces().keySet()) {
+            if (thread.getName().startsWith("speculative-iteration")) threads.add(thread);
+        }
+        return threads;
+    }
+
+    @Test
+    public void whenIterationStartListenerChangesStrategyWeights_itShouldAffectTheStartedSpeculativeIteration() {
+        VehicleRoutingProblem vrp = createProblemWithManyServices();
+        final VehicleRoutingAlgorithm vra = Jsprit.Builder.newInstance(vrp)
+            .setProperty(Jsprit.Parameter.SPECULATIVE_ITERATIONS, "4")
+            .setProperty(Jsprit.Parameter.ITERATIONS, "8")
+            .buildAlgorithm();
+        final String strategyId = vra.getSearchStrategyManager().getStrategies().get(0).getId();
+        vra.addListener(new IterationStartsListener() {
+
+            @Override
+            public void informIterationStarts(int i, VehicleRoutingProblem problem, Collection<VehicleRoutingProblemSolution> solutions) {
+                for (SearchStrategy strategy : vra.getSearchStrategyManager().getStrategies()) {
+                    vra.getSearchStrategyManager().informStrategyWeightChanged(strategy.getId(), strategy.getId().equals(strategyId) ? 1. : 0.);
+                }
+            }
+
+        });
+        final List<String> selectedStrategies = new ArrayList<>();
+        vra.addListener(new StrategySelectedListener() {
+
+            @Override
+            public void informSelectedStrategy(SearchStrategy.DiscoveredSolution discoveredSolution, VehicleRoutingProblem vehicleRoutingProblem, Collection<VehicleRoutingProblemSolution> vehicleRoutingProblemSolutions) {
+                selectedStrategies.add(discoveredSolution.getStrategyId());
+            }
+
+        });
+        vra.searchSolutions();
+        Assert.assertEquals(8, selectedStrategies.size());
+        for (String selected : selectedStrategies) {
+            Assert.assertEquals(strategyId, selected);
+        }
+    }
+
+    private List<Double> runSpeculativeSearch(VehicleRoutingProblem vrp) {
+        VehicleRoutingAlgorithm vra = Jsprit.Builder.newInstance(vrp)
+            .setProperty(Jsprit.Parameter.SPECULATIVE_ITERATIONS, "4")
+            .setProperty(Jsprit.Parameter.ITERATIONS, "50")
+            .buildAlgorithm();
+        final List<Double> record = new ArrayList<>();
+        vra.addListener(new StrategySelectedListener() {
+
+            @Override
+            public void informSelectedStrategy(SearchStrategy.DiscoveredSolution discoveredSolution, VehicleRoutingProblem vehicleRoutingProblem, Collection<VehicleRoutingProblemSolution> vehicleRoutingProblemSolutions) {
+                record.add(discoveredSolution.getSolution().getCost());
+            }
+
+        });
+        vra.searchSolutions();
+        return record;
+    }
+
+    private List<Double> runMultiTrajectorySearch(VehicleRoutingProblem vrp) {
+        MultiTrajectoryAlgorithm algorithm = Jsprit.Builder.newInstance(vrp)
+            .setProperty(Jsprit.Parameter.TRAJECTORIES, "3")
+            .setProperty(Jsprit.Parameter.TRAJECTORY_EXCHANGE_INTERVAL, "10")
+            .setProperty(Jsprit.Parameter.ITERATIONS, "40")
+            .buildMultiTrajectoryAlgorithm();
+        final List<List<Double>> records = new ArrayList<>();
+        for (VehicleRoutingAlgorithm vra : algorithm.getAlgorithms()) {
+            final List<Double> record = new ArrayList<>();
+            records.add(record);
+            vra.addListener(new StrategySelectedListener() {
+
+                @Override
+                public void informSelectedStrategy(SearchStrategy.DiscoveredSolution discoveredSolution, VehicleRoutingProblem vehicleRoutingProblem, Collection<VehicleRoutingProblemSolution> vehicleRoutingProblemSolutions) {
+                    record.add(discoveredSolution.getSolution().getCost());
+                }
+
+            });
+        }
+        algorithm.searchSolutions();
+        List<Double> costs = new ArrayList<>();
+        for (List<Double> record : records) {
+            costs.addAll(record);
+        }
+        return costs;
+    }
+
+    @Test
+    public void whenUsingSpatialIndex_objectiveShouldStillBeScaledByTransportCosts() {
+        VehicleRoutingProblem.Builder vrpBuilder = VehicleRoutingProblem.Builder.newInstance();
+        for (int i = 0; i < 10; i++) {
+            vrpBuilder.addJob(Service.Builder.newInstance("s" + i).setLocation(Location.newInstance(i, 0)).build());
+        }
+        vrpBuilder.addVehicle(VehicleImpl.Builder.newInstance("v").setStartLocation(Location.newInstance(0, 0)).build());
+        vrpBuilder.setRoutingCost(new AbstractForwardVehicleRoutingTransportCosts() {
+
+            @Override
+            public double getDistance(Location from, Location to, double departureTime, Vehicle vehicle) {
+                return 1000. * EuclideanDistanceCalculator.calculateDistance(from.getCoordinate(), to.getCoordinate());
+            }
+
+            @Override
+            public double getTransportTime(Location from, Location to, double departureTime, Driver driver, Vehicle vehicle) {
+                return getDistance(from, to, departureTime, vehicle);
+            }
+
+            @Override
+            public double getTransportCost(Location from, Location to, double departureTime, Driver driver, Vehicle vehicle) {
+                return getDistance(from, to, departureTime, vehicle);
+            }
+
+        });
+        VehicleRoutingProblem vrp = vrpBuilder.build();
+        VehicleRoutingProblemSolution solution = new VehicleRoutingProblemSolution(new ArrayList<VehicleRoute>(), vrp.getJobs().values(), 0.);
+
+        VehicleRoutingAlgorithm vra = Jsprit.Builder.newInstance(vrp).buildAlgorithm();
+        VehicleRoutingAlgorithm vraWithSpatialIndex = Jsprit.Builder.newInstance(vrp)
+            .setProperty(Jsprit.Parameter.SPATIAL_INDEX, "euclidean").buildAlgorithm();
+        Assert.assertEquals(vra.getObjectiveFunction().getCosts(solution), vraWithSpatialIndex.getObjectiveFunction().getCosts(solution), 0.01);
+    }
+
+    private VehicleRoutingProblem createProblemWithManyServices() {
+        Random random = RandomNumberGeneration.newInstance();
+        VehicleRoutingProblem.Builder vrpBuilder = VehicleRoutingProblem.Builder.newInstance();
+        for (int i = 0; i < 30; i++) {
+            vrpBuilder.addJob(Service.Builder.newInstance("s" + i).addSizeDimension(0, 1)
+                .setLocation(Location.newInstance(random.nextInt(100), random.nextInt(100))).build());
+        }
+        VehicleType type = VehicleTypeImpl.Builder.newInstance("type").addCapacityDimension(0, 8).build();
+        vrpBuilder.addVehicle(VehicleImpl.Builder.newInstance("v").setType(type).setStartLocation(Location.newInstance(50, 50)).build());
+        return vrpBuilder.build();
+    }
+
     @Test
     public void compare() {
         String s1 = "s2234";
@@ -0,0 +1,75 @@
+/*
+ * Licensed to GraphHopper GmbH under one or more contributor
+ * license agreements. See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ *
+ * GraphHopper GmbH licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.graphhopper.jsprit.core.algorithm.recreate;
+
+import com.graphhopper.jsprit.core.problem.driver.DriverImpl;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+public class InsertionDataTableTest {
+
+    @Test
+    public void alternativesShouldBeSortedByCosts() {
+        InsertionDataTable table = new InsertionDataTable(3, 1);
+        table.reset(0, 1);
+        InsertionData expensive = insertionData(3.);
+        InsertionData cheap = insertionData(1.);
+        InsertionData medium = insertionData(2.);
+        table.add(0, expensive);
+        table.add(0, cheap);
+        table.add(0, medium);
+        assertEquals(3, table.size(0));
+        assertSame(cheap, table.get(0, 0));
+        assertSame(medium, table.get(0, 1));
+        assertSame(expensive, table.get(0, 2));
+    }
+
+    @Test
+    public void whenAllSlotsAreOccupied_mostExpensiveAlternativeShouldBeDropped() {
+        InsertionDataTable table = new InsertionDataTable(2, 1);
+        table.reset(0, 1);
+        InsertionData cheap = insertionData(1.);
+        InsertionData medium = insertionData(2.);
+        table.add(0, insertionData(3.));
+        table.add(0, cheap);
+        table.add(0, medium);
+        table.add(0, insertionData(4.));
+        assertEquals(2, table.size(0));
+        assertSame(cheap, table.get(0, 0));
+        assertSame(medium, table.get(0, 1));
+    }
+
+    @Test
+    public void whenRouteIsReset_itShouldHaveNewVersionAndNoAlternatives() {
+        InsertionDataTable table = new InsertionDataTable(2, 1);
+        assertEquals(-1, table.getVersion(5));
+        table.reset(5, 1);
+        table.add(5, insertionData(1.));
+        table.reset(5, 2);
+        assertEquals(2, table.getVersion(5));
+        assertEquals(0, table.size(5));
+        assertEquals(-1, table.getVersion(0));
+    }
+
+    private InsertionData insertionData(double costs) {
+        return new InsertionData(costs, 0, 0, null, DriverImpl.noDriver());
+    }
+
+}
@@ -0,0 +1,60 @@
+/*
+ * Licensed to GraphHopper GmbH under one or more contributor
+ * license agreements. See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ *
+ * GraphHopper GmbH licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.graphhopper.jsprit.core.algorithm.recreate;
+
+import com.graphhopper.jsprit.core.problem.Location;
+import com.graphhopper.jsprit.core.problem.VehicleRoutingProblem;
+import com.graphhopper.jsprit.core.problem.driver.Driver;
+import com.graphhopper.jsprit.core.problem.job.Job;
+import com.graphhopper.jsprit.core.problem.job.Service;
+import com.graphhopper.jsprit.core.problem.solution.route.VehicleRoute;
+import com.graphhopper.jsprit.core.problem.vehicle.*;
+import org.junit.Test;
+
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+
+public class InsertionDataUpdaterTest {
+
+    @Test
+    public void whenDepotsShareTheirVehicleType_eachDepotShouldBeAnAlternative() {
+        VehicleType type = VehicleTypeImpl.Builder.newInstance("type").addCapacityDimension(0, 10).build();
+        Service service = Service.Builder.newInstance("s").addSizeDimension(0, 1).setLocation(Location.newInstance(5, 5)).build();
+        VehicleRoutingProblem.Builder vrpBuilder = VehicleRoutingProblem.Builder.newInstance().setFleetSize(VehicleRoutingProblem.FleetSize.FINITE);
+        for (int i = 0; i < 3; i++) {
+            vrpBuilder.addVehicle(VehicleImpl.Builder.newInstance("v" + i).setType(type).setStartLocation(Location.newInstance(10 * i, 0)).build());
+        }
+        VehicleRoutingProblem vrp = vrpBuilder.addJob(service).build();
+        VehicleFleetManager fleetManager = new FiniteFleetManagerFactory(vrp.getVehicles()).createFleetManager();
+        JobInsertionCostsCalculator calculator = new JobInsertionCostsCalculator() {
+
+            @Override
+            public InsertionData getInsertionData(VehicleRoute currentRoute, Job newJob, Vehicle newVehicle, double newVehicleDepartureTime, Driver newDriver, double bestKnownCosts) {
+                return new InsertionData(newVehicle.getStartLocation().getCoordinate().getX(), 0, 0, newVehicle, newDriver);
+            }
+
+        };
+
+        InsertionDataTable table = new InsertionDataTable(InsertionDataUpdater.getMaxAlternativesPerRoute(vrp), 1);
+        InsertionDataUpdater.update(true, Collections.<String>emptySet(), fleetManager, calculator, table, 1, service, VehicleRoute.emptyRoute(), 0);
+        assertEquals(3, table.size(0));
+        assertEquals("v2", table.get(0, 2).getSelectedVehicle().getId());
+    }
+
+}
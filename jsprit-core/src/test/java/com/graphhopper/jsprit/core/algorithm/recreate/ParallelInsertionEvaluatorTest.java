@@ -0,0 +1,160 @@
+/*
+ * Licensed to GraphHopper GmbH under one or more contributor
+ * license agreements. See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ *
+ * GraphHopper GmbH licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.graphhopper.jsprit.core.algorithm.recreate;
+
+import com.graphhopper.jsprit.core.problem.Location;
+import com.graphhopper.jsprit.core.problem.driver.Driver;
+import com.graphhopper.jsprit.core.problem.job.Job;
+import com.graphhopper.jsprit.core.problem.job.Service;
+import com.graphhopper.jsprit.core.problem.solution.route.VehicleRoute;
+import com.graphhopper.jsprit.core.problem.vehicle.Vehicle;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ParallelInsertionEvaluatorTest {
+
+    private ExecutorService executorService;
+
+    private Job[] jobs;
+
+    private List<VehicleRoute> routes;
+
+    private final Map<Object, Integer> indices = new IdentityHashMap<>();
+
+    private final AtomicInteger nuEvaluations = new AtomicInteger();
+
+    private ParallelInsertionEvaluator evaluator;
+
+    @Before
+    public void doBefore() {
+        executorService = Executors.newFixedThreadPool(4);
+        jobs = new Job[3];
+        for (int j = 0; j < jobs.length; j++) {
+            jobs[j] = Service.Builder.newInstance("s" + j).setLocation(Location.newInstance(j, j)).build();
+            indices.put(jobs[j], j);
+        }
+        routes = new ArrayList<>();
+        for (int r = 0; r < 40; r++) {
+            routes.add(VehicleRoute.emptyRoute());
+            indices.put(routes.get(r), r);
+        }
+        evaluator = new ParallelInsertionEvaluator(new JobInsertionCostsCalculator() {
+
+            @Override
+            public InsertionData getInsertionData(VehicleRoute currentRoute, Job newJob, Vehicle newVehicle, double newVehicleDepartureTime, Driver newDriver, double bestKnownCosts) {
+                nuEvaluations.incrementAndGet();
+                double cost = costs(indices.get(newJob), indices.get(currentRoute));
+                if (cost >= bestKnownCosts) return new InsertionData.NoInsertionFound();
+                return new InsertionData(cost, InsertionData.NO_INDEX, 0, newVehicle, newDriver);
+            }
+
+        }, executorService, 4);
+    }
+
+    @After
+    public void doAfter() {
+        executorService.shutdown();
+    }
+
+    private double costs(int row, int routeIndex) {
+        return 1 + (row * 31 + routeIndex * 17) % 23;
+    }
+
+    @Test
+    public void eachPairShouldBeEvaluatedOnceAndTheBestInsertionShouldBeFound() {
+        RouteVersionedInsertionCache cache = newCache();
+        for (int j = 0; j < jobs.length; j++) {
+            for (int r = 0; r < routes.size(); r++) {
+                evaluator.add(j, r, Double.MAX_VALUE);
+            }
+        }
+        evaluator.evaluate(cache, jobs, routes);
+
+        assertEquals(jobs.length * routes.size(), nuEvaluations.get());
+        for (int j = 0; j < jobs.length; j++) {
+            int bestRoute = 0;
+            for (int r = 1; r < routes.size(); r++) {
+                if (costs(j, r) < costs(j, bestRoute)) bestRoute = r;
+            }
+            assertEquals(costs(j, bestRoute), cache.get(j, bestRoute).getInsertionCost(), 0.01);
+            for (int r = 0; r < routes.size(); r++) {
+                InsertionData iData = cache.get(j, r);
+                if (!(iData instanceof InsertionData.NoInsertionFound)) {
+                    assertEquals(costs(j, r), iData.getInsertionCost(), 0.01);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void insertionDataShouldRespectTheBoundOfItsPair() {
+        RouteVersionedInsertionCache cache = newCache();
+        for (int r = 0; r < routes.size(); r++) {
+            evaluator.add(1, r, 5.);
+        }
+        evaluator.evaluate(cache, jobs, routes);
+
+        for (int r = 0; r < routes.size(); r++) {
+            InsertionData iData = cache.get(1, r);
+            assertTrue(cache.getBound(1, r) <= 5.);
+            assertTrue(iData instanceof InsertionData.NoInsertionFound || iData.getInsertionCost() < 5.);
+        }
+    }
+
+    @Test
+    public void whenThereAreOnlyFewPairs_theyShouldBeEvaluatedByTheCallingThread() {
+        RouteVersionedInsertionCache cache = newCache();
+        final Thread caller = Thread.currentThread();
+        final AtomicInteger nuForeignEvaluations = new AtomicInteger();
+        ParallelInsertionEvaluator inlineEvaluator = new ParallelInsertionEvaluator(new JobInsertionCostsCalculator() {
+
+            @Override
+            public InsertionData getInsertionData(VehicleRoute currentRoute, Job newJob, Vehicle newVehicle, double newVehicleDepartureTime, Driver newDriver, double bestKnownCosts) {
+                if (Thread.currentThread() != caller) nuForeignEvaluations.incrementAndGet();
+                return new InsertionData.NoInsertionFound();
+            }
+
+        }, executorService, 4);
+        inlineEvaluator.add(0, 0, Double.MAX_VALUE);
+        inlineEvaluator.add(0, 1, Double.MAX_VALUE);
+        inlineEvaluator.evaluate(cache, jobs, routes);
+        assertEquals(0, nuForeignEvaluations.get());
+        assertTrue(cache.get(0, 1) instanceof InsertionData.NoInsertionFound);
+    }
+
+    private RouteVersionedInsertionCache newCache() {
+        RouteVersionedInsertionCache cache = new RouteVersionedInsertionCache(jobs.length);
+        for (int j = 0; j < jobs.length; j++) {
+            cache.ensureCapacity(j, routes.size());
+        }
+        return cache;
+    }
+
+}
@@ -0,0 +1,190 @@
+/*
+ * Licensed to GraphHopper GmbH under one or more contributor
+ * license agreements. See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ *
+ * GraphHopper GmbH licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.graphhopper.jsprit.core.algorithm.recreate;
+
+import com.graphhopper.jsprit.core.algorithm.ResetAndIniFleetManager;
+import com.graphhopper.jsprit.core.algorithm.state.StateManager;
+import com.graphhopper.jsprit.core.problem.Location;
+import com.graphhopper.jsprit.core.problem.VehicleRoutingProblem;
+import com.graphhopper.jsprit.core.problem.constraint.ConstraintManager;
+import com.graphhopper.jsprit.core.problem.constraint.DependencyType;
+import com.graphhopper.jsprit.core.problem.driver.Driver;
+import com.graphhopper.jsprit.core.problem.job.Job;
+import com.graphhopper.jsprit.core.problem.job.Service;
+import com.graphhopper.jsprit.core.problem.solution.route.VehicleRoute;
+import com.graphhopper.jsprit.core.problem.solution.route.activity.TourActivity;
+import com.graphhopper.jsprit.core.problem.vehicle.*;
+import com.graphhopper.jsprit.core.util.RandomNumberGeneration;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class RegretInsertionConcurrentFastTest {
+
+    private ExecutorService executorService;
+
+    @Before
+    public void doBefore() {
+        executorService = Executors.newFixedThreadPool(4);
+    }
+
+    @After
+    public void doAfter() {
+        executorService.shutdown();
+    }
+
+    @Test
+    public void concurrentRegretShouldYieldSameRoutesAsSequentialRegret() {
+        VehicleRoutingProblem vrp = createProblem();
+        List<String> sequential = insert(vrp, null);
+        List<String> concurrent = insert(vrp, executorService);
+        Assert.assertEquals(sequential, concurrent);
+    }
+
+    @Test
+    public void concurrentRegretShouldBeReproducible() {
+        VehicleRoutingProblem vrp = createProblem();
+        Assert.assertEquals(insert(vrp, executorService), insert(vrp, executorService));
+    }
+
+    @Test
+    public void whenFleetIsTooSmall_jobsShouldBeUnassigned() {
+        VehicleType type = VehicleTypeImpl.Builder.newInstance("small").addCapacityDimension(0, 5).build();
+        VehicleRoutingProblem.Builder vrpBuilder = VehicleRoutingProblem.Builder.newInstance().setFleetSize(VehicleRoutingProblem.FleetSize.FINITE);
+        vrpBuilder.addVehicle(VehicleImpl.Builder.newInstance("v").setType(type).setStartLocation(Location.newInstance(0, 0)).build());
+        for (int i = 0; i < 20; i++) {
+            vrpBuilder.addJob(Service.Builder.newInstance("s" + i).addSizeDimension(0, 1).setLocation(Location.newInstance(i, i)).build());
+        }
+        List<String> record = insert(vrpBuilder.build(), executorService);
+        Assert.assertEquals("unassigned:15", record.get(record.size() - 1));
+    }
+
+    @Test
+    public void whenOneJobDependsOnOthers_onlyThisJobShouldBeReevaluatedAgainstUnmodifiedRoutes() {
+        VehicleRoutingProblem.Builder vrpBuilder = VehicleRoutingProblem.Builder.newInstance().setFleetSize(VehicleRoutingProblem.FleetSize.FINITE);
+        for (int i = 0; i < 4; i++) {
+            vrpBuilder.addVehicle(VehicleImpl.Builder.newInstance("v" + i).setStartLocation(Location.newInstance(10 * i, 0)).build());
+        }
+        for (int i = 0; i < 12; i++) {
+            vrpBuilder.addJob(Service.Builder.newInstance("s" + i).setLocation(Location.newInstance(3 * i, 0)).build());
+        }
+        VehicleRoutingProblem vrp = vrpBuilder.build();
+        DependencyType[] dependencyTypes = new DependencyType[vrp.getJobs().size() + 2];
+        dependencyTypes[vrp.getJobs().get("s5").getIndex()] = DependencyType.INTER_ROUTE;
+
+        for (ExecutorService es : Arrays.asList(null, executorService)) {
+            Map<String, Integer> withoutDependencies = countEvaluations(vrp, null, es);
+            Map<String, Integer> withDependencies = countEvaluations(vrp, dependencyTypes, es);
+            for (String jobId : vrp.getJobs().keySet()) {
+                if (jobId.equals("s5")) {
+                    Assert.assertTrue(withDependencies.get(jobId) > withoutDependencies.get(jobId));
+                } else Assert.assertEquals(withoutDependencies.get(jobId), withDependencies.get(jobId));
+            }
+        }
+    }
+
+    /*
+     * inserts all jobs into fixed routes (the insertion calculator does not modify them) and counts the evaluations per job
+     */
+    private Map<String, Integer> countEvaluations(VehicleRoutingProblem vrp, DependencyType[] dependencyTypes, ExecutorService executorService) {
+        final Map<String, AtomicInteger> counts = new ConcurrentHashMap<>();
+        JobInsertionCostsCalculator calculator = new JobInsertionCostsCalculator() {
+
+            @Override
+            public InsertionData getInsertionData(VehicleRoute currentRoute, Job newJob, Vehicle newVehicle, double newVehicleDepartureTime, Driver newDriver, double bestKnownCosts) {
+                counts.get(newJob.getId()).incrementAndGet();
+                if (currentRoute.getVehicle() instanceof VehicleImpl.NoVehicle) return new InsertionData.NoInsertionFound();
+                double costs = Math.abs(currentRoute.getVehicle().getStartLocation().getCoordinate().getX() - ((Service) newJob).getLocation().getCoordinate().getX());
+                return new InsertionData(costs, 0, 0, currentRoute.getVehicle(), newDriver);
+            }
+
+        };
+        for (String jobId : vrp.getJobs().keySet()) counts.put(jobId, new AtomicInteger());
+        VehicleFleetManager fleetManager = new FiniteFleetManagerFactory(vrp.getVehicles()).createFleetManager();
+        Collection<VehicleRoute> routes = new ArrayList<>();
+        for (Vehicle v : vrp.getVehicles()) {
+            routes.add(VehicleRoute.Builder.newInstance(v).build());
+            fleetManager.lock(v);
+        }
+        if (executorService == null) {
+            RegretInsertionFast regret = new RegretInsertionFast(calculator, vrp, fleetManager);
+            regret.setDependencyTypes(dependencyTypes);
+            regret.insertJobs(routes, vrp.getJobs().values());
+        } else {
+            RegretInsertionConcurrentFast regret = new RegretInsertionConcurrentFast(calculator, vrp, executorService, 4, fleetManager);
+            regret.setDependencyTypes(dependencyTypes);
+            regret.insertJobs(routes, vrp.getJobs().values());
+        }
+        Map<String, Integer> result = new HashMap<>();
+        for (Map.Entry<String, AtomicInteger> e : counts.entrySet()) result.put(e.getKey(), e.getValue().get());
+        return result;
+    }
+
+    private VehicleRoutingProblem createProblem() {
+        Random random = RandomNumberGeneration.newInstance();
+        VehicleType small = VehicleTypeImpl.Builder.newInstance("small").addCapacityDimension(0, 10).setFixedCost(10).build();
+        VehicleType large = VehicleTypeImpl.Builder.newInstance("large").addCapacityDimension(0, 25).setFixedCost(30).build();
+        VehicleRoutingProblem.Builder vrpBuilder = VehicleRoutingProblem.Builder.newInstance().setFleetSize(VehicleRoutingProblem.FleetSize.FINITE);
+        for (int i = 0; i < 6; i++) {
+            vrpBuilder.addVehicle(VehicleImpl.Builder.newInstance("small_" + i).setType(small).setStartLocation(Location.newInstance(50, 50)).build());
+            vrpBuilder.addVehicle(VehicleImpl.Builder.newInstance("large_" + i).setType(large).setStartLocation(Location.newInstance(50, 50)).build());
+        }
+        for (int i = 0; i < 120; i++) {
+            vrpBuilder.addJob(Service.Builder.newInstance("s" + i).addSizeDimension(0, 1 + random.nextInt(3))
+                .setLocation(Location.newInstance(random.nextInt(100), random.nextInt(100))).build());
+        }
+        return vrpBuilder.build();
+    }
+
+    private List<String> insert(VehicleRoutingProblem vrp, ExecutorService executorService) {
+        StateManager stateManager = new StateManager(vrp);
+        stateManager.updateLoadStates();
+        ConstraintManager constraintManager = new ConstraintManager(vrp, stateManager);
+        constraintManager.addLoadConstraint();
+        VehicleFleetManager fleetManager = new FiniteFleetManagerFactory(vrp.getVehicles()).createFleetManager();
+        InsertionStrategyBuilder builder = new InsertionStrategyBuilder(vrp, fleetManager, stateManager, constraintManager)
+            .setInsertionStrategy(InsertionStrategyBuilder.Strategy.REGRET).setFastRegret(true);
+        if (executorService != null) builder.setConcurrentMode(executorService, 4);
+        AbstractInsertionStrategy insertion = (AbstractInsertionStrategy) builder.build();
+        insertion.setRandom(RandomNumberGeneration.newInstance());
+        insertion.addListener(stateManager);
+        insertion.addListener(new ResetAndIniFleetManager(fleetManager));
+        insertion.addListener(new VehicleSwitched(fleetManager));
+
+        Collection<VehicleRoute> routes = new ArrayList<>();
+        Collection<Job> unassigned = insertion.insertJobs(routes, vrp.getJobs().values());
+        List<String> record = new ArrayList<>();
+        for (VehicleRoute route : routes) {
+            StringBuilder b = new StringBuilder(route.getVehicle().getId()).append(":");
+            for (TourActivity act : route.getActivities()) {
+                b.append(((TourActivity.JobActivity) act).getJob().getId()).append(" ");
+            }
+            record.add(b.toString());
+        }
+        record.add("unassigned:" + unassigned.size());
+        return record;
+    }
+
+}
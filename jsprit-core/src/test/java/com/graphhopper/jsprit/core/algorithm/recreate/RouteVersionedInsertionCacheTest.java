@@ -0,0 +1,114 @@
+/*
+ * Licensed to GraphHopper GmbH under one or more contributor
+ * license agreements. See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ *
+ * GraphHopper GmbH licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.graphhopper.jsprit.core.algorithm.recreate;
+
+import com.graphhopper.jsprit.core.problem.Location;
+import com.graphhopper.jsprit.core.problem.VehicleRoutingProblem;
+import com.graphhopper.jsprit.core.problem.driver.DriverImpl;
+import com.graphhopper.jsprit.core.problem.solution.route.VehicleRoute;
+import com.graphhopper.jsprit.core.problem.vehicle.Vehicle;
+import com.graphhopper.jsprit.core.problem.vehicle.VehicleImpl;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class RouteVersionedInsertionCacheTest {
+
+    private Vehicle v1;
+
+    private Vehicle v2;
+
+    private Vehicle v3;
+
+    private VehicleRoute route1;
+
+    private VehicleRoute route2;
+
+    private RouteVersionedInsertionCache cache;
+
+    @Before
+    public void doBefore() {
+        v1 = vehicle("v1");
+        v2 = vehicle("v2");
+        v3 = vehicle("v3");
+        VehicleRoutingProblem.Builder.newInstance().addVehicle(v1).addVehicle(v2).addVehicle(v3).build();
+        route1 = VehicleRoute.Builder.newInstance(v1).build();
+        route2 = VehicleRoute.Builder.newInstance(v2).build();
+        cache = new RouteVersionedInsertionCache(2);
+        cache.ensureCapacity(0, 2);
+        cache.ensureCapacity(1, 2);
+    }
+
+    @Test
+    public void whenNothingIsMemorized_itShouldBeInvalid() {
+        assertFalse(cache.isValid(0, 0, route1));
+    }
+
+    @Test
+    public void whenRouteIsNotModified_memorizedDataShouldRemainValid() {
+        cache.put(0, 0, insertionData(v1));
+        cache.put(1, 1, insertionData(v2));
+        cache.informJobInserted(1, v2, v2);
+        assertTrue(cache.isValid(0, 0, route1));
+        assertFalse(cache.isValid(1, 1, route2));
+    }
+
+    @Test
+    public void whenRouteIsModified_memorizedDataShouldNotBeUpToDateAnymore() {
+        cache.put(0, 0, insertionData(v1));
+        assertTrue(cache.isUpToDate(0, 0));
+        cache.informJobInserted(1, v2, v2);
+        assertFalse(cache.isUpToDate(0, 0));
+    }
+
+    @Test
+    public void whenVehicleIsLockedByAnotherRoute_dataSwitchingToThisVehicleShouldBeInvalid() {
+        cache.put(0, 0, insertionData(v3));
+        cache.put(1, 0, insertionData(v1));
+        cache.informJobInserted(1, new VehicleImpl.NoVehicle(), v3);
+        assertFalse(cache.isValid(0, 0, route1));
+        assertTrue(cache.isValid(1, 0, route1));
+    }
+
+    @Test
+    public void whenVehicleIsReleased_allMemorizedDataShouldBeInvalid() {
+        cache.put(0, 0, insertionData(v1));
+        cache.informJobInserted(1, v2, v3);
+        assertFalse(cache.isValid(0, 0, route1));
+    }
+
+    @Test
+    public void boundShouldBeMemorizedWithInsertionData() {
+        cache.put(0, 0, new InsertionData.NoInsertionFound(), 5.);
+        cache.put(0, 1, insertionData(v1));
+        assertEquals(5., cache.getBound(0, 0), 0.);
+        assertEquals(Double.MAX_VALUE, cache.getBound(0, 1), 0.);
+    }
+
+    private InsertionData insertionData(Vehicle vehicle) {
+        return new InsertionData(1., 0, 0, vehicle, DriverImpl.noDriver());
+    }
+
+    private Vehicle vehicle(String id) {
+        return VehicleImpl.Builder.newInstance(id).setStartLocation(Location.newInstance(0, 0)).build();
+    }
+
+}
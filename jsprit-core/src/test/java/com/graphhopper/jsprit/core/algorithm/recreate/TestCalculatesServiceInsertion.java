@@ -47,6 +47,7 @@ import org.junit.Test;
 import java.util.*;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
 import static org.mockito.Mockito.mock;
 
 
@@ -207,6 +208,18 @@ public class TestCalculatesServiceInsertion {
         assertEquals(2, iData.getDeliveryInsertionIndex());
     }
 
+    @Test
+    public void whenCalculatingInsertionOfSameJobRepeatedly_resultsShouldBeEqualAndNotShareActivities() {
+        VehicleRoute route = VehicleRoute.Builder.newInstance(vehicle, driver).setJobActivityFactory(vrp.getJobActivityFactory()).addService(first).addService(second).build();
+        states.informInsertionStarts(Arrays.asList(route), null);
+
+        InsertionData iData1 = serviceInsertion.getInsertionData(route, third, newVehicle, newVehicle.getEarliestDeparture(), null, Double.MAX_VALUE);
+        InsertionData iData2 = serviceInsertion.getInsertionData(route, third, newVehicle, newVehicle.getEarliestDeparture(), null, Double.MAX_VALUE);
+        assertEquals(iData1.getInsertionCost(), iData2.getInsertionCost(), 0.001);
+        assertEquals(iData1.getDeliveryInsertionIndex(), iData2.getDeliveryInsertionIndex());
+        assertNotSame(((InsertActivity) iData1.getEvents().get(0)).getActivity(), ((InsertActivity) iData2.getEvents().get(0)).getActivity());
+    }
+
     @Test
     public void whenInsertingJobAndCurrRouteIsEmpty_accessEggressCalcShouldReturnZero() {
         VehicleRoute route = VehicleRoute.Builder.newInstance(VehicleImpl.createNoVehicle(), DriverImpl.noDriver()).build();
@@ -0,0 +1,89 @@
+/*
+ * Licensed to GraphHopper GmbH under one or more contributor
+ * license agreements. See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ *
+ * GraphHopper GmbH licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.graphhopper.jsprit.core.algorithm.ruin;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class IndexedMaxHeapTest {
+
+    @Test
+    public void peekShouldReturnKeyWithHighestValue() {
+        IndexedMaxHeap heap = new IndexedMaxHeap(5);
+        heap.put(0, 1.);
+        heap.put(3, 5.);
+        heap.put(4, 2.);
+        assertEquals(3, heap.peek());
+    }
+
+    @Test
+    public void whenValuesAreEqual_lowerKeyShouldBeHigher() {
+        IndexedMaxHeap heap = new IndexedMaxHeap(5);
+        heap.put(4, 1.);
+        heap.put(2, 1.);
+        heap.put(3, 1.);
+        assertEquals(2, heap.peek());
+    }
+
+    @Test
+    public void updatingValuesShouldReorderHeap() {
+        IndexedMaxHeap heap = new IndexedMaxHeap(5);
+        heap.put(0, 1.);
+        heap.put(1, 2.);
+        heap.put(2, 3.);
+        heap.put(0, 4.);
+        assertEquals(0, heap.peek());
+        heap.put(0, 0.);
+        assertEquals(2, heap.peek());
+    }
+
+    @Test
+    public void removedKeysShouldNotBeContainedAnymore() {
+        IndexedMaxHeap heap = new IndexedMaxHeap(5);
+        heap.put(0, 1.);
+        heap.put(1, 2.);
+        heap.remove(1);
+        assertFalse(heap.contains(1));
+        assertTrue(heap.contains(0));
+        assertEquals(0, heap.peek());
+        heap.remove(0);
+        assertTrue(heap.isEmpty());
+    }
+
+    @Test
+    public void keysShouldBeRemovedInOrderOfTheirValues() {
+        Random random = new Random(4711);
+        IndexedMaxHeap heap = new IndexedMaxHeap(100);
+        for (int i = 0; i < 100; i++) heap.put(i, random.nextDouble());
+        for (int i = 0; i < 50; i++) heap.put(random.nextInt(100), random.nextDouble());
+        for (int i = 0; i < 20; i++) heap.remove(random.nextInt(100));
+        double prev = Double.MAX_VALUE;
+        while (!heap.isEmpty()) {
+            int key = heap.peek();
+            assertTrue(heap.getValue(key) <= prev);
+            prev = heap.getValue(key);
+            heap.remove(key);
+        }
+    }
+
+}
@@ -29,11 +29,12 @@ import junit.framework.Assert;
 import org.junit.Before;
 import org.junit.Test;
 
-import java.util.ArrayList;
-import java.util.Iterator;
-import java.util.List;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
 
@@ -158,4 +159,61 @@ public class JobNeighborhoodsOptimizedTest {
         assertEquals(0, services.size());
     }
 
+    @Test
+    public void neighborhoodsShouldEqualNeighborhoodsOfFullySortedDistances() {
+        VehicleRoutingProblem.Builder builder = VehicleRoutingProblem.Builder.newInstance();
+        Random random = new Random(4711);
+        for (int i = 0; i < 200; i++) {
+            builder.addJob(Service.Builder.newInstance("s" + i).setLocation(Location.newInstance(random.nextInt(20), random.nextInt(20))).build());
+        }
+        final VehicleRoutingProblem vrp = builder.build();
+        JobNeighborhoodsOptimized jn = new JobNeighborhoodsOptimized(vrp, jobDistance, 30);
+        jn.initialise();
+        for (final Job job : vrp.getJobs().values()) {
+            List<Job> expected = new ArrayList<>(vrp.getJobs().values());
+            expected.remove(job);
+            Collections.sort(expected, new Comparator<Job>() {
+                @Override
+                public int compare(Job o1, Job o2) {
+                    return Double.compare(jobDistance.getDistance(job, o1), jobDistance.getDistance(job, o2));
+                }
+            });
+            Iterator<Job> iter = jn.getNearestNeighborsIterator(30, job);
+            for (int k = 0; k < 30; k++) {
+                Job neighbor = iter.next();
+                assertFalse(neighbor == job);
+                assertEquals(jobDistance.getDistance(job, expected.get(k)), jobDistance.getDistance(job, neighbor), 0.01);
+            }
+            assertFalse(iter.hasNext());
+        }
+    }
+
+    @Test
+    public void concurrentlyCalculatedNeighborhoodsShouldEqualSequentiallyCalculatedOnes() {
+        VehicleRoutingProblem.Builder builder = VehicleRoutingProblem.Builder.newInstance();
+        Random random = new Random(4711);
+        for (int i = 0; i < 200; i++) {
+            builder.addJob(Service.Builder.newInstance("s" + i).setLocation(Location.newInstance(random.nextInt(20), random.nextInt(20))).build());
+        }
+        VehicleRoutingProblem vrp = builder.build();
+        JobNeighborhoodsOptimized sequential = new JobNeighborhoodsOptimized(vrp, jobDistance, 30);
+        sequential.initialise();
+        ExecutorService executorService = Executors.newFixedThreadPool(3);
+        JobNeighborhoodsOptimized concurrent = new JobNeighborhoodsOptimized(vrp, jobDistance, 30, executorService, 3);
+        try {
+            concurrent.initialise();
+        } finally {
+            executorService.shutdown();
+        }
+        assertEquals(sequential.getMaxDistance(), concurrent.getMaxDistance(), 0.);
+        for (Job job : vrp.getJobs().values()) {
+            Iterator<Job> expected = sequential.getNearestNeighborsIterator(30, job);
+            Iterator<Job> actual = concurrent.getNearestNeighborsIterator(30, job);
+            while (expected.hasNext()) {
+                assertTrue(expected.next() == actual.next());
+            }
+            assertFalse(actual.hasNext());
+        }
+    }
+
 }
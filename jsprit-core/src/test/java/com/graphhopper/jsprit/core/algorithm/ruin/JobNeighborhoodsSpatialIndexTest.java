@@ -0,0 +1,161 @@
+/*
+ * Licensed to GraphHopper GmbH under one or more contributor
+ * license agreements. See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ *
+ * GraphHopper GmbH licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.graphhopper.jsprit.core.algorithm.ruin;
+
+import com.graphhopper.jsprit.core.problem.Location;
+import com.graphhopper.jsprit.core.problem.VehicleRoutingProblem;
+import com.graphhopper.jsprit.core.problem.job.Job;
+import com.graphhopper.jsprit.core.problem.job.Service;
+import com.graphhopper.jsprit.core.problem.job.Shipment;
+import com.graphhopper.jsprit.core.util.Coordinate;
+import com.graphhopper.jsprit.core.util.DistanceUnit;
+import com.graphhopper.jsprit.core.util.EuclideanDistanceCalculator;
+import com.graphhopper.jsprit.core.util.GreatCircleDistanceCalculator;
+import com.graphhopper.jsprit.core.util.ManhattanDistanceCalculator;
+import org.junit.Test;
+
+import java.util.*;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class JobNeighborhoodsSpatialIndexTest {
+
+    private interface Distance {
+
+        double getDistance(Coordinate from, Coordinate to);
+
+    }
+
+    @Test
+    public void euclideanNeighborsShouldEqualNeighborsOfFullySortedDistances() {
+        VehicleRoutingProblem vrp = createProblem(100., 100.);
+        assertNearestNeighbors(vrp, JobNeighborhoodsSpatialIndex.Metric.EUCLIDEAN, new Distance() {
+            @Override
+            public double getDistance(Coordinate from, Coordinate to) {
+                return EuclideanDistanceCalculator.calculateDistance(from, to);
+            }
+        });
+    }
+
+    @Test
+    public void manhattanNeighborsShouldEqualNeighborsOfFullySortedDistances() {
+        VehicleRoutingProblem vrp = createProblem(100., 100.);
+        assertNearestNeighbors(vrp, JobNeighborhoodsSpatialIndex.Metric.MANHATTAN, new Distance() {
+            @Override
+            public double getDistance(Coordinate from, Coordinate to) {
+                return ManhattanDistanceCalculator.calculateDistance(from, to);
+            }
+        });
+    }
+
+    @Test
+    public void greatCircleNeighborsShouldEqualNeighborsOfFullySortedDistances() {
+        VehicleRoutingProblem vrp = createProblem(360., 160.);
+        assertNearestNeighbors(vrp, JobNeighborhoodsSpatialIndex.Metric.GREAT_CIRCLE, new Distance() {
+            @Override
+            public double getDistance(Coordinate from, Coordinate to) {
+                return GreatCircleDistanceCalculator.calculateDistance(from, to, DistanceUnit.Kilometer);
+            }
+        });
+    }
+
+    @Test
+    public void shipmentShouldBeLocatedAtTheMeanOfItsLocations() {
+        Shipment shipment = Shipment.Builder.newInstance("shipment").setPickupLocation(Location.newInstance(0, 0))
+            .setDeliveryLocation(Location.newInstance(10, 0)).build();
+        Service near = Service.Builder.newInstance("near").setLocation(Location.newInstance(5, 1)).build();
+        Service far = Service.Builder.newInstance("far").setLocation(Location.newInstance(0, 3)).build();
+        VehicleRoutingProblem vrp = VehicleRoutingProblem.Builder.newInstance().addJob(shipment).addJob(near).addJob(far).build();
+        JobNeighborhoodsSpatialIndex index = new JobNeighborhoodsSpatialIndex(vrp, JobNeighborhoodsSpatialIndex.Metric.EUCLIDEAN);
+        index.initialise();
+        Iterator<Job> iter = index.getNearestNeighborsIterator(2, shipment);
+        assertEquals(near, iter.next());
+        assertEquals(far, iter.next());
+        assertFalse(iter.hasNext());
+        assertEquals(1., index.getDistance(shipment, near), 0.001);
+    }
+
+    @Test
+    public void farthestJobsShouldBeApartByMaxDistance() {
+        Service left = Service.Builder.newInstance("left").setLocation(Location.newInstance(0, 0)).build();
+        Service middle = Service.Builder.newInstance("middle").setLocation(Location.newInstance(4, 1)).build();
+        Service right = Service.Builder.newInstance("right").setLocation(Location.newInstance(10, 0)).build();
+        VehicleRoutingProblem vrp = VehicleRoutingProblem.Builder.newInstance().addJob(left).addJob(middle).addJob(right).build();
+        JobNeighborhoodsSpatialIndex index = new JobNeighborhoodsSpatialIndex(vrp, JobNeighborhoodsSpatialIndex.Metric.EUCLIDEAN);
+        index.initialise();
+        List<Job> farthestJobs = index.getFarthestJobs();
+        assertEquals(2, farthestJobs.size());
+        assertTrue(farthestJobs.containsAll(Arrays.asList(left, right)));
+        assertEquals(10., index.getMaxDistance(), 0.001);
+    }
+
+    @Test
+    public void unknownJobShouldHaveNoNeighbors() {
+        VehicleRoutingProblem vrp = createProblem(100., 100.);
+        JobNeighborhoodsSpatialIndex index = new JobNeighborhoodsSpatialIndex(vrp, JobNeighborhoodsSpatialIndex.Metric.EUCLIDEAN);
+        index.initialise();
+        Service unknown = Service.Builder.newInstance("unknown").setLocation(Location.newInstance(0, 0)).build();
+        assertFalse(index.getNearestNeighborsIterator(5, unknown).hasNext());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void whenJobHasNoCoordinate_itShouldThrowException() {
+        Service service = Service.Builder.newInstance("s").setLocation(Location.newInstance("loc")).build();
+        VehicleRoutingProblem vrp = VehicleRoutingProblem.Builder.newInstance().addJob(service).build();
+        new JobNeighborhoodsSpatialIndex(vrp, JobNeighborhoodsSpatialIndex.Metric.EUCLIDEAN).initialise();
+    }
+
+    private VehicleRoutingProblem createProblem(double width, double height) {
+        Random random = new Random(4711);
+        VehicleRoutingProblem.Builder builder = VehicleRoutingProblem.Builder.newInstance();
+        for (int i = 0; i < 300; i++) {
+            double x = random.nextDouble() * width - width / 2.;
+            double y = random.nextDouble() * height - height / 2.;
+            builder.addJob(Service.Builder.newInstance("s" + i).setLocation(Location.newInstance(x, y)).build());
+        }
+        return builder.build();
+    }
+
+    private void assertNearestNeighbors(VehicleRoutingProblem vrp, JobNeighborhoodsSpatialIndex.Metric metric, final Distance distance) {
+        JobNeighborhoodsSpatialIndex index = new JobNeighborhoodsSpatialIndex(vrp, metric);
+        index.initialise();
+        for (final Job job : vrp.getJobs().values()) {
+            final Coordinate coordinate = ((Service) job).getLocation().getCoordinate();
+            List<Job> expected = new ArrayList<>(vrp.getJobs().values());
+            expected.remove(job);
+            Collections.sort(expected, new Comparator<Job>() {
+                @Override
+                public int compare(Job o1, Job o2) {
+                    return Double.compare(distance.getDistance(coordinate, ((Service) o1).getLocation().getCoordinate()),
+                        distance.getDistance(coordinate, ((Service) o2).getLocation().getCoordinate()));
+                }
+            });
+            Iterator<Job> iter = index.getNearestNeighborsIterator(20, job);
+            for (int k = 0; k < 20; k++) {
+                Job neighbor = iter.next();
+                assertEquals(expected.get(k), neighbor);
+                assertEquals(distance.getDistance(coordinate, ((Service) neighbor).getLocation().getCoordinate()), index.getDistance(job, neighbor), 0.001);
+            }
+            assertFalse(iter.hasNext());
+        }
+        assertTrue(index.getMaxDistance() > 0.);
+    }
+
+}
@@ -0,0 +1,177 @@
+/*
+ * Licensed to GraphHopper GmbH under one or more contributor
+ * license agreements. See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ *
+ * GraphHopper GmbH licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.graphhopper.jsprit.core.algorithm.ruin;
+
+import com.graphhopper.jsprit.core.algorithm.ruin.distance.AvgServiceAndShipmentDistance;
+import com.graphhopper.jsprit.core.problem.Location;
+import com.graphhopper.jsprit.core.problem.VehicleRoutingProblem;
+import com.graphhopper.jsprit.core.problem.job.Job;
+import com.graphhopper.jsprit.core.problem.job.Service;
+import com.graphhopper.jsprit.core.problem.solution.route.VehicleRoute;
+import com.graphhopper.jsprit.core.problem.solution.route.activity.TourActivity;
+import com.graphhopper.jsprit.core.problem.vehicle.VehicleImpl;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.*;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class RuinStringTest {
+
+    private VehicleRoutingProblem vrp;
+
+    private JobNeighborhoods neighborhoods;
+
+    private List<VehicleRoute> routes;
+
+    @Before
+    public void doBefore() {
+        VehicleImpl v1 = VehicleImpl.Builder.newInstance("v1").setStartLocation(Location.newInstance(0, 0)).build();
+        VehicleImpl v2 = VehicleImpl.Builder.newInstance("v2").setStartLocation(Location.newInstance(0, 10)).build();
+        VehicleRoutingProblem.Builder vrpBuilder = VehicleRoutingProblem.Builder.newInstance().addVehicle(v1).addVehicle(v2);
+        List<Service> services = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            Service s = Service.Builder.newInstance("s" + i).setLocation(Location.newInstance(i % 10, 10 * (i / 10))).build();
+            services.add(s);
+            vrpBuilder.addJob(s);
+        }
+        vrp = vrpBuilder.build();
+        VehicleRoute.Builder routeBuilder1 = VehicleRoute.Builder.newInstance(v1).setJobActivityFactory(vrp.getJobActivityFactory());
+        VehicleRoute.Builder routeBuilder2 = VehicleRoute.Builder.newInstance(v2).setJobActivityFactory(vrp.getJobActivityFactory());
+        for (int i = 0; i < 10; i++) {
+            routeBuilder1.addService(services.get(i));
+            routeBuilder2.addService(services.get(10 + i));
+        }
+        routes = Arrays.asList(routeBuilder1.build(), routeBuilder2.build());
+        neighborhoods = new JobNeighborhoodsFactory().createNeighborhoods(vrp, new AvgServiceAndShipmentDistance(vrp.getTransportCosts()));
+        neighborhoods.initialise();
+    }
+
+    private RuinString newRuinString(long seed) {
+        RuinString ruinString = new RuinString(vrp, neighborhoods);
+        ruinString.setNoRoutes(1, 2);
+        ruinString.setStringLength(2, 6);
+        ruinString.setRandom(new Random(seed));
+        return ruinString;
+    }
+
+    private static List<VehicleRoute> copy(List<VehicleRoute> routes) {
+        List<VehicleRoute> copies = new ArrayList<>();
+        for (VehicleRoute route : routes) copies.add(VehicleRoute.copyOf(route));
+        return copies;
+    }
+
+    private static List<String> jobIds(VehicleRoute route) {
+        List<String> ids = new ArrayList<>();
+        for (TourActivity act : route.getActivities()) {
+            ids.add(((TourActivity.JobActivity) act).getJob().getId());
+        }
+        return ids;
+    }
+
+    @Test
+    public void ruinedJobsShouldBeRemovedFromTheirRoutesAndRemainingJobsShouldKeepTheirOrder() {
+        for (long seed = 0; seed < 20; seed++) {
+            List<VehicleRoute> copies = copy(routes);
+            Collection<Job> ruined = newRuinString(seed).ruinRoutes(copies);
+            assertFalse(ruined.isEmpty());
+            int nuRemaining = 0;
+            for (int r = 0; r < routes.size(); r++) {
+                List<String> original = jobIds(routes.get(r));
+                List<String> remaining = jobIds(copies.get(r));
+                nuRemaining += remaining.size();
+                for (Job job : ruined) assertFalse(remaining.contains(job.getId()));
+                List<String> expected = new ArrayList<>(original);
+                for (Job job : ruined) expected.remove(job.getId());
+                assertEquals(expected, remaining);
+            }
+            assertEquals(20, nuRemaining + ruined.size());
+            assertEquals(10, jobIds(routes.get(0)).size());
+        }
+    }
+
+    @Test
+    public void whenRuiningCopiesOfSolutionsRuinedBefore_resultShouldEqualThatOfAFreshRuin() {
+        RuinString reusedRuin = newRuinString(0);
+        List<VehicleRoute> current = routes;
+        for (long seed = 0; seed < 30; seed++) {
+            List<VehicleRoute> freshCopies = copy(current);
+            List<VehicleRoute> reusedCopies = copy(current);
+            Collection<Job> freshlyRuined = newRuinString(seed).ruinRoutes(freshCopies);
+            reusedRuin.setRandom(new Random(seed));
+            Collection<Job> ruined = reusedRuin.ruinRoutes(reusedCopies);
+            assertEquals(new HashSet<>(freshlyRuined), new HashSet<>(ruined));
+            for (int r = 0; r < current.size(); r++) {
+                assertEquals(jobIds(freshCopies.get(r)), jobIds(reusedCopies.get(r)));
+            }
+            /*
+             * alternately continue with the ruined solution (after reinserting its jobs) and the one before
+             */
+            if (seed % 2 == 0) {
+                List<Job> toInsert = new ArrayList<>(ruined);
+                Collections.sort(toInsert, new Comparator<Job>() {
+                    @Override
+                    public int compare(Job o1, Job o2) {
+                        return o1.getId().compareTo(o2.getId());
+                    }
+                });
+                for (Job job : toInsert) {
+                    VehicleRoute route = reusedCopies.get(job.getId().length() % 2);
+                    route.getTourActivities().addActivity(route.getActivities().size() / 2, vrp.copyAndGetActivities(job).get(0));
+                }
+                current = reusedCopies;
+            }
+        }
+        int nuJobs = 0;
+        for (VehicleRoute route : current) nuJobs += route.getActivities().size();
+        assertTrue(nuJobs == 20);
+    }
+
+    @Test
+    public void whenRuinStrategiesShareTheIndexOfStringRuin_randomRuinShouldEqualThatWithoutIndex() {
+        RuinString stringRuin = newRuinString(0);
+        RuinRandom indexedRandomRuin = new RuinRandom(vrp, .3);
+        indexedRandomRuin.setSolutionIndex(stringRuin.getSolutionIndex());
+        List<VehicleRoute> current = routes;
+        for (long seed = 0; seed < 30; seed++) {
+            List<VehicleRoute> copies = copy(current);
+            stringRuin.setRandom(new Random(seed));
+            for (Job job : stringRuin.ruin(copies)) {
+                VehicleRoute route = copies.get((int) (seed % 2));
+                route.getTourActivities().addActivity(route.getActivities().size() / 2, vrp.copyAndGetActivities(job).get(0));
+            }
+            current = copies;
+
+            RuinRandom randomRuin = new RuinRandom(vrp, .3);
+            randomRuin.setRandom(new Random(seed));
+            indexedRandomRuin.setRandom(new Random(seed));
+            List<VehicleRoute> plainCopies = copy(current);
+            List<VehicleRoute> indexedCopies = copy(current);
+            Collection<Job> ruined = randomRuin.ruin(plainCopies);
+            assertEquals(new HashSet<>(ruined), new HashSet<>(indexedRandomRuin.ruin(indexedCopies)));
+            assertFalse(ruined.isEmpty());
+            for (int r = 0; r < current.size(); r++) {
+                assertEquals(jobIds(plainCopies.get(r)), jobIds(indexedCopies.get(r)));
+            }
+        }
+    }
+
+}
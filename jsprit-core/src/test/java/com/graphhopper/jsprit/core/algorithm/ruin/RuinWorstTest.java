@@ -20,16 +20,17 @@ package com.graphhopper.jsprit.core.algorithm.ruin;
 
 import com.graphhopper.jsprit.core.problem.Location;
 import com.graphhopper.jsprit.core.problem.VehicleRoutingProblem;
+import com.graphhopper.jsprit.core.problem.driver.DriverImpl;
 import com.graphhopper.jsprit.core.problem.job.Job;
 import com.graphhopper.jsprit.core.problem.job.Service;
 import com.graphhopper.jsprit.core.problem.job.Shipment;
 import com.graphhopper.jsprit.core.problem.solution.route.VehicleRoute;
+import com.graphhopper.jsprit.core.problem.solution.route.activity.TourActivity;
 import com.graphhopper.jsprit.core.problem.vehicle.VehicleImpl;
 import com.graphhopper.jsprit.core.util.Coordinate;
 import org.junit.Test;
 
-import java.util.Arrays;
-import java.util.Collection;
+import java.util.*;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
@@ -213,5 +214,85 @@ public class RuinWorstTest {
 
     }
 
+    @Test
+    public void withoutNoise_itShouldRemoveTheSameJobsInTheSameOrderAsAFullRecalculation() {
+        for (int seed = 0; seed < 20; seed++) {
+            Random random = new Random(seed);
+            List<Service> services = new ArrayList<>();
+            for (int i = 0; i < 6; i++) {
+                services.add(Service.Builder.newInstance("s" + i).setLocation(randomLocation(random)).build());
+            }
+            Shipment shipment = Shipment.Builder.newInstance("ship")
+                .setPickupLocation(randomLocation(random)).setDeliveryLocation(randomLocation(random)).build();
+            Service initialService = Service.Builder.newInstance("initial").setLocation(randomLocation(random)).build();
+            VehicleImpl v1 = VehicleImpl.Builder.newInstance("v1").setStartLocation(Location.newInstance(0, 0)).build();
+            VehicleImpl v2 = VehicleImpl.Builder.newInstance("v2").setStartLocation(Location.newInstance(0, 0)).build();
+            VehicleRoutingProblem.Builder vrpBuilder = VehicleRoutingProblem.Builder.newInstance().addJob(shipment).addVehicle(v1);
+            for (Service service : services) vrpBuilder.addJob(service);
+            vrpBuilder.addInitialVehicleRoute(VehicleRoute.Builder.newInstance(v2).addService(initialService).build());
+            VehicleRoutingProblem vrp = vrpBuilder.build();
+
+            List<VehicleRoute> routes = new ArrayList<>();
+            routes.add(VehicleRoute.Builder.newInstance(v1).setJobActivityFactory(vrp.getJobActivityFactory())
+                .addService(services.get(0)).addPickup(shipment).addService(services.get(1)).addService(services.get(2))
+                .addDelivery(shipment).build());
+            routes.add(VehicleRoute.Builder.newInstance(v2).setJobActivityFactory(vrp.getJobActivityFactory())
+                .addService(services.get(3)).addService(initialService).addService(services.get(4)).addService(services.get(5))
+                .build());
+            List<VehicleRoute> expectedRoutes = new ArrayList<>();
+            for (VehicleRoute route : routes) expectedRoutes.add(VehicleRoute.copyOf(route));
+
+            RuinWorst worst = new RuinWorst(vrp, 10);
+            Collection<Job> unassigned = worst.ruinRoutes(routes);
+
+            List<Job> expected = removeWorstByFullRecalculation(vrp, expectedRoutes, 10);
+            assertEquals(7, expected.size());
+            assertEquals(expected, new ArrayList<>(unassigned));
+            assertTrue(routes.get(1).getTourActivities().servesJob(initialService));
+        }
+    }
+
+    private Location randomLocation(Random random) {
+        return Location.newInstance(random.nextInt(100), random.nextInt(100));
+    }
+
+    /*
+     * removes the job with the highest savings one at a time, recalculating the savings of all jobs after each removal
+     */
+    private List<Job> removeWorstByFullRecalculation(VehicleRoutingProblem vrp, List<VehicleRoute> routes, int noJobs) {
+        List<Job> removed = new ArrayList<>();
+        while (removed.size() < noJobs) {
+            Map<Job, Double> savings = new HashMap<>();
+            Map<Job, VehicleRoute> routeOfJob = new HashMap<>();
+            for (VehicleRoute route : routes) {
+                List<TourActivity> acts = route.getActivities();
+                for (int i = 0; i < acts.size(); i++) {
+                    Job job = ((TourActivity.JobActivity) acts.get(i)).getJob();
+                    if (!vrp.getJobs().containsKey(job.getId())) continue;
+                    TourActivity before = i == 0 ? route.getStart() : acts.get(i - 1);
+                    TourActivity after = i == acts.size() - 1 ? route.getEnd() : acts.get(i + 1);
+                    double s = Math.max(0, c(vrp, before, acts.get(i)) + c(vrp, acts.get(i), after) - c(vrp, before, after));
+                    savings.put(job, savings.containsKey(job) ? savings.get(job) + s : s);
+                    routeOfJob.put(job, route);
+                }
+            }
+            Job worst = null;
+            for (Job job : savings.keySet()) {
+                if (!(savings.get(job) > Double.MIN_VALUE)) continue;
+                if (worst == null || savings.get(job) > savings.get(worst)
+                    || (savings.get(job).equals(savings.get(worst)) && job.getIndex() < worst.getIndex())) {
+                    worst = job;
+                }
+            }
+            if (worst == null) break;
+            routeOfJob.get(worst).getTourActivities().removeJob(worst);
+            removed.add(worst);
+        }
+        return removed;
+    }
+
+    private double c(VehicleRoutingProblem vrp, TourActivity from, TourActivity to) {
+        return vrp.getTransportCosts().getTransportCost(from.getLocation(), to.getLocation(), from.getEndTime(), DriverImpl.noDriver(), null);
+    }
 
 }
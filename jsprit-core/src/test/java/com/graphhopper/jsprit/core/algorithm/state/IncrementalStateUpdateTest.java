@@ -0,0 +1,325 @@
+/*
+ * Licensed to GraphHopper GmbH under one or more contributor
+ * license agreements. See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ *
+ * GraphHopper GmbH licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.graphhopper.jsprit.core.algorithm.state;
+
+import com.graphhopper.jsprit.core.algorithm.AlgorithmUtil;
+import com.graphhopper.jsprit.core.problem.AbstractActivity;
+import com.graphhopper.jsprit.core.problem.Capacity;
+import com.graphhopper.jsprit.core.problem.Location;
+import com.graphhopper.jsprit.core.problem.Skills;
+import com.graphhopper.jsprit.core.problem.VehicleRoutingProblem;
+import com.graphhopper.jsprit.core.problem.constraint.ConstraintManager;
+import com.graphhopper.jsprit.core.problem.cost.AbstractForwardVehicleRoutingTransportCosts;
+import com.graphhopper.jsprit.core.problem.driver.Driver;
+import com.graphhopper.jsprit.core.problem.job.Delivery;
+import com.graphhopper.jsprit.core.problem.job.Job;
+import com.graphhopper.jsprit.core.problem.job.Pickup;
+import com.graphhopper.jsprit.core.problem.job.Service;
+import com.graphhopper.jsprit.core.problem.job.Shipment;
+import com.graphhopper.jsprit.core.problem.solution.route.RouteVisitor;
+import com.graphhopper.jsprit.core.problem.solution.route.VehicleRoute;
+import com.graphhopper.jsprit.core.problem.solution.route.activity.TimeWindow;
+import com.graphhopper.jsprit.core.problem.solution.route.activity.TourActivity;
+import com.graphhopper.jsprit.core.problem.vehicle.Vehicle;
+import com.graphhopper.jsprit.core.problem.vehicle.VehicleImpl;
+import com.graphhopper.jsprit.core.problem.vehicle.VehicleTypeImpl;
+import com.graphhopper.jsprit.core.util.EuclideanDistanceCalculator;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertTrue;
+
+public class IncrementalStateUpdateTest {
+
+    static class CountingCosts extends AbstractForwardVehicleRoutingTransportCosts {
+
+        int nuQueries;
+
+        @Override
+        public double getDistance(Location from, Location to, double departureTime, Vehicle vehicle) {
+            nuQueries++;
+            return EuclideanDistanceCalculator.calculateDistance(from.getCoordinate(), to.getCoordinate());
+        }
+
+        @Override
+        public double getTransportTime(Location from, Location to, double departureTime, Driver driver, Vehicle vehicle) {
+            return getDistance(from, to, departureTime, vehicle);
+        }
+
+        @Override
+        public double getTransportCost(Location from, Location to, double departureTime, Driver driver, Vehicle vehicle) {
+            return 2. * getDistance(from, to, departureTime, vehicle);
+        }
+    }
+
+    private CountingCosts costs;
+
+    private VehicleRoutingProblem vrp;
+
+    private VehicleImpl vehicle;
+
+    private VehicleImpl otherVehicle;
+
+    private StateManager stateManager;
+
+    private Random random;
+
+    @Before
+    public void doBefore() {
+        random = new Random(4711);
+        costs = new CountingCosts();
+        vehicle = VehicleImpl.Builder.newInstance("v").setStartLocation(loc()).setLatestArrival(2000.)
+            .setType(VehicleTypeImpl.Builder.newInstance("t").addCapacityDimension(0, 1000).build()).build();
+        otherVehicle = VehicleImpl.Builder.newInstance("v2").setStartLocation(loc()).setLatestArrival(1500.)
+            .setType(VehicleTypeImpl.Builder.newInstance("t2").addCapacityDimension(0, 500).build()).build();
+        VehicleRoutingProblem.Builder vrpBuilder = VehicleRoutingProblem.Builder.newInstance().setRoutingCost(costs)
+            .addVehicle(vehicle).addVehicle(otherVehicle);
+        for (int i = 0; i < 60; i++) {
+            double tw = random.nextDouble() * 1000.;
+            if (i % 4 == 0) {
+                vrpBuilder.addJob(Service.Builder.newInstance("s" + i).setLocation(loc()).setServiceTime(5.).addSizeDimension(0, i % 3)
+                    .setTimeWindow(TimeWindow.newInstance(tw, tw + 300.)).addRequiredSkill("skill" + i % 5).build());
+            } else if (i % 4 == 1) {
+                vrpBuilder.addJob(Pickup.Builder.newInstance("p" + i).setLocation(loc()).addSizeDimension(0, 1 + i % 2).build());
+            } else if (i % 4 == 2) {
+                vrpBuilder.addJob(Delivery.Builder.newInstance("d" + i).setLocation(loc()).setServiceTime(3.).addSizeDimension(0, 2).build());
+            } else {
+                vrpBuilder.addJob(Shipment.Builder.newInstance("sh" + i).setPickupLocation(loc()).setDeliveryLocation(loc())
+                    .addSizeDimension(0, 1).setDeliveryTimeWindow(TimeWindow.newInstance(tw, tw + 500.)).build());
+            }
+        }
+        vrp = vrpBuilder.build();
+        stateManager = new StateManager(vrp);
+        stateManager.setKeepStatesOfUnchangedRoutes(true);
+        AlgorithmUtil.addCoreConstraints(new ConstraintManager(vrp, stateManager), stateManager, vrp);
+    }
+
+    private Location loc() {
+        return Location.newInstance(random.nextDouble() * 100., random.nextDouble() * 100.);
+    }
+
+    @Test
+    public void whenJobsAreInsertedOneByOne_incrementallyUpdatedStatesShouldEqualRecalculatedStates() {
+        VehicleRoute route = VehicleRoute.Builder.newInstance(vehicle).setJobActivityFactory(vrp.getJobActivityFactory()).build();
+        List<Job> jobs = new ArrayList<Job>(vrp.getJobs().values());
+        stateManager.informInsertionStarts(Arrays.asList(route), jobs);
+        int nuIncrementalQueries = 0;
+        int nuFullQueries = 0;
+        for (Job job : jobs) {
+            List<AbstractActivity> acts = vrp.copyAndGetActivities(job);
+            int index = random.nextInt(route.getActivities().size() + 1);
+            route.getTourActivities().addActivity(index, acts.get(0));
+            if (acts.size() > 1) {
+                route.getTourActivities().addActivity(index + 1 + random.nextInt(route.getActivities().size() - index), acts.get(1));
+            }
+            costs.nuQueries = 0;
+            stateManager.informJobInserted(job, route, 0., 0.);
+            nuIncrementalQueries += costs.nuQueries;
+            List<Object> incrementallyUpdatedStates = getStates(route);
+
+            costs.nuQueries = 0;
+            stateManager.reCalculateStates(route);
+            nuFullQueries += costs.nuQueries;
+            assertEquals(getStates(route), incrementallyUpdatedStates);
+        }
+        assertTrue(nuIncrementalQueries < nuFullQueries);
+    }
+
+    @Test
+    public void whenRouteHasBeenChangedOtherwise_statesShouldBeRecalculated() {
+        VehicleRoute route = VehicleRoute.Builder.newInstance(vehicle).setJobActivityFactory(vrp.getJobActivityFactory()).build();
+        List<Job> jobs = new ArrayList<Job>(vrp.getJobs().values());
+        stateManager.informInsertionStarts(Arrays.asList(route), jobs);
+        for (Job job : jobs) {
+            if (job instanceof Shipment) continue;
+            route.getTourActivities().addActivity(random.nextInt(route.getActivities().size() + 1), vrp.copyAndGetActivities(job).get(0));
+            if (route.getActivities().size() % 5 == 0) {
+                TourActivity act = route.getActivities().get(random.nextInt(route.getActivities().size()));
+                route.getTourActivities().removeActivity(act);
+                route.getTourActivities().addActivity(random.nextInt(route.getActivities().size() + 1), act);
+            }
+            if (route.getActivities().size() % 7 == 0) {
+                route.setVehicleAndDepartureTime(route.getVehicle() == vehicle ? otherVehicle : vehicle, 0.);
+            }
+            stateManager.informJobInserted(job, route, 0., 0.);
+            List<Object> states = getStates(route);
+            stateManager.reCalculateStates(route);
+            assertEquals(getStates(route), states);
+        }
+    }
+
+    private VehicleRoute createRoute(int nuJobs) {
+        VehicleRoute route = VehicleRoute.Builder.newInstance(vehicle).setJobActivityFactory(vrp.getJobActivityFactory()).build();
+        List<Job> jobs = new ArrayList<Job>(vrp.getJobs().values());
+        for (Job job : jobs.subList(0, nuJobs)) {
+            for (AbstractActivity act : vrp.copyAndGetActivities(job)) {
+                route.getTourActivities().addActivity(act);
+            }
+        }
+        return route;
+    }
+
+    @Test
+    public void whenRouteIsAnUnchangedCopy_itShouldTakeOverStatesWithoutRecalculatingThem() {
+        VehicleRoute route = createRoute(20);
+        stateManager.informInsertionStarts(Arrays.asList(route), new ArrayList<Job>());
+        List<Object> states = getStates(route);
+
+        stateManager.informIterationStarts(1, vrp, null);
+        VehicleRoute copiedRoute = VehicleRoute.copyOf(route);
+        costs.nuQueries = 0;
+        stateManager.informInsertionStarts(Arrays.asList(copiedRoute), new ArrayList<Job>());
+        assertEquals(0, costs.nuQueries);
+        assertEquals(states, getStates(copiedRoute));
+    }
+
+    @Test
+    public void whenKeepingStatesOfUnchangedRoutesIsSwitchedOff_unchangedCopyShouldBeRecalculated() {
+        stateManager.setKeepStatesOfUnchangedRoutes(false);
+        VehicleRoute route = createRoute(20);
+        stateManager.informInsertionStarts(Arrays.asList(route), new ArrayList<Job>());
+        List<Object> states = getStates(route);
+
+        stateManager.informIterationStarts(1, vrp, null);
+        VehicleRoute copiedRoute = VehicleRoute.copyOf(route);
+        costs.nuQueries = 0;
+        stateManager.informInsertionStarts(Arrays.asList(copiedRoute), new ArrayList<Job>());
+        assertTrue(costs.nuQueries > 0);
+        assertEquals(states, getStates(copiedRoute));
+    }
+
+    static class NonLocalUpdater implements StateUpdater, RouteVisitor {
+
+        private final StateManager stateManager;
+
+        private final StateId stateId;
+
+        double externalValue;
+
+        NonLocalUpdater(StateManager stateManager) {
+            this.stateManager = stateManager;
+            this.stateId = stateManager.createStateId("external");
+        }
+
+        @Override
+        public void visit(VehicleRoute route) {
+            stateManager.putRouteState(route, stateId, externalValue);
+        }
+    }
+
+    @Test
+    public void byDefault_unchangedCopyShouldBeRecalculatedSuchThatNonLocalUpdatersSeeCurrentValues() {
+        StateManager defaultStateManager = new StateManager(vrp);
+        AlgorithmUtil.addCoreConstraints(new ConstraintManager(vrp, defaultStateManager), defaultStateManager, vrp);
+        NonLocalUpdater updater = new NonLocalUpdater(defaultStateManager);
+        defaultStateManager.addStateUpdater(updater);
+        VehicleRoute route = createRoute(20);
+        updater.externalValue = 1.;
+        defaultStateManager.informInsertionStarts(Arrays.asList(route), new ArrayList<Job>());
+        assertEquals(1., defaultStateManager.getRouteState(route, updater.stateId, Double.class), 0.);
+
+        defaultStateManager.informIterationStarts(1, vrp, null);
+        VehicleRoute copiedRoute = VehicleRoute.copyOf(route);
+        updater.externalValue = 2.;
+        defaultStateManager.informInsertionStarts(Arrays.asList(copiedRoute), new ArrayList<Job>());
+        assertEquals(2., defaultStateManager.getRouteState(copiedRoute, updater.stateId, Double.class), 0.);
+    }
+
+    @Test
+    public void whenUnchangedCopyIsRecalculated_activitiesOfOriginalShouldNotBeTouched() {
+        VehicleRoute route = createRoute(20);
+        stateManager.informInsertionStarts(Arrays.asList(route), new ArrayList<Job>());
+        List<TourActivity> originalActivities = new ArrayList<TourActivity>(route.getActivities());
+
+        VehicleRoute copiedRoute = VehicleRoute.copyOf(route);
+        StateManager otherStateManager = new StateManager(vrp);
+        AlgorithmUtil.addCoreConstraints(new ConstraintManager(vrp, otherStateManager), otherStateManager, vrp);
+        otherStateManager.informInsertionStarts(Arrays.asList(copiedRoute), new ArrayList<Job>());
+
+        assertEquals(originalActivities, route.getActivities());
+        for (int i = 0; i < originalActivities.size(); i++) {
+            assertNotSame(originalActivities.get(i), copiedRoute.getActivities().get(i));
+            assertEquals(originalActivities.get(i).getArrTime(), copiedRoute.getActivities().get(i).getArrTime(), 0.);
+        }
+    }
+
+    @Test
+    public void whenCopyHasBeenRuined_statesShouldBeRecalculated() {
+        VehicleRoute route = createRoute(20);
+        stateManager.informInsertionStarts(Arrays.asList(route), new ArrayList<Job>());
+
+        stateManager.informIterationStarts(1, vrp, null);
+        VehicleRoute copiedRoute = VehicleRoute.copyOf(route);
+        copiedRoute.getTourActivities().removeJob(((TourActivity.JobActivity) copiedRoute.getActivities().get(3)).getJob());
+        stateManager.informInsertionStarts(Arrays.asList(copiedRoute), new ArrayList<Job>());
+        List<Object> states = getStates(copiedRoute);
+        stateManager.reCalculateStates(copiedRoute);
+        assertEquals(getStates(copiedRoute), states);
+    }
+
+    @Test
+    public void whenStatesOfActivitiesHaveBeenOverwrittenByAnotherCopy_statesShouldBeRecalculated() {
+        VehicleRoute route = createRoute(20);
+        stateManager.informInsertionStarts(Arrays.asList(route), new ArrayList<Job>());
+
+        stateManager.informIterationStarts(1, vrp, null);
+        VehicleRoute ruinedCopy = VehicleRoute.copyOf(route);
+        ruinedCopy.getTourActivities().removeJob(((TourActivity.JobActivity) ruinedCopy.getActivities().get(0)).getJob());
+        stateManager.informInsertionStarts(Arrays.asList(ruinedCopy), new ArrayList<Job>());
+
+        stateManager.informIterationStarts(2, vrp, null);
+        VehicleRoute copiedRoute = VehicleRoute.copyOf(route);
+        costs.nuQueries = 0;
+        stateManager.informInsertionStarts(Arrays.asList(copiedRoute), new ArrayList<Job>());
+        assertTrue(costs.nuQueries > 0);
+        List<Object> states = getStates(copiedRoute);
+        stateManager.reCalculateStates(copiedRoute);
+        assertEquals(getStates(copiedRoute), states);
+    }
+
+    private List<Object> getStates(VehicleRoute route) {
+        List<Object> states = new ArrayList<Object>();
+        for (TourActivity act : route.getActivities()) {
+            states.add(act.getArrTime());
+            states.add(act.getEndTime());
+            states.add(stateManager.getActivityState(act, InternalStates.COSTS, Double.class));
+            states.add(stateManager.getActivityState(act, InternalStates.LOAD, Capacity.class));
+            states.add(stateManager.getActivityState(act, InternalStates.PAST_MAXLOAD, Capacity.class));
+            states.add(stateManager.getActivityState(act, InternalStates.FUTURE_MAXLOAD, Capacity.class));
+            states.add(stateManager.getActivityState(act, route.getVehicle(), InternalStates.FUTURE_WAITING, Double.class));
+            for (Vehicle v : Arrays.asList(vehicle, otherVehicle)) {
+                states.add(stateManager.getActivityState(act, v, InternalStates.LATEST_OPERATION_START_TIME, Double.class));
+            }
+        }
+        states.add(route.getEnd().getArrTime());
+        states.add(stateManager.getRouteState(route, InternalStates.COSTS, Double.class));
+        states.add(stateManager.getRouteState(route, InternalStates.MAXLOAD, Capacity.class));
+        states.add(stateManager.getRouteState(route, InternalStates.LOAD_AT_BEGINNING, Capacity.class));
+        states.add(stateManager.getRouteState(route, InternalStates.LOAD_AT_END, Capacity.class));
+        states.add(stateManager.getRouteState(route, InternalStates.SKILLS, Skills.class));
+        return states;
+    }
+
+}
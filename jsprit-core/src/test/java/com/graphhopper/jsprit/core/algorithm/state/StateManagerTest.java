@@ -27,6 +27,7 @@ import com.graphhopper.jsprit.core.problem.vehicle.Vehicle;
 import com.graphhopper.jsprit.core.problem.vehicle.VehicleImpl;
 import com.graphhopper.jsprit.core.problem.vehicle.VehicleType;
 import com.graphhopper.jsprit.core.problem.vehicle.VehicleTypeImpl;
+import com.graphhopper.jsprit.core.problem.solution.route.state.RouteAndActivityStateGetter;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
@@ -336,6 +337,162 @@ public class StateManagerTest {
         assertNull(stateManager.getActivityState(act, vehicle2, id, Double.class));
     }
 
+    @Test
+    public void whenDoubleActivityStateIsSet_itMustBeSetCorrectly() {
+        TourActivity activity = mock(TourActivity.class);
+        when(activity.getIndex()).thenReturn(1);
+        StateManager stateManager = new StateManager(vrpMock);
+        StateId id = stateManager.createStateId("myState");
+        stateManager.putDoubleActivityState(activity, id, 10.);
+        assertEquals(10., stateManager.getDoubleActivityState(activity, id, 0.), 0.01);
+        assertEquals(10., stateManager.getActivityState(activity, id, Double.class), 0.01);
+    }
+
+    @Test
+    public void whenDoubleActivityStateIsNotSet_itShouldReturnDefault() {
+        TourActivity activity = mock(TourActivity.class);
+        when(activity.getIndex()).thenReturn(1);
+        StateManager stateManager = new StateManager(vrpMock);
+        StateId id = stateManager.createStateId("myState");
+        assertEquals(-1., stateManager.getDoubleActivityState(activity, id, -1.), 0.01);
+        assertNull(stateManager.getActivityState(activity, id, Double.class));
+    }
+
+    @Test
+    public void whenActivityStateIsSetWithGenericMethodAndDouble_itShouldBeReturnedAsDoubleState() {
+        TourActivity activity = mock(TourActivity.class);
+        when(activity.getIndex()).thenReturn(1);
+        StateManager stateManager = new StateManager(vrpMock);
+        StateId id = stateManager.createStateId("myState");
+        stateManager.putActivityState(activity, id, 5.);
+        assertEquals(5., stateManager.getDoubleActivityState(activity, id, 0.), 0.01);
+        stateManager.putDoubleActivityState(activity, id, 7.);
+        assertEquals(7., stateManager.getActivityState(activity, id, Double.class), 0.01);
+    }
+
+    @Test
+    public void whenVehicleDependentDoubleStatesAreSet_theyMustBeSetCorrectly() {
+        VehicleType type = VehicleTypeImpl.Builder.newInstance("t").setCostPerDistance(4.).build();
+        VehicleImpl vehicle = VehicleImpl.Builder.newInstance("v").setStartLocation(Location.newInstance("loc")).build();
+        VehicleImpl vehicle2 = VehicleImpl.Builder.newInstance("v2").setStartLocation(Location.newInstance("loc")).setType(type).build();
+        VehicleRoutingProblem vrp = VehicleRoutingProblem.Builder.newInstance().addVehicle(vehicle).addVehicle(vehicle2).build();
+        VehicleRoute route = getRoute(vehicle);
+        TourActivity act = mock(TourActivity.class);
+        when(act.getIndex()).thenReturn(1);
+
+        StateManager stateManager = new StateManager(vrp);
+        StateId id = stateManager.createStateId("vehicleParam");
+        stateManager.putDoubleActivityState(act, vehicle, id, 1.);
+        stateManager.putDoubleActivityState(act, vehicle2, id, 4.);
+        stateManager.putDoubleRouteState(route, vehicle, id, 2.);
+        stateManager.putDoubleRouteState(route, vehicle2, id, 8.);
+
+        assertEquals(1., stateManager.getDoubleActivityState(act, vehicle, id, 0.), 0.01);
+        assertEquals(4., stateManager.getDoubleActivityState(act, vehicle2, id, 0.), 0.01);
+        assertEquals(2., stateManager.getDoubleRouteState(route, vehicle, id, 0.), 0.01);
+        assertEquals(8., stateManager.getRouteState(route, vehicle2, id, Double.class), 0.01);
+        assertTrue(stateManager.hasActivityState(act, vehicle, id));
+        assertTrue(stateManager.hasRouteState(route, vehicle2, id));
+    }
+
+    @Test
+    public void whenClearing_doubleStatesShouldBeReset() {
+        VehicleImpl vehicle = VehicleImpl.Builder.newInstance("v").setStartLocation(Location.newInstance("loc")).build();
+        VehicleRoutingProblem vrp = VehicleRoutingProblem.Builder.newInstance().addVehicle(vehicle).build();
+        VehicleRoute route = getRoute(vehicle);
+        TourActivity act = mock(TourActivity.class);
+        when(act.getIndex()).thenReturn(1);
+
+        StateManager stateManager = new StateManager(vrp);
+        StateId id = stateManager.createStateId("myState");
+        stateManager.putDoubleActivityState(act, id, 1.);
+        stateManager.putDoubleActivityState(act, vehicle, id, 2.);
+        stateManager.putDoubleRouteState(route, id, 3.);
+
+        stateManager.clear();
+
+        assertEquals(0., stateManager.getDoubleActivityState(act, id, 0.), 0.01);
+        assertFalse(stateManager.hasActivityState(act, vehicle, id));
+        assertNull(stateManager.getRouteState(route, id, Double.class));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void whenPuttingDoubleStateWithReservedId_itShouldThrowException() {
+        TourActivity activity = mock(TourActivity.class);
+        when(activity.getIndex()).thenReturn(1);
+        StateManager stateManager = new StateManager(vrpMock);
+        stateManager.putDoubleActivityState(activity, InternalStates.COSTS, 1.);
+    }
+
+    @Test
+    public void whenRouteStatesAreSetForManyRoutes_theyMustBeSetCorrectly() {
+        VehicleImpl vehicle = VehicleImpl.Builder.newInstance("v").setStartLocation(Location.newInstance("loc")).build();
+        VehicleRoutingProblem vrp = VehicleRoutingProblem.Builder.newInstance().addVehicle(vehicle).build();
+        StateManager stateManager = new StateManager(vrp);
+        StateId id = stateManager.createStateId("myState");
+        List<VehicleRoute> routes = new ArrayList<VehicleRoute>();
+        for (int i = 0; i < 100; i++) {
+            VehicleRoute route = getRoute(vehicle);
+            stateManager.putRouteState(route, id, i);
+            stateManager.putDoubleRouteState(route, vehicle, id, i);
+            routes.add(route);
+        }
+        for (int i = 0; i < 100; i++) {
+            assertEquals(i, routes.get(i).getIndex());
+            assertEquals(i, (int) stateManager.getRouteState(routes.get(i), id, Integer.class));
+            assertEquals(i, stateManager.getDoubleRouteState(routes.get(i), vehicle, id, -1.), 0.01);
+        }
+    }
+
+    @Test
+    public void whenRouteIsCopied_itsCopyShouldNotHaveStates() {
+        VehicleRoute route = getRoute(mock(Vehicle.class));
+        StateManager stateManager = new StateManager(vrpMock);
+        StateId id = stateManager.createStateId("myState");
+        stateManager.putRouteState(route, id, true);
+        VehicleRoute copiedRoute = VehicleRoute.copyOf(route);
+        assertNull(stateManager.getRouteState(copiedRoute, id, Boolean.class));
+        assertTrue(stateManager.getRouteState(route, id, Boolean.class));
+    }
+
+    @Test
+    public void whenClearing_routeStatesShouldBeNullAndIndicesReassigned() {
+        VehicleRoute route = getRoute(mock(Vehicle.class));
+        VehicleRoute otherRoute = getRoute(mock(Vehicle.class));
+        StateManager stateManager = new StateManager(vrpMock);
+        StateId id = stateManager.createStateId("myState");
+        stateManager.putRouteState(route, id, true);
+        stateManager.clear();
+        assertNull(stateManager.getRouteState(route, id, Boolean.class));
+        stateManager.putRouteState(otherRoute, id, false);
+        assertEquals(route.getIndex(), otherRoute.getIndex());
+        assertNull(stateManager.getRouteState(route, id, Boolean.class));
+        assertFalse(stateManager.getRouteState(otherRoute, id, Boolean.class));
+    }
+
+    @Test
+    public void whenClearingAndWritingAnotherState_clearedStatesShouldNotReappear() {
+        VehicleImpl vehicle = VehicleImpl.Builder.newInstance("v").setStartLocation(Location.newInstance("loc")).build();
+        VehicleRoutingProblem vrp = VehicleRoutingProblem.Builder.newInstance().addVehicle(vehicle).build();
+        TourActivity act = mock(TourActivity.class);
+        when(act.getIndex()).thenReturn(1);
+
+        StateManager stateManager = new StateManager(vrp);
+        StateId id = stateManager.createStateId("myState");
+        StateId otherId = stateManager.createStateId("myOtherState");
+        stateManager.putActivityState(act, id, 1);
+        stateManager.putDoubleActivityState(act, vehicle, id, 2.);
+
+        stateManager.clear();
+        stateManager.putActivityState(act, otherId, 3);
+        stateManager.putDoubleActivityState(act, vehicle, otherId, 4.);
+
+        assertNull(stateManager.getActivityState(act, id, Integer.class));
+        assertEquals(-1., stateManager.getDoubleActivityState(act, vehicle, id, -1.), 0.01);
+        assertEquals(3, (int) stateManager.getActivityState(act, otherId, Integer.class));
+        assertEquals(4., stateManager.getDoubleActivityState(act, vehicle, otherId, -1.), 0.01);
+    }
+
     @Test
     public void arrayIniShouldWork(){
         VehicleType type = VehicleTypeImpl.Builder.newInstance("t").setCostPerDistance(4.).build();
@@ -356,4 +513,54 @@ public class StateManagerTest {
         }
         stateManager.putTypedInternalRouteState(route,myState,1.);
     }
+
+    @Test
+    public void whenDoubleStateIsRequestedAsSupertypeOfDouble_itShouldBeReturned() {
+        TourActivity act = mock(TourActivity.class);
+        when(act.getIndex()).thenReturn(1);
+        VehicleRoute route = getRoute(mock(Vehicle.class));
+        StateManager stateManager = new StateManager(vrpMock);
+        StateId id = stateManager.createStateId("myState");
+        stateManager.putDoubleActivityState(act, id, 2.);
+        stateManager.putDoubleRouteState(route, id, 3.);
+        assertEquals(2., stateManager.getActivityState(act, id, Number.class).doubleValue(), 0.01);
+        assertEquals(2., stateManager.getActivityState(act, id, Object.class));
+        assertEquals(3., stateManager.getRouteState(route, id, Number.class).doubleValue(), 0.01);
+    }
+
+    @Test
+    public void defaultDoubleGettersShouldDelegateToGenericGetters() {
+        RouteAndActivityStateGetter getter = new RouteAndActivityStateGetter() {
+
+            @Override
+            public <T> T getActivityState(TourActivity act, StateId stateId, Class<T> type) {
+                return type.cast(2.);
+            }
+
+            @Override
+            public <T> T getActivityState(TourActivity act, Vehicle vehicle, StateId stateId, Class<T> type) {
+                return null;
+            }
+
+            @Override
+            public <T> T getRouteState(VehicleRoute route, StateId stateId, Class<T> type) {
+                return type.cast(3.);
+            }
+
+            @Override
+            public <T> T getRouteState(VehicleRoute route, Vehicle vehicle, StateId stateId, Class<T> type) {
+                return type.cast(Double.NaN);
+            }
+
+        };
+        TourActivity act = mock(TourActivity.class);
+        VehicleRoute route = mock(VehicleRoute.class);
+        Vehicle vehicle = mock(Vehicle.class);
+        StateId id = StateFactory.createId("myState", 30);
+        assertEquals(2., getter.getDoubleActivityState(act, id, -1.), 0.01);
+        assertEquals(-1., getter.getDoubleActivityState(act, vehicle, id, -1.), 0.01);
+        assertEquals(3., getter.getDoubleRouteState(route, id, -1.), 0.01);
+        assertEquals(-1., getter.getDoubleRouteState(route, vehicle, id, -1.), 0.01);
+    }
+
 }
@@ -17,6 +17,122 @@
  */
 package com.graphhopper.jsprit.core.algorithm.state;
 
+import com.graphhopper.jsprit.core.problem.Location;
+import com.graphhopper.jsprit.core.problem.VehicleRoutingProblem;
+import com.graphhopper.jsprit.core.problem.cost.AbstractForwardVehicleRoutingTransportCosts;
+import com.graphhopper.jsprit.core.problem.cost.CombinedTransportCosts;
+import com.graphhopper.jsprit.core.problem.cost.TransportCostsHolder;
+import com.graphhopper.jsprit.core.problem.cost.VehicleRoutingTransportCosts;
+import com.graphhopper.jsprit.core.problem.cost.WaitingTimeCosts;
+import com.graphhopper.jsprit.core.problem.driver.Driver;
+import com.graphhopper.jsprit.core.problem.job.Service;
+import com.graphhopper.jsprit.core.problem.solution.route.RouteActivityVisitor;
+import com.graphhopper.jsprit.core.problem.solution.route.VehicleRoute;
+import com.graphhopper.jsprit.core.problem.vehicle.Vehicle;
+import com.graphhopper.jsprit.core.problem.vehicle.VehicleImpl;
+import com.graphhopper.jsprit.core.problem.vehicle.VehicleTypeImpl;
+import com.graphhopper.jsprit.core.util.EuclideanDistanceCalculator;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
 public class UpdateVariableCostsTest {
 
+    static class CountingCosts extends AbstractForwardVehicleRoutingTransportCosts {
+
+        int nuSingleQueries;
+
+        @Override
+        public double getDistance(Location from, Location to, double departureTime, Vehicle vehicle) {
+            nuSingleQueries++;
+            return EuclideanDistanceCalculator.calculateDistance(from.getCoordinate(), to.getCoordinate());
+        }
+
+        @Override
+        public double getTransportTime(Location from, Location to, double departureTime, Driver driver, Vehicle vehicle) {
+            return getDistance(from, to, departureTime, vehicle);
+        }
+
+        @Override
+        public double getTransportCost(Location from, Location to, double departureTime, Driver driver, Vehicle vehicle) {
+            return vehicle.getType().getVehicleCostParams().perDistanceUnit * getDistance(from, to, departureTime, vehicle);
+        }
+    }
+
+    static class CountingCombinedCosts extends CountingCosts implements CombinedTransportCosts {
+
+        int nuCombinedQueries;
+
+        @Override
+        public void getTransportCosts(Location from, Location to, double departureTime, Driver driver, Vehicle vehicle, TransportCostsHolder holder) {
+            nuCombinedQueries++;
+            double distance = EuclideanDistanceCalculator.calculateDistance(from.getCoordinate(), to.getCoordinate());
+            holder.set(distance, distance, vehicle.getType().getVehicleCostParams().perDistanceUnit * distance);
+        }
+    }
+
+    private VehicleRoutingProblem vrp;
+
+    private VehicleRoute route;
+
+    @Before
+    public void doBefore() {
+        VehicleImpl vehicle = VehicleImpl.Builder.newInstance("v").setStartLocation(Location.newInstance(0, 0))
+            .setType(VehicleTypeImpl.Builder.newInstance("t").setCostPerDistance(2.).build()).build();
+        VehicleRoutingProblem.Builder vrpBuilder = VehicleRoutingProblem.Builder.newInstance().addVehicle(vehicle);
+        VehicleRoute.Builder routeBuilder = VehicleRoute.Builder.newInstance(vehicle);
+        for (int i = 0; i < 3; i++) {
+            Service service = Service.Builder.newInstance("s" + i).setLocation(Location.newInstance(10 * i + 5, i)).setServiceTime(3.).build();
+            vrpBuilder.addJob(service);
+        }
+        vrpBuilder.addJob(Service.Builder.newInstance("z").setLocation(Location.newInstance(5, 0)).build());
+        vrp = vrpBuilder.build();
+        routeBuilder.setJobActivityFactory(vrp.getJobActivityFactory());
+        for (int i = 0; i < 3; i++) routeBuilder.addService((Service) vrp.getJobs().get("s" + i));
+        route = routeBuilder.build();
+    }
+
+    private double updateCosts(VehicleRoutingTransportCosts transportCosts) {
+        StateManager stateManager = new StateManager(vrp);
+        RouteActivityVisitor visitor = new RouteActivityVisitor();
+        visitor.addActivityVisitor(new UpdateVariableCosts(new WaitingTimeCosts(), transportCosts, stateManager));
+        visitor.visit(route);
+        return stateManager.getRouteState(route, InternalStates.COSTS, Double.class);
+    }
+
+    @Test
+    public void whenTransportCostsAnswerCombinedQueries_eachLegShouldBeQueriedOnce() {
+        CountingCombinedCosts combinedCosts = new CountingCombinedCosts();
+        double costs = updateCosts(combinedCosts);
+        assertEquals(4, combinedCosts.nuCombinedQueries);
+        assertEquals(0, combinedCosts.nuSingleQueries);
+        assertEquals(updateCosts(new CountingCosts()), costs, 0.001);
+    }
+
+    @Test
+    public void whenTransportCostsDoNotAnswerCombinedQueries_timeAndCostsShouldBeQueriedSeparately() {
+        CountingCosts costs = new CountingCosts();
+        updateCosts(costs);
+        assertEquals(8, costs.nuSingleQueries);
+    }
+
+    @Test
+    public void whenInsertionDoesNotChangeCostsAndTimesOfSubsequentActivity_updateShouldStopThere() {
+        CountingCosts costs = new CountingCosts();
+        StateManager stateManager = new StateManager(vrp);
+        RouteActivityVisitor visitor = new RouteActivityVisitor();
+        visitor.addActivityVisitor(new UpdateVariableCosts(new WaitingTimeCosts(), costs, stateManager));
+        visitor.visit(route);
+        double costsBefore = stateManager.getRouteState(route, InternalStates.COSTS, Double.class);
+
+        route.getTourActivities().addActivity(1, vrp.copyAndGetActivities(vrp.getJobs().get("z")).get(0));
+        costs.nuSingleQueries = 0;
+        visitor.visit(route, 1, 1);
+
+        assertEquals(4, costs.nuSingleQueries);
+        assertEquals(costsBefore, stateManager.getRouteState(route, InternalStates.COSTS, Double.class), 0.001);
+        assertEquals(costsBefore, updateCosts(new CountingCosts()), 0.001);
+    }
+
 }
@@ -0,0 +1,155 @@
+/*
+ * Licensed to GraphHopper GmbH under one or more contributor
+ * license agreements. See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ *
+ * GraphHopper GmbH licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.graphhopper.jsprit.core.problem.solution;
+
+import com.graphhopper.jsprit.core.problem.Location;
+import com.graphhopper.jsprit.core.problem.VehicleRoutingProblem;
+import com.graphhopper.jsprit.core.problem.job.Service;
+import com.graphhopper.jsprit.core.problem.solution.route.VehicleRoute;
+import com.graphhopper.jsprit.core.problem.solution.route.activity.TourActivity;
+import com.graphhopper.jsprit.core.problem.vehicle.VehicleImpl;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class SolutionIndexTest {
+
+    private VehicleRoutingProblem vrp;
+
+    private Service s1;
+
+    private Service s2;
+
+    private Service s3;
+
+    private VehicleRoute route1;
+
+    private VehicleRoute route2;
+
+    private SolutionIndex index;
+
+    @Before
+    public void doBefore() {
+        VehicleImpl v1 = VehicleImpl.Builder.newInstance("v1").setStartLocation(Location.newInstance(0, 0)).build();
+        VehicleImpl v2 = VehicleImpl.Builder.newInstance("v2").setStartLocation(Location.newInstance(0, 0)).build();
+        s1 = Service.Builder.newInstance("s1").setLocation(Location.newInstance(1, 0)).build();
+        s2 = Service.Builder.newInstance("s2").setLocation(Location.newInstance(2, 0)).build();
+        s3 = Service.Builder.newInstance("s3").setLocation(Location.newInstance(3, 0)).build();
+        vrp = VehicleRoutingProblem.Builder.newInstance().addVehicle(v1).addVehicle(v2).addJob(s1).addJob(s2).addJob(s3).build();
+        route1 = VehicleRoute.Builder.newInstance(v1).setJobActivityFactory(vrp.getJobActivityFactory()).addService(s1).addService(s2).build();
+        route2 = VehicleRoute.Builder.newInstance(v2).setJobActivityFactory(vrp.getJobActivityFactory()).addService(s3).build();
+        index = new SolutionIndex(vrp);
+        index.build(Arrays.asList(route1, route2));
+    }
+
+    @Test
+    public void jobsShouldBeMappedToTheirRoutes() {
+        assertSame(route1, index.getRoute(s1));
+        assertSame(route1, index.getRoute(s2));
+        assertSame(route2, index.getRoute(s3));
+    }
+
+    @Test
+    public void activitiesShouldBeMappedToTheirPositions() {
+        assertEquals(0, index.getPosition(vrp.getActivities(s1).get(0)));
+        assertEquals(1, index.getPosition(vrp.getActivities(s2).get(0)));
+        assertEquals(0, index.getPosition(vrp.getActivities(s3).get(0)));
+    }
+
+    @Test
+    public void whenJobIsRemoved_itShouldNotBeIndexedAnymoreAndPositionsShouldBeUpdated() {
+        route1.getTourActivities().removeJob(s1);
+        index.informJobRemoved(s1, route1);
+        assertNull(index.getRoute(s1));
+        assertEquals(-1, index.getPosition(vrp.getActivities(s1).get(0)));
+        assertEquals(0, index.getPosition(vrp.getActivities(s2).get(0)));
+    }
+
+    @Test
+    public void whenJobIsMovedToAnotherRoute_itShouldBeIndexedThere() {
+        route1.getTourActivities().removeJob(s1);
+        index.informJobRemoved(s1, route1);
+        TourActivity act = vrp.copyAndGetActivities(s1).get(0);
+        route2.getTourActivities().addActivity(0, act);
+        index.informJobInserted(s1, route2);
+        assertSame(route2, index.getRoute(s1));
+        assertEquals(0, index.getPosition(act));
+        assertEquals(1, index.getPosition(vrp.getActivities(s3).get(0)));
+    }
+
+    @Test
+    public void whenIndexIsBuiltWithUnchangedCopies_copiesShouldBeIndexed() {
+        VehicleRoute copy1 = VehicleRoute.copyOf(route1);
+        VehicleRoute copy2 = VehicleRoute.copyOf(route2);
+        index.build(Arrays.asList(copy2, copy1));
+        assertSame(copy1, index.getRoute(s1));
+        assertSame(copy1, index.getRoute(s2));
+        assertSame(copy2, index.getRoute(s3));
+        assertEquals(1, index.getPosition(vrp.getActivities(s2).get(0)));
+    }
+
+    @Test
+    public void whenIndexIsBuiltWithChangedCopies_theyShouldBeIndexedAnew() {
+        VehicleRoute copy1 = VehicleRoute.copyOf(route1);
+        VehicleRoute copy2 = VehicleRoute.copyOf(route2);
+        copy1.getTourActivities().removeJob(s1);
+        copy2.getTourActivities().addActivity(1, vrp.copyAndGetActivities(s1).get(0));
+        index.build(Arrays.asList(copy1, copy2));
+        assertSame(copy2, index.getRoute(s1));
+        assertSame(copy1, index.getRoute(s2));
+        assertEquals(1, index.getPosition(vrp.getActivities(s1).get(0)));
+        assertEquals(0, index.getPosition(vrp.getActivities(s2).get(0)));
+    }
+
+    @Test
+    public void whenRouteIsNotPartOfSolutionAnymore_itsJobsShouldNotBeIndexed() {
+        index.build(Arrays.asList(VehicleRoute.copyOf(route2)));
+        assertNull(index.getRoute(s1));
+        assertEquals(-1, index.getPosition(vrp.getActivities(s1).get(0)));
+        index.build(Arrays.asList(route1, route2));
+        assertSame(route1, index.getRoute(s1));
+    }
+
+    @Test
+    public void whenModifiedRouteIsCopied_copyShouldTakeOverTheUpdatedIndex() {
+        route1.getTourActivities().removeJob(s1);
+        index.informJobRemoved(s1, route1);
+        VehicleRoute copy1 = VehicleRoute.copyOf(route1);
+        index.build(Arrays.asList(copy1, route2));
+        assertNull(index.getRoute(s1));
+        assertSame(copy1, index.getRoute(s2));
+        assertEquals(0, index.getPosition(vrp.getActivities(s2).get(0)));
+    }
+
+    @Test
+    public void whenCopyHasTakenOverTheSlotOfItsOriginal_informingAboutTheOriginalShouldBeIgnored() {
+        VehicleRoute copy1 = VehicleRoute.copyOf(route1);
+        index.build(Arrays.asList(copy1, route2));
+        route1.getTourActivities().removeJob(s1);
+        index.informJobRemoved(s1, route1);
+        assertSame(copy1, index.getRoute(s1));
+        assertEquals(0, index.getPosition(vrp.getActivities(s1).get(0)));
+        assertEquals(1, index.getPosition(vrp.getActivities(s2).get(0)));
+    }
+
+}
@@ -18,12 +18,17 @@
 package com.graphhopper.jsprit.core.problem.solution.route.activity;
 
 import com.graphhopper.jsprit.core.problem.Location;
+import com.graphhopper.jsprit.core.problem.VehicleRoutingProblem;
+import com.graphhopper.jsprit.core.problem.job.Job;
 import com.graphhopper.jsprit.core.problem.job.Service;
 import com.graphhopper.jsprit.core.problem.job.Shipment;
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.Mockito;
 
+import java.util.Collection;
+import java.util.List;
+
 import static org.junit.Assert.*;
 
 
@@ -249,4 +254,70 @@ public class TestTourActivities {
         assertTrue(copiedTour.servesJob(s));
     }
 
+    @Test
+    public void whenCopyIsNotModified_itShouldShareActivitiesWithOriginal() {
+        tour.addActivity(act);
+        TourActivities copiedTour = TourActivities.copyOf(tour);
+        assertSame(act, copiedTour.getActivities().get(0));
+        assertEquals(tour.getVersion(), copiedTour.getVersion());
+    }
+
+    @Test
+    public void whenCopyIsModified_originalShouldNotChange() {
+        tour.addActivity(act);
+        TourActivities copiedTour = TourActivities.copyOf(tour);
+        Service otherService = Service.Builder.newInstance("other").setLocation(Location.newInstance("otherLoc")).build();
+        ServiceActivity otherAct = ServiceActivity.newInstance(otherService);
+        copiedTour.addActivity(0, otherAct);
+
+        assertEquals(1, tour.getActivities().size());
+        assertSame(act, tour.getActivities().get(0));
+        assertFalse(tour.servesJob(otherService));
+        assertEquals(2, copiedTour.getActivities().size());
+        assertTrue(copiedTour.servesJob(otherService));
+        assertNotSame(act, copiedTour.getActivities().get(1));
+        assertNotEquals(tour.getVersion(), copiedTour.getVersion());
+    }
+
+    @Test
+    public void whenOriginalIsModified_copyShouldNotChange() {
+        tour.addActivity(act);
+        TourActivities copiedTour = TourActivities.copyOf(tour);
+        assertTrue(tour.removeActivity(act));
+
+        assertTrue(tour.isEmpty());
+        assertSame(act, copiedTour.getActivities().get(0));
+        assertTrue(copiedTour.servesJob(service));
+    }
+
+    @Test
+    public void viewsShouldReflectModificationsOfSharedSequence() {
+        tour.addActivity(act);
+        TourActivities copiedTour = TourActivities.copyOf(tour);
+        List<TourActivity> activities = copiedTour.getActivities();
+        Collection<Job> jobs = copiedTour.getJobs();
+        copiedTour.removeJob(service);
+
+        assertTrue(activities.isEmpty());
+        assertTrue(jobs.isEmpty());
+        assertEquals(1, tour.getActivities().size());
+    }
+
+    @Test
+    public void whenSharedSequenceIsModified_activitiesObtainedBeforeShouldStillBeRemovable() {
+        Service otherService = Service.Builder.newInstance("other").setLocation(Location.newInstance("otherLoc")).build();
+        VehicleRoutingProblem vrp = VehicleRoutingProblem.Builder.newInstance().addJob(service).addJob(otherService).build();
+        TourActivity serviceAct = vrp.copyAndGetActivities(service).get(0);
+        TourActivity otherAct = vrp.copyAndGetActivities(otherService).get(0);
+        tour.addActivity(serviceAct);
+        tour.addActivity(otherAct);
+        TourActivities copiedTour = TourActivities.copyOf(tour);
+
+        assertTrue(copiedTour.removeActivity(serviceAct));
+        assertTrue(copiedTour.removeActivity(otherAct));
+        assertTrue(copiedTour.isEmpty());
+        assertFalse(copiedTour.servesJob(otherService));
+        assertEquals(2, tour.getActivities().size());
+    }
+
 }
@@ -18,12 +18,15 @@
 package com.graphhopper.jsprit.core.util;
 
 import com.graphhopper.jsprit.core.problem.Location;
+import com.graphhopper.jsprit.core.problem.cost.TransportCostsHolder;
 import com.graphhopper.jsprit.core.problem.vehicle.Vehicle;
 import com.graphhopper.jsprit.core.problem.vehicle.VehicleType;
 import com.graphhopper.jsprit.core.problem.vehicle.VehicleTypeImpl;
 import org.junit.Test;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
@@ -109,5 +112,101 @@ public class FastVehicleRoutingTransportCostsMatrixTest {
         assertEquals(16., matrix.getTransportCost(loc(2), loc(1), 0.0, null, vehicle), 0.1);
     }
 
+    @Test
+    public void whenFillingEveryRelation_eachRelationShouldReturnItsOwnValues() {
+        for (boolean floatPrecision : new boolean[]{false, true}) {
+            FastVehicleRoutingTransportCostsMatrix.Builder matrixBuilder = FastVehicleRoutingTransportCostsMatrix.Builder.newInstance(5, false, floatPrecision);
+            for (int from = 0; from < 5; from++) {
+                for (int to = 0; to < 5; to++) {
+                    matrixBuilder.addTransportTimeAndDistance(from, to, 10 * from + to, 100 * from + to);
+                }
+            }
+            FastVehicleRoutingTransportCostsMatrix matrix = matrixBuilder.build();
+            for (int from = 0; from < 5; from++) {
+                for (int to = 0; to < 5; to++) {
+                    assertEquals(10 * from + to, matrix.getTransportTime(from, to), 0.001);
+                    assertEquals(100 * from + to, matrix.getDistance(from, to), 0.001);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void whenFillingSymmetricMatrixWithFloatPrecision_itShouldReturnCorrectValues() {
+        FastVehicleRoutingTransportCostsMatrix.Builder matrixBuilder = FastVehicleRoutingTransportCostsMatrix.Builder.newInstance(4, true, true);
+        for (int from = 0; from < 4; from++) {
+            for (int to = from; to < 4; to++) {
+                matrixBuilder.addTransportTimeAndDistance(to, from, from + to, 1000.5 * (from + 1) * (to + 1));
+            }
+        }
+        FastVehicleRoutingTransportCostsMatrix matrix = matrixBuilder.build();
+        assertTrue(matrix.isFloatPrecision());
+        for (int from = 0; from < 4; from++) {
+            for (int to = 0; to < 4; to++) {
+                assertEquals(from + to, matrix.getTransportTime(from, to), 0.001);
+                assertEquals(1000.5 * (from + 1) * (to + 1), matrix.getDistance(from, to), 0.001);
+            }
+        }
+        assertEquals(1000.5 * 12, matrix.getMatrix()[2][3][0], 0.001);
+        assertEquals(5., matrix.getMatrix()[2][3][1], 0.001);
+        assertSame(matrix.getMatrix(), matrix.getMatrix());
+    }
+
+    @Test
+    public void combinedQueriesShouldReturnSameValuesAsSingleQueries() {
+        FastVehicleRoutingTransportCostsMatrix.Builder matrixBuilder = FastVehicleRoutingTransportCostsMatrix.Builder.newInstance(3, true);
+        matrixBuilder.addTransportTimeAndDistance(0, 1, 2., 3.);
+        matrixBuilder.addTransportTimeAndDistance(0, 2, 4., 5.);
+        matrixBuilder.addTransportTimeAndDistance(1, 2, 6., 7.);
+        FastVehicleRoutingTransportCostsMatrix matrix = matrixBuilder.build();
+        Vehicle vehicle = mock(Vehicle.class);
+        VehicleType type = VehicleTypeImpl.Builder.newInstance("t").setCostPerDistance(1.).setCostPerTime(2.).build();
+        when(vehicle.getType()).thenReturn(type);
+
+        TransportCostsHolder holder = new TransportCostsHolder();
+        matrix.getTransportCosts(loc(2), loc(1), 0., null, vehicle, holder);
+        assertEquals(6., holder.getTransportTime(), 0.001);
+        assertEquals(7., holder.getDistance(), 0.001);
+        assertEquals(matrix.getTransportCost(loc(2), loc(1), 0., null, vehicle), holder.getTransportCost(), 0.001);
+    }
+
+    @Test
+    public void whenModifyingLegacyMatrix_valuesOfMatrixShouldChange() {
+        FastVehicleRoutingTransportCostsMatrix.Builder matrixBuilder = FastVehicleRoutingTransportCostsMatrix.Builder.newInstance(4, true);
+        matrixBuilder.addTransportTimeAndDistance(1, 3, 2., 3.);
+        FastVehicleRoutingTransportCostsMatrix matrix = matrixBuilder.build();
+        int relation = matrix.getRelationIndex(3, 1);
+
+        matrix.getMatrix()[1][3][0] = 30.;
+        matrix.getMatrix()[1][3][1] = 20.;
+
+        assertEquals(30., matrix.getDistance(3, 1), 0.001);
+        assertEquals(20., matrix.getTransportTime(1, 3), 0.001);
+        assertEquals(30., matrix.getDistanceOfRelation(relation), 0.001);
+        assertEquals(20., matrix.getTransportTimeOfRelation(relation), 0.001);
+        TransportCostsHolder holder = new TransportCostsHolder();
+        matrix.getTransportCosts(loc(3), loc(1), 0., null, null, holder);
+        assertEquals(30., holder.getTransportCost(), 0.001);
+    }
+
+    @Test
+    public void whenModifyingLegacyMatrixOfAsymmetricMatrix_valuesOfMatrixShouldChange() {
+        FastVehicleRoutingTransportCostsMatrix matrix = FastVehicleRoutingTransportCostsMatrix.Builder.newInstance(3, false).build();
+        matrix.getMatrix()[2][1][0] = 5.;
+        assertEquals(5., matrix.getDistance(2, 1), 0.001);
+        assertEquals(0., matrix.getDistance(1, 2), 0.001);
+        assertEquals(5., matrix.getDistanceOfRelation(matrix.getRelationIndex(2, 1)), 0.001);
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void whenRelationIsOutOfBounds_itShouldThrowException() {
+        FastVehicleRoutingTransportCostsMatrix matrix = FastVehicleRoutingTransportCostsMatrix.Builder.newInstance(3, false).build();
+        matrix.getDistance(0, 3);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void whenMatrixIsTooLarge_itShouldThrowException() {
+        FastVehicleRoutingTransportCostsMatrix.Builder.newInstance(50000, false, true);
+    }
 
 }
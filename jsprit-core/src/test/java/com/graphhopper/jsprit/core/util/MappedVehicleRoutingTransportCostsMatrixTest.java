@@ -0,0 +1,139 @@
+/*
+ * Licensed to GraphHopper GmbH under one or more contributor
+ * license agreements. See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ *
+ * GraphHopper GmbH licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.graphhopper.jsprit.core.util;
+
+import com.graphhopper.jsprit.core.problem.Location;
+import com.graphhopper.jsprit.core.problem.vehicle.Vehicle;
+import com.graphhopper.jsprit.core.problem.vehicle.VehicleType;
+import com.graphhopper.jsprit.core.problem.vehicle.VehicleTypeImpl;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class MappedVehicleRoutingTransportCostsMatrixTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void whenWritingAsymmetricMatrix_mappedMatrixShouldReturnSameValues() throws IOException {
+        FastVehicleRoutingTransportCostsMatrix matrix = createMatrix(7, false);
+        File file = folder.newFile();
+        new MappedVehicleRoutingTransportCostsMatrixWriter(false).write(matrix, file);
+        MappedVehicleRoutingTransportCostsMatrix mapped = MappedVehicleRoutingTransportCostsMatrix.newInstance(file);
+        assertEquals(7, mapped.getNoLocations());
+        assertFalse(mapped.isSymmetric());
+        assertSameValues(matrix, mapped);
+    }
+
+    @Test
+    public void whenWritingSymmetricMatrixWithFloatPrecision_mappedMatrixShouldReturnSameValues() throws IOException {
+        FastVehicleRoutingTransportCostsMatrix matrix = createMatrix(7, true);
+        File file = folder.newFile();
+        new MappedVehicleRoutingTransportCostsMatrixWriter(true).write(matrix, file);
+        MappedVehicleRoutingTransportCostsMatrix mapped = MappedVehicleRoutingTransportCostsMatrix.newInstance(file);
+        assertTrue(mapped.isSymmetric());
+        assertTrue(mapped.isFloatPrecision());
+        assertEquals(16 + 2 * 28 * 4, file.length());
+        assertSameValues(matrix, mapped);
+    }
+
+    @Test
+    public void whenMatrixIsMappedInSeveralChunks_itShouldReturnSameValues() throws IOException {
+        for (boolean isSymmetric : new boolean[]{false, true}) {
+            FastVehicleRoutingTransportCostsMatrix matrix = createMatrix(9, isSymmetric);
+            File file = folder.newFile();
+            new MappedVehicleRoutingTransportCostsMatrixWriter(false).write(matrix, file);
+            assertSameValues(matrix, new MappedVehicleRoutingTransportCostsMatrix(file, 3));
+        }
+    }
+
+    @Test
+    public void whenConvertingIdBasedMatrix_mappedMatrixShouldReturnSameValues() throws IOException {
+        VehicleRoutingTransportCostsMatrix matrix = VehicleRoutingTransportCostsMatrix.Builder.newInstance(false)
+            .addTransportDistance("a", "b", 10.).addTransportDistance("b", "a", 20.)
+            .addTransportTime("a", "b", 1.).addTransportTime("b", "a", 2.).build();
+        List<Location> locations = Arrays.asList(Location.newInstance("a"), Location.newInstance("b"));
+        File file = folder.newFile();
+        new MappedVehicleRoutingTransportCostsMatrixWriter(false).write(matrix, locations, false, file);
+        MappedVehicleRoutingTransportCostsMatrix mapped = MappedVehicleRoutingTransportCostsMatrix.newInstance(file);
+        assertEquals(10., mapped.getDistance(0, 1), 0.001);
+        assertEquals(20., mapped.getDistance(1, 0), 0.001);
+        assertEquals(0., mapped.getDistance(1, 1), 0.001);
+        assertEquals(2., mapped.getTransportTime(1, 0), 0.001);
+
+        Vehicle vehicle = mock(Vehicle.class);
+        VehicleType type = VehicleTypeImpl.Builder.newInstance("t").setCostPerDistance(1.).setCostPerTime(2.).build();
+        when(vehicle.getType()).thenReturn(type);
+        assertEquals(12., mapped.getTransportCost(loc(0), loc(1), 0., null, vehicle), 0.001);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void whenFileIsNoMatrix_itShouldThrowException() throws IOException {
+        File file = folder.newFile();
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            out.write(new byte[32]);
+        }
+        MappedVehicleRoutingTransportCostsMatrix.newInstance(file);
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void whenRelationIsOutOfBounds_itShouldThrowException() throws IOException {
+        File file = folder.newFile();
+        new MappedVehicleRoutingTransportCostsMatrixWriter(false).write(createMatrix(3, true), file);
+        MappedVehicleRoutingTransportCostsMatrix.newInstance(file).getDistance(3, 0);
+    }
+
+    private FastVehicleRoutingTransportCostsMatrix createMatrix(int noLocations, boolean isSymmetric) {
+        FastVehicleRoutingTransportCostsMatrix.Builder builder = FastVehicleRoutingTransportCostsMatrix.Builder.newInstance(noLocations, isSymmetric);
+        for (int from = 0; from < noLocations; from++) {
+            for (int to = 0; to < noLocations; to++) {
+                if (isSymmetric && to > from) continue;
+                builder.addTransportTimeAndDistance(from, to, from + 10 * to, 100 * from + to + 0.5);
+            }
+        }
+        return builder.build();
+    }
+
+    private void assertSameValues(FastVehicleRoutingTransportCostsMatrix expected, MappedVehicleRoutingTransportCostsMatrix actual) {
+        for (int from = 0; from < expected.getNoLocations(); from++) {
+            for (int to = 0; to < expected.getNoLocations(); to++) {
+                assertEquals(expected.getDistance(from, to), actual.getDistance(from, to), 0.001);
+                assertEquals(expected.getTransportTime(from, to), actual.getTransportTime(from, to), 0.001);
+                assertEquals(expected.getTransportTime(from, to), actual.getTransportTime(loc(from), loc(to), 0., null, null), 0.001);
+            }
+        }
+    }
+
+    private Location loc(int index) {
+        return Location.Builder.newInstance().setIndex(index).build();
+    }
+
+}
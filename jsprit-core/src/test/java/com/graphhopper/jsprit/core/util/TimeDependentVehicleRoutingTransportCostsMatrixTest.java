@@ -0,0 +1,123 @@
+/*
+ * Licensed to GraphHopper GmbH under one or more contributor
+ * license agreements. See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ *
+ * GraphHopper GmbH licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.graphhopper.jsprit.core.util;
+
+import com.graphhopper.jsprit.core.problem.Location;
+import com.graphhopper.jsprit.core.problem.vehicle.Vehicle;
+import com.graphhopper.jsprit.core.problem.vehicle.VehicleType;
+import com.graphhopper.jsprit.core.problem.vehicle.VehicleTypeImpl;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class TimeDependentVehicleRoutingTransportCostsMatrixTest {
+
+    private TimeDependentVehicleRoutingTransportCostsMatrix createRushHourMatrix() {
+        // 10 time units off-peak, 30 at the peak at 100, back to 10 at 150
+        return TimeDependentVehicleRoutingTransportCostsMatrix.Builder.newInstance(2)
+            .addTransportTimeProfile(0, 1, new double[]{50., 100., 150.}, new double[]{10., 30., 10.})
+            .addTransportDistance(0, 1, 5.)
+            .addTransportTime(1, 0, 7.)
+            .build();
+    }
+
+    @Test
+    public void transportTimeShouldBeInterpolatedBetweenBreakpoints() {
+        TimeDependentVehicleRoutingTransportCostsMatrix matrix = createRushHourMatrix();
+        assertEquals(10., matrix.getTransportTime(0, 1, 0.), 0.001);
+        assertEquals(10., matrix.getTransportTime(0, 1, 50.), 0.001);
+        assertEquals(20., matrix.getTransportTime(0, 1, 75.), 0.001);
+        assertEquals(30., matrix.getTransportTime(0, 1, 100.), 0.001);
+        assertEquals(14., matrix.getTransportTime(0, 1, 140.), 0.001);
+        assertEquals(10., matrix.getTransportTime(0, 1, 1000.), 0.001);
+        assertEquals(7., matrix.getTransportTime(loc(1), loc(0), 120., null, null), 0.001);
+        assertEquals(0., matrix.getTransportTime(1, 1, 120.), 0.001);
+    }
+
+    @Test
+    public void backwardTransportTimeShouldBeInverseOfForwardTransportTime() {
+        TimeDependentVehicleRoutingTransportCostsMatrix matrix = createRushHourMatrix();
+        Random random = new Random(4711);
+        for (int i = 0; i < 1000; i++) {
+            double departureTime = random.nextDouble() * 250.;
+            double transportTime = matrix.getTransportTime(0, 1, departureTime);
+            assertEquals(transportTime, matrix.getBackwardTransportTime(0, 1, departureTime + transportTime), 0.001);
+            assertEquals(transportTime, matrix.getBackwardTransportTime(loc(0), loc(1), departureTime + transportTime, null, null), 0.001);
+        }
+    }
+
+    @Test
+    public void whenArrivalTimeIsReachedBySeveralDepartureTimes_backwardQueryShouldReturnAValidTransportTime() {
+        // departing anywhere in [0,10] arrives at 20
+        TimeDependentVehicleRoutingTransportCostsMatrix matrix = TimeDependentVehicleRoutingTransportCostsMatrix.Builder.newInstance(2)
+            .addTransportTimeProfile(0, 1, new double[]{0., 10., 20.}, new double[]{20., 10., 10.}).build();
+        double transportTime = matrix.getBackwardTransportTime(0, 1, 20.);
+        assertEquals(transportTime, matrix.getTransportTime(0, 1, 20. - transportTime), 0.001);
+        assertEquals(10., matrix.getBackwardTransportTime(0, 1, 25.), 0.001);
+    }
+
+    @Test
+    public void transportCostsShouldDependOnDepartureTime() {
+        TimeDependentVehicleRoutingTransportCostsMatrix matrix = createRushHourMatrix();
+        Vehicle vehicle = mock(Vehicle.class);
+        VehicleType type = VehicleTypeImpl.Builder.newInstance("t").setCostPerDistance(2.).setCostPerTime(1.).build();
+        when(vehicle.getType()).thenReturn(type);
+        assertEquals(20., matrix.getTransportCost(loc(0), loc(1), 0., null, vehicle), 0.001);
+        assertEquals(40., matrix.getTransportCost(loc(0), loc(1), 100., null, vehicle), 0.001);
+        assertEquals(40., matrix.getBackwardTransportCost(loc(0), loc(1), 130., null, vehicle), 0.001);
+        assertEquals(5., matrix.getDistance(loc(0), loc(1), 100., vehicle), 0.001);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void whenProfileViolatesFIFO_itShouldThrowException() {
+        TimeDependentVehicleRoutingTransportCostsMatrix.Builder.newInstance(2)
+            .addTransportTimeProfile(0, 1, new double[]{0., 10.}, new double[]{30., 10.});
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void whenDepartureTimesAreNotAscending_itShouldThrowException() {
+        TimeDependentVehicleRoutingTransportCostsMatrix.Builder.newInstance(2)
+            .addTransportTimeProfile(0, 1, new double[]{10., 10.}, new double[]{10., 10.});
+    }
+
+    @Test
+    public void whenProfileIsAddedTwice_lastProfileShouldBeUsed() {
+        double[] departureTimes = {0., 100.};
+        double[] transportTimes = {10., 20.};
+        TimeDependentVehicleRoutingTransportCostsMatrix.Builder builder = TimeDependentVehicleRoutingTransportCostsMatrix.Builder.newInstance(3)
+            .addTransportTime(2, 1, 5.)
+            .addTransportTimeProfile(0, 1, departureTimes, transportTimes)
+            .addTransportTime(1, 2, 3.)
+            .addTransportTime(0, 1, 8.);
+        departureTimes[1] = 50.;
+        TimeDependentVehicleRoutingTransportCostsMatrix matrix = builder.build();
+        assertEquals(8., matrix.getTransportTime(0, 1, 100.), 0.001);
+        assertEquals(3., matrix.getTransportTime(1, 2, 100.), 0.001);
+        assertEquals(5., matrix.getTransportTime(2, 1, 100.), 0.001);
+        assertEquals(0., matrix.getTransportTime(1, 0, 100.), 0.001);
+    }
+
+    private Location loc(int index) {
+        return Location.Builder.newInstance().setIndex(index).build();
+    }
+
+}
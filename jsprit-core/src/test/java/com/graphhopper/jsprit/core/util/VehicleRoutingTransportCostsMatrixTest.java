@@ -18,11 +18,17 @@
 package com.graphhopper.jsprit.core.util;
 
 import com.graphhopper.jsprit.core.problem.Location;
+import com.graphhopper.jsprit.core.problem.cost.TransportCostsHolder;
+import com.graphhopper.jsprit.core.problem.cost.TransportCostsQueries;
+import com.graphhopper.jsprit.core.problem.cost.VehicleRoutingTransportCosts;
 import com.graphhopper.jsprit.core.problem.vehicle.Vehicle;
 import com.graphhopper.jsprit.core.problem.vehicle.VehicleType;
 import com.graphhopper.jsprit.core.problem.vehicle.VehicleTypeImpl;
 import org.junit.Test;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import static org.junit.Assert.assertEquals;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
@@ -258,4 +264,95 @@ public class VehicleRoutingTransportCostsMatrixTest {
         assertEquals(1., matrix.getTransportCost(loc("to"), loc("from"), 0.0, null, vehicle), 0.1);
     }
 
+    @Test
+    public void whenLocationIndicesAreAssigned_locationsWithAndWithoutIndexShouldReturnSameValues() {
+        VehicleRoutingTransportCostsMatrix matrix = VehicleRoutingTransportCostsMatrix.Builder.newInstance(false)
+            .setLocationIndex("to", 0).setLocationIndex("from", 3)
+            .addTransportDistance("from", "to", 2.).addTransportDistance("to", "from", 4.)
+            .addTransportDistance("from", "other", 6.).build();
+        assertEquals(0, matrix.getLocationIndex("to"));
+        assertEquals(3, matrix.getLocationIndex("from"));
+        assertEquals(1, matrix.getLocationIndex("other"));
+        assertEquals(-1, matrix.getLocationIndex("unknown"));
+        assertEquals(4, matrix.getNoLocations());
+        Location from = Location.Builder.newInstance().setId("from").setIndex(3).build();
+        Location to = Location.Builder.newInstance().setId("to").setIndex(0).build();
+        assertEquals(2., matrix.getDistance(from, to, 0., null), 0.001);
+        assertEquals(4., matrix.getDistance(to, from, 0., null), 0.001);
+        assertEquals(2., matrix.getDistance(loc("from"), loc("to"), 0., null), 0.001);
+        assertEquals(6., matrix.getDistance(from, loc("other"), 0., null), 0.001);
+    }
+
+    @Test
+    public void whenLocationIndexBelongsToAnotherId_itShouldLookUpTheId() {
+        VehicleRoutingTransportCostsMatrix matrix = VehicleRoutingTransportCostsMatrix.Builder.newInstance(true)
+            .addTransportTime("a", "b", 2.).addTransportTime("b", "c", 4.).build();
+        Location b = Location.Builder.newInstance().setId("b").setIndex(0).build();
+        Location c = Location.Builder.newInstance().setId("c").setIndex(1).build();
+        assertEquals(4., matrix.getTransportTime(b, c, 0., null, null), 0.001);
+        assertEquals(4., matrix.getTransportTime(c, b, 0., null, null), 0.001);
+        assertEquals(0., matrix.getTransportTime(c, c, 0., null, null), 0.001);
+    }
+
+    @Test
+    public void whenLocationsWithoutMatchingIndexAreQueriedRepeatedly_itShouldReturnTheValuesOfTheirIds() {
+        VehicleRoutingTransportCostsMatrix.Builder matrixBuilder = VehicleRoutingTransportCostsMatrix.Builder.newInstance(false);
+        for (int i = 0; i < 50; i++) {
+            matrixBuilder.addTransportDistance("l" + i, "l" + (i + 1) % 50, i);
+        }
+        VehicleRoutingTransportCostsMatrix matrix = matrixBuilder.build();
+        List<Location> locations = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            locations.add(Location.Builder.newInstance().setId("l" + i % 50).setIndex(49 - i % 50).build());
+        }
+        for (int round = 0; round < 3; round++) {
+            for (int i = 0; i < 200; i++) {
+                assertEquals(i % 50, matrix.getDistance(locations.get(i), locations.get((i + 1) % 200), 0., null), 0.001);
+            }
+        }
+    }
+
+    @Test
+    public void whenRelationIsAddedInOppositeDirectionToSymmetricMatrix_itShouldOverrideTheValue() {
+        VehicleRoutingTransportCostsMatrix matrix = VehicleRoutingTransportCostsMatrix.Builder.newInstance(true)
+            .addTransportDistance("a", "b", 1.).addTransportDistance("b", "a", 3.).build();
+        assertEquals(3., matrix.getDistance("a", "b"), 0.001);
+        assertEquals(3., matrix.getDistance("b", "a"), 0.001);
+    }
+
+    @Test
+    public void combinedQueryShouldReturnSameValuesAsSingleQueries() {
+        VehicleRoutingTransportCostsMatrix matrix = VehicleRoutingTransportCostsMatrix.Builder.newInstance(false)
+            .addTransportDistance("from", "to", 2.).addTransportTime("from", "to", 4.).build();
+        Vehicle vehicle = mock(Vehicle.class);
+        VehicleType type = VehicleTypeImpl.Builder.newInstance("t").setCostPerDistance(1.).setCostPerTime(2.).build();
+        when(vehicle.getType()).thenReturn(type);
+        TransportCostsHolder holder = new TransportCostsHolder();
+        matrix.getTransportCosts(loc("from"), loc("to"), 0., null, vehicle, holder);
+        assertEquals(4., holder.getTransportTime(), 0.001);
+        assertEquals(2., holder.getDistance(), 0.001);
+        assertEquals(10., holder.getTransportCost(), 0.001);
+        matrix.getTransportCosts(loc("to"), loc("to"), 0., null, vehicle, holder);
+        assertEquals(0., holder.getTransportCost(), 0.001);
+    }
+
+    @Test
+    public void whenCostsAreNotCombined_queryShouldFallBackToSingleQueries() {
+        VehicleRoutingTransportCosts costs = mock(VehicleRoutingTransportCosts.class);
+        when(costs.getTransportTime(loc("from"), loc("to"), 1., null, null)).thenReturn(4.);
+        when(costs.getDistance(loc("from"), loc("to"), 1., null)).thenReturn(2.);
+        when(costs.getTransportCost(loc("from"), loc("to"), 1., null, null)).thenReturn(6.);
+        TransportCostsHolder holder = new TransportCostsHolder();
+        TransportCostsQueries.getTransportCosts(costs, loc("from"), loc("to"), 1., null, null, holder);
+        assertEquals(4., holder.getTransportTime(), 0.001);
+        assertEquals(2., holder.getDistance(), 0.001);
+        assertEquals(6., holder.getTransportCost(), 0.001);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void whenTwoIdsAreAssignedToTheSameIndex_itShouldThrowException() {
+        VehicleRoutingTransportCostsMatrix.Builder.newInstance(false)
+            .setLocationIndex("a", 1).setLocationIndex("b", 1).addTransportDistance("a", "b", 1.).build();
+    }
+
 }
@@ -0,0 +1,115 @@
+/*
+ * Licensed to GraphHopper GmbH under one or more contributor
+ * license agreements. See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ *
+ * GraphHopper GmbH licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.graphhopper.jsprit.core.util;
+
+import com.graphhopper.jsprit.core.problem.Location;
+import com.graphhopper.jsprit.core.problem.VehicleRoutingProblem;
+import com.graphhopper.jsprit.core.problem.cost.TransportCostsHolder;
+import com.graphhopper.jsprit.core.problem.vehicle.VehicleImpl;
+import com.graphhopper.jsprit.core.problem.vehicle.VehicleType;
+import com.graphhopper.jsprit.core.problem.vehicle.VehicleTypeImpl;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+public class VehicleTypeDependentTransportCostsMatrixTest {
+
+    private FastVehicleRoutingTransportCostsMatrix car;
+
+    private FastVehicleRoutingTransportCostsMatrix bike;
+
+    private VehicleImpl van;
+
+    private VehicleImpl otherVan;
+
+    private VehicleImpl eBike;
+
+    private VehicleImpl truck;
+
+    @Before
+    public void doBefore() {
+        car = FastVehicleRoutingTransportCostsMatrix.Builder.newInstance(2, false)
+            .addTransportTimeAndDistance(0, 1, 10., 20.).addTransportTimeAndDistance(1, 0, 12., 22.).build();
+        bike = FastVehicleRoutingTransportCostsMatrix.Builder.newInstance(2, false)
+            .addTransportTimeAndDistance(0, 1, 30., 15.).addTransportTimeAndDistance(1, 0, 35., 16.).build();
+        VehicleType vanType = VehicleTypeImpl.Builder.newInstance("van").setCostPerDistance(1.).setCostPerTime(2.).build();
+        VehicleType bikeType = VehicleTypeImpl.Builder.newInstance("e-bike").setCostPerDistance(0.5).setCostPerTime(1.).build();
+        VehicleType truckType = VehicleTypeImpl.Builder.newInstance("truck").setCostPerDistance(3.).setCostPerTime(2.).build();
+        van = VehicleImpl.Builder.newInstance("van").setType(vanType).setStartLocation(loc(0)).build();
+        otherVan = VehicleImpl.Builder.newInstance("otherVan").setType(vanType).setStartLocation(loc(1)).build();
+        eBike = VehicleImpl.Builder.newInstance("eBike").setType(bikeType).setStartLocation(loc(0)).build();
+        truck = VehicleImpl.Builder.newInstance("truck").setType(truckType).setStartLocation(loc(0)).build();
+        VehicleRoutingProblem.Builder.newInstance().addVehicle(van).addVehicle(otherVan).addVehicle(eBike).addVehicle(truck).build();
+    }
+
+    private VehicleTypeDependentTransportCostsMatrix createMatrix(boolean precomputeCosts) {
+        return VehicleTypeDependentTransportCostsMatrix.Builder.newInstance()
+            .addProfile("car", car).addProfile("bike", bike)
+            .setProfile("e-bike", "bike").setDefaultProfile("car")
+            .setPrecomputeCosts(precomputeCosts).build();
+    }
+
+    @Test
+    public void eachVehicleShouldBeServedByTheProfileOfItsType() {
+        for (boolean precomputeCosts : new boolean[]{false, true}) {
+            VehicleTypeDependentTransportCostsMatrix matrix = createMatrix(precomputeCosts);
+            assertSame(car, matrix.getMatrix(van));
+            assertSame(car, matrix.getMatrix(truck));
+            assertSame(bike, matrix.getMatrix(eBike));
+            assertEquals(10., matrix.getTransportTime(loc(0), loc(1), 0., null, van), 0.001);
+            assertEquals(30., matrix.getTransportTime(loc(0), loc(1), 0., null, eBike), 0.001);
+            assertEquals(16., matrix.getDistance(loc(1), loc(0), 0., eBike), 0.001);
+            assertEquals(40., matrix.getTransportCost(loc(0), loc(1), 0., null, van), 0.001);
+            assertEquals(46., matrix.getTransportCost(loc(1), loc(0), 0., null, otherVan), 0.001);
+            assertEquals(37.5, matrix.getTransportCost(loc(0), loc(1), 0., null, eBike), 0.001);
+            assertEquals(80., matrix.getTransportCost(loc(0), loc(1), 0., null, truck), 0.001);
+
+            TransportCostsHolder holder = new TransportCostsHolder();
+            matrix.getTransportCosts(loc(1), loc(0), 0., null, eBike, holder);
+            assertEquals(35., holder.getTransportTime(), 0.001);
+            assertEquals(16., holder.getDistance(), 0.001);
+            assertEquals(43., holder.getTransportCost(), 0.001);
+        }
+    }
+
+    @Test
+    public void withoutVehicle_defaultProfileShouldBeQueried() {
+        VehicleTypeDependentTransportCostsMatrix matrix = createMatrix(true);
+        assertEquals(10., matrix.getTransportTime(loc(0), loc(1), 0., null, null), 0.001);
+        assertEquals(20., matrix.getTransportCost(loc(0), loc(1), 0., null, null), 0.001);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void whenTypeHasNoProfileAndThereIsNoDefault_itShouldThrowException() {
+        VehicleTypeDependentTransportCostsMatrix matrix = VehicleTypeDependentTransportCostsMatrix.Builder.newInstance()
+            .addProfile("bike", bike).setProfile("e-bike", "bike").build();
+        matrix.getTransportTime(loc(0), loc(1), 0., null, van);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void whenProfileHasNotBeenAdded_itShouldThrowException() {
+        VehicleTypeDependentTransportCostsMatrix.Builder.newInstance().addProfile("car", car).setProfile("e-bike", "bike").build();
+    }
+
+    private Location loc(int index) {
+        return Location.Builder.newInstance().setIndex(index).build();
+    }
+
+}